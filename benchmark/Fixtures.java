@@ -0,0 +1,110 @@
+package benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import ilog.concert.IloException;
+import modelGeneration.ModelContext;
+import modelGeneration.ModelGenerationRefrigeration;
+import modelGeneration.OptimizationModel;
+import modelGeneration.OptimizationModelRefrigeration;
+import systemParameterExtraction.ReadParametersFromDataModel;
+import systemParameterModel.SystemParameters;
+
+/**
+ * The Class Fixtures.
+ *
+ * Loads the checked-in input data of the chp and refrigeration system for the benchmarks. CHP_SEGMENTS is the chp
+ * system with the linear relationships of its resources replaced by continuous segments over ranges of the input. File paths are relative to
+ * the system property fixtures.root, by default "src/" as in the models.
+ */
+public class Fixtures {
+
+	/** The Constant CHP. */
+	public static final String CHP = "chp";
+
+	/** The Constant CHP_SEGMENTS, the chp system with segments over ranges of the input. */
+	public static final String CHP_SEGMENTS = "chpSegments";
+
+	/** The Constant REFRIGERATION. */
+	public static final String REFRIGERATION = "refrigeration";
+
+	/** The Constant CHP_SYSTEM_PARAMETERS. */
+	public static final String CHP_SYSTEM_PARAMETERS = "input_chp/systemParameters_2024-01-18_13-47-12.json";
+
+	/** The Constant CHP_SEGMENTS_SYSTEM_PARAMETERS. */
+	public static final String CHP_SEGMENTS_SYSTEM_PARAMETERS = "input_chp/systemParameters_2024-01-18_13-47-12_segments.json";
+
+	/** The system parameters by fixture, derived once per JVM. */
+	private static final Map<String, SystemParameters> systemParametersByFixture = new HashMap<String, SystemParameters>();
+
+	/**
+	 * Gets the path of a fixture file.
+	 *
+	 * @param relativePath the path relative to the repository
+	 * @return the file path
+	 */
+	public static String getFilePath (String relativePath) {
+		return System.getProperty("fixtures.root", "src/") + relativePath;
+	}
+
+	/**
+	 * Gets the system parameters of a fixture. The chp parameters are read from JSON, the refrigeration parameters are
+	 * derived from the time series with ModelGenerationRefrigeration, which uses the static state of the extraction
+	 * and is therefore only called once per JVM.
+	 *
+	 * @param fixture the fixture, CHP, CHP_SEGMENTS or REFRIGERATION
+	 * @return the system parameters
+	 */
+	public static synchronized SystemParameters getSystemParameters (String fixture) {
+		SystemParameters systemParameters = systemParametersByFixture.get(fixture);
+		if (systemParameters == null) {
+			switch (fixture) {
+			case CHP:
+				systemParameters = ReadParametersFromDataModel.readJson(getFilePath(CHP_SYSTEM_PARAMETERS));
+				break;
+			case CHP_SEGMENTS:
+				systemParameters = ReadParametersFromDataModel.readJson(getFilePath(CHP_SEGMENTS_SYSTEM_PARAMETERS));
+				break;
+			case REFRIGERATION:
+				systemParameters = ModelGenerationRefrigeration.deriveSystemParameters();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown fixture " + fixture);
+			}
+			systemParametersByFixture.put(fixture, systemParameters);
+		}
+		return systemParameters;
+	}
+
+	/**
+	 * Creates a model context for a fixture and horizon.
+	 *
+	 * @param fixture the fixture
+	 * @param horizon the horizon in # of time steps
+	 * @return the model context
+	 */
+	public static ModelContext createContext (String fixture, int horizon) {
+		ModelContext context = new ModelContext(getSystemParameters(fixture));
+		context.setArrayLength(horizon);
+		if (REFRIGERATION.equals(fixture)) {
+			context.setSystemTargets(OptimizationModelRefrigeration.getDefaultSystemTargets());
+		}
+		return context;
+	}
+
+	/**
+	 * Builds the optimization model of a fixture.
+	 *
+	 * @param fixture the fixture
+	 * @param context the model context
+	 * @throws IloException the ilo exception
+	 */
+	public static void buildOptModel (String fixture, ModelContext context) throws IloException {
+		if (CHP.equals(fixture) || CHP_SEGMENTS.equals(fixture)) {
+			OptimizationModel.buildOptModel(context);
+		} else {
+			OptimizationModelRefrigeration.buildOptModel(context);
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import designpatterns.DesignPatterns;
+import ilog.concert.IloException;
+import modelGeneration.ModelContext;
+import modelGeneration.OptimizationModel;
+import modelGeneration.OptimizationModelRefrigeration;
+
+/**
+ * The Class ModelBuildBenchmark.
+ *
+ * Measures building the optimization model with the design patterns and, separately, setting up the dependencies,
+ * for the chp and the refrigeration fixture (different numbers of resources) and horizons of 1, 7 and 30 days at 15 min.
+ * Every invocation builds into a new model context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class ModelBuildBenchmark {
+
+	/** The fixture. */
+	@Param({Fixtures.CHP, Fixtures.REFRIGERATION})
+	public String fixture;
+
+	/** The horizon in # of time steps. */
+	@Param({"96", "672", "2880"})
+	public int horizon;
+
+	/** The model context of the invocation. */
+	private ModelContext context;
+
+	/**
+	 * Creates the model context.
+	 */
+	@Setup(Level.Invocation)
+	public void setUp () {
+		context = Fixtures.createContext(fixture, horizon);
+	}
+
+	/**
+	 * Closes the model context.
+	 */
+	@TearDown(Level.Invocation)
+	public void tearDown () {
+		context.close();
+	}
+
+	/**
+	 * Builds the complete model: decision variables, design patterns, dependencies and objective.
+	 *
+	 * @return the model context
+	 * @throws IloException the ilo exception
+	 */
+	@Benchmark
+	public ModelContext buildOptModel () throws IloException {
+		Fixtures.buildOptModel(fixture, context);
+		return context;
+	}
+
+	/**
+	 * Sets up the dependencies of the model. The decision variables are created beforehand in the same invocation,
+	 * so this includes creating them.
+	 *
+	 * @return the model context
+	 * @throws IloException the ilo exception
+	 */
+	@Benchmark
+	public ModelContext creationOfDecisionVariablesAndDependencies () throws IloException {
+		context.bind();
+		try {
+			if (Fixtures.CHP.equals(fixture)) {
+				DesignPatterns.creationOfDecisionVariables_Names(context.getSystemParameters().getMaxPowerSystemInput().get(0));
+				OptimizationModel.setUpDependencies(context.getSystemParameters());
+			} else {
+				DesignPatterns.creationOfDecisionVariables_Names(-1);
+				OptimizationModelRefrigeration.setUpDependencies(context.getSystemParameters());
+			}
+		} finally {
+			context.unbind();
+		}
+		return context;
+	}
+
+	/**
+	 * Creates the decision variables only, the baseline of creationOfDecisionVariablesAndDependencies().
+	 *
+	 * @return the model context
+	 * @throws IloException the ilo exception
+	 */
+	@Benchmark
+	public ModelContext creationOfDecisionVariables () throws IloException {
+		context.bind();
+		try {
+			if (Fixtures.CHP.equals(fixture)) {
+				DesignPatterns.creationOfDecisionVariables_Names(context.getSystemParameters().getMaxPowerSystemInput().get(0));
+			} else {
+				DesignPatterns.creationOfDecisionVariables_Names(-1);
+			}
+		} finally {
+			context.unbind();
+		}
+		return context;
+	}
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+import modelGeneration.ModelContext;
+import modelGeneration.PiecewiseLinearFormulation;
+import modelGeneration.PiecewiseLinearFormulation.Encoding;
+
+/**
+ * The Class PlaEncodingComparison.
+ *
+ * Builds the chp model, the chp model with segments over ranges of the input and the refrigeration model with every
+ * encoding of PiecewiseLinearFormulation for all resources and prints the bound at the root node, the objective value,
+ * the best bound and the wall time of the solve, one line per fixture and encoding:
+ * fixture;horizon;encoding;rootBound;objective;bestBound;gap;wallTimeMs. The root bound is taken from a separate solve
+ * limited to the root node; the model is built into a new model context for every solve. Resources whose segments
+ * cannot be encoded, e.g. one linear relationship over the whole power range, keep DESIGN_PATTERNS in all lines; in the
+ * chp fixture this holds for all resources, so the encodings are compared on CHP_SEGMENTS.
+ *
+ * <pre>
+ * java benchmark.PlaEncodingComparison [horizon] [timeLimit in s]
+ * </pre>
+ */
+public class PlaEncodingComparison {
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the horizon in # of time steps (default 96) and the time limit in s (default 300)
+	 */
+	public static void main(String[] args) {
+		int horizon = args.length > 0 ? Integer.parseInt(args[0]) : 96;
+		double timeLimit = args.length > 1 ? Double.parseDouble(args[1]) : 300;
+
+		System.out.println("fixture;horizon;encoding;rootBound;objective;bestBound;gap;wallTimeMs");
+		for (String fixture : new String[] {Fixtures.CHP, Fixtures.CHP_SEGMENTS, Fixtures.REFRIGERATION}) {
+			for (Encoding encoding : Encoding.values()) {
+				try {
+					double rootBound = solve(fixture, horizon, encoding, timeLimit, true)[1];
+					double[] result = solve(fixture, horizon, encoding, timeLimit, false);
+					System.out.println(fixture + ";" + horizon + ";" + encoding + ";" + rootBound + ";" + result[0] + ";"
+							+ result[1] + ";" + result[2] + ";" + (long) result[3]);
+				} catch (IloException e) {
+					e.printStackTrace();
+					System.err.println("Model of fixture " + fixture + " could not be solved with encoding " + encoding);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds and solves the model of a fixture with one encoding for all resources.
+	 *
+	 * @param fixture the fixture
+	 * @param horizon the horizon in # of time steps
+	 * @param encoding the encoding
+	 * @param timeLimit the time limit in s
+	 * @param rootOnly whether to stop after the root node
+	 * @return the objective value, the best bound, the relative gap and the wall time of the solve in ms; NaN where no solution or bound was found
+	 * @throws IloException the ilo exception
+	 */
+	static double[] solve (String fixture, int horizon, Encoding encoding, double timeLimit, boolean rootOnly) throws IloException {
+		ModelContext context = Fixtures.createContext(fixture, horizon);
+		context.getPlaEncodings().put(PiecewiseLinearFormulation.DEFAULT_KEY, encoding);
+		try {
+			Fixtures.buildOptModel(fixture, context);
+			IloCplex cplex = context.getCplex();
+			cplex.setParam(IloCplex.Param.TimeLimit, timeLimit);
+			if (rootOnly) {
+				cplex.setParam(IloCplex.Param.MIP.Limits.Nodes, 0L);
+			}
+			long start = System.nanoTime();
+			boolean solved = cplex.solve();
+			double wallTimeMs = (System.nanoTime() - start) / 1e6;
+			double bestBound;
+			try {
+				// also available if the root node found no solution
+				bestBound = cplex.getBestObjValue();
+			} catch (IloException e) {
+				bestBound = Double.NaN;
+			}
+			if (!solved) {
+				return new double[] {Double.NaN, bestBound, Double.NaN, wallTimeMs};
+			}
+			return new double[] {cplex.getObjValue(), bestBound, cplex.getMIPRelativeGap(), wallTimeMs};
+		} finally {
+			context.close();
+		}
+	}
+}
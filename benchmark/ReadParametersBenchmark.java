@@ -0,0 +1,53 @@
+package benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import modelGeneration.SystemTarget;
+import systemParameterExtraction.ReadParametersFromDataModel;
+import systemParameterModel.SystemParameters;
+
+/**
+ * The Class ReadParametersBenchmark.
+ *
+ * Measures reading the system parameters of the chp fixture with ReadParametersFromDataModel.readJson() and reading
+ * the system targets of the same file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ReadParametersBenchmark {
+
+	/**
+	 * Reads the system parameters.
+	 *
+	 * @return the system parameters
+	 */
+	@Benchmark
+	public SystemParameters readJson () {
+		return ReadParametersFromDataModel.readJson(Fixtures.getFilePath(Fixtures.CHP_SYSTEM_PARAMETERS));
+	}
+
+	/**
+	 * Reads the system targets.
+	 *
+	 * @return the system targets
+	 */
+	@Benchmark
+	public List<SystemTarget> readSystemTargets () {
+		return SystemTarget.readSystemTargets(Fixtures.getFilePath(Fixtures.CHP_SYSTEM_PARAMETERS));
+	}
+}
@@ -0,0 +1,124 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+import modelGeneration.BinaryResultSink;
+import modelGeneration.CsvResultSink;
+import modelGeneration.ModelContext;
+import modelGeneration.ResultStore;
+
+/**
+ * The Class ResultBenchmark.
+ *
+ * Measures result extraction (saveResults()) and result writing with the CSV and binary sink. The model of the fixture
+ * is built and solved once per trial, with a time limit, since only the size of the solution matters here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ResultBenchmark {
+
+	/** The Constant TIME_LIMIT in s. */
+	static final double TIME_LIMIT = 60;
+
+	/** The fixture. */
+	@Param({Fixtures.CHP, Fixtures.REFRIGERATION})
+	public String fixture;
+
+	/** The horizon in # of time steps. */
+	@Param({"96", "672", "2880"})
+	public int horizon;
+
+	/** The solved model context. */
+	private ModelContext context;
+
+	/** The extracted results. */
+	private ResultStore optimizationResults;
+
+	/** The file path of the written results, without extension. */
+	private String filePath;
+
+	/**
+	 * Builds and solves the model.
+	 *
+	 * @throws IloException the ilo exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Setup
+	public void setUp () throws IloException, IOException {
+		context = Fixtures.createContext(fixture, horizon);
+		Fixtures.buildOptModel(fixture, context);
+		context.getCplex().setParam(IloCplex.Param.TimeLimit, TIME_LIMIT);
+		context.getCplex().setParam(IloCplex.Param.MIP.Tolerances.MIPGap, 0.01);
+		if (!context.getCplex().solve()) {
+			throw new IllegalStateException("Model of fixture " + fixture + " with horizon " + horizon + " not solved");
+		}
+		optimizationResults = ResultStore.extract(context);
+
+		File file = File.createTempFile("results_" + fixture + "_" + horizon + "_", "");
+		file.delete();
+		filePath = file.getPath();
+	}
+
+	/**
+	 * Closes the model context and deletes the written results.
+	 */
+	@TearDown
+	public void tearDown () {
+		context.close();
+		new File(filePath + ".csv").delete();
+		new File(filePath + ".omrs").delete();
+	}
+
+	/**
+	 * Extracts the results of all decision variables.
+	 *
+	 * @return the results
+	 */
+	@Benchmark
+	public ResultStore saveResults () {
+		return ResultStore.extract(context);
+	}
+
+	/**
+	 * Writes the results as CSV.
+	 *
+	 * @return the file name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public String writeCsv () throws IOException {
+		return new CsvResultSink().write(optimizationResults, horizon, filePath);
+	}
+
+	/**
+	 * Writes the results in the binary format.
+	 *
+	 * @return the file name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Benchmark
+	public String writeBinary () throws IOException {
+		return new BinaryResultSink().write(optimizationResults, horizon, filePath);
+	}
+}
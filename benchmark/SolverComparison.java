@@ -0,0 +1,57 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+import modelGeneration.CplexSolver;
+import modelGeneration.MipSolver;
+import modelGeneration.OjAlgoSolver;
+import modelGeneration.ModelContext;
+import modelGeneration.SolverResult;
+
+/**
+ * The Class SolverComparison.
+ *
+ * Solves the chp and the refrigeration model with every solver and prints objective value and wall time, one line
+ * per fixture and solver: fixture;horizon;solver;status;objective;wallTimeMs. The model is built into a new model
+ * context for every solver; both solvers stop at the optimality gap of the context. All solvers need the CPLEX library,
+ * since the model is built with cplex; OjAlgoSolver only replaces the optimizer, on the model exported as MPS.
+ *
+ * <pre>
+ * java benchmark.SolverComparison [horizon] [timeLimit in s]
+ * </pre>
+ */
+public class SolverComparison {
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the horizon in # of time steps (default 96) and the time limit in s (default 300)
+	 */
+	public static void main(String[] args) {
+		int horizon = args.length > 0 ? Integer.parseInt(args[0]) : 96;
+		double timeLimit = args.length > 1 ? Double.parseDouble(args[1]) : 300;
+		List<MipSolver> solvers = Arrays.<MipSolver>asList(new CplexSolver(), new OjAlgoSolver(timeLimit));
+
+		System.out.println("fixture;horizon;solver;status;objective;wallTimeMs");
+		for (String fixture : new String[] {Fixtures.CHP, Fixtures.REFRIGERATION}) {
+			for (MipSolver solver : solvers) {
+				ModelContext context = Fixtures.createContext(fixture, horizon);
+				try {
+					Fixtures.buildOptModel(fixture, context);
+					context.getCplex().setParam(IloCplex.Param.TimeLimit, timeLimit);
+					SolverResult result = solver.solve(context);
+					System.out.println(fixture + ";" + horizon + ";" + result.getSolverName() + ";" + result.getStatus() + ";"
+							+ result.getObjectiveValue() + ";" + result.getWallTimeNanos() / 1000000);
+				} catch (IloException e) {
+					e.printStackTrace();
+					System.err.println("Model of fixture " + fixture + " could not be solved with " + solver.getName());
+				} finally {
+					context.close();
+				}
+			}
+		}
+	}
+}
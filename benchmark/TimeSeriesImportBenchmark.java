@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import modelGeneration.TimeSeriesLoader;
+import modelGeneration.TimeSeriesRepository;
+
+/**
+ * The Class TimeSeriesImportBenchmark.
+ *
+ * Measures the import of a time series of horizon values, taken from the first lines of input_refrigeration/inp_comp1.csv:
+ * parsing with TimeSeriesLoader (as importTSD() without cache) and a lookup in the TimeSeriesRepository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TimeSeriesImportBenchmark {
+
+	/** The Constant SOURCE. */
+	static final String SOURCE = "input_refrigeration/inp_comp1.csv";
+
+	/** The horizon in # of time steps. */
+	@Param({"96", "672", "2880"})
+	public int horizon;
+
+	/** The time series file of the horizon. */
+	private File file;
+
+	/** The repository. */
+	private TimeSeriesRepository repository;
+
+	/**
+	 * Writes the first horizon lines of the source to a temporary file.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Setup
+	public void setUp () throws IOException {
+		List<String> lines = Files.readAllLines(Paths.get(Fixtures.getFilePath(SOURCE)), StandardCharsets.UTF_8);
+		file = File.createTempFile("timeSeries_" + horizon + "_", ".csv");
+		Files.write(file.toPath(), lines.subList(0, Math.min(horizon, lines.size())), StandardCharsets.UTF_8);
+		repository = new TimeSeriesRepository(TimeSeriesRepository.DEFAULT_MEMORY_BUDGET);
+		repository.get(file.getPath());
+	}
+
+	/**
+	 * Deletes the temporary file.
+	 */
+	@TearDown
+	public void tearDown () {
+		file.delete();
+	}
+
+	/**
+	 * Parses the file.
+	 *
+	 * @return the values
+	 */
+	@Benchmark
+	public double[] load () {
+		return TimeSeriesLoader.load(file.getPath());
+	}
+
+	/**
+	 * Gets the cached values, including the check of the modification time.
+	 *
+	 * @return the values
+	 */
+	@Benchmark
+	public double[] repository () {
+		return repository.get(file.getPath());
+	}
+}
@@ -0,0 +1,122 @@
+package modelGeneration;
+
+import java.util.Arrays;
+
+import ilog.concert.IloException;
+
+/**
+ * Long-horizon planning of OptimizationModelRefrigeration with representative periods.
+ *
+ * The electricity price of the horizon is clustered into representative periods with TemporalAggregation. The
+ * measured output of the system is not clustered as demand: the electricity price of DesignPatterns has no time
+ * stamps, so the two series cannot be aligned to the same calendar start, and periods with features of unrelated
+ * days would be mixed. Further series can be passed to runAggregated() if they are aligned with the price. The model
+ * is built over the representative periods only, with the objective and whole-horizon system targets weighted by the
+ * number of periods each representative period stands for and with storages linked across the original periods.
+ * The results are mapped back to the full horizon and written to one results file.
+ */
+public class AggregatedHorizonRefrigeration {
+
+	/** The Constant SYSTEM_NAME. */
+	static final String SYSTEM_NAME = "refrigeration";
+
+	/** The horizon in h. */
+	static double horizonInH = 24*28;
+
+	/** The period length in h. */
+	static double periodLengthInH = 24;
+
+	/** The number of representative periods. */
+	static int numberOfRepresentativePeriods = 4;
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the arguments
+	 */
+	public static void main(String[] args) {
+		ModelContext context = OptimizationModelRefrigeration.setOptimizationParameters();
+		double[] price = context.getElectricityPrice();
+		int numberOfTimeSteps = Math.min(price.length, (int) Math.round(horizonInH/context.getTimeInterval()));
+		int periodLength = (int) Math.round(periodLengthInH/context.getTimeInterval());
+		double[][] series = {Arrays.copyOf(price, numberOfTimeSteps)};
+		try {
+			runAggregated(context, series, periodLength, numberOfRepresentativePeriods);
+		} catch (IloException e) {
+			e.printStackTrace();
+			System.err.println("Problem with optimization model");
+		}
+	}
+
+	/**
+	 * Clusters the time series into representative periods, builds and solves the model over them and expands the
+	 * results to the full horizon. System targets over the whole horizon are met in the weighted sum; system targets
+	 * with windows apply to each window of the representative periods, so their window length should divide the period
+	 * length.
+	 *
+	 * @param context the model context
+	 * @param series the time series of the full horizon clustered; series[0] is the electricity price, further series must start at the same time
+	 * @param periodLength the period length in time steps
+	 * @param numberOfRepresentativePeriods the number of representative periods
+	 * @return the results of the full horizon, null if the model was not solved
+	 * @throws IloException the ilo exception
+	 */
+	public static ResultStore runAggregated (ModelContext context, double[][] series, int periodLength, int numberOfRepresentativePeriods) throws IloException {
+		String nameOfModel = "OptModel_"+SYSTEM_NAME+"_aggregated";
+		BuildStatistics statistics = context.getBuildStatistics();
+
+		TemporalAggregation aggregation;
+		statistics.begin("clusterPeriods", null);
+		try {
+			aggregation = TemporalAggregation.cluster(series, periodLength, numberOfRepresentativePeriods);
+		} finally {
+			statistics.end();
+		}
+		System.out.println(aggregation.getNumberOfPeriods() + " periods represented by periods " + Arrays.toString(aggregation.getMedoids())
+				+ " with weights " + Arrays.toString(aggregation.getWeights()));
+
+		for (SystemTarget systemTarget : context.getSystemTargets()) {
+			double timeStepsPerWindow = systemTarget.getWindowLengthInH()/context.getTimeInterval();
+			if (systemTarget.getWindowLengthInH() > 0 && periodLength % Math.max(1, Math.round(timeStepsPerWindow)) != 0) {
+				System.err.println("Window of system target " + systemTarget.getName() + " does not divide the period length");
+			}
+		}
+
+		context.setArrayLength(aggregation.getNumberOfRepresentativeTimeSteps());
+		context.setTimeStepWeights(aggregation.getTimeStepWeights());
+		ResultStore optimizationResults = null;
+		try {
+			ModelTemplate template = ModelTemplate.compileRefrigeration(context);
+			statistics.begin("addStorageLinking", null);
+			try {
+				aggregation.addStorageLinking(context);
+			} finally {
+				statistics.end();
+			}
+			template.setObjectiveCoefficients(aggregation.getObjectiveCoefficients(series[0], context.getTimeInterval()*0.001));
+
+			ResultStore representativeResults = template.solve();
+			if (representativeResults != null) {
+				statistics.begin("expandResults", null);
+				try {
+					optimizationResults = aggregation.expand(representativeResults, context);
+				} finally {
+					statistics.end();
+				}
+			}
+		}
+		catch (IloException exc) {
+			exc.printStackTrace();
+		}
+		finally {
+			context.close();
+			String filePath = "src/output_"+SYSTEM_NAME+"/";
+			// the build statistics are also written if the model could not be built or solved
+			String resultFilePath = optimizationResults != null
+					? OptimizationModelRefrigeration.writeResultsToFile(context, optimizationResults, nameOfModel, filePath, aggregation.getNumberOfTimeSteps())
+					: filePath+nameOfModel+"_"+OptimizationModelRefrigeration.getNow();
+			OptimizationModelRefrigeration.writeBuildStatistics(statistics, resultFilePath);
+		}
+		return optimizationResults;
+	}
+}
@@ -0,0 +1,133 @@
+package modelGeneration;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Class BinaryResultSink.
+ *
+ * Writes results in a columnar little-endian binary format that can be memory-mapped with map():
+ * <pre>
+ * int    magic "OMRS"
+ * int    version
+ * int    number of columns
+ * int    number of time steps
+ * per column: short length, UTF-8 bytes of the variable name
+ * padding to a multiple of 8 bytes
+ * per column: number of time steps doubles
+ * </pre>
+ */
+public class BinaryResultSink implements ResultSink {
+
+	/** The Constant FILE_EXTENSION. */
+	static final String FILE_EXTENSION = ".omrs";
+
+	/** The Constant MAGIC, "OMRS". */
+	static final int MAGIC = 0x4F4D5253;
+
+	/** The Constant VERSION. */
+	static final int VERSION = 1;
+
+	/** The Constant BUFFER_SIZE. */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	@Override
+	public String write (ResultStore optimizationResults, int numberOfTimeSteps, String filePath) throws IOException {
+		String fileName = filePath + FILE_EXTENSION;
+		int numberOfColumns = optimizationResults.getNumberOfColumns();
+
+		byte[][] names = new byte[numberOfColumns][];
+		int headerSize = 4*4;
+		for (int column = 0; column < numberOfColumns; column++) {
+			names[column] = optimizationResults.getVariableName(column).getBytes(StandardCharsets.UTF_8);
+			headerSize += 2 + names[column].length;
+		}
+		int padding = (8 - headerSize % 8) % 8;
+
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, headerSize + padding)).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(numberOfColumns).putInt(numberOfTimeSteps);
+			for (int column = 0; column < numberOfColumns; column++) {
+				buffer.putShort((short) names[column].length).put(names[column]);
+			}
+			for (int i = 0; i < padding; i++) {
+				buffer.put((byte) 0);
+			}
+
+			for (int column = 0; column < numberOfColumns; column++) {
+				for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+					if (buffer.remaining() < 8) {
+						flush(channel, buffer);
+					}
+					buffer.putDouble(optimizationResults.getValue(column, timeStep));
+				}
+			}
+			flush(channel, buffer);
+		}
+		return fileName;
+	}
+
+	/**
+	 * Writes the buffer to the channel and clears it.
+	 *
+	 * @param channel the channel
+	 * @param buffer the buffer
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void flush (FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Memory-maps a file written by this sink.
+	 *
+	 * @param fileName the file name
+	 * @return the columns by variable name, in the order of the file
+	 * @throws IOException Signals that an I/O exception has occurred, or the file is not a result file.
+	 */
+	public static Map<String, DoubleBuffer> map (String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			// offsets in long, the columns are mapped separately so that files may exceed 2 GB
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE));
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("Not a result file of version " + VERSION + ": " + fileName);
+			}
+			int numberOfColumns = header.getInt();
+			int numberOfTimeSteps = header.getInt();
+			String[] names = new String[numberOfColumns];
+			for (int column = 0; column < numberOfColumns; column++) {
+				byte[] name = new byte[header.getShort() & 0xFFFF];
+				header.get(name);
+				names[column] = new String(name, StandardCharsets.UTF_8);
+			}
+			long dataStart = (header.position() + 7L) & ~7L;
+			long columnSize = 8L*numberOfTimeSteps;
+			if (dataStart + numberOfColumns*columnSize > fileSize) {
+				throw new IOException("Result file is truncated: " + fileName);
+			}
+
+			Map<String, DoubleBuffer> columns = new LinkedHashMap<String, DoubleBuffer>();
+			for (int column = 0; column < numberOfColumns; column++) {
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + column*columnSize, columnSize);
+				columns.put(names[column], mapped.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+			}
+			return columns;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package modelGeneration;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ilog.cplex.IloCplex;
+
+/**
+ * The Class BuildStatistics.
+ *
+ * Records the duration of the stages of building, exporting, solving and extracting a model, together with the number
+ * of variables (columns), constraints (rows) and nonzeros the stage added to the cplex instance of the model context.
+ * Stages are recorded one after another:
+ *
+ * <pre>
+ * context.getBuildStatistics().begin("generateRampLimits", nameOfResource);
+ * DesignPatterns.generateRampLimits(nameOfResource, INPUT);
+ * context.getBuildStatistics().end();
+ * </pre>
+ *
+ * Stages running on other threads, e.g. model exports, are added with record(). writeReport() writes all records and
+ * the totals per stage as JSON.
+ */
+public class BuildStatistics {
+
+	/** The Constant FILE_SUFFIX, appended to the file path of the results. */
+	public static final String FILE_SUFFIX = "_statistics.json";
+
+	/**
+	 * The Class StageRecord.
+	 */
+	private static class StageRecord {
+
+		/** The stage. */
+		final String stage;
+
+		/** The subject, e.g. the resource, or null. */
+		final String subject;
+
+		/** The duration in ns. */
+		final long nanos;
+
+		/** The number of added columns. */
+		final int columns;
+
+		/** The number of added rows. */
+		final int rows;
+
+		/** The number of added nonzeros. */
+		final int nonZeros;
+
+		/**
+		 * Instantiates a new stage record.
+		 *
+		 * @param stage the stage
+		 * @param subject the subject
+		 * @param nanos the nanos
+		 * @param columns the columns
+		 * @param rows the rows
+		 * @param nonZeros the non zeros
+		 */
+		StageRecord(String stage, String subject, long nanos, int columns, int rows, int nonZeros) {
+			this.stage = stage;
+			this.subject = subject;
+			this.nanos = nanos;
+			this.columns = columns;
+			this.rows = rows;
+			this.nonZeros = nonZeros;
+		}
+	}
+
+	/** The model context. */
+	private final ModelContext context;
+
+	/** The records, in order of recording. */
+	private final List<StageRecord> records = new ArrayList<StageRecord>();
+
+	/** The current stage, null if no stage has begun. */
+	private String stage;
+
+	/** The subject of the current stage. */
+	private String subject;
+
+	/** The start of the current stage in ns. */
+	private long startNanos;
+
+	/** The model size at the start of the current stage: columns, rows, nonzeros. */
+	private int[] startSize;
+
+	/** The model size at the end of the last stage: columns, rows, nonzeros. */
+	private int[] modelSize = new int[3];
+
+	/**
+	 * Instantiates new build statistics.
+	 *
+	 * @param context the model context
+	 */
+	public BuildStatistics(ModelContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Begins a stage.
+	 *
+	 * @param stage the stage, e.g. the name of the design pattern
+	 * @param subject the subject, e.g. the resource, or null
+	 */
+	public void begin (String stage, String subject) {
+		if (this.stage != null) {
+			System.err.println("Stage " + this.stage + " not ended before " + stage);
+		}
+		this.stage = stage;
+		this.subject = subject;
+		this.startSize = getModelSize();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Ends the current stage and records it.
+	 *
+	 * @return the duration of the stage in ns
+	 */
+	public long end () {
+		long nanos = System.nanoTime() - startNanos;
+		if (stage == null) {
+			System.err.println("No stage begun");
+			return nanos;
+		}
+		int[] endSize = getModelSize();
+		synchronized (this) {
+			records.add(new StageRecord(stage, subject, nanos, endSize[0]-startSize[0], endSize[1]-startSize[1], endSize[2]-startSize[2]));
+		}
+		modelSize = endSize;
+		stage = null;
+		subject = null;
+		return nanos;
+	}
+
+	/**
+	 * Records a stage that ran on another thread and did not change the model, e.g. a model export.
+	 *
+	 * @param stage the stage
+	 * @param subject the subject, or null
+	 * @param nanos the duration in ns
+	 */
+	public synchronized void record (String stage, String subject, long nanos) {
+		records.add(new StageRecord(stage, subject, nanos, 0, 0, 0));
+	}
+
+	/**
+	 * Gets the size of the model: columns, rows, nonzeros. Zeros if the model has no cplex instance.
+	 *
+	 * @return the model size
+	 */
+	private int[] getModelSize () {
+		IloCplex cplex = context.getCplex();
+		if (cplex == null) return modelSize.clone();
+		try {
+			return new int[] {cplex.getNcols(), cplex.getNrows(), cplex.getNNZs()};
+		} catch (Exception e) {
+			return modelSize.clone();
+		}
+	}
+
+	/**
+	 * Gets the total duration of a stage over all its records.
+	 *
+	 * @param stage the stage
+	 * @return the duration in ns
+	 */
+	public synchronized long getNanos (String stage) {
+		long nanos = 0;
+		for (StageRecord record : records) {
+			if (record.stage.equals(stage)) nanos += record.nanos;
+		}
+		return nanos;
+	}
+
+	/**
+	 * Removes all records.
+	 */
+	public synchronized void clear () {
+		records.clear();
+		stage = null;
+		modelSize = new int[3];
+	}
+
+	/**
+	 * Writes the report as JSON.
+	 *
+	 * @param fileName the file name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void writeReport (String fileName) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8))) {
+			writer.write(toJson());
+		}
+	}
+
+	/**
+	 * Gets the report as JSON: the model size after the last stage, the totals per stage and all records.
+	 *
+	 * @return the JSON text
+	 */
+	public synchronized String toJson () {
+		Map<String, long[]> stages = new LinkedHashMap<String, long[]>();
+		for (StageRecord record : records) {
+			long[] total = stages.get(record.stage);
+			if (total == null) {
+				total = new long[5];
+				stages.put(record.stage, total);
+			}
+			total[0]++;
+			total[1] += record.nanos;
+			total[2] += record.columns;
+			total[3] += record.rows;
+			total[4] += record.nonZeros;
+		}
+
+		StringBuilder json = new StringBuilder(256 + 128*records.size());
+		json.append("{\n\t\"model\": {\"columns\": ").append(modelSize[0])
+		.append(", \"rows\": ").append(modelSize[1])
+		.append(", \"nonZeros\": ").append(modelSize[2]).append("},\n");
+
+		json.append("\t\"stages\": {");
+		String separator = "\n";
+		for (Map.Entry<String, long[]> stageTotal : stages.entrySet()) {
+			long[] total = stageTotal.getValue();
+			json.append(separator).append("\t\t").append(SimpleJson.quote(stageTotal.getKey()))
+			.append(": {\"count\": ").append(total[0])
+			.append(", \"nanos\": ").append(total[1])
+			.append(", \"columns\": ").append(total[2])
+			.append(", \"rows\": ").append(total[3])
+			.append(", \"nonZeros\": ").append(total[4]).append("}");
+			separator = ",\n";
+		}
+		json.append("\n\t},\n");
+
+		json.append("\t\"records\": [");
+		separator = "\n";
+		for (StageRecord record : records) {
+			json.append(separator).append("\t\t{\"stage\": ").append(SimpleJson.quote(record.stage))
+			.append(", \"subject\": ").append(record.subject == null ? "null" : SimpleJson.quote(record.subject))
+			.append(", \"nanos\": ").append(record.nanos)
+			.append(", \"columns\": ").append(record.columns)
+			.append(", \"rows\": ").append(record.rows)
+			.append(", \"nonZeros\": ").append(record.nonZeros).append("}");
+			separator = ",\n";
+		}
+		json.append("\n\t]\n}\n");
+		return json.toString();
+	}
+}
@@ -0,0 +1,45 @@
+package modelGeneration;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+
+/**
+ * The Class CplexSolver.
+ *
+ * Solves the cplex instance of the model context directly. The solve and the extraction of the results are recorded as
+ * stages solve and saveResults in the build statistics of the context.
+ */
+public class CplexSolver implements MipSolver {
+
+	@Override
+	public String getName () {
+		return "cplex";
+	}
+
+	@Override
+	public SolverResult solve (ModelContext context) throws IloException {
+		context.awaitBackgroundTasks();
+		IloCplex cplex = context.getCplex();
+		cplex.setParam(IloCplex.Param.MIP.Tolerances.MIPGap, context.getOptimalityGap());
+		BuildStatistics statistics = context.getBuildStatistics();
+		boolean solved;
+		long wallTimeNanos;
+		statistics.begin("solve", null);
+		try {
+			solved = cplex.solve();
+		} finally {
+			wallTimeNanos = statistics.end();
+		}
+		if (!solved) {
+			return new SolverResult(getName(), false, cplex.getCplexStatus().toString(), Double.NaN, wallTimeNanos, null);
+		}
+		ResultStore optimizationResults;
+		statistics.begin("saveResults", null);
+		try {
+			optimizationResults = ResultStore.extract(context);
+		} finally {
+			statistics.end();
+		}
+		return new SolverResult(getName(), true, cplex.getCplexStatus().toString(), cplex.getObjValue(), wallTimeNanos, optimizationResults);
+	}
+}
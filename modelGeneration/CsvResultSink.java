@@ -0,0 +1,96 @@
+package modelGeneration;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * The Class CsvResultSink.
+ *
+ * Writes results row by row as CSV: a header line with the variable names, then one line per time step,
+ * values separated by semicolon and formatted with the decimal separator of the locale (default: decimal comma).
+ */
+public class CsvResultSink implements ResultSink {
+
+	/** The Constant FILE_EXTENSION. */
+	static final String FILE_EXTENSION = ".csv";
+
+	/** The Constant SEPARATOR. */
+	static final char SEPARATOR = ';';
+
+	/** The Constant HEADER_SEPARATOR, as in previous result files. */
+	static final char HEADER_SEPARATOR = ',';
+
+	/** The Constant BUFFER_SIZE. */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/** The decimal separator. */
+	private final char decimalSeparator;
+
+	/**
+	 * Instantiates a new csv result sink with decimal comma.
+	 */
+	public CsvResultSink() {
+		this(Locale.GERMANY);
+	}
+
+	/**
+	 * Instantiates a new csv result sink with the decimal separator of the locale.
+	 *
+	 * @param locale the locale
+	 */
+	public CsvResultSink(Locale locale) {
+		this.decimalSeparator = DecimalFormatSymbols.getInstance(locale).getDecimalSeparator();
+	}
+
+	@Override
+	public String write (ResultStore optimizationResults, int numberOfTimeSteps, String filePath) throws IOException {
+		String fileName = filePath + FILE_EXTENSION;
+		int numberOfColumns = optimizationResults.getNumberOfColumns();
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+			StringBuilder line = new StringBuilder(256);
+			line.append("timeStamp");
+			for (int column = 0; column < numberOfColumns; column++) {
+				line.append(HEADER_SEPARATOR).append(optimizationResults.getVariableName(column));
+			}
+			line.append('\n');
+			writer.append(line);
+
+			for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+				line.setLength(0);
+				appendValue(line, timeStep);
+				for (int column = 0; column < numberOfColumns; column++) {
+					line.append(SEPARATOR);
+					appendValue(line, optimizationResults.getValue(column, timeStep));
+				}
+				line.append('\n');
+				writer.append(line);
+			}
+		}
+		return fileName;
+	}
+
+	/**
+	 * Appends a value in the format of Double.toString(), with the decimal point replaced by the decimal separator.
+	 *
+	 * @param line the line
+	 * @param value the value
+	 */
+	private void appendValue (StringBuilder line, double value) {
+		int start = line.length();
+		line.append(value);
+		if (decimalSeparator != '.') {
+			for (int i = start; i < line.length(); i++) {
+				if (line.charAt(i) == '.') {
+					line.setCharAt(i, decimalSeparator);
+					break;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,403 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import designpatterns.DesignPatterns;
+import designpatterns.ResourceParameters;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import modelGeneration.VariableKey.Direction;
+import systemParameterModel.Dependency;
+import systemParameterModel.DependencyIO;
+import systemParameterModel.SystemParameters;
+
+/**
+ * The Class DependencyGraph.
+ *
+ * The dependencies of the system parameters, compiled once: resources, their input energy carriers and the system
+ * inputs are indexed in hash maps, every dependency is validated (type, resources, energy carriers) and reduced to
+ * the keys and bounds of its decision variables. generate() then resolves all decision variables of all dependencies
+ * before the first dependency is added to the model, so that a missing decision variable fails the build before the
+ * model is modified. compile() reads the dependencies as in the refrigeration model, compileChp() as in the chp model.
+ *
+ * <pre>
+ * DependencyGraph dependencyGraph = DependencyGraph.compile(systemParameters);
+ * context.bind();
+ * try {
+ *     DesignPatterns.creationOfDecisionVariables_Names(-1);
+ *     ...
+ *     dependencyGraph.generate();
+ * } finally {
+ *     context.unbind();
+ * }
+ * </pre>
+ */
+public class DependencyGraph {
+
+	/** The Constant CORRELATIVE. */
+	public static final String CORRELATIVE = "correlative";
+
+	/** The Constant RESTRICTIVE. */
+	public static final String RESTRICTIVE = "restrictive";
+
+	/**
+	 * The Enum Kind of a decision variable of a dependency.
+	 */
+	enum Kind {
+		/** An output of the system, a new decision variable. */
+		SYSTEM_OUTPUT,
+		/** An input of the system, a new decision variable. */
+		SYSTEM_INPUT,
+		/** An input or output of a resource or of the system, created by creationOfDecisionVariables_Names(). */
+		EXISTING
+	}
+
+	/**
+	 * The Class Terminal, a decision variable of a dependency.
+	 */
+	static class Terminal {
+
+		/** The kind. */
+		final Kind kind;
+
+		/** The resource name, "System" for system inputs and outputs. */
+		final String resourceName;
+
+		/** The direction of the decision variable. */
+		final Direction direction;
+
+		/** The index of the energy carrier, ONLYONE if the resource has only one. */
+		final int index;
+
+		/** The key of the decision variable in the decision variables vector, for system inputs and outputs. */
+		final String key;
+
+		/** The lower bound, for system inputs and outputs. */
+		final double lb;
+
+		/** The upper bound, for system inputs and outputs. */
+		final double ub;
+
+		/**
+		 * Instantiates a new terminal.
+		 *
+		 * @param kind the kind
+		 * @param resourceName the resource name
+		 * @param direction the direction
+		 * @param index the index
+		 * @param key the key
+		 * @param lb the lb
+		 * @param ub the ub
+		 */
+		Terminal(Kind kind, String resourceName, Direction direction, int index, String key, double lb, double ub) {
+			this.kind = kind;
+			this.resourceName = resourceName;
+			this.direction = direction;
+			this.index = index;
+			this.key = key;
+			this.lb = lb;
+			this.ub = ub;
+		}
+	}
+
+	/**
+	 * The Class CompiledDependency.
+	 */
+	static class CompiledDependency {
+
+		/** The type, CORRELATIVE or RESTRICTIVE. */
+		final String type;
+
+		/** The inputs. */
+		final List<Terminal> inputs = new ArrayList<Terminal>();
+
+		/** The outputs. */
+		final List<Terminal> outputs = new ArrayList<Terminal>();
+
+		/**
+		 * Instantiates a new compiled dependency.
+		 *
+		 * @param type the type
+		 */
+		CompiledDependency(String type) {
+			this.type = type;
+		}
+	}
+
+	/** The compiled dependencies, in the order of the system parameters. */
+	private final List<CompiledDependency> dependencies = new ArrayList<CompiledDependency>();
+
+	/**
+	 * Instantiates a new, empty dependency graph.
+	 */
+	private DependencyGraph() {
+	}
+
+	/**
+	 * Compiles and validates the dependencies of the system parameters as in the refrigeration model: every system
+	 * output and input of a dependency is a new decision variable, bounded by the power limits of the system, and
+	 * resource inputs are selected by the energy carrier of the dependency.
+	 *
+	 * @param systemParameters the system parameters
+	 * @return the dependency graph
+	 * @throws IllegalArgumentException if a dependency has an unknown type or references an unknown resource, energy carrier or system input
+	 */
+	public static DependencyGraph compile (SystemParameters systemParameters) {
+		// index resources and input energy carriers; as before, the last matching energy carrier wins
+		Map<String, ResourceParameters> resourcesByName = new HashMap<String, ResourceParameters>();
+		Map<String, Map<String, Integer>> inputIndexByResource = new HashMap<String, Map<String, Integer>>();
+		for (ResourceParameters resourceParameters : systemParameters.getResourceParameters()) {
+			resourcesByName.put(resourceParameters.getName(), resourceParameters);
+			Map<String, Integer> inputIndex = new HashMap<String, Integer>();
+			List<String> energyCarrierInputs = resourceParameters.getEnergyCarrierInputs();
+			if (energyCarrierInputs != null) {
+				for (int ecCounter = 0; ecCounter < energyCarrierInputs.size(); ecCounter++) {
+					inputIndex.put(energyCarrierInputs.get(ecCounter), ecCounter);
+				}
+			}
+			inputIndexByResource.put(resourceParameters.getName(), inputIndex);
+		}
+		Map<String, Integer> systemInputIndex = new HashMap<String, Integer>();
+		List<String> inputsSystem = systemParameters.getInputsSystem();
+		if (inputsSystem != null) {
+			for (int i = 0; i < inputsSystem.size(); i++) {
+				systemInputIndex.put(inputsSystem.get(i), i);
+			}
+		}
+
+		DependencyGraph dependencyGraph = new DependencyGraph();
+		int depCounter = 0;
+		for (Dependency dependency : systemParameters.getDependencies()) {
+			String type = dependency.getTypeOfDependency();
+			if (!CORRELATIVE.equals(type) && !RESTRICTIVE.equals(type)) {
+				throw new IllegalArgumentException("Dependency" + depCounter + ": unknown type " + type);
+			}
+			if (dependency.getRelevantInputs().isEmpty() || dependency.getRelevantOutputs().isEmpty()) {
+				throw new IllegalArgumentException("Dependency" + depCounter + ": no inputs or no outputs");
+			}
+			CompiledDependency compiledDependency = new CompiledDependency(type);
+
+			for (int inputCounter = 0; inputCounter < dependency.getRelevantInputs().size(); inputCounter++) {
+				DependencyIO input = dependency.getRelevantInputsExtended().get(inputCounter);
+				String nameOfInput = input.getResourceName();
+				String stateTypeOfInput = input.getState();
+				if (nameOfInput.contains("SystemOutput")) {
+					double[] bounds = getSystemOutputBounds(systemParameters, stateTypeOfInput);
+					compiledDependency.inputs.add(new Terminal(Kind.SYSTEM_OUTPUT, "System", Direction.OUTPUT, inputCounter,
+							"System" + "-" + OptimizationModelRefrigeration.OUTPUT + "-" + Integer.toString(inputCounter) + OptimizationModelRefrigeration.POWER,
+							bounds[0], bounds[1]));
+				} else {
+					ResourceParameters resourceParameters = resourcesByName.get(nameOfInput);
+					if (resourceParameters == null) {
+						throw new IllegalArgumentException("Dependency" + depCounter + ": unknown resource " + nameOfInput);
+					}
+					Integer numResourceInput = inputIndexByResource.get(nameOfInput).get(stateTypeOfInput);
+					if (numResourceInput == null) {
+						throw new IllegalArgumentException("Dependency" + depCounter + ": resource " + nameOfInput + " has no input " + stateTypeOfInput);
+					}
+					int index = resourceParameters.isStorage() ? OptimizationModelRefrigeration.ONLYONE : numResourceInput;
+					compiledDependency.inputs.add(new Terminal(Kind.EXISTING, nameOfInput, Direction.INPUT, index, null, 0, 0));
+				}
+			}
+
+			for (int outputCounter = 0; outputCounter < dependency.getRelevantOutputs().size(); outputCounter++) {
+				DependencyIO output = dependency.getRelevantOutputsExtended().get(outputCounter);
+				String nameOfOutput = output.getResourceName();
+				String stateFlowTypeOutput = output.getState();
+				if (nameOfOutput.contains("SystemInput")) {
+					Integer numberOfOutput = systemInputIndex.get(stateFlowTypeOutput);
+					if (numberOfOutput == null) {
+						throw new IllegalArgumentException("Dependency" + depCounter + ": system has no input " + stateFlowTypeOutput);
+					}
+					double[] bounds = getSystemInputBounds(systemParameters, numberOfOutput);
+					compiledDependency.outputs.add(new Terminal(Kind.SYSTEM_INPUT, "System", Direction.INPUT, numberOfOutput,
+							"System" + "-" + OptimizationModelRefrigeration.INPUT + "-" + Integer.toString(numberOfOutput) + OptimizationModelRefrigeration.POWER,
+							bounds[0], bounds[1]));
+				} else {
+					if (!resourcesByName.containsKey(nameOfOutput)) {
+						throw new IllegalArgumentException("Dependency" + depCounter + ": unknown resource " + nameOfOutput);
+					}
+					compiledDependency.outputs.add(new Terminal(Kind.EXISTING, nameOfOutput, Direction.OUTPUT, OptimizationModelRefrigeration.ONLYONE, null, 0, 0));
+				}
+			}
+			dependencyGraph.dependencies.add(compiledDependency);
+			depCounter++;
+		}
+		return dependencyGraph;
+	}
+
+	/**
+	 * Compiles and validates the dependencies of the system parameters as in the chp model: SystemOutput-0 and
+	 * SystemInput-0 are the system output and input created by creationOfDecisionVariables_Names(), other system
+	 * outputs and inputs are new decision variables, bounded by 0 and Double.MAX_VALUE respectively the maximum power
+	 * of the system output; resources contribute their first input and their output.
+	 *
+	 * @param systemParameters the system parameters
+	 * @return the dependency graph
+	 * @throws IllegalArgumentException if a dependency has an unknown type or references an unknown resource
+	 */
+	public static DependencyGraph compileChp (SystemParameters systemParameters) {
+		Map<String, ResourceParameters> resourcesByName = new HashMap<String, ResourceParameters>();
+		for (ResourceParameters resourceParameters : systemParameters.getResourceParameters()) {
+			resourcesByName.put(resourceParameters.getName(), resourceParameters);
+		}
+
+		DependencyGraph dependencyGraph = new DependencyGraph();
+		int depCounter = 0;
+		for (Dependency dependency : systemParameters.getDependencies()) {
+			String type = dependency.getTypeOfDependency();
+			if (!CORRELATIVE.equals(type) && !RESTRICTIVE.equals(type)) {
+				throw new IllegalArgumentException("Dependency" + depCounter + ": unknown type " + type);
+			}
+			CompiledDependency compiledDependency = new CompiledDependency(type);
+
+			for (int inputCounter = 0; inputCounter < dependency.getRelevantInputs().size(); inputCounter++) {
+				String nameOfInput = dependency.getRelevantInputs().get(inputCounter);
+				if (nameOfInput.contains("SystemOutput")) {
+					if (Integer.parseInt(nameOfInput.substring(nameOfInput.indexOf("-"))) == 0) {
+						compiledDependency.inputs.add(new Terminal(Kind.EXISTING, "System", Direction.OUTPUT, OptimizationModel.ONLYONE, null, 0, 0));
+					} else {
+						compiledDependency.inputs.add(new Terminal(Kind.SYSTEM_OUTPUT, "System", Direction.OUTPUT, inputCounter,
+								"System" + "-" + OptimizationModel.OUTPUT + "-" + Integer.toString(inputCounter) + OptimizationModel.POWER,
+								0, Double.MAX_VALUE));
+					}
+				} else {
+					if (!resourcesByName.containsKey(nameOfInput)) {
+						throw new IllegalArgumentException("Dependency" + depCounter + ": unknown resource " + nameOfInput);
+					}
+					compiledDependency.inputs.add(new Terminal(Kind.EXISTING, nameOfInput, Direction.INPUT, 0, null, 0, 0));
+				}
+			}
+
+			for (int outputCounter = 0; outputCounter < dependency.getRelevantOutputs().size(); outputCounter++) {
+				String nameOfOutput = dependency.getRelevantOutputs().get(outputCounter);
+				if (nameOfOutput.contains("SystemInput")) {
+					if (Integer.parseInt(nameOfOutput.substring(nameOfOutput.indexOf("-"))) == 0) {
+						compiledDependency.outputs.add(new Terminal(Kind.EXISTING, "System", Direction.INPUT, OptimizationModel.ONLYONE, null, 0, 0));
+					} else {
+						compiledDependency.outputs.add(new Terminal(Kind.SYSTEM_INPUT, "System", Direction.INPUT, outputCounter,
+								"System" + "-" + OptimizationModel.INPUT + "-" + Integer.toString(outputCounter) + OptimizationModel.POWER,
+								0, systemParameters.getMaxPowerSystemOutput()));
+					}
+				} else {
+					if (!resourcesByName.containsKey(nameOfOutput)) {
+						throw new IllegalArgumentException("Dependency" + depCounter + ": unknown resource " + nameOfOutput);
+					}
+					compiledDependency.outputs.add(new Terminal(Kind.EXISTING, nameOfOutput, Direction.OUTPUT, OptimizationModel.ONLYONE, null, 0, 0));
+				}
+			}
+			dependencyGraph.dependencies.add(compiledDependency);
+			depCounter++;
+		}
+		return dependencyGraph;
+	}
+
+	/**
+	 * Gets the bounds of a system output: the power limits of the system output, 0 and Double.MAX_VALUE for other states.
+	 *
+	 * @param systemParameters the system parameters
+	 * @param state the state of the dependency input
+	 * @return the bounds {lb, ub}
+	 */
+	private static double[] getSystemOutputBounds (SystemParameters systemParameters, String state) {
+		if (state != null && state.equals(systemParameters.getOutputSystem())) {
+			return new double[] {systemParameters.getMinPowerSystemOutput(), systemParameters.getMaxPowerSystemOutput()};
+		}
+		return new double[] {0, Double.MAX_VALUE};
+	}
+
+	/**
+	 * Gets the bounds of a system input: its power limits, 0 and Double.MAX_VALUE if they are not defined.
+	 *
+	 * @param systemParameters the system parameters
+	 * @param numberOfInput the number of the system input
+	 * @return the bounds {lb, ub}
+	 */
+	private static double[] getSystemInputBounds (SystemParameters systemParameters, int numberOfInput) {
+		List<Double> minPowerSystemInput = systemParameters.getMinPowerSystemInput();
+		List<Double> maxPowerSystemInput = systemParameters.getMaxPowerSystemInput();
+		if (minPowerSystemInput == null || maxPowerSystemInput == null
+				|| numberOfInput >= minPowerSystemInput.size() || numberOfInput >= maxPowerSystemInput.size()
+				|| minPowerSystemInput.get(numberOfInput) == null || maxPowerSystemInput.get(numberOfInput) == null) {
+			return new double[] {0, Double.MAX_VALUE};
+		}
+		return new double[] {minPowerSystemInput.get(numberOfInput), maxPowerSystemInput.get(numberOfInput)};
+	}
+
+	/**
+	 * Resolves the decision variables of all dependencies and adds the dependencies to the model. Must be called while
+	 * a model context is bound, after creationOfDecisionVariables_Names().
+	 *
+	 * @throws IloException the ilo exception
+	 * @throws IllegalStateException if a decision variable of a resource does not exist
+	 */
+	public void generate () throws IloException {
+		generate(VariableRegistry.of(DesignPatterns.getDecisionVariablesVector()));
+	}
+
+	/**
+	 * Resolves the decision variables of all dependencies in the variable registry and adds the dependencies to the
+	 * model; the created system inputs and outputs are registered. Must be called while a model context is bound.
+	 *
+	 * @param registry the variable registry of the decision variables created so far
+	 * @throws IloException the ilo exception
+	 * @throws IllegalArgumentException if a resource has no decision variables
+	 * @throws IllegalStateException if a decision variable of a resource does not exist
+	 */
+	public void generate (VariableRegistry registry) throws IloException {
+		// resolve all decision variables first
+		List<IloNumVar[][]> inputVariables = new ArrayList<IloNumVar[][]>(dependencies.size());
+		List<IloNumVar[][]> outputVariables = new ArrayList<IloNumVar[][]>(dependencies.size());
+		for (CompiledDependency dependency : dependencies) {
+			inputVariables.add(resolve(dependency.inputs, registry));
+			outputVariables.add(resolve(dependency.outputs, registry));
+		}
+
+		for (int depCounter = 0; depCounter < dependencies.size(); depCounter++) {
+			System.out.println("Dependency" + depCounter);
+			if (dependencies.get(depCounter).type.equals(CORRELATIVE)) {
+				DesignPatterns.generateCorrelativeDependency(outputVariables.get(depCounter), inputVariables.get(depCounter));
+			} else {
+				DesignPatterns.generateRestrictiveDependency(outputVariables.get(depCounter), inputVariables.get(depCounter));
+			}
+		}
+	}
+
+	/**
+	 * Resolves the decision variables of the terminals; system inputs and outputs are created.
+	 *
+	 * @param terminals the terminals
+	 * @param registry the variable registry
+	 * @return the decision variables, one array per terminal
+	 * @throws IloException the ilo exception
+	 */
+	private static IloNumVar[][] resolve (List<Terminal> terminals, VariableRegistry registry) throws IloException {
+		IloNumVar[][] decisionVariables = new IloNumVar[terminals.size()][];
+		for (int i = 0; i < terminals.size(); i++) {
+			Terminal terminal = terminals.get(i);
+			switch (terminal.kind) {
+			case SYSTEM_OUTPUT:
+			case SYSTEM_INPUT:
+				decisionVariables[i] = DesignPatterns.getCplex().numVarArray(DesignPatterns.getArrayLength(), terminal.lb, terminal.ub);
+				DesignPatterns.getDecisionVariablesVector().put(terminal.key, decisionVariables[i]);
+				registry.register(terminal.resourceName, terminal.direction, terminal.index, OptimizationModelRefrigeration.POWER, decisionVariables[i]);
+				break;
+			default:
+				decisionVariables[i] = registry.get(registry.key(terminal.resourceName, terminal.direction, terminal.index, OptimizationModelRefrigeration.POWER));
+			}
+		}
+		return decisionVariables;
+	}
+
+	/**
+	 * Gets the number of dependencies.
+	 *
+	 * @return the number of dependencies
+	 */
+	public int getNumberOfDependencies() {
+		return dependencies.size();
+	}
+}
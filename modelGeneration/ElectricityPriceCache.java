@@ -0,0 +1,89 @@
+package modelGeneration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import designpatterns.DesignPatterns;
+
+/**
+ * The Class ElectricityPriceCache.
+ *
+ * Resamples the electricity price with DesignPatterns.getElectricityPriceWithOtherInterval() once per temporal
+ * resolution and keeps the result, so that building an objective costs one array lookup instead of one resampling
+ * per time step. Objective coefficients are provided as double[] for IloLinearNumExpr.addTerms().
+ */
+public class ElectricityPriceCache {
+
+	/** The resampled electricity prices by temporal resolution in h, guarded by the lock of ModelContext. */
+	private static final Map<Double, double[]> pricesByResolution = new HashMap<Double, double[]>();
+
+	/**
+	 * Gets the electricity price resampled to a temporal resolution. The returned array is shared and must not be modified.
+	 *
+	 * @param temporalResolution the temporal resolution in h
+	 * @return the electricity price
+	 */
+	public static double[] getPrice (double temporalResolution) {
+		ModelContext.DESIGN_PATTERNS_LOCK.lock();
+		try {
+			double[] price = pricesByResolution.get(temporalResolution);
+			if (price == null) {
+				price = DesignPatterns.getElectricityPriceWithOtherInterval(temporalResolution);
+				pricesByResolution.put(temporalResolution, price);
+			}
+			return price;
+		} finally {
+			ModelContext.DESIGN_PATTERNS_LOCK.unlock();
+		}
+	}
+
+	/**
+	 * Gets objective coefficients factor*price[offset+i] for numberOfTimeSteps time steps.
+	 *
+	 * @param temporalResolution the temporal resolution in h
+	 * @param factor the factor, e.g. time interval and unit conversion
+	 * @param offset the first time step
+	 * @param numberOfTimeSteps the number of time steps
+	 * @return the objective coefficients
+	 * @throws IllegalArgumentException if the time steps exceed the price series
+	 */
+	public static double[] getObjectiveCoefficients (double temporalResolution, double factor, int offset, int numberOfTimeSteps) {
+		return getObjectiveCoefficients(temporalResolution, factor, offset, numberOfTimeSteps, false);
+	}
+
+	/**
+	 * Gets objective coefficients factor*price[offset+i] for numberOfTimeSteps time steps.
+	 *
+	 * @param temporalResolution the temporal resolution in h
+	 * @param factor the factor, e.g. time interval and unit conversion
+	 * @param offset the first time step
+	 * @param numberOfTimeSteps the number of time steps
+	 * @param repeat whether the price series is repeated if the time steps exceed it, e.g. a daily profile in a rolling horizon
+	 * @return the objective coefficients
+	 * @throws IllegalArgumentException if the time steps exceed the price series and it is not repeated
+	 */
+	public static double[] getObjectiveCoefficients (double temporalResolution, double factor, int offset, int numberOfTimeSteps, boolean repeat) {
+		double[] price = getPrice(temporalResolution);
+		if (!repeat && offset + numberOfTimeSteps > price.length) {
+			throw new IllegalArgumentException("Time steps " + offset + " to " + (offset + numberOfTimeSteps - 1)
+					+ " exceed the electricity price of " + price.length + " time steps");
+		}
+		double[] coefficients = new double[numberOfTimeSteps];
+		for (int i = 0; i < numberOfTimeSteps; i++) {
+			coefficients[i] = factor*price[(offset+i) % price.length];
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Removes all cached prices, e.g. after the tariff has changed.
+	 */
+	public static void clear () {
+		ModelContext.DESIGN_PATTERNS_LOCK.lock();
+		try {
+			pricesByResolution.clear();
+		} finally {
+			ModelContext.DESIGN_PATTERNS_LOCK.unlock();
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package modelGeneration;
+
+import ilog.concert.IloException;
+
+/**
+ * The Interface MipSolver.
+ *
+ * Solves a model built into a model context. Models are built with the design patterns, which use the cplex instance
+ * of the context as modeler, so every solver needs the CPLEX library to build the model; a solver either solves this
+ * instance itself or translates it into its own model. The entry points OptimizationModel and
+ * OptimizationModelRefrigeration solve with the solver set by setSolver(), by default CplexSolver.
+ */
+public interface MipSolver {
+
+	/**
+	 * Gets the name of the solver.
+	 *
+	 * @return the name
+	 */
+	String getName ();
+
+	/**
+	 * Solves the model of the context.
+	 *
+	 * @param context the model context, with the model built
+	 * @return the solver result
+	 * @throws IloException the ilo exception
+	 */
+	SolverResult solve (ModelContext context) throws IloException;
+}
@@ -0,0 +1,541 @@
+package modelGeneration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import designpatterns.ResourceParameters;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+import ilog.cplex.IloCplex;
+import modelGeneration.VariableKey.Direction;
+
+/**
+ * The Class MipStart.
+ *
+ * A start solution for the solver, given as values of a subset of the decision variables: the state binaries and
+ * powers of the resources from historical operation, or all decision variables from the previous rolling-horizon
+ * solution shifted by the executed time steps. The start is passed with IloCplex.addMIPStart() and effort level
+ * Repair, so that the solver completes the remaining variables and repairs violated constraints, e.g. holding
+ * durations of a historical state sequence.
+ *
+ * <pre>
+ * MipStart.fromHistory(context, histories).addTo(context.getCplex(), "history");
+ * </pre>
+ */
+public class MipStart {
+
+	/** The variables. */
+	private final List<IloNumVar> variables = new ArrayList<IloNumVar>();
+
+	/** The values. */
+	private double[] values = new double[64];
+
+	/**
+	 * The Class OperationHistory.
+	 *
+	 * The historical operation of a resource at a temporal resolution: states, input and output power.
+	 */
+	public static class OperationHistory {
+
+		/** The name of the resource. */
+		private final String nameOfResource;
+
+		/** The time interval of the history in h. */
+		private final double timeInterval;
+
+		/** The states, NaN for time steps without data. */
+		private final double[] states;
+
+		/** The input power. */
+		private final double[] inputPower;
+
+		/** The output power. */
+		private final double[] outputPower;
+
+		/**
+		 * Instantiates a new operation history.
+		 *
+		 * @param nameOfResource the name of the resource
+		 * @param states the states
+		 * @param inputPower the input power
+		 * @param outputPower the output power
+		 * @param timeInterval the time interval of the history in h
+		 */
+		public OperationHistory(String nameOfResource, double[] states, double[] inputPower, double[] outputPower, double timeInterval) {
+			this.nameOfResource = nameOfResource;
+			this.timeInterval = timeInterval;
+			this.states = states;
+			this.inputPower = inputPower;
+			this.outputPower = outputPower;
+		}
+
+		/**
+		 * Loads the historical operation of a resource from its input files, read through the TimeSeriesRepository and
+		 * resampled to a temporal resolution with a PreProcessingPipeline.
+		 *
+		 * @param nameOfResource the name of the resource
+		 * @param timeStampsFile the time stamps file
+		 * @param inputFile the input power file
+		 * @param outputFile the output power file
+		 * @param statesFile the states file
+		 * @param nominalIntervalInH the interval of the time stamps in h
+		 * @param temporalResolution the temporal resolution of the model in h
+		 * @return the operation history
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		public static OperationHistory load (String nameOfResource, String timeStampsFile, String inputFile, String outputFile, String statesFile,
+				double nominalIntervalInH, double temporalResolution) throws IOException {
+			double[] lowerBounds = {0, 0, 0};
+			double[] upperBounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+			double[] maxJumps = {Double.NaN, Double.NaN, Double.NaN};
+			PreProcessingPipeline pipeline = PreProcessingPipeline.standard(nominalIntervalInH, temporalResolution, new boolean[] {false, false, true},
+					lowerBounds, upperBounds, maxJumps, temporalResolution);
+			PreProcessingPipeline.CollectingSink sink = new PreProcessingPipeline.CollectingSink();
+			TimeSeriesRepository repository = TimeSeriesRepository.getShared();
+			pipeline.run(repository.get(timeStampsFile), new double[][] {repository.get(inputFile), repository.get(outputFile), repository.get(statesFile)}, sink);
+			if (sink.getTime().length == 0) {
+				throw new IOException("No historical operation in " + timeStampsFile);
+			}
+			return new OperationHistory(nameOfResource, sink.getValues(2), sink.getValues(0), sink.getValues(1), temporalResolution);
+		}
+
+		/**
+		 * Selects the historical window most similar to the planned operation: windows without missing data starting in
+		 * the initial state, with the output energy closest to the target energy; among equal windows the most recent.
+		 * If no window starts in the initial state, all windows without missing data are considered.
+		 *
+		 * @param length the length of the window in time steps of the history
+		 * @param initialState the initial state of the resource
+		 * @param targetEnergy the output energy of the window in kWh, NaN for none
+		 * @return the first time step of the window, -1 if the history has no window without missing data
+		 */
+		public int selectWindow (int length, int initialState, double targetEnergy) {
+			int numberOfTimeSteps = Math.min(states.length, Math.min(inputPower.length, outputPower.length));
+			// prefix sums of output power and of time steps with missing data
+			double[] energy = new double[numberOfTimeSteps + 1];
+			int[] missing = new int[numberOfTimeSteps + 1];
+			for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+				boolean isMissing = Double.isNaN(states[timeStep]) || Double.isNaN(inputPower[timeStep]) || Double.isNaN(outputPower[timeStep]);
+				missing[timeStep + 1] = missing[timeStep] + (isMissing ? 1 : 0);
+				energy[timeStep + 1] = energy[timeStep] + (isMissing ? 0 : outputPower[timeStep]*timeInterval);
+			}
+			int bestStart = -1;
+			int bestStartInInitialState = -1;
+			double bestScore = Double.MAX_VALUE;
+			double bestScoreInInitialState = Double.MAX_VALUE;
+			for (int start = 0; start + length <= numberOfTimeSteps; start++) {
+				if (missing[start + length] - missing[start] > 0) continue;
+				double score = Double.isNaN(targetEnergy) ? 0 : Math.abs(energy[start + length] - energy[start] - targetEnergy);
+				if (score <= bestScore) {
+					bestScore = score;
+					bestStart = start;
+				}
+				if (Math.round(states[start]) == initialState && score <= bestScoreInInitialState) {
+					bestScoreInInitialState = score;
+					bestStartInInitialState = start;
+				}
+			}
+			return bestStartInInitialState >= 0 ? bestStartInInitialState : bestStart;
+		}
+
+		/**
+		 * Gets the name of the resource.
+		 *
+		 * @return the name of the resource
+		 */
+		public String getNameOfResource() {
+			return nameOfResource;
+		}
+
+		/**
+		 * Gets the time interval of the history.
+		 *
+		 * @return the time interval in h
+		 */
+		public double getTimeInterval() {
+			return timeInterval;
+		}
+
+		/**
+		 * Gets the states.
+		 *
+		 * @return the states
+		 */
+		public double[] getStates() {
+			return states;
+		}
+
+		/**
+		 * Gets the input power.
+		 *
+		 * @return the input power
+		 */
+		public double[] getInputPower() {
+			return inputPower;
+		}
+
+		/**
+		 * Gets the output power.
+		 *
+		 * @return the output power
+		 */
+		public double[] getOutputPower() {
+			return outputPower;
+		}
+	}
+
+	/**
+	 * Creates a start from the historical operation of the resources: for each resource, the states and powers of the
+	 * most similar historical window. The target energy of a resource is its share of the whole-horizon system targets
+	 * on its output. The window covers the horizon of the model; on a TimeGrid, a time step starts in the historical
+	 * state at its start, with the powers averaged over its duration. The windows of identical resources are assigned in
+	 * the order of SymmetryBreaking, so that the start satisfies its ordering.
+	 *
+	 * @param context the model context, with the model built
+	 * @param histories the operation histories, at the finest duration of the time steps of the model or finer
+	 * @return the MIP start
+	 * @throws IloException the ilo exception
+	 */
+	public static MipStart fromHistory (ModelContext context, List<OperationHistory> histories) throws IloException {
+		MipStart mipStart = new MipStart();
+		VariableRegistry registry = context.getVariableRegistry();
+		double[] durations = context.getTimeStepDurations();
+		// the windows by resource: states, input power and output power of each time step of the model
+		Map<String, double[][]> windows = new LinkedHashMap<String, double[][]>();
+		for (OperationHistory history : histories) {
+			ResourceParameters resourceParameters = getResourceParameters(context, history.getNameOfResource());
+			if (resourceParameters == null) {
+				System.err.println("No resource " + history.getNameOfResource() + " in the model, history not used as MIP start");
+				continue;
+			}
+			int[] bounds = getBounds(durations, history.getTimeInterval());
+			int length = bounds[durations.length];
+			int start = history.selectWindow(length, resourceParameters.getInitialSystemState(), getTargetEnergy(context, resourceParameters));
+			if (start < 0) {
+				System.err.println("No complete window of " + length + " time steps in the history of " + history.getNameOfResource());
+				continue;
+			}
+			windows.put(history.getNameOfResource(), mapWindow(history, start, bounds));
+		}
+
+		// identical resources are interchangeable, their windows are reassigned in the order of the symmetry breaking
+		for (List<String> group : SymmetryBreaking.findIdenticalResources(context)) {
+			List<String> resources = new ArrayList<String>();
+			List<double[][]> groupWindows = new ArrayList<double[][]>();
+			for (String nameOfResource : group) {
+				if (windows.containsKey(nameOfResource)) {
+					resources.add(nameOfResource);
+					groupWindows.add(windows.get(nameOfResource));
+				}
+			}
+			Collections.sort(groupWindows, new Comparator<double[][]>() {
+				@Override
+				public int compare (double[][] window, double[][] other) {
+					return SymmetryBreaking.compareStates(window[0], other[0]);
+				}
+			});
+			for (int resource = 0; resource < resources.size(); resource++) {
+				windows.put(resources.get(resource), groupWindows.get(resource));
+			}
+		}
+
+		for (Entry<String, double[][]> window : windows.entrySet()) {
+			mipStart.addWindow(findStates(context, window.getKey()), find(registry, window.getKey(), Direction.INPUT, 0),
+					find(registry, window.getKey(), Direction.OUTPUT, OptimizationModelRefrigeration.ONLYONE), window.getValue());
+		}
+		return mipStart;
+	}
+
+	/**
+	 * Gets the bounds of the time steps of the model in time steps of a history, relative to the start of the window:
+	 * time step t of the model covers the time steps bounds[t] to bounds[t+1]-1 of the history, at least one.
+	 *
+	 * @param durations the durations of the time steps of the model in h
+	 * @param timeInterval the time interval of the history in h
+	 * @return the bounds, one more than time steps of the model
+	 */
+	static int[] getBounds (double[] durations, double timeInterval) {
+		int[] bounds = new int[durations.length + 1];
+		double startTime = 0;
+		for (int timeStep = 0; timeStep <= durations.length; timeStep++) {
+			bounds[timeStep] = Math.max(timeStep == 0 ? 0 : bounds[timeStep - 1] + 1, (int) Math.round(startTime/timeInterval));
+			if (timeStep < durations.length) startTime += durations[timeStep];
+		}
+		return bounds;
+	}
+
+	/**
+	 * Maps a window of a history onto the time steps of the model: a time step starts in the historical state at its
+	 * start, with the powers averaged over its duration.
+	 *
+	 * @param history the operation history
+	 * @param start the first time step of the window in the history
+	 * @param bounds the bounds of the time steps of the model, see getBounds()
+	 * @return the states, input power and output power of each time step of the model
+	 */
+	static double[][] mapWindow (OperationHistory history, int start, int[] bounds) {
+		int numberOfTimeSteps = bounds.length - 1;
+		double[] states = new double[numberOfTimeSteps];
+		double[] inputPower = new double[numberOfTimeSteps];
+		double[] outputPower = new double[numberOfTimeSteps];
+		for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+			int first = start + bounds[timeStep];
+			int end = start + bounds[timeStep + 1];
+			states[timeStep] = history.getStates()[first];
+			for (int historyTimeStep = first; historyTimeStep < end; historyTimeStep++) {
+				inputPower[timeStep] += history.getInputPower()[historyTimeStep]/(end - first);
+				outputPower[timeStep] += history.getOutputPower()[historyTimeStep]/(end - first);
+			}
+		}
+		return new double[][] {states, inputPower, outputPower};
+	}
+
+	/**
+	 * Adds the window of a resource: the binary of its state set and the others cleared in each time step, and the input
+	 * and output power clipped to the bounds of the variables.
+	 *
+	 * @param stateVariables the state variables [timeStep][state], null if the resource has none
+	 * @param inputPower the input power, null if the resource has none
+	 * @param outputPower the output power, null if the resource has none
+	 * @param window the states, input power and output power of each time step of the model
+	 * @throws IloException the ilo exception
+	 */
+	void addWindow (IloNumVar[][] stateVariables, IloNumVar[] inputPower, IloNumVar[] outputPower, double[][] window) throws IloException {
+		if (stateVariables != null) {
+			for (int timeStep = 0; timeStep < Math.min(window[0].length, stateVariables.length); timeStep++) {
+				int state = (int) Math.round(window[0][timeStep]);
+				for (int width = 0; width < stateVariables[timeStep].length; width++) {
+					add(stateVariables[timeStep][width], width == state ? 1 : 0);
+				}
+			}
+		}
+		add(inputPower, window[1], 0);
+		add(outputPower, window[2], 0);
+	}
+
+	/**
+	 * Creates a start from the current solution, shifted by the executed time steps: time step t starts with the value
+	 * of time step t+shift, the last time steps with the value of the last time step. Must be called before the bounds
+	 * of the model are changed, e.g. by RollingHorizonRefrigeration.fixInitialConditions().
+	 *
+	 * @param context the model context, solved
+	 * @param shift the number of executed time steps
+	 * @return the MIP start
+	 * @throws IloException the ilo exception
+	 */
+	public static MipStart fromShiftedSolution (ModelContext context, int shift) throws IloException {
+		MipStart mipStart = new MipStart();
+		IloCplex cplex = context.getCplex();
+		for (IloNumVar[] timeSeries : getTimeSeries(context.getDecisionVariablesVector(), context.getDecisionVariablesMatrix())) {
+			mipStart.addShifted(timeSeries, cplex.getValues(timeSeries), shift);
+		}
+		return mipStart;
+	}
+
+	/**
+	 * Gets the decision variables as time series, indexed by time step.
+	 *
+	 * @param decisionVariablesVector the decision variables vector
+	 * @param decisionVariablesMatrix the decision variables matrix
+	 * @return the time series, without empty ones
+	 */
+	static List<IloNumVar[]> getTimeSeries (Map<String, IloNumVar[]> decisionVariablesVector, Map<String, IloNumVar[][]> decisionVariablesMatrix) {
+		List<IloNumVar[]> timeSeries = new ArrayList<IloNumVar[]>();
+		for (IloNumVar[] decisionVariable : decisionVariablesVector.values()) {
+			if (decisionVariable.length > 0) timeSeries.add(decisionVariable);
+		}
+		for (Entry<String, IloNumVar[][]> decisionVariableSet : decisionVariablesMatrix.entrySet()) {
+			IloNumVar[][] decisionVariable = decisionVariableSet.getValue();
+			if (decisionVariable.length == 0) continue;
+			if (decisionVariableSet.getKey().contains(OptimizationModelRefrigeration.STATE)) {
+				// state variables defined: statesIntArrayResource[timeStep][state]
+				for (int width = 0; width < decisionVariable[0].length; width++) {
+					IloNumVar[] column = new IloNumVar[decisionVariable.length];
+					for (int timeStep = 0; timeStep < decisionVariable.length; timeStep++) {
+						column[timeStep] = decisionVariable[timeStep][width];
+					}
+					timeSeries.add(column);
+				}
+			} else {
+				// other variables defined as [width][timestep]
+				for (IloNumVar[] row : decisionVariable) {
+					if (row.length > 0) timeSeries.add(row);
+				}
+			}
+		}
+		return timeSeries;
+	}
+
+	/**
+	 * Adds a variable.
+	 *
+	 * @param variable the variable
+	 * @param value the value
+	 */
+	public void add (IloNumVar variable, double value) {
+		if (variables.size() == values.length) {
+			values = Arrays.copyOf(values, values.length*2);
+		}
+		values[variables.size()] = value;
+		variables.add(variable);
+	}
+
+	/**
+	 * Adds the values of a series from an offset to a decision variable, clipped to the bounds of the variables.
+	 *
+	 * @param decisionVariable the decision variable, null to add nothing
+	 * @param series the series
+	 * @param offset the index of the series of time step 0
+	 * @throws IloException the ilo exception
+	 */
+	private void add (IloNumVar[] decisionVariable, double[] series, int offset) throws IloException {
+		if (decisionVariable == null) return;
+		for (int timeStep = 0; timeStep < decisionVariable.length && offset + timeStep < series.length; timeStep++) {
+			double value = Math.max(decisionVariable[timeStep].getLB(), Math.min(decisionVariable[timeStep].getUB(), series[offset + timeStep]));
+			add(decisionVariable[timeStep], value);
+		}
+	}
+
+	/**
+	 * Adds the values of a decision variable shifted by a number of time steps; values of integer variables are rounded.
+	 *
+	 * @param decisionVariable the decision variable
+	 * @param solution the solution of the decision variable
+	 * @param shift the shift
+	 * @throws IloException the ilo exception
+	 */
+	void addShifted (IloNumVar[] decisionVariable, double[] solution, int shift) throws IloException {
+		boolean integer = decisionVariable[0].getType() != IloNumVarType.Float;
+		for (int timeStep = 0; timeStep < decisionVariable.length; timeStep++) {
+			double value = solution[Math.min(timeStep + shift, solution.length - 1)];
+			add(decisionVariable[timeStep], integer ? Math.round(value) : value);
+		}
+	}
+
+	/**
+	 * Passes this start to the solver with effort level Repair, replacing the starts passed before.
+	 *
+	 * @param cplex the cplex instance
+	 * @param name the name of the start
+	 * @return the index of the start, -1 if the start is empty
+	 * @throws IloException the ilo exception
+	 */
+	public int addTo (IloCplex cplex, String name) throws IloException {
+		if (variables.isEmpty()) return -1;
+		if (cplex.getNMIPStarts() > 0) {
+			cplex.deleteMIPStarts(0, cplex.getNMIPStarts());
+		}
+		return cplex.addMIPStart(variables.toArray(new IloNumVar[variables.size()]), Arrays.copyOf(values, variables.size()),
+				IloCplex.MIPStartEffort.Repair, name);
+	}
+
+	/**
+	 * Gets the number of variables.
+	 *
+	 * @return the number of variables
+	 */
+	public int size () {
+		return variables.size();
+	}
+
+	/**
+	 * Gets the variables.
+	 *
+	 * @return the variables
+	 */
+	List<IloNumVar> getVariables () {
+		return variables;
+	}
+
+	/**
+	 * Gets the values of the variables.
+	 *
+	 * @return the values
+	 */
+	double[] getValues () {
+		return Arrays.copyOf(values, variables.size());
+	}
+
+	/**
+	 * Gets the resource parameters of a resource.
+	 *
+	 * @param context the model context
+	 * @param nameOfResource the name of the resource
+	 * @return the resource parameters, null if the system has no such resource
+	 */
+	private static ResourceParameters getResourceParameters (ModelContext context, String nameOfResource) {
+		for (ResourceParameters resourceParameters : context.getSystemParameters().getResourceParameters()) {
+			if (resourceParameters.getName().equals(nameOfResource)) return resourceParameters;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the target energy of a resource: its share of the whole-horizon system targets on its output.
+	 *
+	 * @param context the model context
+	 * @param resourceParameters the resource parameters
+	 * @return the target energy in kWh, NaN if no system target applies
+	 */
+	private static double getTargetEnergy (ModelContext context, ResourceParameters resourceParameters) {
+		double targetEnergy = Double.NaN;
+		for (SystemTarget systemTarget : context.getSystemTargets()) {
+			if (systemTarget.getWindowLengthInH() > 0 || systemTarget.getFlow().equalsIgnoreCase(OptimizationModelRefrigeration.INPUT)) continue;
+			int numberOfResources = systemTarget.getResources().size();
+			if (numberOfResources == 0) {
+				if (systemTarget.getEnergyCarrier() == null || !systemTarget.getEnergyCarrier().equalsIgnoreCase(resourceParameters.getEnergyCarrierOutput())) continue;
+				for (ResourceParameters other : context.getSystemParameters().getResourceParameters()) {
+					if (systemTarget.getEnergyCarrier().equalsIgnoreCase(other.getEnergyCarrierOutput())) numberOfResources++;
+				}
+			} else if (!systemTarget.getResources().contains(resourceParameters.getName())) {
+				continue;
+			}
+			targetEnergy = (Double.isNaN(targetEnergy) ? 0 : targetEnergy) + systemTarget.getTarget()/numberOfResources;
+		}
+		return targetEnergy;
+	}
+
+	/**
+	 * Finds the state variables of a resource.
+	 *
+	 * @param context the model context
+	 * @param nameOfResource the name of the resource
+	 * @return the state variables [timeStep][state], null if the resource has none
+	 */
+	private static IloNumVar[][] findStates (ModelContext context, String nameOfResource) {
+		Map<String, IloNumVar[][]> decisionVariablesMatrix = context.getDecisionVariablesMatrix();
+		IloNumVar[][] states = decisionVariablesMatrix.get(nameOfResource + "-" + OptimizationModelRefrigeration.POWER + "-" + OptimizationModelRefrigeration.STATE);
+		if (states != null) return states;
+		for (Entry<String, IloNumVar[][]> decisionVariableSet : decisionVariablesMatrix.entrySet()) {
+			if (decisionVariableSet.getKey().startsWith(nameOfResource + "-") && decisionVariableSet.getKey().contains(OptimizationModelRefrigeration.STATE)) {
+				return decisionVariableSet.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the power of a resource.
+	 *
+	 * @param registry the variable registry
+	 * @param nameOfResource the name of the resource
+	 * @param direction the direction
+	 * @param carrierIndex the energy carrier index
+	 * @return the power, null if the resource has none
+	 */
+	private static IloNumVar[] find (VariableRegistry registry, String nameOfResource, Direction direction, int carrierIndex) {
+		try {
+			return registry.find(registry.key(nameOfResource, direction, carrierIndex, OptimizationModelRefrigeration.POWER));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,605 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import designpatterns.DesignPatterns;
+import designpatterns.ResourceParameters;
+import designpatterns.SystemState;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloRange;
+import ilog.cplex.IloCplex;
+import systemParameterModel.SystemParameters;
+
+/**
+ * The Class ModelContext.
+ *
+ * Owns the solver, the decision variable maps and the parameters of one optimization model, so that several models
+ * can exist in one JVM. The design patterns in DesignPatterns operate on static state; therefore a context is bound to
+ * DesignPatterns only while its model is built, guarded by a global lock:
+ *
+ * <pre>
+ * context.bind();
+ * try {
+ *     DesignPatterns.creationOfDecisionVariables_Names(-1);
+ *     ...
+ * } finally {
+ *     context.unbind();
+ * }
+ * </pre>
+ *
+ * After unbind(), solving and result extraction only use getCplex() and the maps of the context and can run
+ * concurrently with other contexts.
+ */
+public class ModelContext implements AutoCloseable {
+
+	/** The lock guarding the static state of DesignPatterns. */
+	static final ReentrantLock DESIGN_PATTERNS_LOCK = new ReentrantLock();
+
+	/**
+	 * The executor running tasks after the background tasks of closed contexts, e.g. closing their cplex instances.
+	 * Its thread ends when idle, and is no daemon, so that pending exports are completed before the JVM exits.
+	 */
+	private static final ExecutorService AFTER_BACKGROUND_TASKS = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			return new Thread(runnable, "model-close");
+		}
+	});
+
+	/** The system parameters. */
+	private final SystemParameters systemParameters;
+
+	/** The cplex instance of this model. */
+	private IloCplex cplex;
+
+	/** The decision variables vector. */
+	private final Map<String, IloNumVar[]> decisionVariablesVector = new LinkedHashMap<String, IloNumVar[]>();
+
+	/** The decision variables matrix. */
+	private final Map<String, IloNumVar[][]> decisionVariablesMatrix = new LinkedHashMap<String, IloNumVar[][]>();
+
+	/** The system targets. */
+	private List<SystemTarget> systemTargets = new ArrayList<SystemTarget>();
+
+	/** The constraints of the system targets by target name, one per window. */
+	private final Map<String, IloRange[]> systemTargetConstraints = new LinkedHashMap<String, IloRange[]>();
+
+	/** The background tasks using the cplex instance, e.g. model exports. */
+	private final List<Future<?>> backgroundTasks = new ArrayList<Future<?>>();
+
+	/** The dependency graph, compiled from the system parameters on first use. */
+	private DependencyGraph dependencyGraph;
+
+	/** The variable registry, null until registerDecisionVariables() or getVariableRegistry(). */
+	private VariableRegistry variableRegistry;
+
+	/** The result sinks, by default CSV only. */
+	private final List<ResultSink> resultSinks = new ArrayList<ResultSink>(Arrays.asList(new CsvResultSink()));
+
+	/** The build statistics. */
+	private final BuildStatistics buildStatistics = new BuildStatistics(this);
+
+	/** The time interval in h. */
+	private double timeInterval;
+
+	/** The array length in # of time steps. */
+	private int arrayLength;
+
+	/** The optimality gap. */
+	private double optimalityGap = 0.001; // default 10e-4 = 0.001
+
+	/** The time grid, null for time steps of the time interval. */
+	private TimeGrid timeGrid;
+
+	/** The weights of the time steps, e.g. of representative periods; null if every time step counts once. */
+	private double[] timeStepWeights;
+
+	/** The encodings of the input-output relationships by resource name and PiecewiseLinearFormulation.DEFAULT_KEY. */
+	private final Map<String, PiecewiseLinearFormulation.Encoding> plaEncodings = new LinkedHashMap<String, PiecewiseLinearFormulation.Encoding>();
+
+	/**
+	 * Instantiates a new model context with a horizon of 10 h at the temporal resolution of the system parameters.
+	 *
+	 * @param systemParameters the system parameters
+	 */
+	public ModelContext(SystemParameters systemParameters) {
+		this.systemParameters = systemParameters;
+		for (ResourceParameters resourceParameters : systemParameters.getResourceParameters()) {
+			resourceParameters.setNumberOfSystemStates(resourceParameters.getSystemStates().size());
+		}
+		this.timeInterval = systemParameters.getTemporalResolutionOptimizationModel();
+		this.arrayLength = (int) (10/systemParameters.getTemporalResolutionOptimizationModel());
+	}
+
+	/**
+	 * Binds this context to DesignPatterns. Blocks while another context is bound; must be followed by unbind().
+	 *
+	 * @throws IloException the ilo exception
+	 */
+	public void bind () throws IloException {
+		awaitBackgroundTasks();
+		DESIGN_PATTERNS_LOCK.lock();
+		try {
+			if (cplex == null) {
+				cplex = new IloCplex();
+			}
+			DesignPatterns.globalCplex = cplex;
+			DesignPatterns.getResourceParameters().clear();
+			DesignPatterns.getResourceParameters().addAll(systemParameters.getResourceParameters());
+			DesignPatterns.getDecisionVariablesVector().clear();
+			DesignPatterns.getDecisionVariablesVector().putAll(decisionVariablesVector);
+			DesignPatterns.getDecisionVariablesMatrix().clear();
+			DesignPatterns.getDecisionVariablesMatrix().putAll(decisionVariablesMatrix);
+			DesignPatterns.setOptimalityGap(optimalityGap);
+			DesignPatterns.setTimeInterval(timeInterval);
+			DesignPatterns.setArrayLength(arrayLength);
+		} catch (IloException | RuntimeException e) {
+			DESIGN_PATTERNS_LOCK.unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Takes over the decision variables created while bound, clears DesignPatterns and releases the lock.
+	 */
+	public void unbind () {
+		try {
+			decisionVariablesVector.clear();
+			decisionVariablesVector.putAll(DesignPatterns.getDecisionVariablesVector());
+			decisionVariablesMatrix.clear();
+			decisionVariablesMatrix.putAll(DesignPatterns.getDecisionVariablesMatrix());
+			if (variableRegistry != null) {
+				variableRegistry.registerAll(decisionVariablesVector);
+			}
+			DesignPatterns.getDecisionVariablesVector().clear();
+			DesignPatterns.getDecisionVariablesMatrix().clear();
+			DesignPatterns.getResourceParameters().clear();
+			DesignPatterns.globalCplex = null;
+		} finally {
+			DESIGN_PATTERNS_LOCK.unlock();
+		}
+	}
+
+	/**
+	 * Gets the electricity price for the temporal resolution of this context from the ElectricityPriceCache.
+	 *
+	 * @return the electricity price, shared and not to be modified
+	 */
+	public double[] getElectricityPrice () {
+		return ElectricityPriceCache.getPrice(systemParameters.getTemporalResolutionOptimizationModel());
+	}
+
+	/**
+	 * Adds a background task that uses the cplex instance; it is awaited before the model is modified or closed.
+	 *
+	 * @param backgroundTask the background task
+	 */
+	public synchronized void addBackgroundTask (Future<?> backgroundTask) {
+		backgroundTasks.add(backgroundTask);
+	}
+
+	/**
+	 * Waits for all background tasks using the cplex instance.
+	 */
+	public void awaitBackgroundTasks () {
+		await(takeBackgroundTasks());
+	}
+
+	/**
+	 * Runs a task after the current background tasks have finished, without waiting for them: on another thread if
+	 * background tasks are pending, otherwise at once.
+	 *
+	 * @param task the task, e.g. writing the build statistics including the model export
+	 */
+	public void runAfterBackgroundTasks (final Runnable task) {
+		final List<Future<?>> tasks;
+		synchronized (this) {
+			tasks = new ArrayList<Future<?>>(backgroundTasks);
+		}
+		if (tasks.isEmpty()) {
+			task.run();
+			return;
+		}
+		AFTER_BACKGROUND_TASKS.execute(new Runnable() {
+			@Override
+			public void run() {
+				await(tasks);
+				task.run();
+			}
+		});
+	}
+
+	/**
+	 * Removes and returns the background tasks.
+	 *
+	 * @return the background tasks
+	 */
+	private synchronized List<Future<?>> takeBackgroundTasks () {
+		List<Future<?>> tasks = new ArrayList<Future<?>>(backgroundTasks);
+		backgroundTasks.clear();
+		return tasks;
+	}
+
+	/**
+	 * Waits for background tasks.
+	 *
+	 * @param tasks the tasks
+	 */
+	private static void await (List<Future<?>> tasks) {
+		for (Future<?> task : tasks) {
+			try {
+				task.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				System.err.println("Interrupted while waiting for background task");
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Closes this context. The cplex instance is closed once its background tasks have finished, e.g. a model export;
+	 * close() does not wait for them.
+	 */
+	@Override
+	public void close () {
+		final IloCplex closedCplex = cplex;
+		cplex = null;
+		decisionVariablesVector.clear();
+		decisionVariablesMatrix.clear();
+		systemTargetConstraints.clear();
+		variableRegistry = null;
+		if (closedCplex == null) {
+			takeBackgroundTasks();
+			return;
+		}
+		runAfterBackgroundTasks(new Runnable() {
+			@Override
+			public void run() {
+				closedCplex.close();
+			}
+		});
+		takeBackgroundTasks();
+	}
+
+	/**
+	 * Gets the system parameters.
+	 *
+	 * @return the systemParameters
+	 */
+	public SystemParameters getSystemParameters() {
+		return systemParameters;
+	}
+
+	/**
+	 * Gets the cplex.
+	 *
+	 * @return the cplex
+	 */
+	public IloCplex getCplex() {
+		return cplex;
+	}
+
+	/**
+	 * Gets the decision variables vector.
+	 *
+	 * @return the decisionVariablesVector
+	 */
+	public Map<String, IloNumVar[]> getDecisionVariablesVector() {
+		return decisionVariablesVector;
+	}
+
+	/**
+	 * Gets the decision variables matrix.
+	 *
+	 * @return the decisionVariablesMatrix
+	 */
+	public Map<String, IloNumVar[][]> getDecisionVariablesMatrix() {
+		return decisionVariablesMatrix;
+	}
+
+	/**
+	 * Gets the state variables of a resource, "&lt;resource&gt;-Power-State" or else the first state matrix of the resource.
+	 *
+	 * @param nameOfResource the name of the resource
+	 * @return the state variables [timeStep][state], null if the resource has none
+	 */
+	public IloNumVar[][] getStateVariables (String nameOfResource) {
+		return findStateVariables(decisionVariablesMatrix, nameOfResource);
+	}
+
+	/**
+	 * Finds the state variables of a resource in a decision variables matrix, e.g. in the one of DesignPatterns while
+	 * the model context is bound.
+	 *
+	 * @param decisionVariablesMatrix the decision variables matrix
+	 * @param nameOfResource the name of the resource
+	 * @return the state variables [timeStep][state], null if the resource has none
+	 */
+	static IloNumVar[][] findStateVariables (Map<String, IloNumVar[][]> decisionVariablesMatrix, String nameOfResource) {
+		IloNumVar[][] states = decisionVariablesMatrix.get(nameOfResource + "-" + OptimizationModelRefrigeration.POWER + "-" + OptimizationModelRefrigeration.STATE);
+		if (states != null) return states;
+		for (Map.Entry<String, IloNumVar[][]> decisionVariableSet : decisionVariablesMatrix.entrySet()) {
+			if (decisionVariableSet.getKey().startsWith(nameOfResource + "-") && decisionVariableSet.getKey().contains(OptimizationModelRefrigeration.STATE)) {
+				return decisionVariableSet.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the system targets.
+	 *
+	 * @return the system targets
+	 */
+	public List<SystemTarget> getSystemTargets() {
+		return systemTargets;
+	}
+
+	/**
+	 * Sets the system targets.
+	 *
+	 * @param systemTargets the new system targets
+	 */
+	public void setSystemTargets(List<SystemTarget> systemTargets) {
+		this.systemTargets = systemTargets;
+	}
+
+	/**
+	 * Gets the constraints of the system targets by target name, one per window.
+	 *
+	 * @return the system target constraints
+	 */
+	public Map<String, IloRange[]> getSystemTargetConstraints() {
+		return systemTargetConstraints;
+	}
+
+	/**
+	 * Gets the dependency graph of the system parameters, compiled and validated on first use.
+	 *
+	 * @return the dependency graph
+	 */
+	public synchronized DependencyGraph getDependencyGraph() {
+		if (dependencyGraph == null) {
+			dependencyGraph = DependencyGraph.compile(systemParameters);
+		}
+		return dependencyGraph;
+	}
+
+	/**
+	 * Registers the decision variables created since the last call in the variable registry of this context, which is
+	 * created on the first call and only extended afterwards. Requires the context to be bound; decision variables
+	 * added later while bound are registered on unbind().
+	 *
+	 * @return the variable registry
+	 */
+	public VariableRegistry registerDecisionVariables () {
+		if (variableRegistry == null) {
+			variableRegistry = new VariableRegistry();
+		}
+		variableRegistry.registerAll(DesignPatterns.getDecisionVariablesVector());
+		return variableRegistry;
+	}
+
+	/**
+	 * Gets the variable registry; if no decision variables were registered, a registry of the decision variables
+	 * vector of this context is created.
+	 *
+	 * @return the variable registry
+	 */
+	public VariableRegistry getVariableRegistry() {
+		if (variableRegistry == null) {
+			variableRegistry = VariableRegistry.of(decisionVariablesVector);
+		}
+		return variableRegistry;
+	}
+
+	/**
+	 * Gets the result sinks, by default CSV only, to be modified to select the output formats.
+	 *
+	 * @return the result sinks
+	 */
+	public List<ResultSink> getResultSinks() {
+		return resultSinks;
+	}
+
+	/**
+	 * Gets the build statistics.
+	 *
+	 * @return the build statistics
+	 */
+	public BuildStatistics getBuildStatistics() {
+		return buildStatistics;
+	}
+
+	/**
+	 * Gets the time interval.
+	 *
+	 * @return the timeInterval
+	 */
+	public double getTimeInterval() {
+		return timeInterval;
+	}
+
+	/**
+	 * Sets the time interval.
+	 *
+	 * @param timeInterval the timeInterval to set
+	 */
+	public void setTimeInterval(double timeInterval) {
+		this.timeInterval = timeInterval;
+	}
+
+	/**
+	 * Gets the array length.
+	 *
+	 * @return the arrayLength
+	 */
+	public int getArrayLength() {
+		return arrayLength;
+	}
+
+	/**
+	 * Sets the array length.
+	 *
+	 * @param arrayLength the arrayLength to set
+	 */
+	public void setArrayLength(int arrayLength) {
+		this.arrayLength = arrayLength;
+	}
+
+	/**
+	 * Gets the optimality gap.
+	 *
+	 * @return the optimalityGap
+	 */
+	public double getOptimalityGap() {
+		return optimalityGap;
+	}
+
+	/**
+	 * Sets the optimality gap.
+	 *
+	 * @param optimalityGap the optimalityGap to set
+	 */
+	public void setOptimalityGap(double optimalityGap) {
+		this.optimalityGap = optimalityGap;
+	}
+
+	/**
+	 * Gets the time step weights.
+	 *
+	 * @return the time step weights, null if every time step counts once
+	 */
+	public double[] getTimeStepWeights() {
+		return timeStepWeights;
+	}
+
+	/**
+	 * Sets the time step weights, used by whole-horizon system targets, e.g. from TemporalAggregation.getTimeStepWeights().
+	 *
+	 * @param timeStepWeights the time step weights, arrayLength values or null
+	 */
+	public void setTimeStepWeights(double[] timeStepWeights) {
+		this.timeStepWeights = timeStepWeights;
+	}
+
+	/**
+	 * Gets the time grid.
+	 *
+	 * @return the time grid, null for time steps of the time interval
+	 */
+	public TimeGrid getTimeGrid() {
+		return timeGrid;
+	}
+
+	/**
+	 * Sets a time grid with a duration per time step. The array length is set to the number of time steps and the
+	 * time interval of DesignPatterns to the finest duration. DesignPatterns balances storages, counts holding durations
+	 * and limits ramps per time step of that time interval, so time grids with different durations are rejected for
+	 * systems in which these constraints would be wrong on coarse time steps, see checkTimeGrid().
+	 *
+	 * @param timeGrid the time grid, null for time steps of the time interval
+	 * @throws IllegalArgumentException if the time grid has different durations and the system has storages, holding durations or ramp limits
+	 */
+	public void setTimeGrid(TimeGrid timeGrid) {
+		if (timeGrid != null && !timeGrid.isUniform()) {
+			checkTimeGrid(timeGrid);
+		}
+		this.timeGrid = timeGrid;
+		if (timeGrid != null) {
+			this.arrayLength = timeGrid.size();
+			this.timeInterval = timeGrid.getFinestTimeInterval();
+		}
+	}
+
+	/**
+	 * Checks that the constraints of DesignPatterns, generated with the finest duration of a time grid, are not changed
+	 * by its coarse time steps. Rejected are storages, whose energy of a coarse time step would be underestimated,
+	 * maximum holding durations that can be reached within the horizon, which would allow longer stays, minimum holding
+	 * durations longer than the finest duration, which would force longer stays, and ramp limits smaller than the input
+	 * range of a state, which would limit the change over a coarse time step to the change over a fine one.
+	 *
+	 * @param timeGrid the time grid with different durations
+	 * @throws IllegalArgumentException if a resource has one of these constraints
+	 */
+	private void checkTimeGrid (TimeGrid timeGrid) {
+		double finest = timeGrid.getFinestTimeInterval();
+		for (ResourceParameters resourceParameters : systemParameters.getResourceParameters()) {
+			String unsupported = null;
+			if (resourceParameters.isStorage()) {
+				unsupported = "storage " + resourceParameters.getName() + " would be balanced with the finest duration";
+			} else if (resourceParameters.getSystemStates() != null) {
+				for (SystemState systemState : resourceParameters.getSystemStates()) {
+					String state = "state " + systemState.getStateID() + " of " + resourceParameters.getName();
+					double maxDuration = systemState.getMaxStateDurationInH();
+					double minDuration = systemState.getMinStateDurationInH();
+					double inputRange = systemState.getMaxPowerInput() - systemState.getMinPowerInput();
+					if (maxDuration > 0 && maxDuration < timeGrid.size()*finest) {
+						unsupported = state + " has a maximum holding duration of " + maxDuration + " h";
+					} else if (minDuration > finest + 1e-9) {
+						unsupported = state + " has a minimum holding duration of " + minDuration + " h";
+					} else if (Math.abs(systemState.getMinRampInput()) < inputRange || Math.abs(systemState.getMaxRampInput()) < inputRange) {
+						unsupported = state + " has ramp limits of " + systemState.getMinRampInput() + " and " + systemState.getMaxRampInput();
+					}
+					if (unsupported != null) break;
+				}
+			}
+			if (unsupported != null) {
+				throw new IllegalArgumentException("Time grid with different durations not supported, " + unsupported);
+			}
+		}
+	}
+
+	/**
+	 * Gets the duration of each time step, from the time grid or the time interval.
+	 *
+	 * @return the durations in h, arrayLength values
+	 */
+	public double[] getTimeStepDurations () {
+		if (timeGrid != null) {
+			return timeGrid.getDurations();
+		}
+		double[] durations = new double[arrayLength];
+		Arrays.fill(durations, timeInterval);
+		return durations;
+	}
+
+	/**
+	 * Gets the encodings of the input-output relationships, to be modified to select encodings.
+	 *
+	 * @return the encodings by resource name and PiecewiseLinearFormulation.DEFAULT_KEY
+	 */
+	public Map<String, PiecewiseLinearFormulation.Encoding> getPlaEncodings() {
+		return plaEncodings;
+	}
+
+	/**
+	 * Gets the encoding of the input-output relationship of a resource.
+	 *
+	 * @param nameOfResource the name of the resource
+	 * @return the encoding of the resource, else the default encoding, else DESIGN_PATTERNS
+	 */
+	public PiecewiseLinearFormulation.Encoding getPlaEncoding (String nameOfResource) {
+		PiecewiseLinearFormulation.Encoding encoding = plaEncodings.get(nameOfResource);
+		if (encoding == null) {
+			encoding = plaEncodings.get(PiecewiseLinearFormulation.DEFAULT_KEY);
+		}
+		return encoding != null ? encoding : PiecewiseLinearFormulation.Encoding.DESIGN_PATTERNS;
+	}
+}
@@ -0,0 +1,246 @@
+package modelGeneration;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+
+/**
+ * The Class ModelExport.
+ *
+ * Policy for exporting models to files after the solve. The export runs on a background thread and is recorded as
+ * stage exportModel in the build statistics; the model context waits for it before the model is modified, and closes
+ * the cplex instance only after it, without blocking the caller of close(). After each export, the oldest exports of
+ * the same model in the directory are deleted so that at most retention files are kept.
+ */
+public class ModelExport {
+
+	/**
+	 * The Enum Policy.
+	 */
+	public enum Policy {
+		/** No export. */
+		OFF,
+		/** Export after every solve. */
+		ALWAYS,
+		/** Export after every sampleRate-th solve. */
+		SAMPLED,
+		/** Export only if the model was not solved. */
+		ON_FAILURE
+	}
+
+	/**
+	 * The Enum Format, selected by cplex from the file extension.
+	 */
+	public enum Format {
+		/** Binary SAV format. */
+		SAV(".sav"),
+		/** MPS format. */
+		MPS(".mps"),
+		/** LP format. */
+		LP(".lp"),
+		/** gzip-compressed LP format. */
+		LP_GZ(".lp.gz"),
+		/** gzip-compressed MPS format. */
+		MPS_GZ(".mps.gz");
+
+		/** The file extension. */
+		private final String fileExtension;
+
+		/**
+		 * Instantiates a new format.
+		 *
+		 * @param fileExtension the file extension
+		 */
+		Format(String fileExtension) {
+			this.fileExtension = fileExtension;
+		}
+
+		/**
+		 * Gets the file extension.
+		 *
+		 * @return the file extension
+		 */
+		public String getFileExtension() {
+			return fileExtension;
+		}
+	}
+
+	/**
+	 * The executor exporting the models, one thread so that exports do not compete with solves. The thread ends when
+	 * idle and is no daemon, so that an export is completed before the JVM exits.
+	 */
+	private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS,
+			new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			return new Thread(runnable, "model-export");
+		}
+	});
+
+	/** The Constant TIME_STAMP, the pattern of OptimizationModelRefrigeration.getNow(). */
+	private static final String TIME_STAMP = "\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2}";
+
+	/** The policy. */
+	private final Policy policy;
+
+	/** The format. */
+	private final Format format;
+
+	/** The sample rate for SAMPLED. */
+	private final int sampleRate;
+
+	/** The maximum number of exports kept per model and directory, 0 for unlimited. */
+	private final int retention;
+
+	/** The number of solves. */
+	private final AtomicLong numberOfSolves = new AtomicLong();
+
+	/**
+	 * Instantiates a new model export.
+	 *
+	 * @param policy the policy
+	 * @param format the format
+	 * @param sampleRate the sample rate for SAMPLED, export every sampleRate-th solve
+	 * @param retention the maximum number of exports kept per model and directory, 0 for unlimited
+	 */
+	public ModelExport(Policy policy, Format format, int sampleRate, int retention) {
+		this.policy = policy;
+		this.format = format;
+		this.sampleRate = Math.max(1, sampleRate);
+		this.retention = retention;
+	}
+
+	/**
+	 * Exports the model of the context after the solve if the policy requires it.
+	 *
+	 * @param context the model context
+	 * @param filePath the directory
+	 * @param nameOfModel the name of the model, the file name is nameOfModel_yyyy-MM-dd_HH-mm-ss and the extension of the format
+	 * @param solved whether the model was solved
+	 * @return the export, null if the model is not exported
+	 */
+	public Future<String> afterSolve (ModelContext context, final String filePath, final String nameOfModel, boolean solved) {
+		long solve = numberOfSolves.getAndIncrement();
+		boolean export;
+		switch (policy) {
+		case ALWAYS:
+			export = true;
+			break;
+		case SAMPLED:
+			export = solve % sampleRate == 0;
+			break;
+		case ON_FAILURE:
+			export = !solved;
+			break;
+		default:
+			export = false;
+		}
+		final IloCplex cplex = context.getCplex();
+		if (!export || cplex == null) return null;
+		final BuildStatistics statistics = context.getBuildStatistics();
+
+		final String fileName = filePath + nameOfModel + "_" + OptimizationModelRefrigeration.getNow() + format.getFileExtension();
+		Future<String> task = EXECUTOR.submit(new Callable<String>() {
+			@Override
+			public String call() {
+				long start = System.nanoTime();
+				try {
+					cplex.exportModel(fileName);
+					System.out.println("Successfully exported the model to the file "+ fileName+".");
+				} catch (IloException e) {
+					e.printStackTrace();
+					System.err.println("Model could not be exported to " + fileName);
+				}
+				statistics.record("exportModel", null, System.nanoTime() - start);
+				deleteOldExports(filePath, nameOfModel);
+				return fileName;
+			}
+		});
+		context.addBackgroundTask(task);
+		return task;
+	}
+
+	/**
+	 * Deletes the oldest exports of a model in a directory, so that at most retention exports are kept. Only files named
+	 * nameOfModel_yyyy-MM-dd_HH-mm-ss and the extension of the format count as exports, not those of other models whose
+	 * names start with nameOfModel.
+	 *
+	 * @param filePath the directory
+	 * @param nameOfModel the name of the model
+	 */
+	private void deleteOldExports (String filePath, final String nameOfModel) {
+		if (retention <= 0) return;
+		File[] files = new File(filePath).listFiles();
+		if (files == null) return;
+		Pattern exportName = Pattern.compile(Pattern.quote(nameOfModel + "_") + TIME_STAMP + Pattern.quote(format.getFileExtension()));
+		List<File> exports = new ArrayList<File>();
+		for (File file : files) {
+			if (file.isFile() && exportName.matcher(file.getName()).matches()) {
+				exports.add(file);
+			}
+		}
+		if (exports.size() <= retention) return;
+		Collections.sort(exports, new Comparator<File>() {
+			@Override
+			public int compare(File file1, File file2) {
+				return Long.compare(file1.lastModified(), file2.lastModified());
+			}
+		});
+		for (File file : exports.subList(0, exports.size() - retention)) {
+			if (!file.delete()) {
+				System.err.println("Could not delete old export " + file);
+			}
+		}
+	}
+
+	/**
+	 * Gets the policy.
+	 *
+	 * @return the policy
+	 */
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Gets the format.
+	 *
+	 * @return the format
+	 */
+	public Format getFormat() {
+		return format;
+	}
+
+	/**
+	 * Gets the sample rate.
+	 *
+	 * @return the sample rate
+	 */
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Gets the retention.
+	 *
+	 * @return the retention
+	 */
+	public int getRetention() {
+		return retention;
+	}
+}
@@ -2,6 +2,7 @@ package modelGeneration;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import systemParameterExtraction.SaveDataModel;
 import systemParameterExtraction.SystemParameterExtraction;
@@ -13,6 +14,12 @@ public class ModelGenerationRefrigeration {
 	static final String ELECTRICITY = "Electricity";
 	static final String COLDWATER = "ColdWater";
 
+	/** The directories SaveDataModel may write the derived system parameters to. */
+	static final String[] SAVE_DIRECTORIES = {"src/output/", "src/input_refrigeration/"};
+
+	/** Whether the lengths of the registered input files are checked before the derivation, off by default. */
+	static boolean checkInputLengths = false;
+
 	public static void main(String[] args) {
 		SystemParameters sysPara = deriveSystemParameters();
 		new SaveDataModel(sysPara);
@@ -20,11 +27,64 @@ public class ModelGenerationRefrigeration {
 	}
 
 	public static SystemParameters deriveSystemParameters () {
-		SystemParameters systemParameters = new SystemParameters(); 
-		//	
+		registerFilePaths();
+		return deriveFromRegisteredFiles();
+	}
+
+	/**
+	 * Gets the system parameters from the SystemParametersCache; they are only derived if the input files changed.
+	 *
+	 * @return the system parameters, null if they could not be derived
+	 */
+	public static SystemParameters getCachedSystemParameters () {
+		registerFilePaths();
+		try {
+			return SystemParametersCache.getOrDerive(SystemParametersCache.DEFAULT_CACHE_DIRECTORY, SAVE_DIRECTORIES, new Callable<SystemParameters>() {
+				@Override
+				public SystemParameters call() {
+					return deriveFromRegisteredFiles();
+				}
+			});
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.err.println("System parameters could not be derived");
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the time series data of the resources registered in SystemParameterExtraction, registering the input files
+	 * if none are registered.
+	 *
+	 * @return the registered time series data of the resources
+	 */
+	static List<TimeSeriesData> getRegisteredResourceData () {
+		if (SystemParameterExtraction.getFilePathResourceDataList().isEmpty()) {
+			registerFilePaths();
+		}
+		return new ArrayList<TimeSeriesData>(SystemParameterExtraction.getFilePathResourceDataList());
+	}
+
+	/**
+	 * Registers the input files in SystemParameterExtraction, replacing files registered before.
+	 */
+	static void registerFilePaths () {
+		SystemParameterExtraction.getFilePathResourceDataList().clear();
 		SystemParameterExtraction.getFilePathResourceDataList().addAll(setFilePaths());
 		//		List<Dependency> dep = SystemParameterExtraction.getDependencies();	
+	}
 
+	/**
+	 * Derives the system parameters from the input files registered in SystemParameterExtraction.
+	 *
+	 * @return the system parameters
+	 */
+	static SystemParameters deriveFromRegisteredFiles () {
+		SystemParameters systemParameters = new SystemParameters(); 
+		if (checkInputLengths) {
+			// parses the files in addition to importData()
+			loadRegisteredFiles();
+		}
 		List<TimeSeriesData> timeSeriesData_UN_PreProcessed = SystemParameterExtraction.importData();
 		List<TimeSeriesData> timeSeriesData_PreProcessed =  SystemParameterExtraction.doPreProcessing(timeSeriesData_UN_PreProcessed);
 
@@ -34,6 +94,34 @@ public class ModelGenerationRefrigeration {
 		return systemParameters;
 	}
 
+	/**
+	 * Loads the input files registered in SystemParameterExtraction into the shared TimeSeriesRepository and checks
+	 * that the values of each resource are aligned with its time stamps. importData() of the extraction library reads
+	 * the files itself, so the check parses every file a second time; the derivation only calls it if checkInputLengths
+	 * is set. The other readers of the files, e.g. the MIP start from historical operation, load them into the
+	 * repository on first use.
+	 *
+	 * @return the registered time series data of the system and the resources
+	 */
+	static List<TimeSeriesData> loadRegisteredFiles () {
+		List<TimeSeriesData> timeSeriesData = new ArrayList<TimeSeriesData>();
+		timeSeriesData.add(SystemParameterExtraction.getTsdSystem());
+		timeSeriesData.addAll(SystemParameterExtraction.getFilePathResourceDataList());
+		TimeSeriesRepository repository = TimeSeriesRepository.getShared();
+		for (TimeSeriesData resourceData : timeSeriesData) {
+			if (resourceData == null || resourceData.getFilePath_TimeStamps() == null) continue;
+			int numberOfTimeStamps = repository.getReadOnly(resourceData.getFilePath_TimeStamps()).remaining();
+			for (String filePath : new String[] {resourceData.getFilePath_InputValues(), resourceData.getFilePath_OutputValues(), resourceData.getFilePath_SystemStates()}) {
+				if (filePath == null) continue;
+				int numberOfValues = repository.getReadOnly(filePath).remaining();
+				if (numberOfValues != numberOfTimeStamps) {
+					System.err.println(filePath + " has " + numberOfValues + " values for " + numberOfTimeStamps + " time stamps");
+				}
+			}
+		}
+		return timeSeriesData;
+	}
+
 	public static List<TimeSeriesData> setFilePaths () {
 
 		SystemParameterExtraction.setFilePathFormProDesc("src/input_refrigeration/fpb_refrigeration.json"); 
@@ -59,7 +147,7 @@ public class ModelGenerationRefrigeration {
 		SystemParameterExtraction.getFilePathResourceDataList().add(compressor1);
 
 		TimeSeriesData compressor2 = new TimeSeriesData();
-		compressor2.setNameOfResource("RefrigerationMachine1");
+		compressor2.setNameOfResource("RefrigerationMachine2");
 		compressor2.setFilePath_TimeStamps("src/input_refrigeration/timestamps.csv");
 
 		List<String> energyCarrierInputComp2 = new ArrayList<String>(); 
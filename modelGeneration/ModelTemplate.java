@@ -0,0 +1,210 @@
+package modelGeneration;
+
+import java.util.Arrays;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloObjective;
+import ilog.concert.IloRange;
+import ilog.cplex.IloCplex;
+import modelGeneration.VariableKey.Direction;
+
+/**
+ * The Class ModelTemplate.
+ *
+ * A model whose structure (resources, states, dependencies, targets) is built once with the design patterns and which
+ * is then solved for different electricity prices and system targets. Prices change only the objective coefficients
+ * (setLinearCoefs()), targets only the bounds of their constraints (setBounds()); the model is not rebuilt.
+ *
+ * <pre>
+ * ModelTemplate template = ModelTemplate.compileRefrigeration(context);
+ * for (double[] price : priceScenarios) {
+ *     template.setPrice(price);
+ *     ResultStore optimizationResults = template.solve();
+ * }
+ * template.close();
+ * </pre>
+ */
+public class ModelTemplate {
+
+	/** The model context. */
+	private final ModelContext context;
+
+	/** The objective. */
+	private final IloObjective objective;
+
+	/** The decision variables weighted with the price in the objective. */
+	private final IloNumVar[] objectiveVariables;
+
+	/** The factors of the price in the objective coefficients per time step, e.g. time step duration and unit conversion. */
+	private final double[] priceFactors;
+
+	/**
+	 * Instantiates a new model template for a built model.
+	 *
+	 * @param context the model context, with the model built
+	 * @param objective the objective
+	 * @param objectiveVariables the decision variables weighted with the price in the objective
+	 * @param priceFactor the factor of the price in the objective coefficients
+	 */
+	public ModelTemplate(ModelContext context, IloObjective objective, IloNumVar[] objectiveVariables, double priceFactor) {
+		this(context, objective, objectiveVariables, fill(objectiveVariables.length, priceFactor));
+	}
+
+	/**
+	 * Instantiates a new model template for a built model with a price factor per time step, e.g. on a TimeGrid.
+	 *
+	 * @param context the model context, with the model built
+	 * @param objective the objective
+	 * @param objectiveVariables the decision variables weighted with the price in the objective
+	 * @param priceFactors the factors of the price in the objective coefficients, one per time step
+	 */
+	public ModelTemplate(ModelContext context, IloObjective objective, IloNumVar[] objectiveVariables, double[] priceFactors) {
+		this.context = context;
+		this.objective = objective;
+		this.objectiveVariables = objectiveVariables;
+		this.priceFactors = priceFactors;
+	}
+
+	/**
+	 * Creates an array of one value.
+	 *
+	 * @param length the length
+	 * @param value the value
+	 * @return the array
+	 */
+	private static double[] fill (int length, double value) {
+		double[] values = new double[length];
+		Arrays.fill(values, value);
+		return values;
+	}
+
+	/**
+	 * Builds the refrigeration model of OptimizationModelRefrigeration as template.
+	 *
+	 * @param context the model context
+	 * @return the model template
+	 * @throws IloException the ilo exception
+	 */
+	public static ModelTemplate compileRefrigeration (ModelContext context) throws IloException {
+		IloObjective objective = OptimizationModelRefrigeration.buildOptModel(context);
+		VariableRegistry registry = context.getVariableRegistry();
+		IloNumVar[] objectiveVariables = registry.get(registry.key("System", Direction.INPUT, 0, OptimizationModelRefrigeration.POWER));
+		double[] durations = context.getTimeStepDurations();
+		double[] priceFactors = new double[objectiveVariables.length];
+		for (int timeStep = 0; timeStep < priceFactors.length; timeStep++) {
+			priceFactors[timeStep] = durations[Math.min(timeStep, durations.length - 1)]*0.001;
+		}
+		return new ModelTemplate(context, objective, objectiveVariables, priceFactors);
+	}
+
+	/**
+	 * Builds the chp model of OptimizationModel as template.
+	 *
+	 * @param context the model context
+	 * @return the model template
+	 * @throws IloException the ilo exception
+	 */
+	public static ModelTemplate compileChp (ModelContext context) throws IloException {
+		IloObjective objective = OptimizationModel.buildOptModel(context);
+		VariableRegistry registry = context.getVariableRegistry();
+		return new ModelTemplate(context, objective, registry.get(registry.key("System", Direction.OUTPUT, OptimizationModel.ONLYONE, OptimizationModel.POWER)),
+				context.getTimeInterval()*0.001);
+	}
+
+	/**
+	 * Sets the electricity price of the next solve.
+	 *
+	 * @param price the electricity price per time step, at least arrayLength values; on a TimeGrid the average price of each time step
+	 * @throws IloException the ilo exception
+	 */
+	public void setPrice (double[] price) throws IloException {
+		if (price.length < objectiveVariables.length) {
+			throw new IllegalArgumentException("Price has " + price.length + " values, but the model " + objectiveVariables.length + " time steps");
+		}
+		double[] coefficients = new double[objectiveVariables.length];
+		for (int i = 0; i < coefficients.length; i++) {
+			coefficients[i] = priceFactors[i]*price[i];
+		}
+		setObjectiveCoefficients(coefficients);
+	}
+
+	/**
+	 * Sets the objective coefficients of the next solve.
+	 *
+	 * @param coefficients the objective coefficients, one per time step
+	 * @throws IloException the ilo exception
+	 */
+	public void setObjectiveCoefficients (double[] coefficients) throws IloException {
+		context.awaitBackgroundTasks();
+		context.getCplex().setLinearCoefs(objective, coefficients, objectiveVariables);
+	}
+
+	/**
+	 * Sets the target of a system target for the next solve.
+	 *
+	 * @param name the name of the system target
+	 * @param target the target energy per window in kWh
+	 * @throws IloException the ilo exception
+	 */
+	public void setSystemTarget (String name, double target) throws IloException {
+		context.awaitBackgroundTasks();
+		IloRange[] constraints = context.getSystemTargetConstraints().get(name);
+		for (SystemTarget systemTarget : context.getSystemTargets()) {
+			if (systemTarget.getName().equals(name) && constraints != null) {
+				systemTarget.setTarget(target);
+				systemTarget.updateConstraints(constraints, context.getTimeStepDurations());
+				return;
+			}
+		}
+		throw new IllegalArgumentException("No system target " + name + " in the model");
+	}
+
+	/**
+	 * Solves the model with the current prices and targets. The previous solution is used by the solver as start.
+	 *
+	 * @return the results, null if the model was not solved
+	 * @throws IloException the ilo exception
+	 */
+	public ResultStore solve () throws IloException {
+		context.awaitBackgroundTasks();
+		IloCplex cplex = context.getCplex();
+		cplex.setParam(IloCplex.Param.MIP.Tolerances.MIPGap, context.getOptimalityGap());
+		BuildStatistics statistics = context.getBuildStatistics();
+		boolean solved;
+		long solvingTime;
+		statistics.begin("solve", null);
+		try {
+			solved = cplex.solve();
+		} finally {
+			solvingTime = statistics.end() / 1000000;
+		}
+		if (!solved) {
+			System.out.println("Model not solved");
+			return null;
+		}
+		System.out.println("obj = "+cplex.getObjValue()+", solvingTime in ms = "+solvingTime+", "+cplex.getCplexStatus());
+		statistics.begin("saveResults", null);
+		try {
+			return ResultStore.extract(context);
+		} finally {
+			statistics.end();
+		}
+	}
+
+	/**
+	 * Gets the model context.
+	 *
+	 * @return the model context
+	 */
+	public ModelContext getContext() {
+		return context;
+	}
+
+	/**
+	 * Closes the model context.
+	 */
+	public void close () {
+		context.close();
+	}
+}
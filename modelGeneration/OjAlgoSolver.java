@@ -0,0 +1,162 @@
+package modelGeneration;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.ojalgo.optimisation.ExpressionsBasedModel;
+import org.ojalgo.optimisation.Optimisation;
+import org.ojalgo.optimisation.Variable;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloObjectiveSense;
+import ilog.cplex.IloCplex;
+
+/**
+ * The Class OjAlgoSolver.
+ *
+ * Solves the model with the pure Java solver of ojAlgo instead of the cplex optimizer. This is no CPLEX-free backend:
+ * the design patterns build the model with the cplex instance of the context as modeler, so building the model and
+ * exporting it as MPS still need the CPLEX library. Only the solve runs in ojAlgo, on the model read from the MPS file
+ * into an ojAlgo ExpressionsBasedModel, with the time limit of the solver and the optimality gap of the context.
+ * Decision variables without name are named after their key in the decision variable maps beforehand, the results are
+ * mapped back by name. The wall time includes export and parsing; it is recorded as stage solve, the mapping of the
+ * results as stage saveResults in the build statistics of the context.
+ */
+public class OjAlgoSolver implements MipSolver {
+
+	/** The time limit in s. */
+	private final double timeLimit;
+
+	/**
+	 * Instantiates a new ojAlgo solver.
+	 *
+	 * @param timeLimit the time limit in s
+	 */
+	public OjAlgoSolver(double timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	@Override
+	public String getName () {
+		return "ojAlgo";
+	}
+
+	@Override
+	public SolverResult solve (ModelContext context) throws IloException {
+		context.awaitBackgroundTasks();
+		IloCplex cplex = context.getCplex();
+		nameDecisionVariables(context);
+
+		BuildStatistics statistics = context.getBuildStatistics();
+		long start = System.nanoTime();
+		ExpressionsBasedModel model;
+		Optimisation.Result solution;
+		statistics.begin("solve", null);
+		try {
+			try {
+				model = readModel(cplex);
+			} catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+				return new SolverResult(getName(), false, "model not readable: " + e.getMessage(), Double.NaN, System.nanoTime() - start, null);
+			}
+			model.options.time_abort = (long) (timeLimit*1000);
+			// the same relative gap as CplexSolver, so that both solvers stop at the same tolerance
+			model.options.mip_gap = context.getOptimalityGap();
+			if (cplex.getObjective().getSense() == IloObjectiveSense.Maximize) {
+				solution = model.maximise();
+			} else {
+				solution = model.minimise();
+			}
+		} finally {
+			statistics.end();
+		}
+		long wallTimeNanos = System.nanoTime() - start;
+		final Optimisation.Result result = solution;
+
+		if (!result.getState().isFeasible()) {
+			return new SolverResult(getName(), false, result.getState().toString(), Double.NaN, wallTimeNanos, null);
+		}
+
+		ResultStore optimizationResults;
+		statistics.begin("saveResults", null);
+		try {
+			final Map<String, Integer> indexByName = new HashMap<String, Integer>();
+			List<Variable> variables = model.getVariables();
+			for (int i = 0; i < variables.size(); i++) {
+				indexByName.put(variables.get(i).getName(), i);
+			}
+			optimizationResults = ResultStore.extract(new ResultStore.ValueSource() {
+				@Override
+				public double[] getValues(String decisionVariableName, IloNumVar[] decisionVariable) {
+					double[] values = new double[decisionVariable.length];
+					for (int i = 0; i < decisionVariable.length; i++) {
+						Integer index = indexByName.get(decisionVariable[i].getName());
+						values[i] = index == null ? ResultStore.VALUE_NOT_FOUND : result.doubleValue(index);
+					}
+					return values;
+				}
+			}, context.getDecisionVariablesVector(), context.getDecisionVariablesMatrix(), Collections.<String>emptySet());
+		} finally {
+			statistics.end();
+		}
+		return new SolverResult(getName(), true, result.getState().toString(), result.getValue(), wallTimeNanos, optimizationResults);
+	}
+
+	/**
+	 * Exports the model of the cplex instance as MPS into a temporary file and reads it into ojAlgo.
+	 *
+	 * @param cplex the cplex instance
+	 * @return the ojAlgo model
+	 * @throws IloException the ilo exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static ExpressionsBasedModel readModel (IloCplex cplex) throws IloException, IOException {
+		File file = File.createTempFile("ojAlgo_", ".mps");
+		try {
+			cplex.exportModel(file.getPath());
+			InputStream input = new FileInputStream(file);
+			try {
+				return ExpressionsBasedModel.parse(input, ExpressionsBasedModel.FileFormat.MPS);
+			} finally {
+				input.close();
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Names the decision variables without name after their key, so that they can be found in the exported model.
+	 *
+	 * @param context the model context
+	 * @throws IloException the ilo exception
+	 */
+	private static void nameDecisionVariables (ModelContext context) throws IloException {
+		for (Entry<String, IloNumVar[]> decisionVariableSet : context.getDecisionVariablesVector().entrySet()) {
+			IloNumVar[] decisionVariable = decisionVariableSet.getValue();
+			for (int i = 0; i < decisionVariable.length; i++) {
+				if (decisionVariable[i] != null && decisionVariable[i].getName() == null) {
+					decisionVariable[i].setName(decisionVariableSet.getKey() + "_" + i);
+				}
+			}
+		}
+		for (Entry<String, IloNumVar[][]> decisionVariableSet : context.getDecisionVariablesMatrix().entrySet()) {
+			IloNumVar[][] decisionVariable = decisionVariableSet.getValue();
+			for (int i = 0; i < decisionVariable.length; i++) {
+				for (int j = 0; j < decisionVariable[i].length; j++) {
+					if (decisionVariable[i][j] != null && decisionVariable[i][j].getName() == null) {
+						decisionVariable[i][j].setName(decisionVariableSet.getKey() + "_" + i + "_" + j);
+					}
+				}
+			}
+		}
+	}
+}
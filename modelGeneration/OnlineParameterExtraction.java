@@ -0,0 +1,729 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import designpatterns.PiecewiseLinearApproximation;
+import designpatterns.ResourceParameters;
+import designpatterns.SystemState;
+
+/**
+ * The Class OnlineParameterExtraction.
+ *
+ * Incremental parameter extraction for one resource: every sample (input power, output power, system state) updates
+ * running statistics at constant cost, instead of re-fitting the whole history with importData(), doPreProcessing()
+ * and setSystemParametersFromOtherMethods(). Maintained are
+ * <ul>
+ * <li>the linear input-output relationship (slope, intercept) by least squares over operating samples,</li>
+ * <li>a piecewise linear approximation with fixed input power bins, one least squares fit per bin,</li>
+ * <li>minimum and maximum input and output power of operating samples,</li>
+ * <li>ramp limits, the largest decrease and increase of power between consecutive operating samples in the same
+ * state; start-up and shut-down steps and pairs around skipped NaN samples are no ramps,</li>
+ * <li>per system state: number of samples, durations, input power range and follower states.</li>
+ * </ul>
+ * Least squares sums are weighted with a forgetting factor, so that older samples lose influence; 1 keeps the whole
+ * history. Power and ramp limits are the extremes of the last 1/(1 - forgettingFactor) observations, the memory of
+ * the forgetting factor, so that an outlier is forgotten as well; the memory is limited to MAX_WINDOW observations.
+ * Samples with missing power are no ramps and do not enter the fits, but they count to the duration of the stay in
+ * their state. apply() writes the scalar parameters, the piecewise linear approximation and the state statistics to
+ * the ResourceParameters.
+ *
+ * <pre>
+ * OnlineParameterExtraction extraction = new OnlineParameterExtraction(resourceParameters, 0.25, 0, 100, 5, 1);
+ * extraction.addSample(inputPower, outputPower, state);  // for each new measurement
+ * extraction.apply();
+ * </pre>
+ */
+public class OnlineParameterExtraction {
+
+	/** The maximum number of observations of the power and ramp limits, 6 sliding windows of 24 bytes per observation. */
+	static final int MAX_WINDOW = 1 << 18;
+
+	/**
+	 * The Class LeastSquares, weighted sums of a simple linear regression.
+	 */
+	static class LeastSquares {
+
+		/** The sum of weights. */
+		double sumOfWeights;
+
+		/** The weighted sum of x. */
+		double sumX;
+
+		/** The weighted sum of y. */
+		double sumY;
+
+		/** The weighted sum of x*x. */
+		double sumXX;
+
+		/** The weighted sum of x*y. */
+		double sumXY;
+
+		/**
+		 * Adds a sample; the previous sums are weighted with the forgetting factor.
+		 *
+		 * @param x the x
+		 * @param y the y
+		 * @param forgettingFactor the forgetting factor
+		 */
+		void add (double x, double y, double forgettingFactor) {
+			sumOfWeights = sumOfWeights*forgettingFactor + 1;
+			sumX = sumX*forgettingFactor + x;
+			sumY = sumY*forgettingFactor + y;
+			sumXX = sumXX*forgettingFactor + x*x;
+			sumXY = sumXY*forgettingFactor + x*y;
+		}
+
+		/**
+		 * Gets the slope, 0 if x does not vary.
+		 *
+		 * @return the slope
+		 */
+		double getSlope () {
+			double varianceX = sumXX/sumOfWeights - (sumX/sumOfWeights)*(sumX/sumOfWeights);
+			if (sumOfWeights < 2 || varianceX <= 1e-12*Math.max(1, sumXX/sumOfWeights)) return 0;
+			double covariance = sumXY/sumOfWeights - (sumX/sumOfWeights)*(sumY/sumOfWeights);
+			return covariance/varianceX;
+		}
+
+		/**
+		 * Gets the intercept, the mean of y if x does not vary.
+		 *
+		 * @return the intercept
+		 */
+		double getIntercept () {
+			if (sumOfWeights == 0) return 0;
+			return sumY/sumOfWeights - getSlope()*sumX/sumOfWeights;
+		}
+	}
+
+	/**
+	 * The Class SlidingExtremes, minimum and maximum of the last observations at amortized constant cost.
+	 */
+	static class SlidingExtremes {
+
+		/** The number of observations in the window, 0 for all observations. */
+		final int window;
+
+		/** The values of the last window observations, by observation number modulo window. */
+		final double[] values;
+
+		/** The observation numbers that may become the maximum, with decreasing values. */
+		final long[] maxCandidates;
+
+		/** The observation numbers that may become the minimum, with increasing values. */
+		final long[] minCandidates;
+
+		/** The first maximum candidate and the number of maximum candidates. */
+		int maxHead, maxSize;
+
+		/** The first minimum candidate and the number of minimum candidates. */
+		int minHead, minSize;
+
+		/** The number of observations. */
+		long numberOfObservations;
+
+		/** The minimum of all observations, if window is 0. */
+		double min = Double.MAX_VALUE;
+
+		/** The maximum of all observations, if window is 0. */
+		double max = -Double.MAX_VALUE;
+
+		/**
+		 * Instantiates new sliding extremes.
+		 *
+		 * @param window the number of observations in the window, 0 for all observations
+		 */
+		SlidingExtremes(int window) {
+			this.window = window;
+			this.values = new double[window];
+			this.maxCandidates = new long[window];
+			this.minCandidates = new long[window];
+		}
+
+		/**
+		 * Adds an observation.
+		 *
+		 * @param value the value
+		 */
+		void add (double value) {
+			long observation = numberOfObservations++;
+			if (window == 0) {
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+				return;
+			}
+			// candidates leaving the window
+			if (maxSize > 0 && maxCandidates[maxHead] <= observation - window) {
+				maxHead = (maxHead + 1) % window;
+				maxSize--;
+			}
+			if (minSize > 0 && minCandidates[minHead] <= observation - window) {
+				minHead = (minHead + 1) % window;
+				minSize--;
+			}
+			// candidates that cannot become extremes anymore
+			while (maxSize > 0 && values[(int) (maxCandidates[(maxHead + maxSize - 1) % window] % window)] <= value) {
+				maxSize--;
+			}
+			while (minSize > 0 && values[(int) (minCandidates[(minHead + minSize - 1) % window] % window)] >= value) {
+				minSize--;
+			}
+			values[(int) (observation % window)] = value;
+			maxCandidates[(maxHead + maxSize) % window] = observation;
+			maxSize++;
+			minCandidates[(minHead + minSize) % window] = observation;
+			minSize++;
+		}
+
+		/**
+		 * Gets the minimum of the window.
+		 *
+		 * @return the minimum, Double.MAX_VALUE without observations
+		 */
+		double getMin () {
+			if (window == 0) return min;
+			return minSize == 0 ? Double.MAX_VALUE : values[(int) (minCandidates[minHead] % window)];
+		}
+
+		/**
+		 * Gets the maximum of the window.
+		 *
+		 * @return the maximum, -Double.MAX_VALUE without observations
+		 */
+		double getMax () {
+			if (window == 0) return max;
+			return maxSize == 0 ? -Double.MAX_VALUE : values[(int) (maxCandidates[maxHead] % window)];
+		}
+	}
+
+	/**
+	 * The Class StateStatistics.
+	 */
+	public static class StateStatistics {
+
+		/** The state id. */
+		private final int stateId;
+
+		/** The number of samples. */
+		private long numberOfSamples;
+
+		/** The number of completed stays in the state. */
+		private long numberOfStays;
+
+		/** The minimum duration of a completed stay in h. */
+		private double minDurationInH = Double.MAX_VALUE;
+
+		/** The maximum duration of a completed stay in h. */
+		private double maxDurationInH = 0;
+
+		/** The sum of the durations of completed stays in h. */
+		private double sumOfDurationsInH = 0;
+
+		/** The minimum input power. */
+		private double minPowerInput = Double.MAX_VALUE;
+
+		/** The maximum input power. */
+		private double maxPowerInput = -Double.MAX_VALUE;
+
+		/** The follower states. */
+		private final Set<Integer> followerStates = new TreeSet<Integer>();
+
+		/**
+		 * Instantiates new state statistics.
+		 *
+		 * @param stateId the state id
+		 */
+		StateStatistics(int stateId) {
+			this.stateId = stateId;
+		}
+
+		/**
+		 * Gets the state id.
+		 *
+		 * @return the state id
+		 */
+		public int getStateId() {
+			return stateId;
+		}
+
+		/**
+		 * Gets the number of samples.
+		 *
+		 * @return the number of samples
+		 */
+		public long getNumberOfSamples() {
+			return numberOfSamples;
+		}
+
+		/**
+		 * Gets the number of completed stays in the state.
+		 *
+		 * @return the number of stays
+		 */
+		public long getNumberOfStays() {
+			return numberOfStays;
+		}
+
+		/**
+		 * Gets the minimum duration of a completed stay in h.
+		 *
+		 * @return the minimum duration in h, 0 if no stay is completed
+		 */
+		public double getMinDurationInH() {
+			return numberOfStays == 0 ? 0 : minDurationInH;
+		}
+
+		/**
+		 * Gets the maximum duration of a completed stay in h.
+		 *
+		 * @return the maximum duration in h
+		 */
+		public double getMaxDurationInH() {
+			return maxDurationInH;
+		}
+
+		/**
+		 * Gets the mean duration of completed stays in h.
+		 *
+		 * @return the mean duration in h, 0 if no stay is completed
+		 */
+		public double getMeanDurationInH() {
+			return numberOfStays == 0 ? 0 : sumOfDurationsInH/numberOfStays;
+		}
+
+		/**
+		 * Gets the minimum input power.
+		 *
+		 * @return the minimum input power
+		 */
+		public double getMinPowerInput() {
+			return numberOfSamples == 0 ? 0 : minPowerInput;
+		}
+
+		/**
+		 * Gets the maximum input power.
+		 *
+		 * @return the maximum input power
+		 */
+		public double getMaxPowerInput() {
+			return numberOfSamples == 0 ? 0 : maxPowerInput;
+		}
+
+		/**
+		 * Gets the follower states.
+		 *
+		 * @return the follower states
+		 */
+		public Set<Integer> getFollowerStates() {
+			return Collections.unmodifiableSet(followerStates);
+		}
+	}
+
+	/** The resource parameters. */
+	private final ResourceParameters resourceParameters;
+
+	/** The time interval between samples in h. */
+	private final double timeInterval;
+
+	/** The input power above which the resource is operating. */
+	private final double minOperatingPower;
+
+	/** The lower bound of the piecewise linear approximation. */
+	private final double plaLowerBound;
+
+	/** The width of a segment of the piecewise linear approximation. */
+	private final double plaSegmentWidth;
+
+	/** The forgetting factor of the least squares fits, in (0, 1]. */
+	private final double forgettingFactor;
+
+	/** The least squares fit of all operating samples. */
+	private final LeastSquares linearFit = new LeastSquares();
+
+	/** The least squares fits of the segments. */
+	private final LeastSquares[] segmentFits;
+
+	/** The state statistics by state id. */
+	private final Map<Integer, StateStatistics> stateStatistics = new TreeMap<Integer, StateStatistics>();
+
+	/** The number of samples. */
+	private long numberOfSamples = 0;
+
+	/** The input power of operating samples. */
+	private final SlidingExtremes powerInputOperating;
+
+	/** The input power of all samples. */
+	private final SlidingExtremes powerInput;
+
+	/** The output power of operating samples. */
+	private final SlidingExtremes powerOutputOperating;
+
+	/** The output power of all samples. */
+	private final SlidingExtremes powerOutput;
+
+	/** The changes of input power between consecutive operating samples in the same state. */
+	private final SlidingExtremes rampInput;
+
+	/** The changes of output power between consecutive operating samples in the same state. */
+	private final SlidingExtremes rampOutput;
+
+	/** Whether the previous sample was operating and not skipped, so that a ramp can be taken. */
+	private boolean previousOperating = false;
+
+	/** The previous input power. */
+	private double previousPowerInput;
+
+	/** The previous output power. */
+	private double previousPowerOutput;
+
+	/** The current state. */
+	private int currentState;
+
+	/** The number of samples in the current state, including samples with missing power. */
+	private long samplesInCurrentState = 0;
+
+	/** Whether a sample with a state was added, so that there is a current state. */
+	private boolean hasCurrentState = false;
+
+	/**
+	 * Instantiates a new online parameter extraction.
+	 *
+	 * @param resourceParameters the resource parameters, updated by apply()
+	 * @param timeInterval the time interval between samples in h
+	 * @param plaLowerBound the lower bound of the piecewise linear approximation, input power; samples above are operating
+	 * @param plaUpperBound the upper bound of the piecewise linear approximation, input power
+	 * @param numberOfPlaSegments the number of segments of the piecewise linear approximation
+	 * @param forgettingFactor the forgetting factor of the least squares fits, in (0, 1], 1 for none
+	 * @throws IllegalArgumentException if the parameters are invalid or the memory of the forgetting factor exceeds MAX_WINDOW
+	 */
+	public OnlineParameterExtraction(ResourceParameters resourceParameters, double timeInterval, double plaLowerBound,
+			double plaUpperBound, int numberOfPlaSegments, double forgettingFactor) {
+		if (timeInterval <= 0 || plaUpperBound <= plaLowerBound || numberOfPlaSegments < 1 || forgettingFactor <= 0 || forgettingFactor > 1) {
+			throw new IllegalArgumentException("Invalid parameters of the online parameter extraction of " + getName(resourceParameters));
+		}
+		// the memory of the forgetting factor, all observations if there is no forgetting
+		double memory = forgettingFactor == 1 ? 0 : Math.ceil(1/(1 - forgettingFactor));
+		if (memory > MAX_WINDOW) {
+			throw new IllegalArgumentException("Forgetting factor " + forgettingFactor + " of the online parameter extraction of " + getName(resourceParameters)
+					+ " has a memory of " + (long) memory + " observations, more than " + MAX_WINDOW + "; use 1 for no forgetting");
+		}
+		int window = (int) memory;
+		this.resourceParameters = resourceParameters;
+		this.timeInterval = timeInterval;
+		this.minOperatingPower = plaLowerBound;
+		this.plaLowerBound = plaLowerBound;
+		this.plaSegmentWidth = (plaUpperBound - plaLowerBound)/numberOfPlaSegments;
+		this.forgettingFactor = forgettingFactor;
+		this.segmentFits = new LeastSquares[numberOfPlaSegments];
+		for (int segment = 0; segment < numberOfPlaSegments; segment++) {
+			segmentFits[segment] = new LeastSquares();
+		}
+		this.powerInputOperating = new SlidingExtremes(window);
+		this.powerInput = new SlidingExtremes(window);
+		this.powerOutputOperating = new SlidingExtremes(window);
+		this.powerOutput = new SlidingExtremes(window);
+		this.rampInput = new SlidingExtremes(window);
+		this.rampOutput = new SlidingExtremes(window);
+	}
+
+	/**
+	 * Gets the name of resource parameters for messages.
+	 *
+	 * @param resourceParameters the resource parameters, may be null
+	 * @return the name
+	 */
+	private static String getName (ResourceParameters resourceParameters) {
+		return resourceParameters == null ? null : resourceParameters.getName();
+	}
+
+	/**
+	 * Adds a sample at constant cost.
+	 *
+	 * @param powerInput the input power
+	 * @param powerOutput the output power
+	 * @param state the system state
+	 */
+	public void addSample (double powerInput, double powerOutput, int state) {
+		if (Double.isNaN(powerInput) || Double.isNaN(powerOutput)) {
+			// no ramp across the gap, the sample counts to the stay in its state
+			previousOperating = false;
+			updateState(state);
+			return;
+		}
+
+		boolean operating = powerInput > minOperatingPower;
+		if (operating) {
+			linearFit.add(powerInput, powerOutput, forgettingFactor);
+			int segment = (int) ((powerInput - plaLowerBound)/plaSegmentWidth);
+			segmentFits[Math.max(0, Math.min(segmentFits.length - 1, segment))].add(powerInput, powerOutput, forgettingFactor);
+			powerInputOperating.add(powerInput);
+			powerOutputOperating.add(powerOutput);
+			// start-up and shut-down steps and state changes are no ramps
+			if (previousOperating && state == currentState) {
+				rampInput.add(powerInput - previousPowerInput);
+				rampOutput.add(powerOutput - previousPowerOutput);
+			}
+		}
+		this.powerInput.add(powerInput);
+		this.powerOutput.add(powerOutput);
+
+		StateStatistics statistics = getOrCreateStateStatistics(state);
+		statistics.numberOfSamples++;
+		statistics.minPowerInput = Math.min(statistics.minPowerInput, powerInput);
+		statistics.maxPowerInput = Math.max(statistics.maxPowerInput, powerInput);
+		updateState(state);
+
+		previousOperating = operating;
+		previousPowerInput = powerInput;
+		previousPowerOutput = powerOutput;
+		numberOfSamples++;
+	}
+
+	/**
+	 * Adds a sample without power and state, e.g. a missing measurement; it counts to the stay in the current state.
+	 */
+	public void addGap () {
+		previousOperating = false;
+		if (hasCurrentState) {
+			samplesInCurrentState++;
+		}
+	}
+
+	/**
+	 * Counts a sample to the stay in its state; a change of the state completes the stay in the current state.
+	 *
+	 * @param state the system state
+	 */
+	private void updateState (int state) {
+		if (hasCurrentState && state != currentState) {
+			StateStatistics previous = getOrCreateStateStatistics(currentState);
+			double durationInH = samplesInCurrentState*timeInterval;
+			previous.numberOfStays++;
+			previous.minDurationInH = Math.min(previous.minDurationInH, durationInH);
+			previous.maxDurationInH = Math.max(previous.maxDurationInH, durationInH);
+			previous.sumOfDurationsInH += durationInH;
+			previous.followerStates.add(state);
+			samplesInCurrentState = 0;
+		}
+		currentState = state;
+		hasCurrentState = true;
+		samplesInCurrentState++;
+	}
+
+	/**
+	 * Gets the statistics of a state, created if the state has none yet.
+	 *
+	 * @param state the state id
+	 * @return the state statistics
+	 */
+	private StateStatistics getOrCreateStateStatistics (int state) {
+		StateStatistics statistics = stateStatistics.get(state);
+		if (statistics == null) {
+			statistics = new StateStatistics(state);
+			stateStatistics.put(state, statistics);
+		}
+		return statistics;
+	}
+
+	/**
+	 * Adds samples, e.g. the history of a resource before switching to online updates.
+	 *
+	 * @param powerInput the input power
+	 * @param powerOutput the output power
+	 * @param states the system states, null if the resource has none; NaN for a missing state, added with addGap()
+	 */
+	public void addSamples (double[] powerInput, double[] powerOutput, double[] states) {
+		int length = Math.min(powerInput.length, powerOutput.length);
+		if (states != null) length = Math.min(length, states.length);
+		for (int i = 0; i < length; i++) {
+			if (states != null && Double.isNaN(states[i])) {
+				addGap();
+			} else {
+				addSample(powerInput[i], powerOutput[i], states == null ? 0 : (int) Math.round(states[i]));
+			}
+		}
+	}
+
+	/**
+	 * Writes slope, intercept, power limits, ramp limits and the piecewise linear approximation to the resource
+	 * parameters, if operating samples exist, and the statistics of each state to the system state of the resource with
+	 * the same id. States without a system state in the resource parameters are not added.
+	 */
+	public void apply () {
+		applyStateStatistics();
+		if (linearFit.sumOfWeights == 0) return;
+		resourceParameters.setSlope(linearFit.getSlope());
+		resourceParameters.setIntercept(linearFit.getIntercept());
+		resourceParameters.setMinPowerInput(getMinPowerInput());
+		resourceParameters.setMaxPowerInput(getMaxPowerInput());
+		resourceParameters.setMinPowerOutput(getMinPowerOutput());
+		resourceParameters.setMaxPowerOutput(getMaxPowerOutput());
+		resourceParameters.setMinRampInput(getMinRampInput());
+		resourceParameters.setMaxRampInput(getMaxRampInput());
+		resourceParameters.setMinRampOutput(getMinRampOutput());
+		resourceParameters.setMaxRampOutput(getMaxRampOutput());
+		List<double[]> segments = getPlaSegments();
+		if (!segments.isEmpty()) {
+			List<PiecewiseLinearApproximation> plaSegments = new ArrayList<PiecewiseLinearApproximation>();
+			for (double[] segment : segments) {
+				PiecewiseLinearApproximation pla = new PiecewiseLinearApproximation();
+				pla.setLowerBound(segment[0]);
+				pla.setUpperBound(segment[1]);
+				pla.setSlope(segment[2]);
+				pla.setIntercept(segment[3]);
+				plaSegments.add(pla);
+			}
+			List<List<PiecewiseLinearApproximation>> plaList = new ArrayList<List<PiecewiseLinearApproximation>>();
+			plaList.add(plaSegments);
+			resourceParameters.setPlaList(plaList);
+		}
+	}
+
+	/**
+	 * Writes the statistics of each state to the system state with the same id: the input power range, the minimum and
+	 * maximum holding durations of completed stays, the maximum at least as long as the current stay, and the observed
+	 * follower states in addition to the follower states of the system state.
+	 */
+	private void applyStateStatistics () {
+		if (resourceParameters.getSystemStates() == null) return;
+		for (SystemState systemState : resourceParameters.getSystemStates()) {
+			StateStatistics statistics = stateStatistics.get(systemState.getStateID());
+			if (statistics == null) continue;
+			if (statistics.numberOfSamples > 0) {
+				systemState.setMinPowerInput(statistics.getMinPowerInput());
+				systemState.setMaxPowerInput(statistics.getMaxPowerInput());
+			}
+			if (statistics.numberOfStays > 0) {
+				double currentStayInH = hasCurrentState && currentState == statistics.stateId ? samplesInCurrentState*timeInterval : 0;
+				systemState.setMinStateDurationInH(statistics.getMinDurationInH());
+				systemState.setMaxStateDurationInH(Math.max(statistics.getMaxDurationInH(), currentStayInH));
+			}
+			Set<Integer> followerStates = new TreeSet<Integer>(statistics.followerStates);
+			if (systemState.getFollowerStates() != null) {
+				followerStates.addAll(systemState.getFollowerStates());
+			}
+			systemState.setFollowerStates(new ArrayList<Integer>(followerStates));
+		}
+	}
+
+	/**
+	 * Gets the minimum input power of the operating samples in the window.
+	 *
+	 * @return the minimum input power
+	 */
+	public double getMinPowerInput () {
+		return powerInputOperating.getMin();
+	}
+
+	/**
+	 * Gets the maximum input power of the samples in the window, at least 0.
+	 *
+	 * @return the maximum input power
+	 */
+	public double getMaxPowerInput () {
+		return Math.max(0, powerInput.getMax());
+	}
+
+	/**
+	 * Gets the minimum output power of the operating samples in the window.
+	 *
+	 * @return the minimum output power
+	 */
+	public double getMinPowerOutput () {
+		return powerOutputOperating.getMin();
+	}
+
+	/**
+	 * Gets the maximum output power of the samples in the window, at least 0.
+	 *
+	 * @return the maximum output power
+	 */
+	public double getMaxPowerOutput () {
+		return Math.max(0, powerOutput.getMax());
+	}
+
+	/**
+	 * Gets the largest decrease of input power of the ramps in the window, at most 0.
+	 *
+	 * @return the minimum ramp of input power
+	 */
+	public double getMinRampInput () {
+		return Math.min(0, rampInput.getMin());
+	}
+
+	/**
+	 * Gets the largest increase of input power of the ramps in the window, at least 0.
+	 *
+	 * @return the maximum ramp of input power
+	 */
+	public double getMaxRampInput () {
+		return Math.max(0, rampInput.getMax());
+	}
+
+	/**
+	 * Gets the largest decrease of output power of the ramps in the window, at most 0.
+	 *
+	 * @return the minimum ramp of output power
+	 */
+	public double getMinRampOutput () {
+		return Math.min(0, rampOutput.getMin());
+	}
+
+	/**
+	 * Gets the largest increase of output power of the ramps in the window, at least 0.
+	 *
+	 * @return the maximum ramp of output power
+	 */
+	public double getMaxRampOutput () {
+		return Math.max(0, rampOutput.getMax());
+	}
+
+	/**
+	 * Gets the segments of the piecewise linear approximation with at least two samples.
+	 *
+	 * @return the segments, each {lowerBound, upperBound, slope, intercept}
+	 */
+	public List<double[]> getPlaSegments () {
+		List<double[]> segments = new ArrayList<double[]>();
+		for (int segment = 0; segment < segmentFits.length; segment++) {
+			LeastSquares fit = segmentFits[segment];
+			if (fit.sumOfWeights < 2) continue;
+			double lowerBound = plaLowerBound + segment*plaSegmentWidth;
+			segments.add(new double[] {lowerBound, lowerBound + plaSegmentWidth, fit.getSlope(), fit.getIntercept()});
+		}
+		return segments;
+	}
+
+	/**
+	 * Gets the state statistics, ordered by state id. The current stay is not yet included in the durations.
+	 *
+	 * @return the state statistics
+	 */
+	public List<StateStatistics> getStateStatistics () {
+		return new ArrayList<StateStatistics>(stateStatistics.values());
+	}
+
+	/**
+	 * Gets the number of samples.
+	 *
+	 * @return the number of samples
+	 */
+	public long getNumberOfSamples() {
+		return numberOfSamples;
+	}
+
+	/**
+	 * Gets the resource parameters.
+	 *
+	 * @return the resource parameters
+	 */
+	public ResourceParameters getResourceParameters() {
+		return resourceParameters;
+	}
+}
@@ -1,26 +1,18 @@
 package modelGeneration;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map.Entry;
 
 import designpatterns.DesignPatterns;
-import designpatterns.OptimizationResults;
 import designpatterns.ResourceParameters;
 import ilog.concert.IloException;
-import ilog.concert.IloIntVar;
 import ilog.concert.IloLinearNumExpr;
 import ilog.concert.IloNumVar;
+import ilog.concert.IloObjective;
 import ilog.cplex.IloCplex;
-import ilog.cplex.IloCplex.UnknownObjectException;
 import systemParameterExtraction.ReadParametersFromDataModel;
-import systemParameterModel.Dependency;
 import systemParameterModel.SystemParameters;
 
 /**
@@ -63,8 +55,11 @@ public class OptimizationModel {
 	/** The Constant SYSTEM_NAME. */
 	static final String SYSTEM_NAME = "chp";
 
-	/** The global system parameters. */
-	static SystemParameters globalSystemParameters = new SystemParameters();
+	/** The solver of the entry points, by default cplex. */
+	static MipSolver solver = new CplexSolver();
+
+	/** The model export, by default compressed LP of models that could not be solved, at most 20 per directory. */
+	static ModelExport modelExport = new ModelExport(ModelExport.Policy.ON_FAILURE, ModelExport.Format.LP_GZ, 1, 20);
 
 	/**
 	 * The main method.
@@ -72,9 +67,9 @@ public class OptimizationModel {
 	 * @param args the arguments
 	 */
 	public static void main(String[] args)  {
-		setOptimizationParameters();
+		ModelContext context = setOptimizationParameters();
 		try {
-			parameterizeOptModel();
+			parameterizeOptModel(context);
 		} catch (IloException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -84,8 +79,10 @@ public class OptimizationModel {
 
 	/**
 	 * Sets the optimization parameters, primarily in ArrayList<ResourceParameters> resourceParameters.
+	 *
+	 * @return the model context
 	 */
-	public static void setOptimizationParameters () {
+	public static ModelContext setOptimizationParameters () {
 
 		SystemParameters systemParameters = new SystemParameters();
 		String filePath = "src/input_"+SYSTEM_NAME+"/"; 
@@ -99,302 +96,204 @@ public class OptimizationModel {
 		
 		if (systemParameters == null) System.err.println("SystemParameters empty");
 
-		setGlobalSystemParameters(systemParameters);
-
-		for (int resource = 0; resource < systemParameters.getResourceParameters().size(); resource++) {
-			ResourceParameters resourceParameters = new ResourceParameters();
-			resourceParameters = systemParameters.getResourceParameters().get(resource);
-			resourceParameters.setNumberOfSystemStates(resourceParameters.getSystemStates().size());
-			DesignPatterns.getResourceParameters().add(resourceParameters);
-		}
+		ModelContext context = new ModelContext(systemParameters);
 
-		DesignPatterns.setOptimalityGap(0.001); // default 10e-4 = 0.001
-		DesignPatterns.setTimeInterval(systemParameters.getTemporalResolutionOptimizationModel());
+		context.setOptimalityGap(0.001); // default 10e-4 = 0.001
+		context.setTimeInterval(systemParameters.getTemporalResolutionOptimizationModel());
 
-		DesignPatterns.setArrayLength((int) (10/systemParameters.getTemporalResolutionOptimizationModel())); // set arrayLength in # of time steps
+		context.setArrayLength((int) (10/systemParameters.getTemporalResolutionOptimizationModel())); // set arrayLength in # of time steps
+		context.getPlaEncodings().putAll(PiecewiseLinearFormulation.readEncodings(filePath));
+		return context;
 	}
 
 
 	/**
 	 * Parameterize opt model.
 	 *
+	 * @param context the model context
 	 * @throws IloException the ilo exception
 	 */
-	public static void parameterizeOptModel () throws IloException {
+	public static void parameterizeOptModel (ModelContext context) throws IloException {
 		String nameOfModel = "OptModel_"+SYSTEM_NAME;
+		String filePath = "src/output_"+SYSTEM_NAME+"/";
+		boolean solved = false;
+		String resultFilePath = null;
+		try {
+			buildOptModel(context);
+
+			//			designpatterns.DesignPatterns.getCplex().exportModel("optimizationmodel.mps");
+			//			designpatterns.DesignPatterns.getCplex().exportModel("optimizationmodel.sav");
+			// solver specific parameters
+			//cplex.setParam(IloCplex.Param.Emphasis.Numerical, true);
+			context.getCplex().setParam(IloCplex.Param.MIP.Tolerances.MIPGap, context.getOptimalityGap());
+			System.out.println(getSolver().getName() + " solve");
+			SolverResult solverResult = getSolver().solve(context);
+			solved = solverResult.isSolved();
+			if (solved) {
+				System.out.println("obj = "+solverResult.getObjectiveValue());
+				System.out.println("solvingTime in ms = "+solverResult.getWallTimeNanos() / 1000000);
+				System.out.println(solverResult.getStatus());
+
+				ResultStore optimizationResults = solverResult.getOptimizationResults();
+				resultFilePath = writeResultsToFile(context, optimizationResults, nameOfModel, filePath, context.getArrayLength());
+
+			} else {
+				System.out.println("Model not solved");
+			}
+		}
+
+		catch (IloException exc) {
+			exc.printStackTrace();
+		}
+		finally {
+			getModelExport().afterSolve(context, filePath, nameOfModel, solved);
+			// also written if the model could not be built or solved
+			OptimizationModelRefrigeration.writeBuildStatistics(context,
+					resultFilePath != null ? resultFilePath : filePath + nameOfModel + "_" + OptimizationModelRefrigeration.getNow());
+			context.close();
+		}
+	}
+
+	/**
+	 * Builds decision variables, design patterns, dependencies and the objective function 
+	 * into the cplex instance of the context, without exporting or solving the model.
+	 *
+	 * @param context the model context
+	 * @return the objective
+	 * @throws IloException the ilo exception
+	 */
+	public static IloObjective buildOptModel (ModelContext context) throws IloException {
+		// validates the dependencies before the model is modified
+		DependencyGraph dependencyGraph = DependencyGraph.compileChp(context.getSystemParameters());
+		context.bind();
 		try {
 			//additional parameters for system
 			double maxPowerSystem; 
 
 			try {
-				maxPowerSystem = getGlobalSystemParameters().getMaxPowerSystemInput().get(0); 
+				maxPowerSystem = context.getSystemParameters().getMaxPowerSystemInput().get(0); 
 			} catch (Exception e) {
 				maxPowerSystem =  Double.MAX_VALUE;
 			}
 
 			//-------------------------------------------------------------------- Decision Variables --------------------------------------------------------------------
-			DesignPatterns.creationOfDecisionVariables_Names(maxPowerSystem);
+			BuildStatistics statistics = context.getBuildStatistics();
+			statistics.begin("creationOfDecisionVariables_Names", null);
+			try {
+				DesignPatterns.creationOfDecisionVariables_Names(maxPowerSystem);
+			} finally {
+				statistics.end();
+			}
+			// input and output power for encodings of PiecewiseLinearFormulation
+			VariableRegistry plaRegistry = context.registerDecisionVariables();
 
 			// ------------------------------------------------------------------------ Use of Design Patterns--------------------------------------------------------------------
 
 			// ------------------------------------------------------------------------ Parameterize Design patterns based on parameter set --------------------------------------------------------------------
 
 			// Parameterize resource models
-			for (ResourceParameters resourceParameters : getGlobalSystemParameters().getResourceParameters()) {
+			for (ResourceParameters resourceParameters : context.getSystemParameters().getResourceParameters()) {
 				String nameOfResource = resourceParameters.getName();
 				if (resourceParameters.isStorage() == false  && resourceParameters.isSecondaryResource()==false) {
-					DesignPatterns.generateInputOutputRelationship(nameOfResource);
+					statistics.begin("generateInputOutputRelationship", nameOfResource);
+					try {
+						PiecewiseLinearFormulation.generateInputOutputRelationship(context, plaRegistry, resourceParameters);
+					} finally {
+						statistics.end();
+					}
 				} else {
-					DesignPatterns.generateEnergyBalanceForStorageSystem(nameOfResource);
+					statistics.begin("generateEnergyBalanceForStorageSystem", nameOfResource);
+					try {
+						DesignPatterns.generateEnergyBalanceForStorageSystem(nameOfResource);
+					} finally {
+						statistics.end();
+					}
 				}
 
 				if (!(resourceParameters.getSystemStates().isEmpty())) {
-					DesignPatterns.generateSystemStateSelectionByPowerLimits(nameOfResource);
-					DesignPatterns.generateStateSequencesAndHoldingDuration(nameOfResource);
-					DesignPatterns.generateRampLimits(nameOfResource, INPUT);
+					statistics.begin("generateSystemStateSelectionByPowerLimits", nameOfResource);
+					try {
+						DesignPatterns.generateSystemStateSelectionByPowerLimits(nameOfResource);
+					} finally {
+						statistics.end();
+					}
+					statistics.begin("generateStateSequencesAndHoldingDuration", nameOfResource);
+					try {
+						DesignPatterns.generateStateSequencesAndHoldingDuration(nameOfResource);
+					} finally {
+						statistics.end();
+					}
+					statistics.begin("generateRampLimits", nameOfResource);
+					try {
+						DesignPatterns.generateRampLimits(nameOfResource, INPUT);
+					} finally {
+						statistics.end();
+					}
 				}
 			}
 
 			// Set up and add dependencies
-			setUpDependencies(); 
+			statistics.begin("setUpDependencies", null);
+			try {
+				dependencyGraph.generate(context.registerDecisionVariables());
+			} finally {
+				statistics.end();
+			}
 
 			// set objective function 
 			IloLinearNumExpr objective = DesignPatterns.getCplex().linearNumExpr();
+			double temporalResolution = context.getSystemParameters().getTemporalResolutionOptimizationModel();
 			if (SYSTEM_NAME.equals("chp")) {
-				for (int i = 0; i < DesignPatterns.getArrayLength(); i++) {
-					objective.addTerm(
-							0.001*DesignPatterns.getTimeInterval()*DesignPatterns.getElectricityPriceWithOtherInterval(getGlobalSystemParameters().getTemporalResolutionOptimizationModel())[i], 
-							DesignPatterns.getDecisionVariablesVector().get("System"+"-"+OUTPUT+"-"+POWER)[i]
-							);
-				}
-				DesignPatterns.getCplex().addMaximize(objective);
+				objective.addTerms(
+						ElectricityPriceCache.getObjectiveCoefficients(temporalResolution, 0.001*DesignPatterns.getTimeInterval(), 0, DesignPatterns.getArrayLength()), 
+						DesignPatterns.getDecisionVariablesVector().get("System"+"-"+OUTPUT+"-"+POWER),
+						0, DesignPatterns.getArrayLength()
+						);
+				return DesignPatterns.getCplex().addMaximize(objective);
 			} else {
-				for (int i = 0; i < DesignPatterns.getArrayLength(); i++) {
-					objective.addTerm(
-							DesignPatterns.getTimeInterval()*DesignPatterns.getElectricityPriceWithOtherInterval(getGlobalSystemParameters().getTemporalResolutionOptimizationModel())[i], 
-							DesignPatterns.getDecisionVariableFromVector("System", OUTPUT, ONLYONE, POWER)[i]
-							);
-				}
-				DesignPatterns.getCplex().addMinimize(objective);
-			}
-			DesignPatterns.getCplex().exportModel("src/output_"+SYSTEM_NAME+"/"+nameOfModel+"_"+getNow()+".lp");
-			//			designpatterns.DesignPatterns.getCplex().exportModel("optimizationmodel.mps");
-			//			designpatterns.DesignPatterns.getCplex().exportModel("optimizationmodel.sav");
-			// solver specific parameters
-			//cplex.setParam(IloCplex.Param.Emphasis.Numerical, true);
-			DesignPatterns.getCplex().setParam(IloCplex.Param.MIP.Tolerances.MIPGap, DesignPatterns.getOptimalityGap());
-			long start = System.currentTimeMillis();
-			System.out.println("cplex solve");
-			if (DesignPatterns.getCplex().solve()) {
-				long end = System.currentTimeMillis();
-				long solvingTime = 	(end - start);
-				System.out.println("obj = "+DesignPatterns.getCplex().getObjValue());
-				System.out.println("solvingTime in ms = "+solvingTime);
-				System.out.println(DesignPatterns.getCplex().getCplexStatus());
-
-				List<OptimizationResults> optimizationResults = saveResults();
-				String filePath = "src/output_"+SYSTEM_NAME+"/";
-				writeResultsFromListToFile(optimizationResults, nameOfModel, filePath);
-
-			} else {
-				System.out.println("Model not solved");
-			}
-		}
-
-		catch (IloException exc) {
-			exc.printStackTrace();
-		}
-		finally {
-			if (DesignPatterns.getCplex()!=null)  {
-				DesignPatterns.getCplex().close();
-				DesignPatterns.globalCplex=null;
+				objective.addTerms(
+						ElectricityPriceCache.getObjectiveCoefficients(temporalResolution, DesignPatterns.getTimeInterval(), 0, DesignPatterns.getArrayLength()), 
+						DesignPatterns.getDecisionVariableFromVector("System", OUTPUT, ONLYONE, POWER),
+						0, DesignPatterns.getArrayLength()
+						);
+				return DesignPatterns.getCplex().addMinimize(objective);
 			}
+		} finally {
+			context.unbind();
 		}
 	}
 
 	/**
-	 * Sets the up dependencies.
+	 * Sets the up dependencies with a DependencyGraph compiled from the system parameters as in the chp model. Requires the model context to be bound.
 	 *
+	 * @param systemParameters the system parameters
 	 * @throws IloException the ilo exception
 	 */
-	public static void setUpDependencies() throws IloException {
-		int depCounter = 0; 
-		for (Dependency dependency: getGlobalSystemParameters().getDependencies()) {
-			System.out.println("Dependency"+ depCounter);
-
-			List<IloNumVar[]> inputDecVar = new ArrayList<IloNumVar[]>(); 
-			List<IloNumVar[]> outputDecVar = new ArrayList<IloNumVar[]>(); 
-
-			for (int inputCounter = 0; inputCounter < dependency.getRelevantInputs().size(); inputCounter++) {
-				String nameOfInput = dependency.getRelevantInputs().get(inputCounter);
-				int numberOfInput = -1; 
-				System.out.println("input: " + nameOfInput);
-				if (nameOfInput.contains("SystemOutput")){
-					numberOfInput = Integer.parseInt(nameOfInput.substring(nameOfInput.indexOf("-")));
-					nameOfInput = "System";
-					IloNumVar[] input;
-					if (numberOfInput == 0) {
-						input = DesignPatterns.getDecisionVariableFromVector(nameOfInput, OUTPUT, ONLYONE, POWER);
-					}
-					else {						
-						input = DesignPatterns.getCplex().numVarArray(
-								DesignPatterns.getArrayLength(),  
-								0,
-								Double.MAX_VALUE
-								//								getGlobalSystemParameters().getMinPowerSystemInput().get(numberOfInput), 
-								//								getGlobalSystemParameters().getMaxPowerSystemInput().get(numberOfInput)
-								);
-						DesignPatterns.getDecisionVariablesVector().put("System"+"-"+OUTPUT+"-"+Integer.toString(inputCounter)+POWER, input);
-					}
-					inputDecVar.add(input);
-				} else {
-					IloNumVar[] input = DesignPatterns.getDecisionVariableFromVector(nameOfInput, INPUT, 0, POWER);
-					inputDecVar.add(input);
-				}
-			}
-
-			for (int outputCounter = 0; outputCounter < dependency.getRelevantOutputs().size(); outputCounter++) {
-				String nameOfOutput = dependency.getRelevantOutputs().get(outputCounter);
-				System.out.println("output: " + nameOfOutput);
-				int numberOfOutput = -1; 
-				if (nameOfOutput.contains("SystemInput")){
-					numberOfOutput = Integer.parseInt(nameOfOutput.substring(nameOfOutput.indexOf("-")));
-					nameOfOutput = "System";
-					IloNumVar[] output;
-					if (numberOfOutput == 0) {
-						//"System", INPUT, ONLYONE,POWER
-						output = DesignPatterns.getDecisionVariableFromVector(nameOfOutput, INPUT, ONLYONE, POWER);
-					} else {
-						output = DesignPatterns.getCplex().numVarArray(
-								DesignPatterns.getArrayLength(),  
-								0,
-								getGlobalSystemParameters().getMaxPowerSystemOutput());
-						DesignPatterns.getDecisionVariablesVector().put("System"+"-"+INPUT+"-"+Integer.toString(outputCounter)+POWER, output);
-					}
-					outputDecVar.add(output);
-				} else {
-					IloNumVar[] output = DesignPatterns.getDecisionVariableFromVector(nameOfOutput, OUTPUT, ONLYONE, POWER);
-					outputDecVar.add(output);
-				}
-			}
-
-			IloNumVar[][] inputVariablesDependency =  convertListToArray(inputDecVar); 
-			IloNumVar[][] outputVariablesDependency = convertListToArray(outputDecVar);
-
-			if (dependency.getTypeOfDependency().equals("correlative")) {
-				DesignPatterns.generateCorrelativeDependency(outputVariablesDependency, inputVariablesDependency);
-			} else {
-				// dependency.getTypeOfDependency().equals("restrictive")
-				IloIntVar[][][] restrictiveDependency	= DesignPatterns.generateRestrictiveDependency(outputVariablesDependency, inputVariablesDependency);
-			}
-			depCounter++; 
-		}		
+	public static void setUpDependencies(SystemParameters systemParameters) throws IloException {
+		DependencyGraph.compileChp(systemParameters).generate();
 	}
 
 	/**
 	 * Save results.
 	 *
-	 * @return the list
+	 * @param context the model context
+	 * @return the result store
 	 */
-	public static List<OptimizationResults> saveResults () {
-		List<OptimizationResults> optimizationResults = new ArrayList<OptimizationResults>();
-
-		// get all decVars from Vector and save results to List
-		for (Entry<String, IloNumVar[]> decisionVariableSet: DesignPatterns.getDecisionVariablesVector().entrySet()) {
-			OptimizationResults decVarResults = new OptimizationResults();
-
-			String decisionVariableName = decisionVariableSet.getKey();
-			IloNumVar[] decisionVariable = decisionVariableSet.getValue();
-
-			decVarResults.setVariableName(decisionVariableName);
-			List<Double> decVarValues = new ArrayList<Double>();
-
-			for (int timeStep = 0; timeStep < decisionVariable.length; timeStep++) {
-				try {
-					decVarValues.add(timeStep, DesignPatterns.getCplex().getValue(decisionVariable[timeStep]));
-				} catch (UnknownObjectException e) {
-					System.err.println("Value not found for " + decisionVariableName +" at time step: " + timeStep);
-					e.printStackTrace();
-				} catch (IloException e) {
-					System.err.println("Value not found for " + decisionVariableName +" at time step: " + timeStep);
-					e.printStackTrace();
-				}
-			}
-			decVarResults.setOptimizationResults(decVarValues);
-			optimizationResults.add(decVarResults);
-		}
-
-		// get all decVars from Matrix and save results to List
-		for (Entry<String, IloNumVar[][]> decisionVariableSet: DesignPatterns.getDecisionVariablesMatrix().entrySet()) {
-
-			String decisionVariableName = decisionVariableSet.getKey();
-			IloNumVar[][] decisionVariable = decisionVariableSet.getValue();
-
-
-			if (decisionVariableName.contains("State")) {
-				System.out.println(decisionVariable[0].length);
-				for (int width = 0; width < decisionVariable[0].length; width++) {
-					OptimizationResults decVarResults = new OptimizationResults();
-					decVarResults.setVariableName(decisionVariableName + "-" + Integer.toString(width));
-					List<Double> decVarValues = new ArrayList<Double>();
-
-					for (int timeStep = 0; timeStep < decisionVariable.length; timeStep++) {
-						try {
-							// state variables defined: statesIntArrayResource[timeStep][state] 
-							decVarValues.add(timeStep, DesignPatterns.getCplex().getValue(decisionVariable[timeStep][width]));
-						} catch (UnknownObjectException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						} catch (IloException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						}
-					}	
-					decVarResults.setOptimizationResults(decVarValues);
-					optimizationResults.add(decVarResults);
-				}
-
-
-			} else {
-				// other variables defined as [width][timestep]
-				for (int width = 0; width < decisionVariable.length; width++) {
-					OptimizationResults decVarResults = new OptimizationResults();
-					decVarResults.setVariableName(decisionVariableName + "-" + Integer.toString(width));
-					List<Double> decVarValues = new ArrayList<Double>();
-
-					for (int timeStep = 0; timeStep < decisionVariable[0].length; timeStep++) {
-						try {
-							// state variables defined: statesIntArrayResource[timeStep][state] 
-							decVarValues.add(timeStep, DesignPatterns.getCplex().getValue(decisionVariable[width][timeStep]));
-						} catch (UnknownObjectException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						} catch (IloException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						}
-						decVarResults.setOptimizationResults(decVarValues);
-						optimizationResults.add(decVarResults);
-					}	
-				}
-			}
-
-		}
-		return optimizationResults;
+	public static ResultStore saveResults (ModelContext context) {
+		return ResultStore.extract(context);
 	}
 
 	/**
-	 * Write results to file.
+	 * Write results to file, once per result sink of the model context.
 	 *
+	 * @param context the model context
 	 * @param optimizationResults the optimization results
 	 * @param fileName the file name
 	 * @param filePath the file path
+	 * @param numberOfTimeSteps the number of rows to write
+	 * @return the file path of the results without extension
 	 */
-	public static void writeResultsFromListToFile (List<OptimizationResults> optimizationResults, String fileName, String filePath) {
+	public static String writeResultsToFile (ModelContext context, ResultStore optimizationResults, String fileName, String filePath, int numberOfTimeSteps) {
 		// Get the current date and time
 		LocalDateTime currentDateTime = LocalDateTime.now();
 		// Define the desired date and time format
@@ -402,51 +301,51 @@ public class OptimizationModel {
 		// Format the current date and time using the formatter
 		String formattedDateTime = currentDateTime.format(formatter);
 
-
-		//TODO check if method works as intended!
-		double contentToWrite; 
-		try {
-			FileWriter myWriter = new FileWriter(filePath+fileName+"_"+formattedDateTime+".csv");
-			String header = "timeStamp"; 
-			for (int i = 0; i < optimizationResults.size(); i++) {
-				header = header+","+ optimizationResults.get(i).getVariableName();
-			}
-			myWriter.write(header);
-			myWriter.write("\n");
-			for (int timeStep = 0; timeStep < DesignPatterns.getArrayLength(); timeStep++) {
-				myWriter.write(Double.toString(timeStep).replace(".", ","));
-				for(int resultsCounter = 0; resultsCounter < optimizationResults.size(); resultsCounter++) {
-					myWriter.write(";"); // Use semicolon as separator
-					//myWriter.write(Double.toString(contentToWrite[i][j]));
-					contentToWrite = optimizationResults.get(resultsCounter).getOptimizationResults().get(timeStep);
-					myWriter.write(Double.toString(contentToWrite).replace(".", ",")); // Replace decimal point with comma
-				}
-				myWriter.write("\n");
+		for (ResultSink resultSink : context.getResultSinks()) {
+			try {
+				String writtenFile = resultSink.write(optimizationResults, numberOfTimeSteps, filePath+fileName+"_"+formattedDateTime);
+				System.out.println("Successfully wrote data to the file "+ writtenFile+".");
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
-			myWriter.close();
-			System.out.println("Successfully wrote data to the file "+ fileName+".csv.");
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
+		return filePath+fileName+"_"+formattedDateTime;
+	}
 
+	/**
+	 * Gets the solver.
+	 *
+	 * @return the solver
+	 */
+	public static MipSolver getSolver() {
+		return solver;
+	}
+
+	/**
+	 * Sets the solver, e.g. OjAlgoSolver.
+	 *
+	 * @param solver the solver
+	 */
+	public static void setSolver(MipSolver solver) {
+		OptimizationModel.solver = solver;
 	}
 
 	/**
-	 * Gets the global system parameters.
+	 * Gets the model export.
 	 *
-	 * @return the globalSystemParameters
+	 * @return the model export
 	 */
-	public static SystemParameters getGlobalSystemParameters() {
-		return globalSystemParameters;
+	public static ModelExport getModelExport() {
+		return modelExport;
 	}
 
 	/**
-	 * Sets the global system parameters.
+	 * Sets the model export.
 	 *
-	 * @param globalSystemParameters the globalSystemParameters to set
+	 * @param modelExport the new model export
 	 */
-	public static void setGlobalSystemParameters(SystemParameters globalSystemParameters) {
-		OptimizationModel.globalSystemParameters = globalSystemParameters;
+	public static void setModelExport(ModelExport modelExport) {
+		OptimizationModel.modelExport = modelExport;
 	}
 
 	/**
@@ -456,26 +355,7 @@ public class OptimizationModel {
 	 * @return the double[]
 	 */
 	private static double[] importTSD(String filePath) {
-		List<Double> dataList = new ArrayList<>();
-
-		try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				// Assuming the CSV contains only one column of numerical values
-				double value = Double.parseDouble(line.trim());
-				dataList.add(value);
-			}
-		} catch (IOException | NumberFormatException e) {
-			e.printStackTrace();
-		}
-
-		// Convert List<Double> to double[]
-		double[] dataArray = new double[dataList.size()];
-		for (int i = 0; i < dataList.size(); i++) {
-			dataArray[i] = dataList.get(i);
-		}
-
-		return dataArray;
+		return TimeSeriesRepository.getShared().get(filePath);
 	}
 
 	/**
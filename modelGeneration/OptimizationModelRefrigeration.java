@@ -1,31 +1,26 @@
 package modelGeneration;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.FileFilter;
 import java.util.Comparator;
 import java.io.IOException;
+import java.nio.DoubleBuffer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map.Entry;
 
 import designpatterns.DesignPatterns;
-import designpatterns.OptimizationResults;
 import designpatterns.ResourceParameters;
 import ilog.concert.IloException;
-import ilog.concert.IloIntVar;
 import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumExpr;
 import ilog.concert.IloNumVar;
+import ilog.concert.IloObjective;
 import ilog.cplex.IloCplex;
-import ilog.cplex.IloCplex.UnknownObjectException;
+import modelGeneration.VariableKey.Direction;
 import systemParameterExtraction.ReadParametersFromDataModel;
-import systemParameterModel.Dependency;
+import systemParameterExtraction.TimeSeriesData;
 import systemParameterModel.SystemParameters;
 import validation.DecanterDataset;
 
@@ -69,8 +64,26 @@ public class OptimizationModelRefrigeration {
 	/** The Constant SYSTEM_NAME. */
 	static final String SYSTEM_NAME = "refrigeration";
 
-	/** The global system parameters. */
-	static SystemParameters globalSystemParameters = new SystemParameters();
+	/** The coarse time interval in h after the fine horizon, 0 for the temporal resolution throughout. */
+	static double coarseTimeIntervalInH = 0;
+
+	/** The fine horizon in h, at the temporal resolution of the system parameters. */
+	static double fineHorizonInH = 2;
+
+	/** Whether identical resources are ordered lexicographically by their states, off by default. */
+	static boolean symmetryBreaking = false;
+
+	/** Whether the solver starts from the most similar window of the historical operation, off by default. */
+	static boolean mipStartFromHistory = false;
+
+	/** The interval of the time stamps of the historical operation in h. */
+	static final double HISTORY_INTERVAL = 1.0/60;
+
+	/** The solver of the entry points, by default cplex. */
+	static MipSolver solver = new CplexSolver();
+
+	/** The model export, by default compressed LP of models that could not be solved, at most 20 per directory. */
+	static ModelExport modelExport = new ModelExport(ModelExport.Policy.ON_FAILURE, ModelExport.Format.LP_GZ, 1, 20);
 
 	/**
 	 * The main method.
@@ -78,9 +91,9 @@ public class OptimizationModelRefrigeration {
 	 * @param args the arguments
 	 */
 	public static void main(String[] args)  {
-		setOptimizationParameters();
+		ModelContext context = setOptimizationParameters();
 		try {
-			parameterizeOptModel();
+			parameterizeOptModel(context);
 		} catch (IloException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -90,8 +103,10 @@ public class OptimizationModelRefrigeration {
 
 	/**
 	 * Sets the optimization parameters, primarily in ArrayList<ResourceParameters> resourceParameters.
+	 *
+	 * @return the model context
 	 */
-	public static void setOptimizationParameters () {
+	public static ModelContext setOptimizationParameters () {
 
 		SystemParameters systemParameters = new SystemParameters();
 		String filePath = "src/input_"+SYSTEM_NAME+"/"; 
@@ -102,115 +117,105 @@ public class OptimizationModelRefrigeration {
 		try {
 			systemParameters = ReadParametersFromDataModel.readJson(filePath);
 		} catch (Exception e) {
-			ModelGenerationDecanter.deriveSystemParameters();
-			filePath =  "src/input_"+SYSTEM_NAME;
-			filePath += "/"+getMostRecentFile(filePath); 
-			systemParameters = ReadParametersFromDataModel.readJson(filePath);
+			// derive the refrigeration parameters, from the cache if the input files did not change
+			systemParameters = ModelGenerationRefrigeration.getCachedSystemParameters();
 		}
 
 		if (systemParameters == null) System.err.println("SystemParameters empty");
 
-		setGlobalSystemParameters(systemParameters);
+		ModelContext context = new ModelContext(systemParameters);
 
-		for (int resource = 0; resource < systemParameters.getResourceParameters().size(); resource++) {
-			ResourceParameters resourceParameters = new ResourceParameters();
-			resourceParameters = systemParameters.getResourceParameters().get(resource);
-			resourceParameters.setNumberOfSystemStates(resourceParameters.getSystemStates().size());
-			DesignPatterns.getResourceParameters().add(resourceParameters);
-		}
+		context.setOptimalityGap(0.001); // default 10e-4 = 0.001
+		context.setTimeInterval(systemParameters.getTemporalResolutionOptimizationModel());
 
-		DesignPatterns.setOptimalityGap(0.001); // default 10e-4 = 0.001
-		DesignPatterns.setTimeInterval(systemParameters.getTemporalResolutionOptimizationModel());
+		context.setArrayLength((int) (10/systemParameters.getTemporalResolutionOptimizationModel())); // set arrayLength in # of time steps
+//		context.setArrayLength(40);
+		if (coarseTimeIntervalInH > 0) {
+			try {
+				context.setTimeGrid(TimeGrid.twoLevel(systemParameters.getTemporalResolutionOptimizationModel(), fineHorizonInH, coarseTimeIntervalInH, 10));
+			} catch (IllegalArgumentException e) {
+				System.err.println(e.getMessage() + ", the model is built with the temporal resolution throughout");
+			}
+		}
 
-				DesignPatterns.setArrayLength((int) (10/systemParameters.getTemporalResolutionOptimizationModel())); // set arrayLength in # of time steps
-//		DesignPatterns.setArrayLength(40);
+		context.setSystemTargets(SystemTarget.readSystemTargets(filePath));
+		if (context.getSystemTargets().isEmpty()) {
+			context.setSystemTargets(getDefaultSystemTargets());
+		}
+		context.getPlaEncodings().putAll(PiecewiseLinearFormulation.readEncodings(filePath));
+		return context;
 	}
 
 
+	/**
+	 * Gets the default system targets, used if the system parameters define none: 12000 kWh cold water over the horizon.
+	 *
+	 * @return the default system targets
+	 */
+	public static List<SystemTarget> getDefaultSystemTargets () {
+		SystemTarget coldWater = new SystemTarget();
+		coldWater.setName("ColdWater");
+		coldWater.setEnergyCarrier("ColdWater");
+		coldWater.setFlow(OUTPUT);
+		coldWater.getResources().add("RefrigerationMachine1");
+		coldWater.getResources().add("RefrigerationMachine2");
+		coldWater.setTarget(12000);
+		List<SystemTarget> systemTargets = new ArrayList<SystemTarget>();
+		systemTargets.add(coldWater);
+		return systemTargets;
+	}
+
 	/**
 	 * Parameterize opt model.
 	 *
+	 * @param context the model context
 	 * @throws IloException the ilo exception
 	 */
-	public static void parameterizeOptModel () throws IloException {
+	public static void parameterizeOptModel (ModelContext context) throws IloException {
 		String nameOfModel = "OptModel_"+SYSTEM_NAME;
+		String filePath = "src/output_"+SYSTEM_NAME+"/";
+		boolean solved = false;
+		String resultFilePath = null;
 		try {
+			buildOptModel(context);
 
-			//-------------------------------------------------------------------- Create Resource Decision Variables --------------------------------------------------------------------
-			DesignPatterns.creationOfDecisionVariables_Names(-1);
-			// ------------------------------------------------------------------------ Use of Design Patterns--------------------------------------------------------------------
-
+			BuildStatistics statistics = context.getBuildStatistics();
 
-			// Parameterize resource models
-			for (ResourceParameters resourceParameters : getGlobalSystemParameters().getResourceParameters()) {
-				String nameOfResource = resourceParameters.getName();
-				if (resourceParameters.isStorage() == false  && resourceParameters.isSecondaryResource()==false) {
-					DesignPatterns.generateInputOutputRelationship(nameOfResource);
-				} else {
-					DesignPatterns.generateEnergyBalanceForStorageSystem(nameOfResource);
-				}
-
-				if (!(resourceParameters.getSystemStates().isEmpty())) {
-					DesignPatterns.generateSystemStateSelectionByPowerLimits(nameOfResource);
-					DesignPatterns.generateStateSequencesAndHoldingDuration(nameOfResource);
-					DesignPatterns.generateRampLimits(nameOfResource, INPUT);
+			if (symmetryBreaking) {
+				statistics.begin("symmetryBreaking", null);
+				try {
+					SymmetryBreaking.generateConstraints(context);
+				} finally {
+					statistics.end();
 				}
 			}
 
-
-			// Set up and add dependencies
-			setUpDependencies(); 
-
-//			RefrigerationMachine1-Output-Power
-//			RefrigerationMachine2-Output-Power
-			
-			IloNumExpr variableSum = DesignPatterns.getCplex().numExpr();
-			for (int timeStep = 0; timeStep < DesignPatterns.getArrayLength(); timeStep++) {
-				variableSum = DesignPatterns.getCplex().sum(
-						variableSum, 
-						DesignPatterns.getCplex().prod(
-								DesignPatterns.getTimeInterval(), 
-								// decVar
-								DesignPatterns.getCplex().sum(
-										DesignPatterns.getDecisionVariablesVector().get("RefrigerationMachine1-Output-Power")[timeStep],
-										DesignPatterns.getDecisionVariablesVector().get("RefrigerationMachine2-Output-Power")[timeStep]
-												)
-								)
-						);
-			}
-			DesignPatterns.getCplex().addEq(variableSum, 12000);
-			
-			
-			// set objective function 
-			IloLinearNumExpr objective = DesignPatterns.getCplex().linearNumExpr();
-			for (int i = 0; i < DesignPatterns.getArrayLength(); i++) {
-				objective.addTerm(
-						DesignPatterns.getTimeInterval()*0.001*DesignPatterns.getElectricityPriceWithOtherInterval(getGlobalSystemParameters().getTemporalResolutionOptimizationModel())[i], 
-//						DesignPatterns.getDecisionVariablesVector().get("System-Input--1Power")[i]
-								DesignPatterns.getDecisionVariablesVector().get("System-Input-0Power")[i]
-						);
+			if (mipStartFromHistory) {
+				statistics.begin("mipStartFromHistory", null);
+				try {
+					addMipStartFromHistory(context);
+				} finally {
+					statistics.end();
+				}
 			}
-			DesignPatterns.getCplex().addMinimize(objective);
-
-			DesignPatterns.getCplex().exportModel("src/output_"+SYSTEM_NAME+"/"+nameOfModel+"_"+getNow()+".lp");
 
 			// solver specific parameters
 			//cplex.setParam(IloCplex.Param.Emphasis.Numerical, true);
-			DesignPatterns.getCplex().setParam(IloCplex.Param.MIP.Tolerances.MIPGap, DesignPatterns.getOptimalityGap());
-
-			long start = System.currentTimeMillis();
-			System.out.println("cplex solve");
-			if (DesignPatterns.getCplex().solve()) {
-				long end = System.currentTimeMillis();
-				long solvingTime = 	(end - start);
-
-				System.out.println("obj = "+DesignPatterns.getCplex().getObjValue());
-				System.out.println("solvingTime in ms = "+solvingTime);
-				System.out.println(DesignPatterns.getCplex().getCplexStatus());
-
-				List<OptimizationResults> optimizationResults = saveResults();
-				String filePath = "src/output_"+SYSTEM_NAME+"/";
-				writeResultsFromListToFile(optimizationResults, nameOfModel, filePath);
+			context.getCplex().setParam(IloCplex.Param.MIP.Tolerances.MIPGap, context.getOptimalityGap());
+
+			System.out.println(getSolver().getName() + " solve");
+			SolverResult solverResult = getSolver().solve(context);
+			solved = solverResult.isSolved();
+			if (solved) {
+				System.out.println("obj = "+solverResult.getObjectiveValue());
+				System.out.println("solvingTime in ms = "+solverResult.getWallTimeNanos() / 1000000);
+				System.out.println(solverResult.getStatus());
+
+				ResultStore optimizationResults = solverResult.getOptimizationResults();
+				if (context.getTimeGrid() != null) {
+					context.getTimeGrid().addTimeColumns(optimizationResults);
+				}
+				resultFilePath = writeResultsToFile(context, optimizationResults, nameOfModel, filePath, context.getArrayLength()+1);
 
 			} else {
 				System.out.println("Model not solved");
@@ -221,151 +226,221 @@ public class OptimizationModelRefrigeration {
 			exc.printStackTrace();
 		}
 		finally {
-			if (DesignPatterns.getCplex()!=null)  {
-				DesignPatterns.getCplex().close();
-				DesignPatterns.globalCplex=null;
+			getModelExport().afterSolve(context, filePath, nameOfModel, solved);
+			// also written if the model could not be built or solved
+			writeBuildStatistics(context, resultFilePath != null ? resultFilePath : filePath+nameOfModel+"_"+getNow());
+			context.close();
+		}
+	}
+
+	/**
+	 * Parameterize opt model for several electricity price scenarios. The model is built once as ModelTemplate;
+	 * for each scenario only the objective coefficients are updated before it is solved again.
+	 *
+	 * @param context the model context
+	 * @param priceScenarios the electricity prices per scenario, each with at least arrayLength values
+	 * @throws IloException the ilo exception
+	 */
+	public static void parameterizeOptModel (ModelContext context, List<double[]> priceScenarios) throws IloException {
+		String nameOfModel = "OptModel_"+SYSTEM_NAME;
+		String filePath = "src/output_"+SYSTEM_NAME+"/";
+		ModelTemplate template = null;
+		try {
+			template = ModelTemplate.compileRefrigeration(context);
+			if (symmetryBreaking) {
+				SymmetryBreaking.generateConstraints(context);
+			}
+			for (int scenario = 0; scenario < priceScenarios.size(); scenario++) {
+				System.out.println("cplex solve scenario " + scenario);
+				template.setPrice(priceScenarios.get(scenario));
+				ResultStore optimizationResults = template.solve();
+				if (optimizationResults != null) {
+					writeResultsToFile(context, optimizationResults, nameOfModel+"_scenario"+scenario, filePath, context.getArrayLength()+1);
+				}
 			}
 		}
+		catch (IloException exc) {
+			exc.printStackTrace();
+		}
+		finally {
+			context.close();
+			writeBuildStatistics(context.getBuildStatistics(), filePath+nameOfModel+"_scenarios_"+getNow());
+		}
 	}
 
 	/**
-	 * Sets the up dependencies.
+	 * Builds decision variables, design patterns, dependencies, the energy target and the objective function 
+	 * into the cplex instance of the context, without exporting or solving the model.
 	 *
+	 * @param context the model context
+	 * @return the objective
 	 * @throws IloException the ilo exception
 	 */
-	public static void setUpDependencies() throws IloException {
-		int depCounter = 0; 
-		for (Dependency dependency: getGlobalSystemParameters().getDependencies()) {
-			System.out.println("Dependency"+ depCounter);
-
-			List<IloNumVar[]> inputDecVar = new ArrayList<IloNumVar[]>(); 
-			List<IloNumVar[]> outputDecVar = new ArrayList<IloNumVar[]>(); 
-
-			for (int inputCounter = 0; inputCounter < dependency.getRelevantInputs().size(); inputCounter++) {
-				String nameOfInput = dependency.getRelevantInputsExtended().get(inputCounter).getResourceName();
-				String stateTypeOfInput = dependency.getRelevantInputsExtended().get(inputCounter).getState();
-				//				int numberOfInput = -1; 
-				System.out.println("input: " + nameOfInput+ " " + stateTypeOfInput);
-
-				if (nameOfInput.contains("SystemOutput")){
-
-					//numberOfInput = Integer.parseInt(nameOfInput.substring(nameOfInput.indexOf("-")));
-					nameOfInput = "System";
-					IloNumVar[] input;
-					double lb; 
-					double ub;
+	public static IloObjective buildOptModel (ModelContext context) throws IloException {
+		BuildStatistics statistics = context.getBuildStatistics();
+		DependencyGraph dependencyGraph = context.getDependencyGraph();
+		context.bind();
+		try {
+			//-------------------------------------------------------------------- Create Resource Decision Variables --------------------------------------------------------------------
+			statistics.begin("creationOfDecisionVariables_Names", null);
+			try {
+				DesignPatterns.creationOfDecisionVariables_Names(-1);
+			} finally {
+				statistics.end();
+			}
+			// input and output power for encodings of PiecewiseLinearFormulation
+			VariableRegistry plaRegistry = context.registerDecisionVariables();
+			// ------------------------------------------------------------------------ Use of Design Patterns--------------------------------------------------------------------
+
+
+			// Parameterize resource models
+			for (ResourceParameters resourceParameters : context.getSystemParameters().getResourceParameters()) {
+				String nameOfResource = resourceParameters.getName();
+				if (resourceParameters.isStorage() == false  && resourceParameters.isSecondaryResource()==false) {
+					statistics.begin("generateInputOutputRelationship", nameOfResource);
 					try {
-						if (stateTypeOfInput.equals(getGlobalSystemParameters().getOutputSystem())) {
-							lb = getGlobalSystemParameters().getMinPowerSystemOutput();
-							ub = getGlobalSystemParameters().getMaxPowerSystemOutput();						
-						}
-						else {
-							lb = 0; 
-							ub = Double.MAX_VALUE;
-						}
+						PiecewiseLinearFormulation.generateInputOutputRelationship(context, plaRegistry, resourceParameters);
+					} finally {
+						statistics.end();
 					}
-					catch (Exception e) {
-						lb = 0; 
-						ub = Double.MAX_VALUE;
-					} 
-
-					input = DesignPatterns.getCplex().numVarArray(
-							DesignPatterns.getArrayLength(),  
-							lb,
-							ub
-							);
-					DesignPatterns.getDecisionVariablesVector().put("System"+"-"+OUTPUT+"-"+Integer.toString(inputCounter)+POWER, input);
-					inputDecVar.add(input);
 				} else {
-					int numResoureInput = -1; 
-					boolean foundResInput = false; 
-					boolean resourceIsStorage = false; 
-					if (foundResInput == false) {
-						for (ResourceParameters resPara: getGlobalSystemParameters().getResourceParameters()) {
-							if (resPara.getName().equals(nameOfInput)) {
-								for (int ecCounter=0; ecCounter < resPara.getEnergyCarrierInputs().size(); ecCounter++) {
-									if (resPara.getEnergyCarrierInputs().get(ecCounter).equals(stateTypeOfInput)) {
-										numResoureInput = ecCounter;
-										foundResInput = true; 
-										resourceIsStorage = resPara.isStorage(); 
-									}
-								}
-							}
-						}
-					}
-					IloNumVar[] input; 
-					if (resourceIsStorage == false) {
-						input = DesignPatterns.getDecisionVariableFromVector(nameOfInput, INPUT, numResoureInput, POWER);
-						System.out.println("Name of Input DecVar: " + nameOfInput + INPUT + numResoureInput + POWER);
-					} 
-					else {
-						input = DesignPatterns.getDecisionVariableFromVector(nameOfInput, INPUT, -1, POWER);
-						System.out.println("Name of Input DecVar: " + nameOfInput + INPUT + -1 + POWER);
-
+					statistics.begin("generateEnergyBalanceForStorageSystem", nameOfResource);
+					try {
+						DesignPatterns.generateEnergyBalanceForStorageSystem(nameOfResource);
+					} finally {
+						statistics.end();
 					}
-					inputDecVar.add(input);
 				}
-			}
 
-			for (int outputCounter = 0; outputCounter < dependency.getRelevantOutputs().size(); outputCounter++) {
-				String nameOfOutput = dependency.getRelevantOutputsExtended().get(outputCounter).getResourceName();
-				String stateFlowTypeOutput = dependency.getRelevantOutputsExtended().get(outputCounter).getState();
-				System.out.println("output: " + nameOfOutput+ " "+ stateFlowTypeOutput);
-				int numberOfOutput = -1; 
-				if (nameOfOutput.contains("SystemInput")){
-					//					numberOfOutput = Integer.parseInt(nameOfOutput.substring(nameOfOutput.indexOf("-")));
-					nameOfOutput = "System";
-					IloNumVar[] output;
-
-					boolean foundSysInput = false; 
-					if (foundSysInput == false) {
-						for (int i = 0; i<getGlobalSystemParameters().getInputsSystem().size(); i++) {
-							if (getGlobalSystemParameters().getInputsSystem().get(i).equals(stateFlowTypeOutput)) {
-								numberOfOutput = i;
-								foundSysInput = true; 
-							};
-						}
+				if (!(resourceParameters.getSystemStates().isEmpty())) {
+					statistics.begin("generateSystemStateSelectionByPowerLimits", nameOfResource);
+					try {
+						DesignPatterns.generateSystemStateSelectionByPowerLimits(nameOfResource);
+					} finally {
+						statistics.end();
+					}
+					statistics.begin("generateStateSequencesAndHoldingDuration", nameOfResource);
+					try {
+						DesignPatterns.generateStateSequencesAndHoldingDuration(nameOfResource);
+					} finally {
+						statistics.end();
 					}
-					double lb; 
-					double ub;
+					statistics.begin("generateRampLimits", nameOfResource);
 					try {
-						if (stateFlowTypeOutput.equals(getGlobalSystemParameters().getInputsSystem().get(numberOfOutput))) {
-							lb = getGlobalSystemParameters().getMinPowerSystemInput().get(numberOfOutput);
-							ub = getGlobalSystemParameters().getMaxPowerSystemInput().get(numberOfOutput);						
-						} else {
-							lb = 0; 
-							ub = Double.MAX_VALUE;
-						}
-					} catch (Exception e) {
-						lb = 0; 
-						ub = Double.MAX_VALUE;
+						DesignPatterns.generateRampLimits(nameOfResource, INPUT);
+					} finally {
+						statistics.end();
 					}
+				}
+			}
 
 
-					output = DesignPatterns.getCplex().numVarArray(
-							DesignPatterns.getArrayLength(),  
-							lb,
-							ub);
-					DesignPatterns.getDecisionVariablesVector().put("System"+"-"+INPUT+"-"+Integer.toString(numberOfOutput)+POWER, output);
-					System.out.println("Name of Output DecVar: " + "System"+"-"+INPUT+"-"+Integer.toString(numberOfOutput)+POWER);
-					outputDecVar.add(output);
-				} else {
-					IloNumVar[] output = DesignPatterns.getDecisionVariableFromVector(nameOfOutput, OUTPUT, ONLYONE, POWER);
-					outputDecVar.add(output);
-				}
+			// Set up and add dependencies
+			VariableRegistry registry;
+			statistics.begin("setUpDependencies", null);
+			try {
+				registry = context.registerDecisionVariables();
+				dependencyGraph.generate(registry);
+			} finally {
+				statistics.end();
 			}
 
-			IloNumVar[][] inputVariablesDependency =  convertListToArray(inputDecVar); 
-			IloNumVar[][] outputVariablesDependency = convertListToArray(outputDecVar);
+			// Add system targets, e.g. cold water energy of RefrigerationMachine1 and RefrigerationMachine2
+			statistics.begin("generateSystemTargets", null);
+			try {
+				SystemTarget.generateSystemTargets(context);
+			} finally {
+				statistics.end();
+			}
+		
+		
+			// set objective function 
+			IloLinearNumExpr objective;
+			IloObjective minimize;
+			statistics.begin("objective", null);
+			try {
+				objective = DesignPatterns.getCplex().linearNumExpr();
+				objective.addTerms(
+						getObjectiveCoefficients(context, 0), 
+						registry.get(registry.key("System", Direction.INPUT, 0, POWER)),
+						0, DesignPatterns.getArrayLength()
+						);
+				minimize = DesignPatterns.getCplex().addMinimize(objective);
+			} finally {
+				statistics.end();
+			}
+			return minimize;
+		} finally {
+			context.unbind();
+		}
+	}
 
-			if (dependency.getTypeOfDependency().equals("correlative")) {
-				DesignPatterns.generateCorrelativeDependency(outputVariablesDependency, inputVariablesDependency);
-			} else {
-				// dependency.getTypeOfDependency().equals("restrictive")
-				IloIntVar[][][] restrictiveDependency	= DesignPatterns.generateRestrictiveDependency(outputVariablesDependency, inputVariablesDependency);
+	/**
+	 * Passes the most similar windows of the historical operation of the refrigeration machines to the solver as start.
+	 * The histories are the input files registered by ModelGenerationRefrigeration, read through the
+	 * TimeSeriesRepository; resources without states and histories that cannot be read are skipped.
+	 *
+	 * @param context the model context, with the model built
+	 * @throws IloException the ilo exception
+	 */
+	public static void addMipStartFromHistory (ModelContext context) throws IloException {
+		List<MipStart.OperationHistory> histories = new ArrayList<MipStart.OperationHistory>();
+		for (TimeSeriesData resourceData : ModelGenerationRefrigeration.getRegisteredResourceData()) {
+			if (resourceData.getFilePath_TimeStamps() == null || resourceData.getFilePath_InputValues() == null
+					|| resourceData.getFilePath_OutputValues() == null || resourceData.getFilePath_SystemStates() == null) continue;
+			try {
+				// at the finest duration of the time steps of the model
+				histories.add(MipStart.OperationHistory.load(resourceData.getNameOfResource(), resourceData.getFilePath_TimeStamps(),
+						resourceData.getFilePath_InputValues(), resourceData.getFilePath_OutputValues(), resourceData.getFilePath_SystemStates(),
+						HISTORY_INTERVAL, context.getTimeInterval()));
+			} catch (IOException e) {
+				System.err.println("History of " + resourceData.getNameOfResource() + " could not be read: " + e.getMessage());
 			}
-			depCounter++; 
 		}
+		MipStart mipStart = MipStart.fromHistory(context, histories);
+		mipStart.addTo(context.getCplex(), "history");
+		System.out.println("MIP start from history with " + mipStart.size() + " values");
+	}
+
+	/**
+	 * Gets the objective coefficients of the horizon starting at offset: price times time step duration, on a TimeGrid
+	 * with the price averaged over each time step.
+	 *
+	 * @param context the model context
+	 * @param offset the first time step of the horizon, in time steps of the temporal resolution of the system parameters
+	 * @return the objective coefficients
+	 * @throws IllegalArgumentException if the horizon exceeds the price series
+	 */
+	public static double[] getObjectiveCoefficients (ModelContext context, int offset) {
+		return getObjectiveCoefficients(context, offset, false);
+	}
+
+	/**
+	 * Gets the objective coefficients of the horizon starting at offset: price times time step duration, on a TimeGrid
+	 * with the price averaged over each time step.
+	 *
+	 * @param context the model context
+	 * @param offset the first time step of the horizon, in time steps of the temporal resolution of the system parameters
+	 * @param repeatPrice whether the price series is repeated if the horizon exceeds it
+	 * @return the objective coefficients
+	 * @throws IllegalArgumentException if the horizon exceeds the price series and it is not repeated
+	 */
+	public static double[] getObjectiveCoefficients (ModelContext context, int offset, boolean repeatPrice) {
+		double temporalResolution = context.getSystemParameters().getTemporalResolutionOptimizationModel();
+		if (context.getTimeGrid() != null) {
+			return context.getTimeGrid().getObjectiveCoefficients(ElectricityPriceCache.getPrice(temporalResolution), temporalResolution, 0.001, offset, repeatPrice);
+		}
+		return ElectricityPriceCache.getObjectiveCoefficients(temporalResolution, context.getTimeInterval()*0.001, offset, context.getArrayLength(), repeatPrice);
+	}
+
+	/**
+	 * Sets the up dependencies with a DependencyGraph compiled from the system parameters. Requires the model context to be bound.
+	 *
+	 * @param systemParameters the system parameters
+	 * @throws IloException the ilo exception
+	 */
+	public static void setUpDependencies(SystemParameters systemParameters) throws IloException {
+		DependencyGraph.compile(systemParameters).generate();
 	}
 
 	/**
@@ -416,107 +491,24 @@ public class OptimizationModelRefrigeration {
 	/**
 	 * Save results.
 	 *
-	 * @return the list
+	 * @param context the model context
+	 * @return the result store
 	 */
-	public static List<OptimizationResults> saveResults () {
-		List<OptimizationResults> optimizationResults = new ArrayList<OptimizationResults>();
-
-		// get all decVars from Vector and save results to List
-		for (Entry<String, IloNumVar[]> decisionVariableSet: DesignPatterns.getDecisionVariablesVector().entrySet()) {
-			OptimizationResults decVarResults = new OptimizationResults();
-
-			String decisionVariableName = decisionVariableSet.getKey();
-			IloNumVar[] decisionVariable = decisionVariableSet.getValue();
-
-			decVarResults.setVariableName(decisionVariableName);
-			List<Double> decVarValues = new ArrayList<Double>();
-
-			for (int timeStep = 0; timeStep < decisionVariable.length; timeStep++) {
-				try {
-					decVarValues.add(timeStep, DesignPatterns.getCplex().getValue(decisionVariable[timeStep]));
-				} catch (UnknownObjectException e) {
-					System.err.println("Value not found for " + decisionVariableName +" at time step: " + timeStep);
-					e.printStackTrace();
-				} catch (IloException e) {
-					System.err.println("Value not found for " + decisionVariableName +" at time step: " + timeStep);
-					e.printStackTrace();
-				}
-			}
-			decVarResults.setOptimizationResults(decVarValues);
-			optimizationResults.add(decVarResults);
-		}
-
-		// get all decVars from Matrix and save results to List
-		for (Entry<String, IloNumVar[][]> decisionVariableSet: DesignPatterns.getDecisionVariablesMatrix().entrySet()) {
-
-			String decisionVariableName = decisionVariableSet.getKey();
-			IloNumVar[][] decisionVariable = decisionVariableSet.getValue();
-
-
-			if (decisionVariableName.contains("State")) {
-				System.out.println(decisionVariable[0].length);
-				for (int width = 0; width < decisionVariable[0].length; width++) {
-					OptimizationResults decVarResults = new OptimizationResults();
-					decVarResults.setVariableName(decisionVariableName + "-" + Integer.toString(width));
-					List<Double> decVarValues = new ArrayList<Double>();
-
-					for (int timeStep = 0; timeStep < decisionVariable.length; timeStep++) {
-						try {
-							// state variables defined: statesIntArrayResource[timeStep][state] 
-							decVarValues.add(timeStep, DesignPatterns.getCplex().getValue(decisionVariable[timeStep][width]));
-						} catch (UnknownObjectException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						} catch (IloException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						}
-					}	
-					decVarResults.setOptimizationResults(decVarValues);
-					optimizationResults.add(decVarResults);
-				}
-
-
-			} else {
-				// other variables defined as [width][timestep]
-				for (int width = 0; width < decisionVariable.length; width++) {
-					OptimizationResults decVarResults = new OptimizationResults();
-					decVarResults.setVariableName(decisionVariableName + "-" + Integer.toString(width));
-					List<Double> decVarValues = new ArrayList<Double>();
-
-					for (int timeStep = 0; timeStep < decisionVariable[0].length; timeStep++) {
-						try {
-							// state variables defined: statesIntArrayResource[timeStep][state] 
-							decVarValues.add(timeStep, DesignPatterns.getCplex().getValue(decisionVariable[width][timeStep]));
-						} catch (UnknownObjectException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						} catch (IloException e) {
-							System.err.println("Value not found for " + decisionVariableName + "[" + width +"] "+" at time step: " + timeStep);
-							decVarValues.add(timeStep, (double) -1);
-							e.printStackTrace();
-						}
-						decVarResults.setOptimizationResults(decVarValues);
-						optimizationResults.add(decVarResults);
-					}	
-				}
-			}
-
-		}
-		return optimizationResults;
+	public static ResultStore saveResults (ModelContext context) {
+		return ResultStore.extract(context);
 	}
 
 	/**
-	 * Write results to file.
+	 * Write results to file, once per result sink of the model context.
 	 *
+	 * @param context the model context
 	 * @param optimizationResults the optimization results
 	 * @param fileName the file name
 	 * @param filePath the file path
+	 * @param numberOfTimeSteps the number of rows to write
+	 * @return the file path of the results without extension
 	 */
-	public static void writeResultsFromListToFile (List<OptimizationResults> optimizationResults, String fileName, String filePath) {
+	public static String writeResultsToFile (ModelContext context, ResultStore optimizationResults, String fileName, String filePath, int numberOfTimeSteps) {
 		// Get the current date and time
 		LocalDateTime currentDateTime = LocalDateTime.now();
 		// Define the desired date and time format
@@ -524,55 +516,82 @@ public class OptimizationModelRefrigeration {
 		// Format the current date and time using the formatter
 		String formattedDateTime = currentDateTime.format(formatter);
 
-
-		//TODO check if method works as intended!
-		double contentToWrite; 
-		try {
-			FileWriter myWriter = new FileWriter(filePath+fileName+"_"+formattedDateTime+".csv");
-			String header = "timeStamp"; 
-			for (int i = 0; i < optimizationResults.size(); i++) {
-				header = header+","+ optimizationResults.get(i).getVariableName();
+		for (ResultSink resultSink : context.getResultSinks()) {
+			try {
+				String writtenFile = resultSink.write(optimizationResults, numberOfTimeSteps, filePath+fileName+"_"+formattedDateTime);
+				System.out.println("Successfully wrote data to the file "+ writtenFile+".");
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
-			myWriter.write(header);
-			myWriter.write("\n");
-			for (int timeStep = 0; timeStep < DesignPatterns.getArrayLength()+1; timeStep++) {
-				myWriter.write(Double.toString(timeStep).replace(".", ","));
-				for(int resultsCounter = 0; resultsCounter < optimizationResults.size(); resultsCounter++) {
-					myWriter.write(";"); // Use semicolon as separator
-					//myWriter.write(Double.toString(contentToWrite[i][j]));
-					try {
-						contentToWrite = optimizationResults.get(resultsCounter).getOptimizationResults().get(timeStep);
-					} catch (Exception e) {
-						contentToWrite = 0; // TODO: handle exception
-					}
-					myWriter.write(Double.toString(contentToWrite).replace(".", ",")); // Replace decimal point with comma
-				}
-				myWriter.write("\n");
+		}
+		return filePath+fileName+"_"+formattedDateTime;
+	}
+
+	/**
+	 * Writes the build statistics next to the results once the background tasks of the context have finished, so
+	 * that a model export is included, without waiting for them.
+	 *
+	 * @param context the model context
+	 * @param resultFilePath the file path of the results without extension
+	 */
+	public static void writeBuildStatistics (final ModelContext context, final String resultFilePath) {
+		context.runAfterBackgroundTasks(new Runnable() {
+			@Override
+			public void run() {
+				writeBuildStatistics(context.getBuildStatistics(), resultFilePath);
 			}
-			myWriter.close();
-			System.out.println("Successfully wrote data to the file "+ fileName+".csv.");
+		});
+	}
+
+	/**
+	 * Writes the build statistics next to the results.
+	 *
+	 * @param statistics the build statistics
+	 * @param resultFilePath the file path of the results without extension
+	 */
+	public static void writeBuildStatistics (BuildStatistics statistics, String resultFilePath) {
+		try {
+			statistics.writeReport(resultFilePath + BuildStatistics.FILE_SUFFIX);
+			System.out.println("Successfully wrote data to the file "+ resultFilePath + BuildStatistics.FILE_SUFFIX+".");
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+	}
 
+	/**
+	 * Gets the solver.
+	 *
+	 * @return the solver
+	 */
+	public static MipSolver getSolver() {
+		return solver;
 	}
 
 	/**
-	 * Gets the global system parameters.
+	 * Sets the solver, e.g. OjAlgoSolver.
 	 *
-	 * @return the globalSystemParameters
+	 * @param solver the solver
 	 */
-	public static SystemParameters getGlobalSystemParameters() {
-		return globalSystemParameters;
+	public static void setSolver(MipSolver solver) {
+		OptimizationModelRefrigeration.solver = solver;
 	}
 
 	/**
-	 * Sets the global system parameters.
+	 * Gets the model export.
 	 *
-	 * @param globalSystemParameters the globalSystemParameters to set
+	 * @return the model export
 	 */
-	public static void setGlobalSystemParameters(SystemParameters globalSystemParameters) {
-		OptimizationModelRefrigeration.globalSystemParameters = globalSystemParameters;
+	public static ModelExport getModelExport() {
+		return modelExport;
+	}
+
+	/**
+	 * Sets the model export.
+	 *
+	 * @param modelExport the new model export
+	 */
+	public static void setModelExport(ModelExport modelExport) {
+		OptimizationModelRefrigeration.modelExport = modelExport;
 	}
 
 	/**
@@ -582,26 +601,12 @@ public class OptimizationModelRefrigeration {
 	 * @return the list
 	 */
 	private static List<Double> importTSD(String filePath) {
-		List<Double> dataList = new ArrayList<>();
-
-		try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-			String line;
-			while ((line = reader.readLine()) != null) {
-				// Assuming the CSV contains only one column of numerical values
-				double value = Double.parseDouble(line.trim());
-				dataList.add(value);
-			}
-		} catch (IOException | NumberFormatException e) {
-			e.printStackTrace();
+		DoubleBuffer data = TimeSeriesRepository.getShared().getReadOnly(filePath);
+		List<Double> dataList = new ArrayList<Double>(data.remaining());
+		while (data.hasRemaining()) {
+			dataList.add(data.get());
 		}
 		return dataList; 
-		//		// Convert List<Double> to double[]
-		//		double[] dataArray = new double[dataList.size()];
-		//		for (int i = 0; i < dataList.size(); i++) {
-		//			dataArray[i] = dataList.get(i);
-		//		}
-		//
-		//		return dataArray;
 	}
 	/**
 	 * Convert list to array.
@@ -0,0 +1,546 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import designpatterns.DesignPatterns;
+import designpatterns.PiecewiseLinearApproximation;
+import designpatterns.ResourceParameters;
+import designpatterns.SystemState;
+import ilog.concert.IloException;
+import ilog.concert.IloIntVar;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+import modelGeneration.VariableKey.Direction;
+
+/**
+ * The Class PiecewiseLinearFormulation.
+ *
+ * Selectable encodings of the input-output relationship of a resource from the segments of its plaList, as
+ * alternative to DesignPatterns.generateInputOutputRelationship(). Per time step, an on/off binary allows zero input
+ * and output; otherwise the input lies in the range of the segments. The on/off binary may only be 1 in time steps in
+ * which the resource is in an operating state, i.e. a system state with a maximum power input above 0. Segments whose
+ * first breakpoint yields output at zero input keep DESIGN_PATTERNS unless every operating state has a minimum power
+ * input above 0, since the on/off binary would otherwise allow that output without input. The encodings differ in the
+ * number of binaries and in the strength of the LP relaxation:
+ *
+ * <ul>
+ * <li>SOS2: one weight per breakpoint in an SOS2 set, no additional binaries; branching on the SOS2 set.</li>
+ * <li>CONVEX_COMBINATION: disaggregated convex combination, one binary and two weights per segment; exact also for
+ * segments that are not continuous.</li>
+ * <li>INCREMENTAL: one fill level per segment and one binary per segment but the last; locally ideal.</li>
+ * <li>LOGARITHMIC: weights per breakpoint with ceil(log2(segments)) binaries of a Gray code.</li>
+ * </ul>
+ *
+ * SOS2, INCREMENTAL and LOGARITHMIC interpolate between breakpoints; where adjacent segments do not meet, the
+ * breakpoint takes the mean of both segments. AUTO selects CONVEX_COMBINATION for such segments, DESIGN_PATTERNS for a
+ * single segment, INCREMENTAL for up to INCREMENTAL_MAX_SEGMENTS segments and LOGARITHMIC above.
+ *
+ * Encodings are read per resource from the section "plaEncodings" of the system parameters JSON, with "default" for
+ * all other resources:
+ *
+ * <pre>
+ * "plaEncodings": {
+ *     "default": "AUTO",
+ *     "RefrigerationMachine1": "SOS2"
+ * }
+ * </pre>
+ */
+public class PiecewiseLinearFormulation {
+
+	/** The Constant SECTION. */
+	public static final String SECTION = "plaEncodings";
+
+	/** The Constant DEFAULT_KEY. */
+	public static final String DEFAULT_KEY = "default";
+
+	/** The maximum number of segments for which AUTO selects INCREMENTAL. */
+	static final int INCREMENTAL_MAX_SEGMENTS = 4;
+
+	/** The relative tolerance of continuity between segments. */
+	static final double CONTINUITY_TOLERANCE = 1e-6;
+
+	/**
+	 * The Enum Encoding.
+	 */
+	public enum Encoding {
+		/** DesignPatterns.generateInputOutputRelationship(). */
+		DESIGN_PATTERNS,
+		/** Weights per breakpoint in an SOS2 set. */
+		SOS2,
+		/** Disaggregated convex combination with one binary per segment. */
+		CONVEX_COMBINATION,
+		/** Incremental (delta) formulation. */
+		INCREMENTAL,
+		/** Logarithmic formulation with a Gray code. */
+		LOGARITHMIC,
+		/** Selected by the segments of the resource. */
+		AUTO
+	}
+
+	/** The segments, sorted by lower bound. */
+	private final List<PiecewiseLinearApproximation> segments;
+
+	/** The breakpoints of the input, segments.size()+1 values. */
+	private final double[] inputBreakpoints;
+
+	/** The breakpoints of the output. */
+	private final double[] outputBreakpoints;
+
+	/** Whether adjacent segments meet. */
+	private final boolean continuous;
+
+	/**
+	 * Instantiates a new piecewise linear formulation.
+	 *
+	 * @param segments the segments of one input
+	 */
+	public PiecewiseLinearFormulation(List<PiecewiseLinearApproximation> segments) {
+		this.segments = new ArrayList<PiecewiseLinearApproximation>(segments);
+		Collections.sort(this.segments, new Comparator<PiecewiseLinearApproximation>() {
+			@Override
+			public int compare(PiecewiseLinearApproximation a, PiecewiseLinearApproximation b) {
+				return Double.compare(a.getLowerBound(), b.getLowerBound());
+			}
+		});
+		int numberOfSegments = this.segments.size();
+		inputBreakpoints = new double[numberOfSegments + 1];
+		outputBreakpoints = new double[numberOfSegments + 1];
+		boolean meet = true;
+		if (numberOfSegments > 0) {
+			PiecewiseLinearApproximation first = this.segments.get(0);
+			PiecewiseLinearApproximation last = this.segments.get(numberOfSegments - 1);
+			double scale = Math.max(1, Math.abs(last.getUpperBound()));
+			inputBreakpoints[0] = first.getLowerBound();
+			outputBreakpoints[0] = evaluate(first, first.getLowerBound());
+			for (int segment = 1; segment < numberOfSegments; segment++) {
+				PiecewiseLinearApproximation previous = this.segments.get(segment - 1);
+				PiecewiseLinearApproximation next = this.segments.get(segment);
+				double input = (previous.getUpperBound() + next.getLowerBound())/2;
+				double previousOutput = evaluate(previous, previous.getUpperBound());
+				double nextOutput = evaluate(next, next.getLowerBound());
+				meet &= Math.abs(previous.getUpperBound() - next.getLowerBound()) <= CONTINUITY_TOLERANCE*scale
+						&& Math.abs(previousOutput - nextOutput) <= CONTINUITY_TOLERANCE*Math.max(1, Math.abs(previousOutput));
+				inputBreakpoints[segment] = input;
+				outputBreakpoints[segment] = (previousOutput + nextOutput)/2;
+			}
+			inputBreakpoints[numberOfSegments] = last.getUpperBound();
+			outputBreakpoints[numberOfSegments] = evaluate(last, last.getUpperBound());
+		}
+		this.continuous = meet;
+	}
+
+	/**
+	 * Evaluates a segment.
+	 *
+	 * @param segment the segment
+	 * @param input the input
+	 * @return the output
+	 */
+	private static double evaluate (PiecewiseLinearApproximation segment, double input) {
+		return segment.getSlope()*input + segment.getIntercept();
+	}
+
+	/**
+	 * Reads the encodings of a system parameters JSON file.
+	 *
+	 * @param filePath the file path
+	 * @return the encodings by resource name and DEFAULT_KEY, empty if the file has no section "plaEncodings" or cannot be read
+	 */
+	public static Map<String, Encoding> readEncodings (String filePath) {
+		Map<String, Encoding> encodings = new LinkedHashMap<String, Encoding>();
+		try {
+			Object json = SimpleJson.read(filePath);
+			if (!(json instanceof Map) || !(((Map<?, ?>) json).get(SECTION) instanceof Map)) {
+				return encodings;
+			}
+			for (Entry<?, ?> entry : ((Map<?, ?>) ((Map<?, ?>) json).get(SECTION)).entrySet()) {
+				encodings.put((String) entry.getKey(), Encoding.valueOf(((String) entry.getValue()).toUpperCase()));
+			}
+		} catch (Exception e) {
+			System.err.println("Could not read PLA encodings from " + filePath + ": " + e.getMessage());
+		}
+		return encodings;
+	}
+
+	/**
+	 * Generates the input-output relationship of a resource with its encoding in the model context. Requires the
+	 * model context to be bound.
+	 *
+	 * @param context the model context
+	 * @param registry the variable registry of the decision variables created so far
+	 * @param resourceParameters the resource parameters
+	 * @return the encoding used
+	 * @throws IloException the ilo exception
+	 */
+	public static Encoding generateInputOutputRelationship (ModelContext context, VariableRegistry registry, ResourceParameters resourceParameters) throws IloException {
+		String nameOfResource = resourceParameters.getName();
+		Encoding encoding = context.getPlaEncoding(nameOfResource);
+		List<List<PiecewiseLinearApproximation>> plaList = resourceParameters.getPlaList();
+		PiecewiseLinearFormulation formulation = null;
+		IloNumVar[][] states = null;
+		boolean[] operating = null;
+		if (encoding != Encoding.DESIGN_PATTERNS) {
+			if (plaList == null || plaList.size() != 1 || !hasRange(plaList.get(0))) {
+				// several inputs or segments without range, e.g. one linear relationship over the whole power range
+				encoding = Encoding.DESIGN_PATTERNS;
+			} else {
+				formulation = new PiecewiseLinearFormulation(plaList.get(0));
+				states = ModelContext.findStateVariables(DesignPatterns.getDecisionVariablesMatrix(), nameOfResource);
+				operating = getOperatingStates(resourceParameters);
+				if (formulation.hasOutputAtZeroInput() && (states == null || allowsZeroInput(resourceParameters))) {
+					System.err.println("Segments of " + nameOfResource + " yield output at zero input, " + encoding + " is not used");
+					encoding = Encoding.DESIGN_PATTERNS;
+				} else if (encoding == Encoding.AUTO) {
+					encoding = formulation.selectEncoding();
+				} else if (!formulation.isContinuous() && encoding != Encoding.CONVEX_COMBINATION) {
+					System.err.println("Segments of " + nameOfResource + " do not meet, " + encoding + " interpolates between them");
+				}
+			}
+		}
+		if (encoding == Encoding.DESIGN_PATTERNS) {
+			DesignPatterns.generateInputOutputRelationship(nameOfResource);
+			return encoding;
+		}
+		IloNumVar[] input = registry.get(registry.key(nameOfResource, Direction.INPUT, 0, OptimizationModelRefrigeration.POWER));
+		IloNumVar[] output = registry.get(registry.key(nameOfResource, Direction.OUTPUT, OptimizationModelRefrigeration.ONLYONE, OptimizationModelRefrigeration.POWER));
+		formulation.generate(DesignPatterns.getCplex(), encoding, nameOfResource, input, output, states, operating);
+		return encoding;
+	}
+
+	/**
+	 * Gets the operating states of a resource, the system states with a maximum power input above 0.
+	 *
+	 * @param resourceParameters the resource parameters
+	 * @return whether each system state is an operating state, null if the resource has no system states
+	 */
+	static boolean[] getOperatingStates (ResourceParameters resourceParameters) {
+		List<SystemState> systemStates = resourceParameters.getSystemStates();
+		if (systemStates == null || systemStates.isEmpty()) return null;
+		boolean[] operating = new boolean[systemStates.size()];
+		for (int state = 0; state < operating.length; state++) {
+			operating[state] = systemStates.get(state).getMaxPowerInput() > 0;
+		}
+		return operating;
+	}
+
+	/**
+	 * Checks whether a resource may operate with zero input.
+	 *
+	 * @param resourceParameters the resource parameters
+	 * @return true, if the resource has no system states or an operating state with a minimum power input of at most 0
+	 */
+	static boolean allowsZeroInput (ResourceParameters resourceParameters) {
+		List<SystemState> systemStates = resourceParameters.getSystemStates();
+		if (systemStates == null || systemStates.isEmpty()) return true;
+		for (SystemState systemState : systemStates) {
+			if (systemState.getMaxPowerInput() > 0 && systemState.getMinPowerInput() <= 0) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the first breakpoint yields output at zero input.
+	 *
+	 * @return true, if the first input breakpoint is at most 0 and its output is above 0
+	 */
+	public boolean hasOutputAtZeroInput () {
+		return inputBreakpoints[0] <= 0 && outputBreakpoints[0] > 0;
+	}
+
+	/**
+	 * Checks whether segments have a range of the input; segments with equal bounds apply to the whole power range.
+	 *
+	 * @param segments the segments
+	 * @return true, if at least one segment has a range
+	 */
+	private static boolean hasRange (List<PiecewiseLinearApproximation> segments) {
+		for (PiecewiseLinearApproximation segment : segments) {
+			if (segment.getUpperBound() > segment.getLowerBound()) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Selects the encoding of the segments for AUTO.
+	 *
+	 * @return the encoding
+	 */
+	public Encoding selectEncoding () {
+		if (!continuous) return Encoding.CONVEX_COMBINATION;
+		if (segments.size() <= 1) return Encoding.DESIGN_PATTERNS;
+		if (segments.size() <= INCREMENTAL_MAX_SEGMENTS) return Encoding.INCREMENTAL;
+		return Encoding.LOGARITHMIC;
+	}
+
+	/**
+	 * Generates the input-output relationship for all time steps.
+	 *
+	 * @param cplex the cplex instance
+	 * @param encoding the encoding, not DESIGN_PATTERNS or AUTO
+	 * @param name the name of the resource, for variable names
+	 * @param input the input power
+	 * @param output the output power
+	 * @param states the state variables [timeStep][state], null if the on/off binary is not linked to states
+	 * @param operating whether each state is an operating state, null if the on/off binary is not linked to states
+	 * @throws IloException the ilo exception
+	 */
+	public void generate (IloCplex cplex, Encoding encoding, String name, IloNumVar[] input, IloNumVar[] output, IloNumVar[][] states, boolean[] operating) throws IloException {
+		int numberOfTimeSteps = Math.min(input.length, output.length);
+		for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+			String prefix = name + "-PLA-" + timeStep;
+			IloIntVar on = cplex.boolVar(prefix + "-On");
+			if (states != null && operating != null && timeStep < states.length) {
+				// on <= sum of the operating states
+				IloLinearNumExpr link = cplex.linearNumExpr();
+				link.addTerm(1, on);
+				for (int state = 0; state < Math.min(operating.length, states[timeStep].length); state++) {
+					if (operating[state]) {
+						link.addTerm(-1, states[timeStep][state]);
+					}
+				}
+				cplex.addLe(link, 0);
+			}
+			switch (encoding) {
+			case SOS2:
+				generateSos2(cplex, prefix, on, input[timeStep], output[timeStep]);
+				break;
+			case CONVEX_COMBINATION:
+				generateConvexCombination(cplex, prefix, on, input[timeStep], output[timeStep]);
+				break;
+			case INCREMENTAL:
+				generateIncremental(cplex, prefix, on, input[timeStep], output[timeStep]);
+				break;
+			case LOGARITHMIC:
+				generateLogarithmic(cplex, prefix, on, input[timeStep], output[timeStep]);
+				break;
+			default:
+				throw new IllegalArgumentException("Encoding " + encoding + " is not generated by PiecewiseLinearFormulation");
+			}
+		}
+	}
+
+	/**
+	 * Generates weights per breakpoint, summing up to the on binary, and links input and output to them.
+	 *
+	 * @param cplex the cplex instance
+	 * @param prefix the prefix of the names
+	 * @param on the on binary
+	 * @param input the input
+	 * @param output the output
+	 * @return the weights
+	 * @throws IloException the ilo exception
+	 */
+	private IloNumVar[] generateBreakpointWeights (IloCplex cplex, String prefix, IloIntVar on, IloNumVar input, IloNumVar output) throws IloException {
+		IloNumVar[] weights = new IloNumVar[inputBreakpoints.length];
+		IloLinearNumExpr sum = cplex.linearNumExpr();
+		IloLinearNumExpr inputExpr = cplex.linearNumExpr();
+		IloLinearNumExpr outputExpr = cplex.linearNumExpr();
+		for (int breakpoint = 0; breakpoint < weights.length; breakpoint++) {
+			weights[breakpoint] = cplex.numVar(0, 1, prefix + "-Weight-" + breakpoint);
+			sum.addTerm(1, weights[breakpoint]);
+			inputExpr.addTerm(inputBreakpoints[breakpoint], weights[breakpoint]);
+			outputExpr.addTerm(outputBreakpoints[breakpoint], weights[breakpoint]);
+		}
+		sum.addTerm(-1, on);
+		cplex.addEq(sum, 0);
+		inputExpr.addTerm(-1, input);
+		cplex.addEq(inputExpr, 0);
+		outputExpr.addTerm(-1, output);
+		cplex.addEq(outputExpr, 0);
+		return weights;
+	}
+
+	/**
+	 * Generates the SOS2 formulation of one time step.
+	 *
+	 * @param cplex the cplex instance
+	 * @param prefix the prefix of the names
+	 * @param on the on binary
+	 * @param input the input
+	 * @param output the output
+	 * @throws IloException the ilo exception
+	 */
+	private void generateSos2 (IloCplex cplex, String prefix, IloIntVar on, IloNumVar input, IloNumVar output) throws IloException {
+		IloNumVar[] weights = generateBreakpointWeights(cplex, prefix, on, input, output);
+		// SOS2 reference weights must be distinct
+		double[] references = new double[weights.length];
+		for (int breakpoint = 0; breakpoint < references.length; breakpoint++) {
+			references[breakpoint] = breakpoint;
+		}
+		cplex.addSOS2(weights, references);
+	}
+
+	/**
+	 * Generates the disaggregated convex combination formulation of one time step.
+	 *
+	 * @param cplex the cplex instance
+	 * @param prefix the prefix of the names
+	 * @param on the on binary
+	 * @param input the input
+	 * @param output the output
+	 * @throws IloException the ilo exception
+	 */
+	private void generateConvexCombination (IloCplex cplex, String prefix, IloIntVar on, IloNumVar input, IloNumVar output) throws IloException {
+		IloLinearNumExpr selected = cplex.linearNumExpr();
+		IloLinearNumExpr inputExpr = cplex.linearNumExpr();
+		IloLinearNumExpr outputExpr = cplex.linearNumExpr();
+		for (int segment = 0; segment < segments.size(); segment++) {
+			PiecewiseLinearApproximation pla = segments.get(segment);
+			IloIntVar active = cplex.boolVar(prefix + "-Segment-" + segment);
+			IloNumVar lower = cplex.numVar(0, 1, prefix + "-Lower-" + segment);
+			IloNumVar upper = cplex.numVar(0, 1, prefix + "-Upper-" + segment);
+			IloLinearNumExpr weights = cplex.linearNumExpr();
+			weights.addTerm(1, lower);
+			weights.addTerm(1, upper);
+			weights.addTerm(-1, active);
+			cplex.addEq(weights, 0);
+			selected.addTerm(1, active);
+			inputExpr.addTerm(pla.getLowerBound(), lower);
+			inputExpr.addTerm(pla.getUpperBound(), upper);
+			outputExpr.addTerm(evaluate(pla, pla.getLowerBound()), lower);
+			outputExpr.addTerm(evaluate(pla, pla.getUpperBound()), upper);
+		}
+		selected.addTerm(-1, on);
+		cplex.addEq(selected, 0);
+		inputExpr.addTerm(-1, input);
+		cplex.addEq(inputExpr, 0);
+		outputExpr.addTerm(-1, output);
+		cplex.addEq(outputExpr, 0);
+	}
+
+	/**
+	 * Generates the incremental formulation of one time step.
+	 *
+	 * @param cplex the cplex instance
+	 * @param prefix the prefix of the names
+	 * @param on the on binary
+	 * @param input the input
+	 * @param output the output
+	 * @throws IloException the ilo exception
+	 */
+	private void generateIncremental (IloCplex cplex, String prefix, IloIntVar on, IloNumVar input, IloNumVar output) throws IloException {
+		int numberOfSegments = segments.size();
+		IloLinearNumExpr inputExpr = cplex.linearNumExpr();
+		IloLinearNumExpr outputExpr = cplex.linearNumExpr();
+		inputExpr.addTerm(inputBreakpoints[0], on);
+		outputExpr.addTerm(outputBreakpoints[0], on);
+		IloNumVar[] fill = new IloNumVar[numberOfSegments];
+		for (int segment = 0; segment < numberOfSegments; segment++) {
+			fill[segment] = cplex.numVar(0, 1, prefix + "-Fill-" + segment);
+			inputExpr.addTerm(inputBreakpoints[segment + 1] - inputBreakpoints[segment], fill[segment]);
+			outputExpr.addTerm(outputBreakpoints[segment + 1] - outputBreakpoints[segment], fill[segment]);
+		}
+		// fill[0] <= on, fill[s+1] <= full[s] <= fill[s]
+		IloLinearNumExpr first = cplex.linearNumExpr();
+		first.addTerm(1, fill[0]);
+		first.addTerm(-1, on);
+		cplex.addLe(first, 0);
+		for (int segment = 0; segment + 1 < numberOfSegments; segment++) {
+			IloIntVar full = cplex.boolVar(prefix + "-Full-" + segment);
+			IloLinearNumExpr next = cplex.linearNumExpr();
+			next.addTerm(1, fill[segment + 1]);
+			next.addTerm(-1, full);
+			cplex.addLe(next, 0);
+			IloLinearNumExpr current = cplex.linearNumExpr();
+			current.addTerm(1, full);
+			current.addTerm(-1, fill[segment]);
+			cplex.addLe(current, 0);
+		}
+		inputExpr.addTerm(-1, input);
+		cplex.addEq(inputExpr, 0);
+		outputExpr.addTerm(-1, output);
+		cplex.addEq(outputExpr, 0);
+	}
+
+	/**
+	 * Generates the logarithmic formulation of one time step: segment s is encoded by the Gray code of s, and a
+	 * breakpoint may only have a positive weight if the code of an adjacent segment is selected.
+	 *
+	 * @param cplex the cplex instance
+	 * @param prefix the prefix of the names
+	 * @param on the on binary
+	 * @param input the input
+	 * @param output the output
+	 * @throws IloException the ilo exception
+	 */
+	private void generateLogarithmic (IloCplex cplex, String prefix, IloIntVar on, IloNumVar input, IloNumVar output) throws IloException {
+		IloNumVar[] weights = generateBreakpointWeights(cplex, prefix, on, input, output);
+		int numberOfSegments = segments.size();
+		int numberOfBits = 32 - Integer.numberOfLeadingZeros(Math.max(1, numberOfSegments - 1));
+		for (int bit = 0; bit < numberOfBits; bit++) {
+			IloIntVar code = cplex.boolVar(prefix + "-Code-" + bit);
+			IloLinearNumExpr ones = cplex.linearNumExpr();
+			IloLinearNumExpr zeros = cplex.linearNumExpr();
+			for (int breakpoint = 0; breakpoint < weights.length; breakpoint++) {
+				// adjacent segments breakpoint-1 and breakpoint
+				boolean allOnes = true;
+				boolean allZeros = true;
+				for (int segment = breakpoint - 1; segment <= breakpoint; segment++) {
+					if (segment < 0 || segment >= numberOfSegments) continue;
+					boolean set = ((grayCode(segment) >> bit) & 1) == 1;
+					allOnes &= set;
+					allZeros &= !set;
+				}
+				if (allOnes) ones.addTerm(1, weights[breakpoint]);
+				if (allZeros) zeros.addTerm(1, weights[breakpoint]);
+			}
+			ones.addTerm(-1, code);
+			cplex.addLe(ones, 0);
+			zeros.addTerm(1, code);
+			cplex.addLe(zeros, 1);
+		}
+	}
+
+	/**
+	 * Gets the binary reflected Gray code of a number.
+	 *
+	 * @param number the number
+	 * @return the gray code
+	 */
+	static int grayCode (int number) {
+		return number ^ (number >> 1);
+	}
+
+	/**
+	 * Checks whether adjacent segments meet.
+	 *
+	 * @return true, if continuous
+	 */
+	public boolean isContinuous () {
+		return continuous;
+	}
+
+	/**
+	 * Gets the number of segments.
+	 *
+	 * @return the number of segments
+	 */
+	public int getNumberOfSegments () {
+		return segments.size();
+	}
+
+	/**
+	 * Gets the input breakpoints.
+	 *
+	 * @return the input breakpoints
+	 */
+	public double[] getInputBreakpoints () {
+		return inputBreakpoints;
+	}
+
+	/**
+	 * Gets the output breakpoints.
+	 *
+	 * @return the output breakpoints
+	 */
+	public double[] getOutputBreakpoints () {
+		return outputBreakpoints;
+	}
+}
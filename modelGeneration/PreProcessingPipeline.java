@@ -0,0 +1,884 @@
+package modelGeneration;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The Class PreProcessingPipeline.
+ *
+ * Streaming preprocessing of measured time series: a time stamp file and one file per channel (e.g. input power,
+ * output power, system states) are read in chunks with TimeSeriesLoader.ChunkReader and passed through a list of
+ * stages, each transforming a chunk of primitive arrays into a chunk. Stages keep their state across chunks, so the
+ * result does not depend on the chunk size, and hold at most a bounded number of samples. Histories of any length are
+ * therefore processed in memory proportional to the chunk size.
+ *
+ * <pre>
+ * PreProcessingPipeline pipeline = new PreProcessingPipeline();
+ * pipeline.addStage(new PreProcessingPipeline.GapFilling(1.0/60, 0.5, stateChannels));
+ * pipeline.addStage(new PreProcessingPipeline.OutlierRemoval(lowerBounds, upperBounds, maxJumps));
+ * pipeline.addStage(new PreProcessingPipeline.Resampling(0.125, stateChannels));
+ * pipeline.addStage(new PreProcessingPipeline.StateSmoothing(2, 2, 3));
+ * pipeline.run(timeStampsFile, channelFiles, new PreProcessingPipeline.CsvSink(outputFiles));
+ * </pre>
+ *
+ * Time stamps are read as Excel serial days, as in the input files, and processed in hours.
+ */
+public class PreProcessingPipeline {
+
+	/** The Constant DEFAULT_CHUNK_SIZE. */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 14;
+
+	/** The Constant HOURS_PER_DAY. */
+	static final double HOURS_PER_DAY = 24;
+
+	/** The stages. */
+	private final List<Stage> stages = new ArrayList<Stage>();
+
+	/** The chunk size. */
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * The Class Chunk.
+	 *
+	 * A chunk of samples: time stamps in h and the values of each channel; only the first length entries are valid.
+	 */
+	public static class Chunk {
+
+		/** The time stamps in h. */
+		double[] time;
+
+		/** The values, [channel][sample]. */
+		double[][] values;
+
+		/** The number of samples. */
+		int length;
+
+		/**
+		 * Instantiates a new chunk.
+		 *
+		 * @param numberOfChannels the number of channels
+		 * @param capacity the capacity
+		 */
+		public Chunk(int numberOfChannels, int capacity) {
+			this.time = new double[capacity];
+			this.values = new double[numberOfChannels][capacity];
+		}
+
+		/**
+		 * Ensures the capacity, keeping the samples.
+		 *
+		 * @param capacity the capacity
+		 */
+		void ensureCapacity (int capacity) {
+			if (capacity <= time.length) return;
+			int newCapacity = Math.max(capacity, time.length*2);
+			time = Arrays.copyOf(time, newCapacity);
+			for (int channel = 0; channel < values.length; channel++) {
+				values[channel] = Arrays.copyOf(values[channel], newCapacity);
+			}
+		}
+
+		/**
+		 * Appends a sample of another chunk.
+		 *
+		 * @param chunk the chunk
+		 * @param sample the sample
+		 */
+		void append (Chunk chunk, int sample) {
+			ensureCapacity(length + 1);
+			time[length] = chunk.time[sample];
+			for (int channel = 0; channel < values.length; channel++) {
+				values[channel][length] = chunk.values[channel][sample];
+			}
+			length++;
+		}
+
+		/**
+		 * Gets the time stamps in h.
+		 *
+		 * @return the time stamps, only the first getLength() are valid
+		 */
+		public double[] getTime () {
+			return time;
+		}
+
+		/**
+		 * Gets the values of a channel.
+		 *
+		 * @param channel the channel
+		 * @return the values, only the first getLength() are valid
+		 */
+		public double[] getValues (int channel) {
+			return values[channel];
+		}
+
+		/**
+		 * Gets the number of channels.
+		 *
+		 * @return the number of channels
+		 */
+		public int getNumberOfChannels () {
+			return values.length;
+		}
+
+		/**
+		 * Gets the number of samples.
+		 *
+		 * @return the number of samples
+		 */
+		public int getLength () {
+			return length;
+		}
+	}
+
+	/**
+	 * The Interface Stage.
+	 *
+	 * A stage of the pipeline. The returned chunks are owned by the stage and only valid until its next call.
+	 */
+	public interface Stage {
+
+		/**
+		 * Processes a chunk.
+		 *
+		 * @param chunk the chunk
+		 * @return the processed chunk, may contain fewer or more samples
+		 */
+		Chunk process (Chunk chunk);
+
+		/**
+		 * Emits the samples held back by the stage at the end of the time series.
+		 *
+		 * @return the remaining samples
+		 */
+		Chunk finish ();
+	}
+
+	/**
+	 * The Interface Sink.
+	 */
+	public interface Sink extends Closeable {
+
+		/**
+		 * Accepts a processed chunk.
+		 *
+		 * @param chunk the chunk
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		void accept (Chunk chunk) throws IOException;
+	}
+
+	/**
+	 * The Class GapFilling.
+	 *
+	 * Replaces missing values (NaN) by the last valid value of the channel and inserts samples at the nominal interval
+	 * into gaps of the time stamps up to a maximum gap length: linearly interpolated for continuous channels, the last
+	 * state for state channels. Longer gaps are kept.
+	 */
+	public static class GapFilling implements Stage {
+
+		/** The nominal interval in h. */
+		private final double nominalInterval;
+
+		/** The maximum gap to fill in h. */
+		private final double maxGap;
+
+		/** Whether a channel holds states. */
+		private final boolean[] stateChannels;
+
+		/** The output. */
+		private final Chunk output;
+
+		/** The last valid values. */
+		private final double[] lastValues;
+
+		/** The last time stamp, NaN before the first sample. */
+		private double lastTime = Double.NaN;
+
+		/**
+		 * Instantiates a new gap filling.
+		 *
+		 * @param nominalIntervalInH the nominal interval of the time stamps in h
+		 * @param maxGapInH the maximum gap to fill in h
+		 * @param stateChannels whether a channel holds states
+		 */
+		public GapFilling(double nominalIntervalInH, double maxGapInH, boolean[] stateChannels) {
+			this.nominalInterval = nominalIntervalInH;
+			this.maxGap = maxGapInH;
+			this.stateChannels = stateChannels;
+			this.output = new Chunk(stateChannels.length, 0);
+			this.lastValues = new double[stateChannels.length];
+			Arrays.fill(lastValues, Double.NaN);
+		}
+
+		@Override
+		public Chunk process (Chunk chunk) {
+			output.length = 0;
+			output.ensureCapacity(chunk.length);
+			for (int sample = 0; sample < chunk.length; sample++) {
+				double time = chunk.time[sample];
+				double gap = time - lastTime;
+				if (gap > 1.5*nominalInterval && gap <= maxGap) {
+					int missing = (int) Math.round(gap/nominalInterval) - 1;
+					output.ensureCapacity(output.length + missing + chunk.length - sample);
+					for (int step = 1; step <= missing; step++) {
+						double weight = (double) step/(missing + 1);
+						output.time[output.length] = lastTime + weight*gap;
+						for (int channel = 0; channel < stateChannels.length; channel++) {
+							double value = chunk.values[channel][sample];
+							output.values[channel][output.length] = stateChannels[channel] || Double.isNaN(value) ? lastValues[channel]
+									: lastValues[channel] + weight*(value - lastValues[channel]);
+						}
+						output.length++;
+					}
+				}
+				output.time[output.length] = time;
+				for (int channel = 0; channel < stateChannels.length; channel++) {
+					double value = chunk.values[channel][sample];
+					if (Double.isNaN(value)) {
+						value = lastValues[channel];
+					} else {
+						lastValues[channel] = value;
+					}
+					output.values[channel][output.length] = value;
+				}
+				output.length++;
+				lastTime = time;
+			}
+			return output;
+		}
+
+		@Override
+		public Chunk finish () {
+			output.length = 0;
+			return output;
+		}
+	}
+
+	/**
+	 * The Class OutlierRemoval.
+	 *
+	 * Removes outliers of continuous channels: values outside the bounds of the channel are replaced by the last
+	 * accepted value, and single-sample spikes, deviating by more than the maximum jump from both neighbors in the same
+	 * direction, by the mean of the neighbors. Steps, e.g. switching a resource on, are kept. The stage holds back one
+	 * sample.
+	 */
+	public static class OutlierRemoval implements Stage {
+
+		/** The lower bounds. */
+		private final double[] lowerBounds;
+
+		/** The upper bounds. */
+		private final double[] upperBounds;
+
+		/** The maximum jumps, NaN for channels without spike removal, e.g. states. */
+		private final double[] maxJumps;
+
+		/** The output. */
+		private final Chunk output;
+
+		/** The held back sample. */
+		private final Chunk pending;
+
+		/** The values of the sample before the held back sample. */
+		private final double[] previousValues;
+
+		/** The number of samples seen, up to 2. */
+		private int samplesSeen = 0;
+
+		/** The number of replaced values. */
+		private long replacedValues = 0;
+
+		/**
+		 * Instantiates a new outlier removal.
+		 *
+		 * @param lowerBounds the lower bounds of the channels, -Infinity for none
+		 * @param upperBounds the upper bounds of the channels, Infinity for none
+		 * @param maxJumps the maximum jumps of single-sample spikes, NaN for channels without spike removal
+		 */
+		public OutlierRemoval(double[] lowerBounds, double[] upperBounds, double[] maxJumps) {
+			this.lowerBounds = lowerBounds;
+			this.upperBounds = upperBounds;
+			this.maxJumps = maxJumps;
+			this.output = new Chunk(maxJumps.length, 0);
+			this.pending = new Chunk(maxJumps.length, 1);
+			this.previousValues = new double[maxJumps.length];
+		}
+
+		@Override
+		public Chunk process (Chunk chunk) {
+			output.length = 0;
+			output.ensureCapacity(chunk.length);
+			for (int sample = 0; sample < chunk.length; sample++) {
+				// bounds, against the last accepted value
+				for (int channel = 0; channel < maxJumps.length; channel++) {
+					double value = chunk.values[channel][sample];
+					if (value < lowerBounds[channel] || value > upperBounds[channel]) {
+						chunk.values[channel][sample] = samplesSeen > 0 ? pending.values[channel][0] : Math.max(lowerBounds[channel], Math.min(upperBounds[channel], value));
+						replacedValues++;
+					}
+				}
+				// spikes of the held back sample, against both neighbors
+				if (samplesSeen == 2) {
+					for (int channel = 0; channel < maxJumps.length; channel++) {
+						if (Double.isNaN(maxJumps[channel])) continue;
+						double value = pending.values[channel][0];
+						double next = chunk.values[channel][sample];
+						double fromPrevious = value - previousValues[channel];
+						double fromNext = value - next;
+						if (Math.abs(fromPrevious) > maxJumps[channel] && Math.abs(fromNext) > maxJumps[channel] && Math.signum(fromPrevious) == Math.signum(fromNext)) {
+							pending.values[channel][0] = (previousValues[channel] + next)/2;
+							replacedValues++;
+						}
+					}
+				}
+				if (samplesSeen > 0) {
+					output.append(pending, 0);
+					for (int channel = 0; channel < maxJumps.length; channel++) {
+						previousValues[channel] = pending.values[channel][0];
+					}
+				}
+				pending.length = 0;
+				pending.append(chunk, sample);
+				samplesSeen = Math.min(samplesSeen + 1, 2);
+			}
+			return output;
+		}
+
+		@Override
+		public Chunk finish () {
+			output.length = 0;
+			if (pending.length > 0) {
+				output.append(pending, 0);
+				pending.length = 0;
+			}
+			return output;
+		}
+
+		/**
+		 * Gets the number of replaced values.
+		 *
+		 * @return the number of replaced values
+		 */
+		public long getReplacedValues () {
+			return replacedValues;
+		}
+	}
+
+	/**
+	 * The Class Resampling.
+	 *
+	 * Resamples to the temporal resolution of the optimization model. Bins are aligned to multiples of the resolution
+	 * since the Excel epoch, i.e. to full hours and days for resolutions dividing them; each bin is stamped with its
+	 * start. Continuous channels are averaged, state channels take the most frequent state. Bins without samples
+	 * between two samples are emitted with NaN, so the output is equidistant. The stage holds back the current bin.
+	 */
+	public static class Resampling implements Stage {
+
+		/** The resolution in h. */
+		private final double resolution;
+
+		/** Whether a channel holds states. */
+		private final boolean[] stateChannels;
+
+		/** The output. */
+		private final Chunk output;
+
+		/** The sums of the continuous channels in the current bin. */
+		private final double[] sums;
+
+		/** The number of valid values of the continuous channels in the current bin. */
+		private final int[] counts;
+
+		/** The number of samples per state of the state channels in the current bin. */
+		private final int[][] stateCounts;
+
+		/** The current bin, Long.MIN_VALUE before the first sample. */
+		private long bin = Long.MIN_VALUE;
+
+		/**
+		 * Instantiates a new resampling.
+		 *
+		 * @param resolutionInH the resolution in h
+		 * @param stateChannels whether a channel holds states
+		 */
+		public Resampling(double resolutionInH, boolean[] stateChannels) {
+			this.resolution = resolutionInH;
+			this.stateChannels = stateChannels;
+			this.output = new Chunk(stateChannels.length, 0);
+			this.sums = new double[stateChannels.length];
+			this.counts = new int[stateChannels.length];
+			this.stateCounts = new int[stateChannels.length][4];
+		}
+
+		@Override
+		public Chunk process (Chunk chunk) {
+			output.length = 0;
+			for (int sample = 0; sample < chunk.length; sample++) {
+				// small offset against time stamps rounded in the input files
+				long sampleBin = (long) Math.floor(chunk.time[sample]/resolution + 1e-6);
+				if (sampleBin != bin) {
+					if (bin != Long.MIN_VALUE) {
+						emit();
+						for (long emptyBin = bin + 1; emptyBin < sampleBin; emptyBin++) {
+							emitEmpty(emptyBin);
+						}
+					}
+					bin = sampleBin;
+				}
+				for (int channel = 0; channel < stateChannels.length; channel++) {
+					double value = chunk.values[channel][sample];
+					if (Double.isNaN(value)) continue;
+					if (stateChannels[channel]) {
+						int state = (int) Math.round(value);
+						if (state < 0) continue;
+						if (state >= stateCounts[channel].length) {
+							stateCounts[channel] = Arrays.copyOf(stateCounts[channel], state + 1);
+						}
+						stateCounts[channel][state]++;
+					} else {
+						sums[channel] += value;
+						counts[channel]++;
+					}
+				}
+			}
+			return output;
+		}
+
+		/**
+		 * Emits the current bin and resets the sums.
+		 */
+		private void emit () {
+			output.ensureCapacity(output.length + 1);
+			output.time[output.length] = bin*resolution;
+			for (int channel = 0; channel < stateChannels.length; channel++) {
+				double value = Double.NaN;
+				if (stateChannels[channel]) {
+					int mostFrequent = 0;
+					for (int state = 0; state < stateCounts[channel].length; state++) {
+						if (stateCounts[channel][state] > mostFrequent) {
+							mostFrequent = stateCounts[channel][state];
+							value = state;
+						}
+					}
+					Arrays.fill(stateCounts[channel], 0);
+				} else {
+					if (counts[channel] > 0) value = sums[channel]/counts[channel];
+					sums[channel] = 0;
+					counts[channel] = 0;
+				}
+				output.values[channel][output.length] = value;
+			}
+			output.length++;
+		}
+
+		/**
+		 * Emits a bin without samples.
+		 *
+		 * @param emptyBin the bin
+		 */
+		private void emitEmpty (long emptyBin) {
+			output.ensureCapacity(output.length + 1);
+			output.time[output.length] = emptyBin*resolution;
+			for (int channel = 0; channel < stateChannels.length; channel++) {
+				output.values[channel][output.length] = Double.NaN;
+			}
+			output.length++;
+		}
+
+		@Override
+		public Chunk finish () {
+			output.length = 0;
+			if (bin != Long.MIN_VALUE) {
+				emit();
+				bin = Long.MIN_VALUE;
+			}
+			return output;
+		}
+	}
+
+	/**
+	 * The Class StateSmoothing.
+	 *
+	 * Removes stays in a state shorter than a minimum duration by assigning them the preceding state, e.g. single
+	 * samples of a start-up state caused by measurement noise. A stay is held back until it reaches the minimum
+	 * duration, so the stage holds at most minDuration - 1 samples.
+	 */
+	public static class StateSmoothing implements Stage {
+
+		/** The state channel. */
+		private final int stateChannel;
+
+		/** The minimum duration in samples. */
+		private final int minDuration;
+
+		/** The output. */
+		private final Chunk output;
+
+		/** The samples of the current stay, while it is shorter than the minimum duration. */
+		private final Chunk pending;
+
+		/** The state of the current stay. */
+		private double pendingState = Double.NaN;
+
+		/** Whether the current stay reached the minimum duration. */
+		private boolean confirmed = false;
+
+		/** The last state reaching the minimum duration, NaN before. */
+		private double confirmedState = Double.NaN;
+
+		/**
+		 * Instantiates a new state smoothing.
+		 *
+		 * @param stateChannel the state channel
+		 * @param minDurationInSamples the minimum duration of a stay in samples
+		 * @param numberOfChannels the number of channels
+		 */
+		public StateSmoothing(int stateChannel, int minDurationInSamples, int numberOfChannels) {
+			this.stateChannel = stateChannel;
+			this.minDuration = Math.max(1, minDurationInSamples);
+			this.output = new Chunk(numberOfChannels, 0);
+			this.pending = new Chunk(numberOfChannels, minDuration);
+		}
+
+		@Override
+		public Chunk process (Chunk chunk) {
+			output.length = 0;
+			output.ensureCapacity(chunk.length + pending.length);
+			for (int sample = 0; sample < chunk.length; sample++) {
+				double state = chunk.values[stateChannel][sample];
+				// NaN states of empty bins end a stay
+				if (Double.compare(state, pendingState) != 0) {
+					flushPending(true);
+					pendingState = state;
+					confirmed = false;
+				}
+				if (confirmed) {
+					output.append(chunk, sample);
+					continue;
+				}
+				pending.append(chunk, sample);
+				if (pending.length >= minDuration || Double.isNaN(state)) {
+					confirmed = true;
+					if (!Double.isNaN(state)) confirmedState = state;
+					flushPending(false);
+				}
+			}
+			return output;
+		}
+
+		/**
+		 * Emits the held back samples.
+		 *
+		 * @param relabel whether the samples are assigned the last confirmed state
+		 */
+		private void flushPending (boolean relabel) {
+			for (int sample = 0; sample < pending.length; sample++) {
+				if (relabel && !Double.isNaN(confirmedState)) {
+					pending.values[stateChannel][sample] = confirmedState;
+				}
+				output.append(pending, sample);
+			}
+			pending.length = 0;
+		}
+
+		@Override
+		public Chunk finish () {
+			output.length = 0;
+			// the stay may continue beyond the time series, so it is kept
+			flushPending(false);
+			pendingState = Double.NaN;
+			confirmed = false;
+			return output;
+		}
+	}
+
+	/**
+	 * The Class CollectingSink.
+	 *
+	 * Collects the processed samples in primitive arrays, e.g. resampled time series to be used in the optimization model.
+	 */
+	public static class CollectingSink implements Sink {
+
+		/** The collected samples. */
+		private Chunk collected;
+
+		@Override
+		public void accept (Chunk chunk) {
+			if (collected == null) {
+				collected = new Chunk(chunk.values.length, chunk.length);
+			}
+			collected.ensureCapacity(collected.length + chunk.length);
+			System.arraycopy(chunk.time, 0, collected.time, collected.length, chunk.length);
+			for (int channel = 0; channel < chunk.values.length; channel++) {
+				System.arraycopy(chunk.values[channel], 0, collected.values[channel], collected.length, chunk.length);
+			}
+			collected.length += chunk.length;
+		}
+
+		/**
+		 * Gets the time stamps in h.
+		 *
+		 * @return the time stamps
+		 */
+		public double[] getTime () {
+			return collected == null ? new double[0] : Arrays.copyOf(collected.time, collected.length);
+		}
+
+		/**
+		 * Gets the values of a channel.
+		 *
+		 * @param channel the channel
+		 * @return the values
+		 */
+		public double[] getValues (int channel) {
+			return collected == null ? new double[0] : Arrays.copyOf(collected.values[channel], collected.length);
+		}
+
+		@Override
+		public void close () {
+		}
+	}
+
+	/**
+	 * The Class CsvSink.
+	 *
+	 * Writes the processed samples in the format of the input files: a time stamp file in Excel serial days and a
+	 * single-column file per channel. Missing values are written as NaN.
+	 */
+	public static class CsvSink implements Sink {
+
+		/** The writer of the time stamps. */
+		private final BufferedWriter timeStampWriter;
+
+		/** The writers of the channels. */
+		private final BufferedWriter[] channelWriters;
+
+		/**
+		 * Instantiates a new csv sink.
+		 *
+		 * @param timeStampsFile the time stamps file
+		 * @param channelFiles the channel files
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		public CsvSink(String timeStampsFile, String[] channelFiles) throws IOException {
+			this.timeStampWriter = new BufferedWriter(new FileWriter(timeStampsFile));
+			this.channelWriters = new BufferedWriter[channelFiles.length];
+			for (int channel = 0; channel < channelFiles.length; channel++) {
+				channelWriters[channel] = new BufferedWriter(new FileWriter(channelFiles[channel]));
+			}
+		}
+
+		@Override
+		public void accept (Chunk chunk) throws IOException {
+			for (int sample = 0; sample < chunk.length; sample++) {
+				timeStampWriter.write(Double.toString(chunk.time[sample]/HOURS_PER_DAY));
+				timeStampWriter.newLine();
+			}
+			for (int channel = 0; channel < channelWriters.length; channel++) {
+				for (int sample = 0; sample < chunk.length; sample++) {
+					channelWriters[channel].write(Double.toString(chunk.values[channel][sample]));
+					channelWriters[channel].newLine();
+				}
+			}
+		}
+
+		@Override
+		public void close () throws IOException {
+			timeStampWriter.close();
+			for (BufferedWriter channelWriter : channelWriters) {
+				channelWriter.close();
+			}
+		}
+	}
+
+	/**
+	 * Adds a stage.
+	 *
+	 * @param stage the stage
+	 * @return the pre processing pipeline
+	 */
+	public PreProcessingPipeline addStage (Stage stage) {
+		stages.add(stage);
+		return this;
+	}
+
+	/**
+	 * Sets the chunk size.
+	 *
+	 * @param chunkSize the number of samples read at once
+	 * @return the pre processing pipeline
+	 */
+	public PreProcessingPipeline setChunkSize (int chunkSize) {
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * Creates the pipeline of the standard stages: gap filling, outlier removal, resampling to the model resolution and
+	 * smoothing of the states.
+	 *
+	 * @param nominalIntervalInH the nominal interval of the time stamps in h
+	 * @param resolutionInH the temporal resolution of the optimization model in h
+	 * @param stateChannels whether a channel holds states
+	 * @param lowerBounds the lower bounds of the channels
+	 * @param upperBounds the upper bounds of the channels
+	 * @param maxJumps the maximum jumps of single-sample spikes, NaN for channels without spike removal
+	 * @param minStateDurationInH the minimum duration of a stay in a state in h
+	 * @return the pre processing pipeline
+	 */
+	public static PreProcessingPipeline standard (double nominalIntervalInH, double resolutionInH, boolean[] stateChannels,
+			double[] lowerBounds, double[] upperBounds, double[] maxJumps, double minStateDurationInH) {
+		PreProcessingPipeline pipeline = new PreProcessingPipeline()
+				.addStage(new GapFilling(nominalIntervalInH, resolutionInH, stateChannels))
+				.addStage(new OutlierRemoval(lowerBounds, upperBounds, maxJumps))
+				.addStage(new Resampling(resolutionInH, stateChannels));
+		int minStateDuration = (int) Math.ceil(minStateDurationInH/resolutionInH - 1e-9);
+		for (int channel = 0; channel < stateChannels.length; channel++) {
+			if (stateChannels[channel] && minStateDuration > 1) {
+				pipeline.addStage(new StateSmoothing(channel, minStateDuration, stateChannels.length));
+			}
+		}
+		return pipeline;
+	}
+
+	/**
+	 * Runs the pipeline on a time series.
+	 *
+	 * @param timeStampsFile the time stamps file, in Excel serial days
+	 * @param channelFiles the channel files, one value per time stamp; malformed values are read as NaN and filled by the stages
+	 * @param sink the sink, closed at the end
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void run (String timeStampsFile, String[] channelFiles, Sink sink) throws IOException {
+		TimeSeriesLoader.ChunkReader timeStampReader = TimeSeriesLoader.open(timeStampsFile);
+		TimeSeriesLoader.ChunkReader[] channelReaders = new TimeSeriesLoader.ChunkReader[channelFiles.length];
+		try {
+			for (int channel = 0; channel < channelFiles.length; channel++) {
+				channelReaders[channel] = TimeSeriesLoader.open(channelFiles[channel]);
+			}
+			Chunk chunk = new Chunk(channelFiles.length, chunkSize);
+			double[] buffer = new double[chunkSize];
+			long skippedSamples = 0;
+			while (true) {
+				int length = timeStampReader.read(chunk.time);
+				for (int channel = 0; channel < channelFiles.length; channel++) {
+					int channelLength = channelReaders[channel].read(buffer);
+					if (channelLength != length) {
+						if (channelLength < length) {
+							System.err.println(channelFiles[channel] + " has fewer values than time stamps, the remaining time stamps are skipped");
+						}
+						length = Math.min(length, channelLength);
+					}
+					System.arraycopy(buffer, 0, chunk.values[channel], 0, Math.max(0, channelLength));
+				}
+				if (length <= 0) break;
+				skippedSamples += processInput(chunk, length, sink);
+				if (length < chunkSize) break;
+			}
+			if (skippedSamples > 0) {
+				System.err.println(skippedSamples + " samples without a valid time stamp in " + timeStampsFile + " are skipped");
+			}
+			finish(sink);
+		} finally {
+			timeStampReader.close();
+			for (TimeSeriesLoader.ChunkReader channelReader : channelReaders) {
+				if (channelReader != null) channelReader.close();
+			}
+			sink.close();
+		}
+	}
+
+	/**
+	 * Runs the pipeline on a time series held in memory, e.g. read through the TimeSeriesRepository.
+	 *
+	 * @param timeStamps the time stamps, in Excel serial days
+	 * @param channels the values of the channels, one value per time stamp, NaN for missing values
+	 * @param sink the sink, closed at the end
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void run (double[] timeStamps, double[][] channels, Sink sink) throws IOException {
+		try {
+			int length = timeStamps.length;
+			for (double[] channel : channels) {
+				if (channel.length < length) {
+					System.err.println("A channel has fewer values than time stamps, the remaining time stamps are skipped");
+					length = channel.length;
+				}
+			}
+			Chunk chunk = new Chunk(channels.length, chunkSize);
+			long skippedSamples = 0;
+			for (int first = 0; first < length; first += chunkSize) {
+				int chunkLength = Math.min(chunkSize, length - first);
+				System.arraycopy(timeStamps, first, chunk.time, 0, chunkLength);
+				for (int channel = 0; channel < channels.length; channel++) {
+					System.arraycopy(channels[channel], first, chunk.values[channel], 0, chunkLength);
+				}
+				skippedSamples += processInput(chunk, chunkLength, sink);
+			}
+			if (skippedSamples > 0) {
+				System.err.println(skippedSamples + " samples without a valid time stamp are skipped");
+			}
+			finish(sink);
+		} finally {
+			sink.close();
+		}
+	}
+
+	/**
+	 * Converts the time stamps of a chunk read from the input to h and passes the chunk through the stages. Samples
+	 * without a time stamp cannot be placed and are removed; all channels are removed with them, so they stay aligned.
+	 *
+	 * @param chunk the chunk, time stamps in Excel serial days
+	 * @param length the number of samples read
+	 * @param sink the sink
+	 * @return the number of removed samples
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private int processInput (Chunk chunk, int length, Sink sink) throws IOException {
+		int valid = 0;
+		for (int sample = 0; sample < length; sample++) {
+			if (Double.isNaN(chunk.time[sample])) continue;
+			chunk.time[valid] = chunk.time[sample]*HOURS_PER_DAY;
+			for (int channel = 0; channel < chunk.values.length; channel++) {
+				chunk.values[channel][valid] = chunk.values[channel][sample];
+			}
+			valid++;
+		}
+		chunk.length = valid;
+		process(chunk, 0, sink);
+		return length - valid;
+	}
+
+	/**
+	 * Passes the samples held back by the stages to the following stages and the sink.
+	 *
+	 * @param sink the sink
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void finish (Sink sink) throws IOException {
+		for (int stage = 0; stage < stages.size(); stage++) {
+			process(stages.get(stage).finish(), stage + 1, sink);
+		}
+	}
+
+	/**
+	 * Passes a chunk through the stages from the first stage on and to the sink.
+	 *
+	 * @param chunk the chunk
+	 * @param firstStage the first stage
+	 * @param sink the sink
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private void process (Chunk chunk, int firstStage, Sink sink) throws IOException {
+		for (int stage = firstStage; stage < stages.size() && chunk.length > 0; stage++) {
+			chunk = stages.get(stage).process(chunk);
+		}
+		if (chunk.length > 0) sink.accept(chunk);
+	}
+}
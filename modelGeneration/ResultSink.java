@@ -0,0 +1,21 @@
+package modelGeneration;
+
+import java.io.IOException;
+
+/**
+ * The Interface ResultSink, an output format for optimization results.
+ */
+public interface ResultSink {
+
+	/**
+	 * Writes the first numberOfTimeSteps time steps of all columns of the result store.
+	 * Time steps beyond the length of a column are written as 0.
+	 *
+	 * @param optimizationResults the optimization results
+	 * @param numberOfTimeSteps the number of time steps to write
+	 * @param filePath the file path without file extension
+	 * @return the path of the written file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	String write (ResultStore optimizationResults, int numberOfTimeSteps, String filePath) throws IOException;
+}
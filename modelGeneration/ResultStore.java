@@ -0,0 +1,245 @@
+package modelGeneration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+
+/**
+ * The Class ResultStore.
+ *
+ * Columnar store of optimization results: one double[] per decision variable series, in the order of extraction.
+ * Results are extracted with one getValues() call per decision variable family instead of one getValue() call per time step.
+ */
+public class ResultStore {
+
+	/**
+	 * The Interface ValueSource, a solution to extract results from.
+	 */
+	public interface ValueSource {
+
+		/**
+		 * Gets the values of an array of decision variables.
+		 *
+		 * @param decisionVariableName the decision variable name, for messages
+		 * @param decisionVariable the decision variable
+		 * @return the values
+		 */
+		double[] getValues (String decisionVariableName, IloNumVar[] decisionVariable);
+	}
+
+	/** The value of time steps for which no value could be extracted. */
+	public static final double VALUE_NOT_FOUND = -1;
+
+	/** The variable names. */
+	private String[] variableNames = new String[16];
+
+	/** The columns, columns[i] belongs to variableNames[i]. */
+	private double[][] columns = new double[16][];
+
+	/** The number of columns. */
+	private int numberOfColumns = 0;
+
+	/**
+	 * Extracts the results of all decision variables of the model context.
+	 *
+	 * @param context the model context
+	 * @return the result store
+	 */
+	public static ResultStore extract (ModelContext context) {
+		return extract(context.getCplex(), context.getDecisionVariablesVector(), context.getDecisionVariablesMatrix(), Collections.<String>emptySet());
+	}
+
+	/**
+	 * Extracts the results of all decision variables. Vector variables are stored as one column each.
+	 * Matrix variables are stored as one column per width, named decisionVariableName-width;
+	 * variables containing "State" are defined as [timeStep][state], all others as [width][timeStep].
+	 *
+	 * @param cplex the cplex instance holding the solution
+	 * @param decisionVariablesVector the decision variables vector
+	 * @param decisionVariablesMatrix the decision variables matrix
+	 * @param excludedVariables the vector variables that are not part of the model, stored as empty columns
+	 * @return the result store
+	 */
+	public static ResultStore extract (final IloCplex cplex, Map<String, IloNumVar[]> decisionVariablesVector,
+			Map<String, IloNumVar[][]> decisionVariablesMatrix, Set<String> excludedVariables) {
+		return extract(new ValueSource() {
+			@Override
+			public double[] getValues(String decisionVariableName, IloNumVar[] decisionVariable) {
+				return ResultStore.getValues(cplex, decisionVariableName, decisionVariable);
+			}
+		}, decisionVariablesVector, decisionVariablesMatrix, excludedVariables);
+	}
+
+	/**
+	 * Extracts the results of all decision variables from a value source, in the same layout as from cplex.
+	 *
+	 * @param valueSource the value source holding the solution
+	 * @param decisionVariablesVector the decision variables vector
+	 * @param decisionVariablesMatrix the decision variables matrix
+	 * @param excludedVariables the vector variables that are not part of the model, stored as empty columns
+	 * @return the result store
+	 */
+	public static ResultStore extract (ValueSource valueSource, Map<String, IloNumVar[]> decisionVariablesVector,
+			Map<String, IloNumVar[][]> decisionVariablesMatrix, Set<String> excludedVariables) {
+		ResultStore resultStore = new ResultStore();
+
+		// get all decVars from Vector
+		for (Entry<String, IloNumVar[]> decisionVariableSet: decisionVariablesVector.entrySet()) {
+			String decisionVariableName = decisionVariableSet.getKey();
+			if (excludedVariables.contains(decisionVariableName)) {
+				resultStore.addColumn(decisionVariableName, new double[0]);
+			} else {
+				resultStore.addColumn(decisionVariableName, valueSource.getValues(decisionVariableName, decisionVariableSet.getValue()));
+			}
+		}
+
+		// get all decVars from Matrix
+		for (Entry<String, IloNumVar[][]> decisionVariableSet: decisionVariablesMatrix.entrySet()) {
+			String decisionVariableName = decisionVariableSet.getKey();
+			IloNumVar[][] decisionVariable = decisionVariableSet.getValue();
+			if (decisionVariable.length == 0) continue;
+
+			if (decisionVariableName.contains("State")) {
+				// state variables defined: statesIntArrayResource[timeStep][state], flattened to one array
+				int numberOfTimeSteps = decisionVariable.length;
+				int width = decisionVariable[0].length;
+				IloNumVar[] flattened = new IloNumVar[numberOfTimeSteps*width];
+				for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+					System.arraycopy(decisionVariable[timeStep], 0, flattened, timeStep*width, width);
+				}
+				double[] values = valueSource.getValues(decisionVariableName, flattened);
+				for (int state = 0; state < width; state++) {
+					double[] column = new double[numberOfTimeSteps];
+					for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+						column[timeStep] = values[timeStep*width+state];
+					}
+					resultStore.addColumn(decisionVariableName + "-" + Integer.toString(state), column);
+				}
+			} else {
+				// other variables defined as [width][timestep]
+				for (int width = 0; width < decisionVariable.length; width++) {
+					resultStore.addColumn(decisionVariableName + "-" + Integer.toString(width),
+							valueSource.getValues(decisionVariableName + "[" + width +"]", decisionVariable[width]));
+				}
+			}
+		}
+		return resultStore;
+	}
+
+	/**
+	 * Gets the values of an array of decision variables with one solver call.
+	 * If that fails, the values are queried one by one and missing values are set to VALUE_NOT_FOUND.
+	 *
+	 * @param cplex the cplex
+	 * @param decisionVariableName the decision variable name
+	 * @param decisionVariable the decision variable
+	 * @return the values
+	 */
+	private static double[] getValues (IloCplex cplex, String decisionVariableName, IloNumVar[] decisionVariable) {
+		try {
+			return cplex.getValues(decisionVariable);
+		} catch (IloException e) {
+			double[] values = new double[decisionVariable.length];
+			int notFound = 0;
+			for (int timeStep = 0; timeStep < decisionVariable.length; timeStep++) {
+				try {
+					values[timeStep] = cplex.getValue(decisionVariable[timeStep]);
+				} catch (IloException exc) {
+					values[timeStep] = VALUE_NOT_FOUND;
+					notFound++;
+				}
+			}
+			System.err.println("Value not found for " + decisionVariableName + " at " + notFound + " of " + decisionVariable.length + " time steps");
+			return values;
+		}
+	}
+
+	/**
+	 * Adds a column.
+	 *
+	 * @param variableName the variable name
+	 * @param values the values
+	 */
+	public void addColumn (String variableName, double[] values) {
+		if (numberOfColumns == columns.length) {
+			variableNames = Arrays.copyOf(variableNames, 2*numberOfColumns);
+			columns = Arrays.copyOf(columns, 2*numberOfColumns);
+		}
+		variableNames[numberOfColumns] = variableName;
+		columns[numberOfColumns] = values;
+		numberOfColumns++;
+	}
+
+	/**
+	 * Gets the index of a column.
+	 *
+	 * @param variableName the variable name
+	 * @return the column index, -1 if not found
+	 */
+	public int indexOf (String variableName) {
+		for (int i = 0; i < numberOfColumns; i++) {
+			if (variableNames[i].equals(variableName)) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the number of columns.
+	 *
+	 * @return the number of columns
+	 */
+	public int getNumberOfColumns() {
+		return numberOfColumns;
+	}
+
+	/**
+	 * Gets the variable name of a column.
+	 *
+	 * @param column the column index
+	 * @return the variable name
+	 */
+	public String getVariableName(int column) {
+		return variableNames[column];
+	}
+
+	/**
+	 * Gets the values of a column. The array is not copied.
+	 *
+	 * @param column the column index
+	 * @return the values
+	 */
+	public double[] getColumn(int column) {
+		return columns[column];
+	}
+
+	/**
+	 * Gets a value, 0 if the column has no value for the time step.
+	 *
+	 * @param column the column index
+	 * @param timeStep the time step
+	 * @return the value
+	 */
+	public double getValue(int column, int timeStep) {
+		double[] values = columns[column];
+		return timeStep < values.length ? values[timeStep] : 0;
+	}
+
+	/**
+	 * Gets the length of the longest column.
+	 *
+	 * @return the number of time steps
+	 */
+	public int getNumberOfTimeSteps() {
+		int numberOfTimeSteps = 0;
+		for (int i = 0; i < numberOfColumns; i++) {
+			numberOfTimeSteps = Math.max(numberOfTimeSteps, columns[i].length);
+		}
+		return numberOfTimeSteps;
+	}
+}
@@ -0,0 +1,373 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import designpatterns.ResourceParameters;
+import designpatterns.SystemState;
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+import ilog.cplex.IloCplex;
+
+/**
+ * Receding-horizon (MPC) execution of OptimizationModelRefrigeration.
+ *
+ * The model is built once over a window of ModelContext.getArrayLength() time steps and kept alive between iterations.
+ * In each iteration the window is advanced by shiftInTimeSteps: the objective coefficients are shifted along the price series
+ * and time step 0 of the window is fixed to the solution of time step shiftInTimeSteps of the previous iteration.
+ * Thereby storage SOC, machine states and powers are carried over as initial conditions, while ramp limits and
+ * state sequences between time step 0 and 1 remain active. Of each window, the first shiftInTimeSteps time steps are executed.
+ * The solution of each window, shifted by shiftInTimeSteps, is the MIP start of the next window.
+ *
+ * Minimum holding durations of states that started in the executed time steps are carried over: the state is kept in
+ * the first time steps of the next window until its minimum holding duration is reached. Maximum holding durations
+ * are counted from the start of each window and may therefore be exceeded across windows.
+ */
+public class RollingHorizonRefrigeration {
+
+	/** The Constant SYSTEM_NAME. */
+	static final String SYSTEM_NAME = "refrigeration";
+
+	/** The number of time steps the window is advanced per iteration. */
+	static int shiftInTimeSteps = 4;
+
+	/** The number of iterations. */
+	static int numberOfIterations = 24;
+
+	/** Whether the price series is repeated when the windows exceed it, e.g. for a daily price profile. */
+	static boolean repeatPrice = false;
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the arguments
+	 */
+	public static void main(String[] args) {
+		ModelContext context = OptimizationModelRefrigeration.setOptimizationParameters();
+		try {
+			runRollingHorizon(context, numberOfIterations, shiftInTimeSteps);
+		} catch (IloException e) {
+			e.printStackTrace();
+			System.err.println("Problem with optimization model");
+		}
+	}
+
+	/**
+	 * Builds the model once and solves it for numberOfIterations windows, each advanced by shift time steps.
+	 * The executed time steps of all windows are written to one results file.
+	 *
+	 * @param context the model context
+	 * @param numberOfIterations the number of iterations
+	 * @param shift the number of time steps the window is advanced per iteration
+	 * @return the executed results, one column of shift*numberOfIterations values per decision variable
+	 * @throws IloException the ilo exception
+	 */
+	public static ResultStore runRollingHorizon (ModelContext context, int numberOfIterations, int shift) throws IloException {
+		if (shift < 1 || shift >= context.getArrayLength()) {
+			throw new IllegalArgumentException("Shift must be between 1 and arrayLength-1, but is " + shift);
+		}
+		TimeGrid timeGrid = context.getTimeGrid();
+		if (timeGrid != null && timeGrid.getStartTime(shift) > shift*context.getTimeInterval() + 1e-9) {
+			throw new IllegalArgumentException("The first " + shift + " time steps of the time grid must have the finest duration");
+		}
+		// fails before the model is built if the last window exceeds the price series
+		getObjectiveCoefficients(context, (numberOfIterations - 1)*shift);
+		String nameOfModel = "OptModel_"+SYSTEM_NAME+"_rollingHorizon";
+		Map<String, double[]> executedResults = new LinkedHashMap<String, double[]>();
+		int numberOfTimeSteps = 0;
+		ResultStore optimizationResults = new ResultStore();
+		try {
+			ModelTemplate template = ModelTemplate.compileRefrigeration(context);
+			context.getCplex().setParam(IloCplex.Param.MIP.Tolerances.MIPGap, context.getOptimalityGap());
+
+			BuildStatistics statistics = context.getBuildStatistics();
+			StateHolds stateHolds = new StateHolds();
+			for (int iteration = 0; iteration < numberOfIterations; iteration++) {
+				int offset = iteration*shift;
+				String subject = "iteration " + iteration;
+
+				if (iteration > 0) {
+					statistics.begin("setLinearCoefs", subject);
+					try {
+						template.setObjectiveCoefficients(getObjectiveCoefficients(context, offset));
+					} finally {
+						statistics.end();
+					}
+				}
+
+				boolean solved;
+				long solvingTime;
+				statistics.begin("solve", subject);
+				try {
+					solved = context.getCplex().solve();
+				} finally {
+					solvingTime = statistics.end() / 1000000;
+				}
+				if (!solved) {
+					System.out.println("Model not solved in iteration " + iteration);
+					break;
+				}
+				System.out.println("iteration " + iteration + ": obj = " + context.getCplex().getObjValue()
+				+ ", solvingTime in ms = " + solvingTime + ", " + context.getCplex().getCplexStatus());
+
+				// record executed time steps
+				ResultStore iterationResults;
+				statistics.begin("saveResults", subject);
+				try {
+					iterationResults = OptimizationModelRefrigeration.saveResults(context);
+				} finally {
+					statistics.end();
+				}
+				for (int column = 0; column < iterationResults.getNumberOfColumns(); column++) {
+					double[] values = executedResults.get(iterationResults.getVariableName(column));
+					if (values == null) {
+						values = new double[numberOfIterations*shift];
+						executedResults.put(iterationResults.getVariableName(column), values);
+					}
+					double[] iterationValues = iterationResults.getColumn(column);
+					System.arraycopy(iterationValues, 0, values, offset, Math.min(shift, iterationValues.length));
+				}
+				numberOfTimeSteps = offset + shift;
+
+				// the shifted solution is read before fixInitialConditions() discards it
+				MipStart mipStart;
+				statistics.begin("mipStart", subject);
+				try {
+					mipStart = MipStart.fromShiftedSolution(context, shift);
+				} finally {
+					statistics.end();
+				}
+
+				statistics.begin("fixInitialConditions", subject);
+				try {
+					stateHolds.update(context, shift);
+					fixInitialConditions(context, shift);
+					stateHolds.fix();
+				} finally {
+					statistics.end();
+				}
+
+				mipStart.addTo(context.getCplex(), "iteration" + (iteration + 1));
+			}
+		}
+		catch (IloException exc) {
+			exc.printStackTrace();
+		}
+		finally {
+			context.close();
+			// the windows executed so far and the build statistics are also written if a window fails
+			for (Entry<String, double[]> result : executedResults.entrySet()) {
+				optimizationResults.addColumn(result.getKey(), Arrays.copyOf(result.getValue(), numberOfTimeSteps));
+			}
+			String filePath = "src/output_"+SYSTEM_NAME+"/";
+			String resultFilePath = OptimizationModelRefrigeration.writeResultsToFile(context, optimizationResults, nameOfModel, filePath, numberOfTimeSteps);
+			OptimizationModelRefrigeration.writeBuildStatistics(context.getBuildStatistics(), resultFilePath);
+		}
+		return optimizationResults;
+	}
+
+	/**
+	 * Gets the objective coefficients of the window starting at offset. The price series is repeated if the window
+	 * exceeds it and repeatPrice is set.
+	 *
+	 * @param context the model context
+	 * @param offset the first time step of the window
+	 * @return the objective coefficients
+	 * @throws IllegalArgumentException if the window exceeds the price series and it is not repeated
+	 */
+	public static double[] getObjectiveCoefficients (ModelContext context, int offset) {
+		return OptimizationModelRefrigeration.getObjectiveCoefficients(context, offset, repeatPrice);
+	}
+
+	/**
+	 * Fixes time step 0 of all decision variables to the current solution at time step shift,
+	 * so that the next window starts from the state reached after the executed time steps.
+	 *
+	 * @param context the model context
+	 * @param shift the number of executed time steps
+	 * @throws IloException the ilo exception
+	 */
+	public static void fixInitialConditions (ModelContext context, int shift) throws IloException {
+		// read all values before the first bound change, which discards the solution
+		List<IloNumVar> variablesToFix = new ArrayList<IloNumVar>();
+		List<Double> values = new ArrayList<Double>();
+		for (Entry<String, IloNumVar[]> decisionVariableSet : context.getDecisionVariablesVector().entrySet()) {
+			IloNumVar[] decisionVariable = decisionVariableSet.getValue();
+			if (decisionVariable.length > shift) {
+				variablesToFix.add(decisionVariable[0]);
+				values.add(context.getCplex().getValue(decisionVariable[shift]));
+			}
+		}
+		for (Entry<String, IloNumVar[][]> decisionVariableSet : context.getDecisionVariablesMatrix().entrySet()) {
+			IloNumVar[][] decisionVariable = decisionVariableSet.getValue();
+			if (decisionVariableSet.getKey().contains("State")) {
+				// state variables defined: statesIntArrayResource[timeStep][state]
+				if (decisionVariable.length > shift) {
+					for (int width = 0; width < decisionVariable[0].length; width++) {
+						variablesToFix.add(decisionVariable[0][width]);
+						values.add(context.getCplex().getValue(decisionVariable[shift][width]));
+					}
+				}
+			} else {
+				// other variables defined as [width][timestep]
+				for (int width = 0; width < decisionVariable.length; width++) {
+					if (decisionVariable[width].length > shift) {
+						variablesToFix.add(decisionVariable[width][0]);
+						values.add(context.getCplex().getValue(decisionVariable[width][shift]));
+					}
+				}
+			}
+		}
+		for (int i = 0; i < variablesToFix.size(); i++) {
+			fixVariable(variablesToFix.get(i), values.get(i));
+		}
+	}
+
+	/**
+	 * Fixes a variable to a value, integer variables are rounded to remove solver tolerances.
+	 *
+	 * @param variable the variable
+	 * @param value the value
+	 * @throws IloException the ilo exception
+	 */
+	private static void fixVariable (IloNumVar variable, double value) throws IloException {
+		if (variable.getType() != IloNumVarType.Float) {
+			value = Math.round(value);
+		}
+		// widen first, so that lb <= ub holds at any time
+		variable.setLB(Math.min(variable.getLB(), value));
+		variable.setUB(value);
+		variable.setLB(value);
+	}
+
+	/**
+	 * The Class StateHolds.
+	 *
+	 * Carries minimum holding durations of states over to the next window: tracks for each resource how long its
+	 * state at time step 0 has been active and fixes the state in the following time steps while the minimum holding
+	 * duration is not reached. The held time steps are released in the next iteration, after fixInitialConditions()
+	 * has read the solution.
+	 */
+	static class StateHolds {
+
+		/** The number of time steps the state at time step 0 of the window has been active, by resource; absent for the first window. */
+		private final Map<String, Integer> activeTimeSteps = new HashMap<String, Integer>();
+
+		/** The variables fixed by fix(), released in the next fix(). */
+		private final List<IloNumVar> heldVariables = new ArrayList<IloNumVar>();
+
+		/** The original bounds of the held variables. */
+		private final List<double[]> heldBounds = new ArrayList<double[]>();
+
+		/** The variables to hold, consumed by fix(). */
+		private final List<IloNumVar> variablesToHold = new ArrayList<IloNumVar>();
+
+		/** The values to hold. */
+		private final List<Double> valuesToHold = new ArrayList<Double>();
+
+		/**
+		 * Reads the states of the current solution and determines the time steps to hold in the next window. Must be
+		 * called before fixInitialConditions(), which discards the solution; does not change any bound.
+		 *
+		 * @param context the model context
+		 * @param shift the number of executed time steps
+		 * @throws IloException the ilo exception
+		 */
+		void update (ModelContext context, int shift) throws IloException {
+			for (ResourceParameters resourceParameters : context.getSystemParameters().getResourceParameters()) {
+				String nameOfResource = resourceParameters.getName();
+				IloNumVar[][] states = context.getStateVariables(nameOfResource);
+				if (states == null || states.length <= shift || resourceParameters.getSystemStates().isEmpty()) continue;
+				double[][] values = new double[shift + 1][];
+				for (int timeStep = 0; timeStep <= shift; timeStep++) {
+					values[timeStep] = context.getCplex().getValues(states[timeStep]);
+				}
+				int[] minimumTimeSteps = new int[resourceParameters.getSystemStates().size()];
+				for (int state = 0; state < minimumTimeSteps.length; state++) {
+					SystemState systemState = resourceParameters.getSystemStates().get(state);
+					minimumTimeSteps[state] = (int) Math.ceil(systemState.getMinStateDurationInH()/context.getTimeInterval() - 1e-9);
+				}
+				update(nameOfResource, states, values, shift, minimumTimeSteps);
+			}
+		}
+
+		/**
+		 * Determines the time steps of one resource to hold in the next window.
+		 *
+		 * @param nameOfResource the name of the resource
+		 * @param states the state variables [timeStep][state]
+		 * @param values the values of the state variables up to time step shift, [timeStep][state]
+		 * @param shift the number of executed time steps
+		 * @param minimumTimeSteps the minimum holding duration of each state in # of time steps
+		 */
+		void update (String nameOfResource, IloNumVar[][] states, double[][] values, int shift, int[] minimumTimeSteps) {
+			int activeState = getActiveState(values[shift]);
+			if (activeState < 0) return;
+
+			// time steps the state has been active at time step shift, including the windows before
+			int active = 0;
+			int timeStep = shift;
+			while (timeStep >= 0 && getActiveState(values[timeStep]) == activeState) {
+				active++;
+				timeStep--;
+			}
+			if (timeStep < 0) {
+				Integer activeBefore = activeTimeSteps.get(nameOfResource);
+				// the initial state of the first window is taken as held long enough
+				active = activeBefore == null || activeBefore == Integer.MAX_VALUE ? Integer.MAX_VALUE : active - 1 + activeBefore;
+			}
+			activeTimeSteps.put(nameOfResource, active);
+
+			if (activeState >= minimumTimeSteps.length) return;
+			// time step 0 of the next window is fixed by fixInitialConditions()
+			for (int hold = 1; hold < Math.min(minimumTimeSteps[activeState] - (long) active + 1, states.length); hold++) {
+				for (int state = 0; state < states[hold].length; state++) {
+					variablesToHold.add(states[hold][state]);
+					valuesToHold.add(state == activeState ? 1.0 : 0.0);
+				}
+			}
+		}
+
+		/**
+		 * Releases the time steps held in the previous window and fixes the time steps determined by update(). Must be
+		 * called after fixInitialConditions(), since a bound change discards the solution.
+		 *
+		 * @throws IloException the ilo exception
+		 */
+		void fix () throws IloException {
+			for (int i = 0; i < heldVariables.size(); i++) {
+				heldVariables.get(i).setLB(heldBounds.get(i)[0]);
+				heldVariables.get(i).setUB(heldBounds.get(i)[1]);
+			}
+			heldVariables.clear();
+			heldBounds.clear();
+			for (int i = 0; i < variablesToHold.size(); i++) {
+				IloNumVar variable = variablesToHold.get(i);
+				heldVariables.add(variable);
+				heldBounds.add(new double[] {variable.getLB(), variable.getUB()});
+				fixVariable(variable, valuesToHold.get(i));
+			}
+			variablesToHold.clear();
+			valuesToHold.clear();
+		}
+
+		/**
+		 * Gets the active state of a time step.
+		 *
+		 * @param values the values of the state binaries
+		 * @return the index of the active state, -1 if none
+		 */
+		private static int getActiveState (double[] values) {
+			for (int state = 0; state < values.length; state++) {
+				if (values[state] > 0.5) return state;
+			}
+			return -1;
+		}
+	}
+}
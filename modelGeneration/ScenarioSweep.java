@@ -0,0 +1,509 @@
+package modelGeneration;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ilog.concert.IloException;
+import ilog.cplex.IloCplex;
+
+/**
+ * The Class ScenarioSweep.
+ *
+ * Builds and solves a matrix of scenarios (electricity price, optimality gap, horizon) of one system on a bounded pool
+ * of workers. Every scenario gets its own ModelContext from the context factory of the system, and thereby its own
+ * cplex instance, limited to threadsPerSolve threads, and its own system parameters and system targets, so that a
+ * scenario changing them does not affect the others. Building is serialized by the lock of ModelContext, solving runs
+ * concurrently. The sweep is configured with a JSON file:
+ *
+ * <pre>
+ * {
+ *     "system": "refrigeration",
+ *     "priceFiles": ["src/input_refrigeration/price_high.csv", "default"],
+ *     "optimalityGaps": [0.01, 0.001],
+ *     "horizonsInH": [10, 24],
+ *     "priceResolutionInH": 0.25,
+ *     "workers": 4,
+ *     "threadsPerSolve": 2
+ * }
+ * </pre>
+ *
+ * "default" uses the electricity price of the ElectricityPriceCache. The price files are averaged from their
+ * resolution, by default the time interval of the model, over each time step of the scenario, starting at their first
+ * value. The summary of all scenarios is written to the file ScenarioSweep_yyyy-MM-dd_HH-mm-ss.csv in the output
+ * directory of the system, with ';' as separator and decimal comma like the result files.
+ */
+public class ScenarioSweep {
+
+	/** The Constant DEFAULT_PRICE, the price file name of the default electricity price. */
+	public static final String DEFAULT_PRICE = "default";
+
+	/** The Constant SEPARATOR of the summary. */
+	static final char SEPARATOR = ';';
+
+	/** The Constant DECIMAL_SEPARATOR of the summary. */
+	static final char DECIMAL_SEPARATOR = ',';
+
+	/**
+	 * The Class Scenario.
+	 */
+	public static class Scenario {
+
+		/** The name. */
+		private final String name;
+
+		/** The price file, DEFAULT_PRICE for the default electricity price. */
+		private final String priceFile;
+
+		/** The optimality gap. */
+		private final double optimalityGap;
+
+		/** The array length in # of time steps. */
+		private final int arrayLength;
+
+		/**
+		 * Instantiates a new scenario.
+		 *
+		 * @param name the name
+		 * @param priceFile the price file, DEFAULT_PRICE for the default electricity price
+		 * @param optimalityGap the optimality gap
+		 * @param arrayLength the array length in # of time steps
+		 */
+		public Scenario(String name, String priceFile, double optimalityGap, int arrayLength) {
+			this.name = name;
+			this.priceFile = priceFile;
+			this.optimalityGap = optimalityGap;
+			this.arrayLength = arrayLength;
+		}
+
+		/**
+		 * Gets the name.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Gets the price file.
+		 *
+		 * @return the price file
+		 */
+		public String getPriceFile() {
+			return priceFile;
+		}
+
+		/**
+		 * Gets the optimality gap.
+		 *
+		 * @return the optimality gap
+		 */
+		public double getOptimalityGap() {
+			return optimalityGap;
+		}
+
+		/**
+		 * Gets the array length.
+		 *
+		 * @return the array length
+		 */
+		public int getArrayLength() {
+			return arrayLength;
+		}
+	}
+
+	/**
+	 * The Class ScenarioResult.
+	 */
+	public static class ScenarioResult {
+
+		/** The scenario. */
+		private final Scenario scenario;
+
+		/** The solver result, null if the model could not be built. */
+		private final SolverResult solverResult;
+
+		/** The build time in ns. */
+		private final long buildTimeNanos;
+
+		/** The error, null if the scenario was solved or the model infeasible. */
+		private final String error;
+
+		/**
+		 * Instantiates a new scenario result.
+		 *
+		 * @param scenario the scenario
+		 * @param solverResult the solver result
+		 * @param buildTimeNanos the build time in ns
+		 * @param error the error
+		 */
+		public ScenarioResult(Scenario scenario, SolverResult solverResult, long buildTimeNanos, String error) {
+			this.scenario = scenario;
+			this.solverResult = solverResult;
+			this.buildTimeNanos = buildTimeNanos;
+			this.error = error;
+		}
+
+		/**
+		 * Gets the scenario.
+		 *
+		 * @return the scenario
+		 */
+		public Scenario getScenario() {
+			return scenario;
+		}
+
+		/**
+		 * Gets the solver result.
+		 *
+		 * @return the solver result
+		 */
+		public SolverResult getSolverResult() {
+			return solverResult;
+		}
+
+		/**
+		 * Gets the build time in ns.
+		 *
+		 * @return the build time in ns
+		 */
+		public long getBuildTimeNanos() {
+			return buildTimeNanos;
+		}
+
+		/**
+		 * Gets the error.
+		 *
+		 * @return the error
+		 */
+		public String getError() {
+			return error;
+		}
+
+		/**
+		 * Gets the status, the solver status or the error.
+		 *
+		 * @return the status
+		 */
+		public String getStatus() {
+			if (solverResult != null) return solverResult.getStatus();
+			return "Error: " + error;
+		}
+	}
+
+	/** The system, "refrigeration" or "chp". */
+	private final String systemName;
+
+	/** The factory of the model contexts of the system, called once per scenario. */
+	private final Callable<ModelContext> contextFactory;
+
+	/** The number of workers. */
+	private final int numberOfWorkers;
+
+	/** The number of cplex threads per solve. */
+	private final int threadsPerSolve;
+
+	/** The resolution of the price files in h, NaN for the time interval of the model. */
+	private double priceResolution = Double.NaN;
+
+	/**
+	 * Instantiates a new scenario sweep.
+	 *
+	 * @param systemName the system, "refrigeration" or "chp"
+	 * @param contextFactory the factory of the model contexts of the system; each call must return a context with its
+	 * own system parameters and system targets, e.g. read from file again
+	 * @param numberOfWorkers the number of scenarios solved concurrently
+	 * @param threadsPerSolve the number of cplex threads per solve, 0 for the cplex default
+	 */
+	public ScenarioSweep(String systemName, Callable<ModelContext> contextFactory, int numberOfWorkers, int threadsPerSolve) {
+		if (!OptimizationModelRefrigeration.SYSTEM_NAME.equals(systemName) && !OptimizationModel.SYSTEM_NAME.equals(systemName)) {
+			throw new IllegalArgumentException("Unknown system " + systemName);
+		}
+		this.systemName = systemName;
+		this.contextFactory = contextFactory;
+		this.numberOfWorkers = Math.max(1, numberOfWorkers);
+		this.threadsPerSolve = Math.max(0, threadsPerSolve);
+	}
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the sweep file, default src/input_refrigeration/scenarioSweep.json
+	 */
+	public static void main(String[] args) {
+		String sweepFile = args.length > 0 ? args[0] : "src/input_" + OptimizationModelRefrigeration.SYSTEM_NAME + "/scenarioSweep.json";
+		try {
+			Map<?, ?> json = (Map<?, ?>) SimpleJson.read(sweepFile);
+			String systemName = json.containsKey("system") ? (String) json.get("system") : OptimizationModelRefrigeration.SYSTEM_NAME;
+			final boolean refrigeration = OptimizationModelRefrigeration.SYSTEM_NAME.equals(systemName);
+			Callable<ModelContext> contextFactory = new Callable<ModelContext>() {
+				@Override
+				public ModelContext call() {
+					return refrigeration ? OptimizationModelRefrigeration.setOptimizationParameters() : OptimizationModel.setOptimizationParameters();
+				}
+			};
+			ScenarioSweep sweep = new ScenarioSweep(systemName, contextFactory, numberOfWorkers(json), threadsPerSolve(json));
+			if (json.containsKey("priceResolutionInH")) {
+				sweep.setPriceResolution((Double) json.get("priceResolutionInH"));
+			}
+			List<Scenario> scenarios;
+			try (ModelContext baseContext = contextFactory.call()) {
+				scenarios = createScenarioMatrix(json, baseContext);
+			}
+			List<ScenarioResult> results = sweep.run(scenarios);
+			String fileName = "src/output_" + systemName + "/ScenarioSweep_" + OptimizationModelRefrigeration.getNow() + ".csv";
+			writeSummary(results, fileName);
+			System.out.println("Summary of " + results.size() + " scenarios written to " + fileName);
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.err.println("Scenario sweep " + sweepFile + " could not be run");
+		}
+	}
+
+	/**
+	 * Gets the number of workers of a sweep file, by default the number of processors.
+	 *
+	 * @param json the JSON object of the sweep file
+	 * @return the number of workers
+	 */
+	private static int numberOfWorkers (Map<?, ?> json) {
+		return json.containsKey("workers") ? ((Double) json.get("workers")).intValue() : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Gets the number of cplex threads per solve of a sweep file, by default 1.
+	 *
+	 * @param json the JSON object of the sweep file
+	 * @return the number of threads per solve
+	 */
+	private static int threadsPerSolve (Map<?, ?> json) {
+		return json.containsKey("threadsPerSolve") ? ((Double) json.get("threadsPerSolve")).intValue() : 1;
+	}
+
+	/**
+	 * Creates the scenario matrix of a sweep file, with the defaults of a model context.
+	 *
+	 * @param json the JSON object of the sweep file
+	 * @param baseContext the model context with the defaults of the system
+	 * @return the scenarios
+	 */
+	private static List<Scenario> createScenarioMatrix (Map<?, ?> json, ModelContext baseContext) {
+		List<String> priceFiles = new ArrayList<String>();
+		for (Object priceFile : getList(json, "priceFiles", DEFAULT_PRICE)) {
+			priceFiles.add((String) priceFile);
+		}
+		List<Double> optimalityGaps = new ArrayList<Double>();
+		for (Object optimalityGap : getList(json, "optimalityGaps", baseContext.getOptimalityGap())) {
+			optimalityGaps.add((Double) optimalityGap);
+		}
+		List<Double> horizonsInH = new ArrayList<Double>();
+		for (Object horizonInH : getList(json, "horizonsInH", baseContext.getArrayLength()*baseContext.getTimeInterval())) {
+			horizonsInH.add((Double) horizonInH);
+		}
+		return createScenarioMatrix(priceFiles, optimalityGaps, horizonsInH, baseContext.getTimeInterval());
+	}
+
+	/**
+	 * Gets a list of a JSON object, a list with the default value if the key is missing.
+	 *
+	 * @param json the JSON object
+	 * @param key the key
+	 * @param defaultValue the default value
+	 * @return the list
+	 */
+	private static List<?> getList (Map<?, ?> json, String key, Object defaultValue) {
+		if (json.get(key) instanceof List) return (List<?>) json.get(key);
+		return Collections.singletonList(defaultValue);
+	}
+
+	/**
+	 * Creates the scenario matrix, all combinations of price, optimality gap and horizon.
+	 *
+	 * @param priceFiles the price files, DEFAULT_PRICE for the default electricity price
+	 * @param optimalityGaps the optimality gaps
+	 * @param horizonsInH the horizons in h
+	 * @param timeInterval the time interval in h
+	 * @return the scenarios
+	 */
+	public static List<Scenario> createScenarioMatrix (List<String> priceFiles, List<Double> optimalityGaps, List<Double> horizonsInH, double timeInterval) {
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		for (String priceFile : priceFiles) {
+			for (double optimalityGap : optimalityGaps) {
+				for (double horizonInH : horizonsInH) {
+					scenarios.add(new Scenario("scenario" + scenarios.size(), priceFile, optimalityGap, (int) Math.round(horizonInH/timeInterval)));
+				}
+			}
+		}
+		return scenarios;
+	}
+
+	/**
+	 * Builds and solves all scenarios on the worker pool.
+	 *
+	 * @param scenarios the scenarios
+	 * @return the results, in the order of the scenarios
+	 */
+	public List<ScenarioResult> run (List<Scenario> scenarios) {
+		final AtomicInteger numberOfThreads = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfWorkers, Math.max(1, scenarios.size())), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "scenario-sweep-" + numberOfThreads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		List<Future<ScenarioResult>> futures = new ArrayList<Future<ScenarioResult>>();
+		for (final Scenario scenario : scenarios) {
+			futures.add(executor.submit(new Callable<ScenarioResult>() {
+				@Override
+				public ScenarioResult call() {
+					return runScenario(scenario);
+				}
+			}));
+		}
+		executor.shutdown();
+
+		List<ScenarioResult> results = new ArrayList<ScenarioResult>();
+		for (int i = 0; i < scenarios.size(); i++) {
+			try {
+				results.add(futures.get(i).get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				executor.shutdownNow();
+				results.add(new ScenarioResult(scenarios.get(i), null, 0, "interrupted"));
+			} catch (ExecutionException e) {
+				results.add(new ScenarioResult(scenarios.get(i), null, 0, String.valueOf(e.getCause())));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Builds and solves one scenario in its own model context, with its own system parameters and system targets.
+	 *
+	 * @param scenario the scenario
+	 * @return the scenario result
+	 */
+	ScenarioResult runScenario (Scenario scenario) {
+		ModelContext context;
+		try {
+			// the factory may read shared files, the contexts are created one after another
+			synchronized (contextFactory) {
+				context = contextFactory.call();
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.err.println(scenario.getName() + " could not be created");
+			return new ScenarioResult(scenario, null, 0, String.valueOf(e));
+		}
+		// the horizon of the scenario in time steps of the time interval
+		context.setTimeGrid(null);
+		context.setArrayLength(scenario.getArrayLength());
+		context.setOptimalityGap(scenario.getOptimalityGap());
+		long buildTimeNanos = 0;
+		try {
+			long start = System.nanoTime();
+			ModelTemplate template = OptimizationModelRefrigeration.SYSTEM_NAME.equals(systemName)
+					? ModelTemplate.compileRefrigeration(context) : ModelTemplate.compileChp(context);
+			if (!DEFAULT_PRICE.equals(scenario.getPriceFile())) {
+				template.setPrice(getPrice(scenario.getPriceFile(), context));
+			}
+			buildTimeNanos = System.nanoTime() - start;
+			if (threadsPerSolve > 0) {
+				context.getCplex().setParam(IloCplex.Param.Threads, threadsPerSolve);
+			}
+			SolverResult solverResult = new CplexSolver().solve(context);
+			System.out.println(scenario.getName() + ": " + solverResult.getStatus() + ", obj = " + solverResult.getObjectiveValue());
+			return new ScenarioResult(scenario, solverResult, buildTimeNanos, null);
+		} catch (IloException | RuntimeException e) {
+			e.printStackTrace();
+			System.err.println(scenario.getName() + " could not be solved");
+			return new ScenarioResult(scenario, null, buildTimeNanos, String.valueOf(e));
+		} finally {
+			context.close();
+		}
+	}
+
+	/**
+	 * Gets the price of a price file per time step of a model context: the price is averaged from the price resolution
+	 * over each time step, starting at its first value.
+	 *
+	 * @param priceFile the price file
+	 * @param context the model context, with the time interval and array length of the scenario
+	 * @return the price per time step
+	 * @throws IllegalArgumentException if the time steps exceed the price file
+	 */
+	double[] getPrice (String priceFile, ModelContext context) {
+		double resolution = Double.isNaN(priceResolution) ? context.getTimeInterval() : priceResolution;
+		return TimeGrid.uniform(context.getTimeInterval(), context.getArrayLength()).average(TimeSeriesRepository.getShared().get(priceFile), resolution, 0);
+	}
+
+	/**
+	 * Gets the resolution of the price files.
+	 *
+	 * @return the resolution in h, NaN for the time interval of the model
+	 */
+	public double getPriceResolution() {
+		return priceResolution;
+	}
+
+	/**
+	 * Sets the resolution of the price files.
+	 *
+	 * @param priceResolution the resolution in h, NaN for the time interval of the model
+	 */
+	public void setPriceResolution(double priceResolution) {
+		this.priceResolution = priceResolution;
+	}
+
+	/**
+	 * Writes the summary of a sweep as CSV, one line per scenario.
+	 *
+	 * @param results the results
+	 * @param fileName the file name
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void writeSummary (List<ScenarioResult> results, String fileName) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8))) {
+			writer.append("scenario;priceFile;optimalityGap;arrayLength;status;objective;buildTimeMs;solveTimeMs\n");
+			for (ScenarioResult result : results) {
+				Scenario scenario = result.getScenario();
+				SolverResult solverResult = result.getSolverResult();
+				writer.append(scenario.getName()).append(SEPARATOR)
+					.append(scenario.getPriceFile()).append(SEPARATOR)
+					.append(formatDecimal(scenario.getOptimalityGap())).append(SEPARATOR)
+					.append(Integer.toString(scenario.getArrayLength())).append(SEPARATOR)
+					.append(result.getStatus().replace(SEPARATOR, ',')).append(SEPARATOR)
+					.append(solverResult != null ? formatDecimal(solverResult.getObjectiveValue()) : "").append(SEPARATOR)
+					.append(Long.toString(result.getBuildTimeNanos() / 1000000)).append(SEPARATOR)
+					.append(solverResult != null ? Long.toString(solverResult.getWallTimeNanos() / 1000000) : "").append('\n');
+			}
+		}
+	}
+
+	/**
+	 * Formats a value like Double.toString(), with decimal comma.
+	 *
+	 * @param value the value
+	 * @return the formatted value
+	 */
+	static String formatDecimal (double value) {
+		return Double.toString(value).replace('.', DECIMAL_SEPARATOR);
+	}
+}
@@ -0,0 +1,274 @@
+package modelGeneration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The Class SimpleJson.
+ *
+ * Minimal JSON reader for sections of the parameter files that are not part of the external data model.
+ * Objects are read as LinkedHashMap, arrays as ArrayList, numbers as Double, booleans as Boolean, null as null.
+ */
+public class SimpleJson {
+
+	/** The number format of JSON: no leading zeros, signs or decimal points without digits. */
+	private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+	/** The text. */
+	private final String text;
+
+	/** The position. */
+	private int position = 0;
+
+	/**
+	 * Instantiates a new simple json.
+	 *
+	 * @param text the text
+	 */
+	private SimpleJson(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Reads a JSON file.
+	 *
+	 * @param filePath the file path
+	 * @return the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static Object read (String filePath) throws IOException {
+		return parse(new String(Files.readAllBytes(Paths.get(filePath)), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parses a JSON text.
+	 *
+	 * @param text the text
+	 * @return the value
+	 * @throws IllegalArgumentException if the text is not valid JSON
+	 */
+	public static Object parse (String text) {
+		SimpleJson json = new SimpleJson(text);
+		Object value = json.readValue();
+		json.skipWhitespace();
+		if (json.position != text.length()) {
+			throw json.error("Unexpected content");
+		}
+		return value;
+	}
+
+	/**
+	 * Reads a value.
+	 *
+	 * @return the value
+	 */
+	private Object readValue () {
+		skipWhitespace();
+		if (position >= text.length()) throw error("Unexpected end");
+		char c = text.charAt(position);
+		switch (c) {
+		case '{':
+			return readObject();
+		case '[':
+			return readArray();
+		case '"':
+			return readString();
+		case 't':
+			expect("true");
+			return Boolean.TRUE;
+		case 'f':
+			expect("false");
+			return Boolean.FALSE;
+		case 'n':
+			expect("null");
+			return null;
+		default:
+			return readNumber();
+		}
+	}
+
+	/**
+	 * Reads an object.
+	 *
+	 * @return the map
+	 */
+	private Map<String, Object> readObject () {
+		Map<String, Object> object = new LinkedHashMap<String, Object>();
+		position++;
+		skipWhitespace();
+		if (peek() == '}') {
+			position++;
+			return object;
+		}
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"') throw error("Expected name");
+			String name = readString();
+			skipWhitespace();
+			if (peek() != ':') throw error("Expected ':'");
+			position++;
+			object.put(name, readValue());
+			skipWhitespace();
+			char c = peek();
+			if (c != ',' && c != '}') throw error("Expected ',' or '}'");
+			position++;
+			if (c == '}') return object;
+		}
+	}
+
+	/**
+	 * Reads an array.
+	 *
+	 * @return the list
+	 */
+	private List<Object> readArray () {
+		List<Object> array = new ArrayList<Object>();
+		position++;
+		skipWhitespace();
+		if (peek() == ']') {
+			position++;
+			return array;
+		}
+		while (true) {
+			array.add(readValue());
+			skipWhitespace();
+			char c = peek();
+			if (c != ',' && c != ']') throw error("Expected ',' or ']'");
+			position++;
+			if (c == ']') return array;
+		}
+	}
+
+	/**
+	 * Reads a string.
+	 *
+	 * @return the string
+	 */
+	private String readString () {
+		StringBuilder string = new StringBuilder();
+		position++;
+		while (true) {
+			if (position >= text.length()) throw error("Unterminated string");
+			char c = text.charAt(position);
+			if (c < ' ') throw error("Control character in string");
+			position++;
+			if (c == '"') return string.toString();
+			if (c != '\\') {
+				string.append(c);
+				continue;
+			}
+			if (position >= text.length()) throw error("Unterminated string");
+			switch (text.charAt(position)) {
+			case '"': string.append('"'); break;
+			case '\\': string.append('\\'); break;
+			case '/': string.append('/'); break;
+			case 'b': string.append('\b'); break;
+			case 'f': string.append('\f'); break;
+			case 'n': string.append('\n'); break;
+			case 'r': string.append('\r'); break;
+			case 't': string.append('\t'); break;
+			case 'u':
+				int code = 0;
+				for (int digit = 1; digit <= 4; digit++) {
+					int value = position + digit < text.length() ? Character.digit(text.charAt(position + digit), 16) : -1;
+					if (value < 0) throw error("Invalid escape");
+					code = code*16 + value;
+				}
+				string.append((char) code);
+				position += 4;
+				break;
+			default: throw error("Invalid escape");
+			}
+			position++;
+		}
+	}
+
+	/**
+	 * Reads a number.
+	 *
+	 * @return the number
+	 */
+	private Double readNumber () {
+		int start = position;
+		int end = start;
+		while (end < text.length() && "+-0123456789.eE".indexOf(text.charAt(end)) >= 0) {
+			end++;
+		}
+		String number = text.substring(start, end);
+		if (!NUMBER.matcher(number).matches()) throw error("Invalid value");
+		position = end;
+		return Double.valueOf(number);
+	}
+
+	/**
+	 * Reads a literal.
+	 *
+	 * @param literal the literal
+	 */
+	private void expect (String literal) {
+		if (!text.startsWith(literal, position)) throw error("Invalid value");
+		position += literal.length();
+	}
+
+	/**
+	 * Skips whitespace.
+	 */
+	private void skipWhitespace () {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+
+	/**
+	 * Gets the current character, 0 at the end of the text.
+	 *
+	 * @return the char
+	 */
+	private char peek () {
+		return position < text.length() ? text.charAt(position) : 0;
+	}
+
+	/**
+	 * Creates an exception for the current position, the position of the offending character.
+	 *
+	 * @param message the message
+	 * @return the illegal argument exception
+	 */
+	private IllegalArgumentException error (String message) {
+		return new IllegalArgumentException(message + " at position " + position + " of JSON text");
+	}
+
+	/**
+	 * Quotes a string for JSON output.
+	 *
+	 * @param string the string
+	 * @return the quoted string
+	 */
+	public static String quote (String string) {
+		StringBuilder quoted = new StringBuilder(string.length() + 2).append('"');
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			switch (c) {
+			case '"': quoted.append("\\\""); break;
+			case '\\': quoted.append("\\\\"); break;
+			case '\n': quoted.append("\\n"); break;
+			case '\r': quoted.append("\\r"); break;
+			case '\t': quoted.append("\\t"); break;
+			default:
+				if (c < ' ') {
+					quoted.append(String.format("\\u%04x", (int) c));
+				} else {
+					quoted.append(c);
+				}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
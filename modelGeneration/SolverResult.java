@@ -0,0 +1,100 @@
+package modelGeneration;
+
+/**
+ * The Class SolverResult.
+ *
+ * Outcome of one solve with a MipSolver.
+ */
+public class SolverResult {
+
+	/** The name of the solver. */
+	private final String solverName;
+
+	/** Whether a feasible solution was found. */
+	private final boolean solved;
+
+	/** The status reported by the solver. */
+	private final String status;
+
+	/** The objective value, NaN if not solved. */
+	private final double objectiveValue;
+
+	/** The wall time in ns, including translating the model for the solver. */
+	private final long wallTimeNanos;
+
+	/** The results, null if not solved. */
+	private final ResultStore optimizationResults;
+
+	/**
+	 * Instantiates a new solver result.
+	 *
+	 * @param solverName the solver name
+	 * @param solved whether a feasible solution was found
+	 * @param status the status
+	 * @param objectiveValue the objective value
+	 * @param wallTimeNanos the wall time in ns
+	 * @param optimizationResults the optimization results
+	 */
+	public SolverResult(String solverName, boolean solved, String status, double objectiveValue, long wallTimeNanos, ResultStore optimizationResults) {
+		this.solverName = solverName;
+		this.solved = solved;
+		this.status = status;
+		this.objectiveValue = objectiveValue;
+		this.wallTimeNanos = wallTimeNanos;
+		this.optimizationResults = optimizationResults;
+	}
+
+	/**
+	 * Gets the solver name.
+	 *
+	 * @return the solver name
+	 */
+	public String getSolverName() {
+		return solverName;
+	}
+
+	/**
+	 * Checks if is solved.
+	 *
+	 * @return true, if is solved
+	 */
+	public boolean isSolved() {
+		return solved;
+	}
+
+	/**
+	 * Gets the status.
+	 *
+	 * @return the status
+	 */
+	public String getStatus() {
+		return status;
+	}
+
+	/**
+	 * Gets the objective value.
+	 *
+	 * @return the objective value
+	 */
+	public double getObjectiveValue() {
+		return objectiveValue;
+	}
+
+	/**
+	 * Gets the wall time in ns.
+	 *
+	 * @return the wall time in ns
+	 */
+	public long getWallTimeNanos() {
+		return wallTimeNanos;
+	}
+
+	/**
+	 * Gets the optimization results.
+	 *
+	 * @return the optimization results
+	 */
+	public ResultStore getOptimizationResults() {
+		return optimizationResults;
+	}
+}
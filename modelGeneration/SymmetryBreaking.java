@@ -0,0 +1,282 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import designpatterns.PiecewiseLinearApproximation;
+import designpatterns.ResourceParameters;
+import designpatterns.SystemState;
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloRange;
+import ilog.cplex.IloCplex;
+import modelGeneration.VariableKey.Direction;
+import systemParameterModel.Dependency;
+
+/**
+ * The Class SymmetryBreaking.
+ *
+ * Detects identical resources, e.g. two refrigeration machines with the same extracted parameters, and orders them
+ * lexicographically by their state binaries. Without the ordering, every schedule exists once per permutation of the
+ * identical resources, and the solver explores all of them. Resources are identical if their parameters are equal up
+ * to a relative tolerance and they take the same part in all dependencies and system targets.
+ *
+ * The state binaries of a resource are compared time step by time step and, within a time step, in the order of the
+ * states: at the first time step in which the states of two identical resources differ, the first resource is in the
+ * state with the lower index. The ordering is modelled with one continuous indicator per binary, 1 while the binaries
+ * compared so far are equal, so that it needs no big coefficients. Resources without states are ordered by their input
+ * energy over the horizon instead; both orderings are not combined, since together they may exclude every permutation
+ * of a schedule.
+ *
+ * The ordering is only valid if the resources are also interchangeable in their initial conditions; it is therefore
+ * not used when the initial conditions are fixed to a previous solution, as in RollingHorizonRefrigeration.
+ */
+public class SymmetryBreaking {
+
+	/** The number of significant digits compared, so that parameters extracted from noisy data need not be bitwise equal. */
+	static final int SIGNIFICANT_DIGITS = 9;
+
+	/**
+	 * Finds the groups of identical resources.
+	 *
+	 * @param context the model context
+	 * @return the groups, each with at least two resources in the order of the system parameters
+	 */
+	public static List<List<String>> findIdenticalResources (ModelContext context) {
+		Map<String, List<String>> resourcesByFingerprint = new LinkedHashMap<String, List<String>>();
+		for (ResourceParameters resourceParameters : context.getSystemParameters().getResourceParameters()) {
+			String fingerprint = getFingerprint(resourceParameters);
+			List<String> resources = resourcesByFingerprint.get(fingerprint);
+			if (resources == null) {
+				resources = new ArrayList<String>();
+				resourcesByFingerprint.put(fingerprint, resources);
+			}
+			resources.add(resourceParameters.getName());
+		}
+
+		List<List<String>> groups = new ArrayList<List<String>>();
+		for (List<String> resources : resourcesByFingerprint.values()) {
+			// resources with equal parameters may still differ in their role in the system
+			while (resources.size() > 1) {
+				List<String> group = new ArrayList<String>();
+				List<String> others = new ArrayList<String>();
+				group.add(resources.get(0));
+				for (int other = 1; other < resources.size(); other++) {
+					if (isInterchangeable(context, resources.get(0), resources.get(other))) {
+						group.add(resources.get(other));
+					} else {
+						others.add(resources.get(other));
+					}
+				}
+				if (group.size() > 1) groups.add(group);
+				resources = others;
+			}
+		}
+		return groups;
+	}
+
+	/**
+	 * Generates the ordering constraints of all groups of identical resources: the state binaries of each resource are
+	 * lexicographically at least the state binaries of the next resource of its group, or, for resources without states,
+	 * the input energy over the horizon of each resource is at least the input energy of the next resource.
+	 *
+	 * @param context the model context, with the model built
+	 * @return the constraints
+	 * @throws IloException the ilo exception
+	 */
+	public static List<IloRange> generateConstraints (ModelContext context) throws IloException {
+		context.awaitBackgroundTasks();
+		List<IloRange> constraints = new ArrayList<IloRange>();
+		for (List<String> group : findIdenticalResources(context)) {
+			for (int resource = 0; resource + 1 < group.size(); resource++) {
+				IloNumVar[][] states = context.getStateVariables(group.get(resource));
+				IloNumVar[][] nextStates = context.getStateVariables(group.get(resource + 1));
+				if (states != null && nextStates != null && states.length > 0 && nextStates.length > 0 && states[0].length == nextStates[0].length) {
+					addLexicographicOrdering(context, group.get(resource), group.get(resource + 1), states, nextStates, constraints);
+				} else {
+					addEnergyOrdering(context, group.get(resource), group.get(resource + 1), constraints);
+				}
+			}
+			System.out.println("Identical resources ordered: " + group);
+		}
+		return constraints;
+	}
+
+	/**
+	 * Adds the lexicographic ordering of the state binaries of two resources. The binaries are compared in the order
+	 * [timeStep][state]; equal[k] is 1 while the binaries before position k are equal and 0 from the first position in
+	 * which the first resource has the greater binary.
+	 *
+	 * @param context the model context
+	 * @param resource the first resource
+	 * @param next the next resource
+	 * @param states the state variables of the first resource [timeStep][state]
+	 * @param nextStates the state variables of the next resource [timeStep][state]
+	 * @param constraints the constraints, extended
+	 * @throws IloException the ilo exception
+	 */
+	private static void addLexicographicOrdering (ModelContext context, String resource, String next, IloNumVar[][] states, IloNumVar[][] nextStates,
+			List<IloRange> constraints) throws IloException {
+		IloCplex cplex = context.getCplex();
+		int numberOfStates = states[0].length;
+		int length = Math.min(context.getArrayLength(), Math.min(states.length, nextStates.length))*numberOfStates;
+		String name = "Symmetry_" + resource + "_" + next;
+		IloNumVar equal = cplex.numVar(1, 1, name + "_Equal_0");
+		for (int position = 0; position < length; position++) {
+			IloNumVar binary = states[position/numberOfStates][position % numberOfStates];
+			IloNumVar nextBinary = nextStates[position/numberOfStates][position % numberOfStates];
+			// while equal, the binary of the first resource is at least the binary of the next resource
+			IloLinearNumExpr ordered = cplex.linearNumExpr();
+			ordered.addTerm(1, binary);
+			ordered.addTerm(-1, nextBinary);
+			ordered.addTerm(-1, equal);
+			constraints.add(cplex.addGe(ordered, -1, name + "_" + position));
+			if (position + 1 == length) break;
+
+			// equal stays 1 if the binaries are equal and becomes 0 if the first resource has the greater binary
+			IloNumVar nextEqual = cplex.numVar(0, 1, name + "_Equal_" + (position + 1));
+			IloLinearNumExpr decreasing = cplex.linearNumExpr();
+			decreasing.addTerm(1, nextEqual);
+			decreasing.addTerm(-1, equal);
+			constraints.add(cplex.addLe(decreasing, 0));
+			IloLinearNumExpr greater = cplex.linearNumExpr();
+			greater.addTerm(1, nextEqual);
+			greater.addTerm(1, binary);
+			greater.addTerm(-1, nextBinary);
+			constraints.add(cplex.addLe(greater, 1));
+			// forced to stay 1 while equal, free once 0
+			IloLinearNumExpr unchanged = cplex.linearNumExpr();
+			unchanged.addTerm(1, nextEqual);
+			unchanged.addTerm(-2, equal);
+			unchanged.addTerm(1, binary);
+			unchanged.addTerm(-1, nextBinary);
+			constraints.add(cplex.addGe(unchanged, -1));
+			equal = nextEqual;
+		}
+	}
+
+	/**
+	 * Adds the ordering of two resources by their input energy over the horizon.
+	 *
+	 * @param context the model context
+	 * @param resource the first resource
+	 * @param next the next resource
+	 * @param constraints the constraints, extended
+	 * @throws IloException the ilo exception
+	 */
+	private static void addEnergyOrdering (ModelContext context, String resource, String next, List<IloRange> constraints) throws IloException {
+		VariableRegistry registry = context.getVariableRegistry();
+		double[] durations = context.getTimeStepDurations();
+		IloNumVar[] power = getInputPower(registry, resource);
+		IloNumVar[] nextPower = getInputPower(registry, next);
+		int length = Math.min(durations.length, Math.min(power.length, nextPower.length));
+		IloLinearNumExpr difference = context.getCplex().linearNumExpr();
+		for (int timeStep = 0; timeStep < length; timeStep++) {
+			difference.addTerm(durations[timeStep], power[timeStep]);
+			difference.addTerm(-durations[timeStep], nextPower[timeStep]);
+		}
+		constraints.add(context.getCplex().addGe(difference, 0, "Symmetry_" + resource + "_" + next));
+	}
+
+	/**
+	 * Compares the state sequences of two identical resources in the order of the lexicographic ordering, e.g. to
+	 * assign historical schedules to the resources of a group.
+	 *
+	 * @param states the states of a resource, by time step
+	 * @param otherStates the states of the other resource, by time step
+	 * @return a negative value if the first resource comes first, a positive value if the other resource comes first, 0 if the states are equal
+	 */
+	public static int compareStates (double[] states, double[] otherStates) {
+		for (int timeStep = 0; timeStep < Math.min(states.length, otherStates.length); timeStep++) {
+			long state = Math.round(states[timeStep]);
+			long otherState = Math.round(otherStates[timeStep]);
+			if (state != otherState) {
+				return state < otherState ? -1 : 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Gets the input power of a resource.
+	 *
+	 * @param registry the variable registry
+	 * @param nameOfResource the name of the resource
+	 * @return the input power
+	 */
+	private static IloNumVar[] getInputPower (VariableRegistry registry, String nameOfResource) {
+		return registry.get(registry.key(nameOfResource, Direction.INPUT, 0, OptimizationModelRefrigeration.POWER));
+	}
+
+	/**
+	 * Checks whether two resources take the same part in all dependencies and system targets.
+	 *
+	 * @param context the model context
+	 * @param resource the resource
+	 * @param other the other resource
+	 * @return true, if interchangeable
+	 */
+	static boolean isInterchangeable (ModelContext context, String resource, String other) {
+		for (Dependency dependency : context.getSystemParameters().getDependencies()) {
+			if (dependency.getRelevantInputs().contains(resource) != dependency.getRelevantInputs().contains(other)
+					|| dependency.getRelevantOutputs().contains(resource) != dependency.getRelevantOutputs().contains(other)) {
+				return false;
+			}
+		}
+		for (SystemTarget systemTarget : context.getSystemTargets()) {
+			if (systemTarget.getResources().contains(resource) != systemTarget.getResources().contains(other)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the fingerprint of the parameters of a resource, all parameters except its name.
+	 *
+	 * @param resourceParameters the resource parameters
+	 * @return the fingerprint
+	 */
+	static String getFingerprint (ResourceParameters resourceParameters) {
+		StringBuilder fingerprint = new StringBuilder();
+		fingerprint.append(resourceParameters.isStorage()).append(';').append(resourceParameters.isSecondaryResource()).append(';')
+				.append(resourceParameters.getEnergyCarrierInputs()).append(';').append(resourceParameters.getEnergyCarrierOutput()).append(';')
+				.append(resourceParameters.getInitialSystemState()).append(';').append(resourceParameters.getLatencyOfOutput()).append(';');
+		append(fingerprint, resourceParameters.getSlope(), resourceParameters.getIntercept(),
+				resourceParameters.getMinPowerInput(), resourceParameters.getMaxPowerInput(),
+				resourceParameters.getMinPowerOutput(), resourceParameters.getMaxPowerOutput(),
+				resourceParameters.getMinRampInput(), resourceParameters.getMaxRampInput(),
+				resourceParameters.getMinRampOutput(), resourceParameters.getMaxRampOutput(),
+				resourceParameters.getMinimumStorageCapacity(), resourceParameters.getMaximumStorageCapacity());
+		if (resourceParameters.getPlaList() != null) {
+			for (List<PiecewiseLinearApproximation> plaList : resourceParameters.getPlaList()) {
+				fingerprint.append("pla:");
+				for (PiecewiseLinearApproximation pla : plaList) {
+					append(fingerprint, pla.getLowerBound(), pla.getUpperBound(), pla.getSlope(), pla.getIntercept());
+				}
+			}
+		}
+		for (SystemState systemState : resourceParameters.getSystemStates()) {
+			fingerprint.append("state:").append(systemState.getStateID()).append(';').append(systemState.getFollowerStates()).append(';');
+			append(fingerprint, systemState.getMinPowerInput(), systemState.getMaxPowerInput(), systemState.getMaxPowerOutput(),
+					systemState.getMinStateDurationInH(), systemState.getMaxStateDurationInH(),
+					systemState.getMinRampInput(), systemState.getMaxRampInput());
+		}
+		return fingerprint.toString();
+	}
+
+	/**
+	 * Appends values with SIGNIFICANT_DIGITS significant digits.
+	 *
+	 * @param fingerprint the fingerprint
+	 * @param values the values
+	 */
+	private static void append (StringBuilder fingerprint, double... values) {
+		for (double value : values) {
+			fingerprint.append(String.format("%." + SIGNIFICANT_DIGITS + "g", value)).append(';');
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package modelGeneration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import systemParameterExtraction.ReadParametersFromDataModel;
+import systemParameterExtraction.SaveDataModel;
+import systemParameterExtraction.SystemParameterExtraction;
+import systemParameterExtraction.TimeSeriesData;
+import systemParameterModel.SystemParameters;
+
+/**
+ * The Class SystemParametersCache.
+ *
+ * Content-addressed cache of derived system parameters. The key is the SHA-256 hash of the FPB JSON and of all input
+ * files registered in SystemParameterExtraction (file paths and contents, resource names). If the key is known, the
+ * stored system parameters are returned without importData() and doPreProcessing(); otherwise they are derived,
+ * saved with SaveDataModel and the saved JSON is copied to the cache directory as systemParameters_hash.json.
+ * The system parameters can only be serialized by SaveDataModel, which names the file after the time of the save;
+ * the saved file is the file systemParameters_yyyy-MM-dd_HH-mm-ss.json of a second during the call of SaveDataModel
+ * in one of the save directories, otherwise nothing is cached. The cache file is written to a temporary file and
+ * moved into place, so that concurrent writers never leave a partial cache file. Every call returns its own instance,
+ * read from the cache file also after a derivation, so that callers get the same system parameters whether or not
+ * they were cached and may modify them; only if the derived system parameters could not be cached, they are
+ * returned as derived.
+ */
+public class SystemParametersCache {
+
+	/** The Constant DEFAULT_CACHE_DIRECTORY. */
+	public static final String DEFAULT_CACHE_DIRECTORY = "src/cache/";
+
+	/** The Constant CACHE_VERSION, part of the key; to be increased if the derivation changes. */
+	static final String CACHE_VERSION = "1";
+
+	/** The Constant FILE_PREFIX. */
+	static final String FILE_PREFIX = "systemParameters_";
+
+	/** The Constant FILE_EXTENSION. */
+	static final String FILE_EXTENSION = ".json";
+
+	/** The Constant BUFFER_SIZE. */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/** The Constant SAVED_FILE_TIME_FORMAT, the time of the save in the names of the files written by SaveDataModel. */
+	static final String SAVED_FILE_TIME_FORMAT = "yyyy-MM-dd_HH-mm-ss";
+
+	/**
+	 * Gets the system parameters of the input files registered in SystemParameterExtraction from the cache, derives
+	 * them if they are not cached.
+	 *
+	 * @param cacheDirectory the cache directory
+	 * @param saveDirectories the directories SaveDataModel writes to, searched for the saved JSON
+	 * @param derivation the derivation of the system parameters from the registered input files
+	 * @return the system parameters, a new instance per call
+	 * @throws Exception the exception of the derivation
+	 */
+	public static synchronized SystemParameters getOrDerive (String cacheDirectory, String[] saveDirectories, Callable<SystemParameters> derivation) throws Exception {
+		String key;
+		try {
+			key = computeKey();
+		} catch (IOException e) {
+			System.err.println("Input files could not be hashed, system parameters are derived: " + e.getMessage());
+			return derivation.call();
+		}
+
+		SystemParameters systemParameters = null;
+		File cacheFile = new File(cacheDirectory, FILE_PREFIX + key + FILE_EXTENSION);
+		if (cacheFile.isFile()) {
+			try {
+				systemParameters = ReadParametersFromDataModel.readJson(cacheFile.getPath());
+			} catch (Exception e) {
+				System.err.println("Cached system parameters " + cacheFile + " could not be read: " + e.getMessage());
+			}
+			if (systemParameters != null) {
+				System.out.println("System parameters read from cache " + cacheFile);
+				return systemParameters;
+			}
+		}
+
+		systemParameters = derivation.call();
+		if (systemParameters == null) return null;
+
+		LocalDateTime saveStart = LocalDateTime.now().withNano(0);
+		new SaveDataModel(systemParameters);
+		File savedFile = findSavedFile(saveDirectories, saveStart, LocalDateTime.now());
+		if (savedFile == null) {
+			return systemParameters;
+		}
+		File temporaryFile = null;
+		try {
+			new File(cacheDirectory).mkdirs();
+			temporaryFile = File.createTempFile(FILE_PREFIX + key, FILE_EXTENSION, new File(cacheDirectory));
+			Files.copy(savedFile.toPath(), temporaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			Files.move(temporaryFile.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			System.out.println("System parameters cached as " + cacheFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.err.println("System parameters could not be cached as " + cacheFile);
+			if (temporaryFile != null) temporaryFile.delete();
+			return systemParameters;
+		}
+		SystemParameters cachedSystemParameters = ReadParametersFromDataModel.readJson(cacheFile.getPath());
+		return cachedSystemParameters != null ? cachedSystemParameters : systemParameters;
+	}
+
+	/**
+	 * Computes the key of the input files registered in SystemParameterExtraction.
+	 *
+	 * @return the key, the hex SHA-256 hash
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static String computeKey () throws IOException {
+		MessageDigest digest = newDigest();
+		// digests of the files, each file is read once even if it is registered for several resources
+		Map<String, String> fileDigests = new LinkedHashMap<String, String>();
+
+		update(digest, "version", CACHE_VERSION);
+		updateFile(digest, fileDigests, "fpb", SystemParameterExtraction.getFilePathFormProDesc());
+		updateTimeSeriesData(digest, fileDigests, "system", SystemParameterExtraction.getTsdSystem());
+		for (TimeSeriesData timeSeriesData : SystemParameterExtraction.getFilePathResourceDataList()) {
+			updateTimeSeriesData(digest, fileDigests, "resource", timeSeriesData);
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Adds the resource name and files of time series data to the digest.
+	 *
+	 * @param digest the digest
+	 * @param fileDigests the digests of the files read so far
+	 * @param label the label
+	 * @param timeSeriesData the time series data
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void updateTimeSeriesData (MessageDigest digest, Map<String, String> fileDigests, String label, TimeSeriesData timeSeriesData) throws IOException {
+		if (timeSeriesData == null) return;
+		update(digest, label, timeSeriesData.getNameOfResource());
+		updateFile(digest, fileDigests, "timeStamps", timeSeriesData.getFilePath_TimeStamps());
+		updateFile(digest, fileDigests, "inputValues", timeSeriesData.getFilePath_InputValues());
+		updateFile(digest, fileDigests, "outputValues", timeSeriesData.getFilePath_OutputValues());
+		updateFile(digest, fileDigests, "systemStates", timeSeriesData.getFilePath_SystemStates());
+	}
+
+	/**
+	 * Adds the path and the content digest of a file to the digest.
+	 *
+	 * @param digest the digest
+	 * @param fileDigests the digests of the files read so far
+	 * @param label the label
+	 * @param filePath the file path, may be null
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void updateFile (MessageDigest digest, Map<String, String> fileDigests, String label, String filePath) throws IOException {
+		update(digest, label, filePath);
+		if (filePath == null) return;
+		String fileDigest = fileDigests.get(filePath);
+		if (fileDigest == null) {
+			MessageDigest contentDigest = newDigest();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			try (InputStream input = Files.newInputStream(new File(filePath).toPath())) {
+				int read;
+				while ((read = input.read(buffer)) > 0) {
+					contentDigest.update(buffer, 0, read);
+				}
+			}
+			fileDigest = toHex(contentDigest.digest());
+			fileDigests.put(filePath, fileDigest);
+		}
+		update(digest, label, fileDigest);
+	}
+
+	/**
+	 * Adds a labeled value to the digest.
+	 *
+	 * @param digest the digest
+	 * @param label the label
+	 * @param value the value, may be null
+	 */
+	private static void update (MessageDigest digest, String label, String value) {
+		digest.update((label + "=" + value + "\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Creates a SHA-256 digest.
+	 *
+	 * @return the message digest
+	 */
+	private static MessageDigest newDigest () {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is required on every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Converts bytes to hex.
+	 *
+	 * @param bytes the bytes
+	 * @return the hex string
+	 */
+	private static String toHex (byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length*2);
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Finds the JSON written by SaveDataModel: the file named after a second from the start to the end of the save in
+	 * one of the save directories. Other JSON files, e.g. the FPB, are never taken.
+	 *
+	 * @param saveDirectories the save directories
+	 * @param saveStart the start of the save, in whole seconds
+	 * @param saveEnd the end of the save
+	 * @return the file, null if none or several such files exist
+	 */
+	private static File findSavedFile (String[] saveDirectories, LocalDateTime saveStart, LocalDateTime saveEnd) {
+		DateTimeFormatter formatter = DateTimeFormatter.ofPattern(SAVED_FILE_TIME_FORMAT);
+		List<File> savedFiles = new ArrayList<File>();
+		for (LocalDateTime second = saveStart; !second.isAfter(saveEnd); second = second.plusSeconds(1)) {
+			for (String saveDirectory : saveDirectories) {
+				File file = new File(saveDirectory, FILE_PREFIX + second.format(formatter) + FILE_EXTENSION);
+				if (file.isFile()) {
+					savedFiles.add(file);
+				}
+			}
+		}
+		if (savedFiles.size() != 1) {
+			System.err.println((savedFiles.isEmpty() ? "No" : savedFiles.size()) + " files saved by SaveDataModel found in the save directories, system parameters are not cached");
+			return null;
+		}
+		return savedFiles.get(0);
+	}
+}
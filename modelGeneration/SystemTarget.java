@@ -0,0 +1,495 @@
+package modelGeneration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import designpatterns.DesignPatterns;
+import designpatterns.ResourceParameters;
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloRange;
+import modelGeneration.VariableKey.Direction;
+
+/**
+ * The Class SystemTarget.
+ *
+ * An energy target of the system: the energy of one carrier, summed over resources and time steps, is equal to,
+ * at least or at most the target value. Targets are read from the section "systemTargets" of the system parameters JSON:
+ *
+ * <pre>
+ * "systemTargets": [
+ *     {
+ *         "name": "coldWater",
+ *         "energyCarrier": "ColdWater",
+ *         "flow": "Output",
+ *         "resources": ["RefrigerationMachine1", "RefrigerationMachine2"],
+ *         "sense": "Eq",
+ *         "target": 12000,
+ *         "windowLengthInH": 0
+ *     }
+ * ]
+ * </pre>
+ *
+ * "flow" is Output (default) or Input, "sense" Eq (default), Ge or Le. Without "resources", all resources with the
+ * energy carrier as output (or input) are used. With "windowLengthInH" &gt; 0, the target applies to each window of that
+ * length, pro rata for a shorter last window; otherwise to the whole horizon.
+ * Each window is compiled into one flat IloLinearNumExpr and one IloRange.
+ */
+public class SystemTarget {
+
+	/** The Constant SECTION. */
+	public static final String SECTION = "systemTargets";
+
+	/** The name. */
+	private String name;
+
+	/** The energy carrier. */
+	private String energyCarrier;
+
+	/** The flow, Output or Input. */
+	private String flow = "Output";
+
+	/** The resources, empty for all resources of the energy carrier. */
+	private List<String> resources = new ArrayList<String>();
+
+	/** The sense, Eq, Ge or Le. */
+	private String sense = "Eq";
+
+	/** The target energy per window in kWh. */
+	private double target;
+
+	/** The window length in h, 0 for the whole horizon. */
+	private double windowLengthInH = 0;
+
+	/**
+	 * Reads the system targets of a system parameters JSON file.
+	 *
+	 * @param filePath the file path
+	 * @return the system targets, empty if the file has no section "systemTargets" or cannot be read
+	 * @throws IllegalArgumentException if the file is not valid JSON or a system target is invalid
+	 */
+	public static List<SystemTarget> readSystemTargets (String filePath) {
+		List<SystemTarget> systemTargets = new ArrayList<SystemTarget>();
+		try {
+			Object json = SimpleJson.read(filePath);
+			if (!(json instanceof Map) || !(((Map<?, ?>) json).get(SECTION) instanceof List)) {
+				return systemTargets;
+			}
+			for (Object entry : (List<?>) ((Map<?, ?>) json).get(SECTION)) {
+				systemTargets.add(fromJson((Map<?, ?>) entry));
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read system targets from " + filePath + ": " + e.getMessage());
+		}
+		return systemTargets;
+	}
+
+	/**
+	 * Creates a system target from its JSON object.
+	 *
+	 * @param json the json object
+	 * @return the system target
+	 */
+	static SystemTarget fromJson (Map<?, ?> json) {
+		SystemTarget systemTarget = new SystemTarget();
+		systemTarget.setName((String) json.get("name"));
+		systemTarget.setEnergyCarrier((String) json.get("energyCarrier"));
+		if (json.get("flow") != null) systemTarget.setFlow((String) json.get("flow"));
+		if (json.get("resources") != null) {
+			for (Object resource : (List<?>) json.get("resources")) {
+				systemTarget.getResources().add((String) resource);
+			}
+		}
+		if (json.get("sense") != null) systemTarget.setSense((String) json.get("sense"));
+		systemTarget.setTarget(((Number) json.get("target")).doubleValue());
+		if (json.get("windowLengthInH") != null) systemTarget.setWindowLengthInH(((Number) json.get("windowLengthInH")).doubleValue());
+		if (systemTarget.getName() == null) {
+			systemTarget.setName(systemTarget.getEnergyCarrier() + "-" + systemTarget.getFlow());
+		}
+		return systemTarget;
+	}
+
+	/**
+	 * Generates the constraints of all system targets of a model context and keeps them in the context.
+	 * Requires the model context to be bound.
+	 *
+	 * @param context the model context
+	 * @throws IloException the ilo exception
+	 */
+	public static void generateSystemTargets (ModelContext context) throws IloException {
+		VariableRegistry registry = context.registerDecisionVariables();
+		for (SystemTarget systemTarget : context.getSystemTargets()) {
+			context.getSystemTargetConstraints().put(systemTarget.getName(),
+					systemTarget.generateConstraints(context.getSystemParameters().getResourceParameters(), registry,
+							context.getTimeStepDurations(), context.getTimeStepWeights()));
+		}
+	}
+
+	/**
+	 * Generates the constraints of this target. Requires the model context to be bound.
+	 *
+	 * @param resourceParameters the resource parameters of the system
+	 * @return the constraints, one per window
+	 * @throws IloException the ilo exception
+	 */
+	public IloRange[] generateConstraints (List<ResourceParameters> resourceParameters) throws IloException {
+		return generateConstraints(resourceParameters, VariableRegistry.of(DesignPatterns.getDecisionVariablesVector()));
+	}
+
+	/**
+	 * Generates the constraints of this target with the decision variables of a variable registry. Requires the model
+	 * context to be bound.
+	 *
+	 * @param resourceParameters the resource parameters of the system
+	 * @param registry the variable registry
+	 * @return the constraints, one per window
+	 * @throws IloException the ilo exception
+	 */
+	public IloRange[] generateConstraints (List<ResourceParameters> resourceParameters, VariableRegistry registry) throws IloException {
+		return generateConstraints(resourceParameters, registry, null);
+	}
+
+	/**
+	 * Generates the constraints of this target with the decision variables of a variable registry, with weighted time
+	 * steps if the target applies to the whole horizon. Targets with windows are not weighted; their windows are meant
+	 * to lie within the representative periods of a TemporalAggregation. Requires the model context to be bound.
+	 *
+	 * @param resourceParameters the resource parameters of the system
+	 * @param registry the variable registry
+	 * @param timeStepWeights the weights of the time steps, null if every time step counts once
+	 * @return the constraints, one per window
+	 * @throws IloException the ilo exception
+	 */
+	public IloRange[] generateConstraints (List<ResourceParameters> resourceParameters, VariableRegistry registry, double[] timeStepWeights) throws IloException {
+		return generateConstraints(resourceParameters, registry, getUniformDurations(DesignPatterns.getArrayLength(), DesignPatterns.getTimeInterval()), timeStepWeights);
+	}
+
+	/**
+	 * Generates the constraints of this target with the decision variables of a variable registry for time steps of
+	 * individual durations, e.g. of a TimeGrid. Windows are formed by time; a time step belongs to the window of its
+	 * start. Requires the model context to be bound.
+	 *
+	 * @param resourceParameters the resource parameters of the system
+	 * @param registry the variable registry
+	 * @param durations the durations of the time steps in h
+	 * @param timeStepWeights the weights of the time steps, null if every time step counts once
+	 * @return the constraints, one per window
+	 * @throws IloException the ilo exception
+	 */
+	public IloRange[] generateConstraints (List<ResourceParameters> resourceParameters, VariableRegistry registry, double[] durations, double[] timeStepWeights) throws IloException {
+		List<IloNumVar[]> decisionVariables = getDecisionVariables(resourceParameters, registry);
+		int[] windowStarts = getWindowStarts(durations);
+
+		double[] coefficients = durations.clone();
+		if (timeStepWeights != null && windowStarts.length == 2) {
+			for (int timeStep = 0; timeStep < coefficients.length; timeStep++) {
+				coefficients[timeStep] *= timeStepWeights[timeStep];
+			}
+		}
+
+		IloRange[] constraints = new IloRange[windowStarts.length - 1];
+		for (int window = 0; window < constraints.length; window++) {
+			int start = windowStarts[window];
+			int length = windowStarts[window + 1] - start;
+			IloLinearNumExpr energy = DesignPatterns.getCplex().linearNumExpr();
+			for (IloNumVar[] decisionVariable : decisionVariables) {
+				energy.addTerms(coefficients, decisionVariable, start, length);
+			}
+			double[] bounds = getBounds(durations, start, length);
+			constraints[window] = DesignPatterns.getCplex().addRange(bounds[0], energy, bounds[1], name + "_" + window);
+		}
+		return constraints;
+	}
+
+	/**
+	 * Updates the bounds of the constraints generated by generateConstraints() to the current target and sense.
+	 *
+	 * @param constraints the constraints
+	 * @param arrayLength the array length the constraints were generated for
+	 * @param timeInterval the time interval the constraints were generated for
+	 * @throws IloException the ilo exception
+	 */
+	public void updateConstraints (IloRange[] constraints, int arrayLength, double timeInterval) throws IloException {
+		updateConstraints(constraints, getUniformDurations(arrayLength, timeInterval));
+	}
+
+	/**
+	 * Updates the bounds of the constraints generated by generateConstraints() to the current target and sense.
+	 *
+	 * @param constraints the constraints
+	 * @param durations the durations of the time steps the constraints were generated for
+	 * @throws IloException the ilo exception
+	 */
+	public void updateConstraints (IloRange[] constraints, double[] durations) throws IloException {
+		int[] windowStarts = getWindowStarts(durations);
+		for (int window = 0; window < constraints.length; window++) {
+			double[] bounds = getBounds(durations, windowStarts[window], windowStarts[window + 1] - windowStarts[window]);
+			constraints[window].setBounds(bounds[0], bounds[1]);
+		}
+	}
+
+	/**
+	 * Gets the durations of time steps of one time interval.
+	 *
+	 * @param arrayLength the array length
+	 * @param timeInterval the time interval
+	 * @return the durations
+	 */
+	private static double[] getUniformDurations (int arrayLength, double timeInterval) {
+		double[] durations = new double[arrayLength];
+		Arrays.fill(durations, timeInterval);
+		return durations;
+	}
+
+	/**
+	 * Gets the first time step of each window and, as last element, the number of time steps.
+	 *
+	 * @param durations the durations of the time steps
+	 * @return the window starts
+	 */
+	private int[] getWindowStarts (double[] durations) {
+		int[] windowStarts = new int[durations.length + 1];
+		int numberOfWindows = 0;
+		long currentWindow = -1;
+		double time = 0;
+		for (int timeStep = 0; timeStep < durations.length; timeStep++) {
+			// small offset against rounding of the accumulated time
+			long window = windowLengthInH > 0 ? (long) Math.floor(time/windowLengthInH + 1e-9) : 0;
+			if (window != currentWindow) {
+				windowStarts[numberOfWindows++] = timeStep;
+				currentWindow = window;
+			}
+			time += durations[timeStep];
+		}
+		windowStarts[numberOfWindows++] = durations.length;
+		return Arrays.copyOf(windowStarts, numberOfWindows);
+	}
+
+	/**
+	 * Gets the lower and upper bound of a window, pro rata for a window shorter than the window length.
+	 *
+	 * @param durations the durations of the time steps
+	 * @param start the first time step of the window
+	 * @param length the number of time steps of the window
+	 * @return the lower and upper bound
+	 */
+	private double[] getBounds (double[] durations, int start, int length) {
+		double windowTarget = target;
+		if (windowLengthInH > 0) {
+			double windowDuration = 0;
+			for (int timeStep = start; timeStep < start + length; timeStep++) {
+				windowDuration += durations[timeStep];
+			}
+			windowTarget = target * Math.min(1, windowDuration / windowLengthInH);
+		}
+		double lowerBound = sense.equalsIgnoreCase("Le") ? -Double.MAX_VALUE : windowTarget;
+		double upperBound = sense.equalsIgnoreCase("Ge") ? Double.MAX_VALUE : windowTarget;
+		return new double[] {lowerBound, upperBound};
+	}
+
+	/**
+	 * Gets the decision variables summed up by this target.
+	 *
+	 * @param resourceParameters the resource parameters of the system
+	 * @param registry the variable registry
+	 * @return the decision variables
+	 */
+	private List<IloNumVar[]> getDecisionVariables (List<ResourceParameters> resourceParameters, VariableRegistry registry) {
+		boolean output = !flow.equalsIgnoreCase("Input");
+		List<IloNumVar[]> decisionVariables = new ArrayList<IloNumVar[]>();
+		for (ResourceParameters resource : resourceParameters) {
+			if (!resources.isEmpty() && !resources.contains(resource.getName())) continue;
+
+			VariableKey key;
+			if (output) {
+				if (resources.isEmpty() && (energyCarrier == null || !energyCarrier.equalsIgnoreCase(resource.getEnergyCarrierOutput()))) continue;
+				key = getKey(registry, resource.getName(), Direction.OUTPUT, OptimizationModelRefrigeration.ONLYONE);
+			} else {
+				int input = indexOfEnergyCarrier(resource.getEnergyCarrierInputs());
+				if (resources.isEmpty() && input < 0) continue;
+				if (input < 0) {
+					throw new IllegalArgumentException("System target " + name + ": resource " + resource.getName() + " has no input of energy carrier " + energyCarrier);
+				}
+				key = getKey(registry, resource.getName(), Direction.INPUT, input);
+			}
+			IloNumVar[] decisionVariable = registry.find(key);
+			if (decisionVariable == null) {
+				throw new IllegalArgumentException("System target " + name + ": no decision variable " + registry.getName(key));
+			}
+			decisionVariables.add(decisionVariable);
+		}
+		if (decisionVariables.isEmpty() || (!resources.isEmpty() && decisionVariables.size() != resources.size())) {
+			throw new IllegalArgumentException("System target " + name + ": resources " + resources + " of energy carrier " + energyCarrier + " not found");
+		}
+		return decisionVariables;
+	}
+
+	/**
+	 * Gets the key of the power of a resource.
+	 *
+	 * @param registry the variable registry
+	 * @param resourceName the resource name
+	 * @param direction the direction
+	 * @param carrierIndex the energy carrier index
+	 * @return the key
+	 */
+	private VariableKey getKey (VariableRegistry registry, String resourceName, Direction direction, int carrierIndex) {
+		try {
+			return registry.key(resourceName, direction, carrierIndex, OptimizationModelRefrigeration.POWER);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("System target " + name + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the index of the energy carrier of this target in the inputs of a resource.
+	 *
+	 * @param energyCarrierInputs the energy carrier inputs
+	 * @return the index, -1 if not found
+	 */
+	private int indexOfEnergyCarrier (List<String> energyCarrierInputs) {
+		if (energyCarrierInputs == null || energyCarrier == null) return -1;
+		for (int i = 0; i < energyCarrierInputs.size(); i++) {
+			if (energyCarrier.equalsIgnoreCase(energyCarrierInputs.get(i))) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the name.
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Sets the name.
+	 *
+	 * @param name the new name
+	 */
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Gets the energy carrier.
+	 *
+	 * @return the energy carrier
+	 */
+	public String getEnergyCarrier() {
+		return energyCarrier;
+	}
+
+	/**
+	 * Sets the energy carrier.
+	 *
+	 * @param energyCarrier the new energy carrier
+	 */
+	public void setEnergyCarrier(String energyCarrier) {
+		this.energyCarrier = energyCarrier;
+	}
+
+	/**
+	 * Gets the flow.
+	 *
+	 * @return the flow
+	 */
+	public String getFlow() {
+		return flow;
+	}
+
+	/**
+	 * Sets the flow.
+	 *
+	 * @param flow the new flow, Output or Input
+	 * @throws IllegalArgumentException if the flow is neither Output nor Input
+	 */
+	public void setFlow(String flow) {
+		if (!"Output".equalsIgnoreCase(flow) && !"Input".equalsIgnoreCase(flow)) {
+			throw new IllegalArgumentException("System target " + name + ": unknown flow " + flow + ", expected Output or Input");
+		}
+		this.flow = flow;
+	}
+
+	/**
+	 * Gets the resources.
+	 *
+	 * @return the resources
+	 */
+	public List<String> getResources() {
+		return resources;
+	}
+
+	/**
+	 * Sets the resources.
+	 *
+	 * @param resources the new resources
+	 */
+	public void setResources(List<String> resources) {
+		this.resources = resources;
+	}
+
+	/**
+	 * Gets the sense.
+	 *
+	 * @return the sense
+	 */
+	public String getSense() {
+		return sense;
+	}
+
+	/**
+	 * Sets the sense.
+	 *
+	 * @param sense the new sense, Eq, Ge or Le
+	 * @throws IllegalArgumentException if the sense is not Eq, Ge or Le
+	 */
+	public void setSense(String sense) {
+		if (!"Eq".equalsIgnoreCase(sense) && !"Ge".equalsIgnoreCase(sense) && !"Le".equalsIgnoreCase(sense)) {
+			throw new IllegalArgumentException("System target " + name + ": unknown sense " + sense + ", expected Eq, Ge or Le");
+		}
+		this.sense = sense;
+	}
+
+	/**
+	 * Gets the target.
+	 *
+	 * @return the target
+	 */
+	public double getTarget() {
+		return target;
+	}
+
+	/**
+	 * Sets the target.
+	 *
+	 * @param target the new target
+	 */
+	public void setTarget(double target) {
+		this.target = target;
+	}
+
+	/**
+	 * Gets the window length in H.
+	 *
+	 * @return the window length in H
+	 */
+	public double getWindowLengthInH() {
+		return windowLengthInH;
+	}
+
+	/**
+	 * Sets the window length in H.
+	 *
+	 * @param windowLengthInH the new window length in H
+	 */
+	public void setWindowLengthInH(double windowLengthInH) {
+		this.windowLengthInH = windowLengthInH;
+	}
+}
@@ -0,0 +1,546 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import designpatterns.ResourceParameters;
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+import modelGeneration.VariableKey.Direction;
+
+/**
+ * The Class TemporalAggregation.
+ *
+ * Representative periods of a long horizon: the horizon is split into periods of equal length (e.g. days), the periods
+ * are clustered by their time series (e.g. electricity price and demand) with k-medoids, and each cluster is
+ * represented by its medoid, weighted with the number of periods of the cluster. The optimization model is built over
+ * the representative periods only, in chronological order of the medoids, and its results are mapped back to the
+ * full horizon.
+ *
+ * <pre>
+ * TemporalAggregation aggregation = TemporalAggregation.cluster(new double[][] {price, demand}, 192, 6);
+ * context.setArrayLength(aggregation.getNumberOfRepresentativeTimeSteps());
+ * context.setTimeStepWeights(aggregation.getTimeStepWeights());
+ * ModelTemplate template = ModelTemplate.compileRefrigeration(context);
+ * aggregation.addStorageLinking(context);
+ * template.setObjectiveCoefficients(aggregation.getObjectiveCoefficients(price, context.getTimeInterval()*0.001));
+ * ResultStore fullHorizon = aggregation.expand(template.solve(), context);
+ * </pre>
+ *
+ * Storages are linked across the original periods by one storage level per period: the level of the next period is the
+ * level of the period plus the change of the storage over its representative period, and the minimum and maximum
+ * within the representative period must stay within the storage capacity. The design patterns still connect
+ * consecutive representative periods, so ramp limits, holding durations and the storage balance of the first time
+ * step of a representative period refer to the last time step of the previous representative period.
+ *
+ * The state of charge of a time step is the level after the time step. The change over a representative period is
+ * therefore taken against the level before its first time step, the state of charge of the last time step of the
+ * previous representative period, so that the charge of the first time step is included. The first representative
+ * period has no preceding time step in the model; the storage balance of its first time step starts from the initial
+ * level of the design patterns, and its change is taken from its first time step.
+ */
+public class TemporalAggregation {
+
+	/** The maximum number of k-medoids iterations. */
+	static final int MAX_ITERATIONS = 100;
+
+	/** The period length in time steps. */
+	private final int periodLength;
+
+	/** The medoids, the original period of each representative period, in chronological order. */
+	private final int[] medoids;
+
+	/** The assignment, the representative period of each original period. */
+	private final int[] assignment;
+
+	/** The weights, the number of original periods of each representative period. */
+	private final double[] weights;
+
+	/** The storage levels at the start of each original period and at the end of the horizon, by storage. */
+	private final Map<String, IloNumVar[]> storageLevels = new LinkedHashMap<String, IloNumVar[]>();
+
+	/**
+	 * Instantiates a new temporal aggregation.
+	 *
+	 * @param periodLength the period length in time steps
+	 * @param medoids the original period of each representative period, in chronological order
+	 * @param assignment the representative period of each original period
+	 */
+	public TemporalAggregation(int periodLength, int[] medoids, int[] assignment) {
+		this.periodLength = periodLength;
+		this.medoids = medoids;
+		this.assignment = assignment;
+		this.weights = new double[medoids.length];
+		for (int representative : assignment) {
+			weights[representative]++;
+		}
+	}
+
+	/**
+	 * Clusters the periods of time series into representative periods with k-medoids. Each series is scaled to [0, 1],
+	 * so that all series contribute equally; periods are compared by their squared euclidean distance. A last period
+	 * shorter than the period length is not part of the horizon.
+	 *
+	 * @param series the time series of the full horizon, e.g. electricity price and demand, each at the temporal resolution of the model
+	 * @param periodLength the period length in time steps
+	 * @param numberOfRepresentativePeriods the number of representative periods
+	 * @return the temporal aggregation
+	 */
+	public static TemporalAggregation cluster (double[][] series, int periodLength, int numberOfRepresentativePeriods) {
+		int numberOfTimeSteps = Integer.MAX_VALUE;
+		for (double[] values : series) {
+			numberOfTimeSteps = Math.min(numberOfTimeSteps, values.length);
+		}
+		int numberOfPeriods = numberOfTimeSteps / periodLength;
+		if (numberOfPeriods < 1) {
+			throw new IllegalArgumentException("Time series of " + numberOfTimeSteps + " time steps are shorter than one period of " + periodLength);
+		}
+		if (numberOfTimeSteps % periodLength != 0) {
+			System.err.println((numberOfTimeSteps % periodLength) + " time steps after the last full period are not aggregated");
+		}
+		int k = Math.max(1, Math.min(numberOfRepresentativePeriods, numberOfPeriods));
+
+		double[][] features = getFeatures(series, periodLength, numberOfPeriods);
+		double[][] distances = new double[numberOfPeriods][numberOfPeriods];
+		for (int i = 0; i < numberOfPeriods; i++) {
+			for (int j = i + 1; j < numberOfPeriods; j++) {
+				double distance = 0;
+				for (int feature = 0; feature < features[i].length; feature++) {
+					double difference = features[i][feature] - features[j][feature];
+					distance += difference*difference;
+				}
+				distances[i][j] = distance;
+				distances[j][i] = distance;
+			}
+		}
+
+		int[] medoids = buildMedoids(distances, k);
+		int[] assignment = new int[numberOfPeriods];
+		for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+			assign(distances, medoids, assignment);
+			if (!updateMedoids(distances, medoids, assignment)) break;
+		}
+
+		// chronological order of the representative periods
+		int[] sortedMedoids = medoids.clone();
+		Arrays.sort(sortedMedoids);
+		assign(distances, sortedMedoids, assignment);
+		return new TemporalAggregation(periodLength, sortedMedoids, assignment);
+	}
+
+	/**
+	 * Gets the features of the periods: the values of all series, each scaled to [0, 1].
+	 *
+	 * @param series the series
+	 * @param periodLength the period length
+	 * @param numberOfPeriods the number of periods
+	 * @return the features, [period][series*periodLength + timeStep]
+	 */
+	private static double[][] getFeatures (double[][] series, int periodLength, int numberOfPeriods) {
+		double[][] features = new double[numberOfPeriods][series.length*periodLength];
+		for (int s = 0; s < series.length; s++) {
+			double min = Double.MAX_VALUE;
+			double max = -Double.MAX_VALUE;
+			for (int timeStep = 0; timeStep < numberOfPeriods*periodLength; timeStep++) {
+				min = Math.min(min, series[s][timeStep]);
+				max = Math.max(max, series[s][timeStep]);
+			}
+			double range = max > min ? max - min : 1;
+			for (int period = 0; period < numberOfPeriods; period++) {
+				for (int timeStep = 0; timeStep < periodLength; timeStep++) {
+					features[period][s*periodLength + timeStep] = (series[s][period*periodLength + timeStep] - min)/range;
+				}
+			}
+		}
+		return features;
+	}
+
+	/**
+	 * Selects the initial medoids greedily: each medoid is the period that reduces the total distance most.
+	 *
+	 * @param distances the distances
+	 * @param k the number of medoids
+	 * @return the medoids
+	 */
+	private static int[] buildMedoids (double[][] distances, int k) {
+		int numberOfPeriods = distances.length;
+		double[] nearest = new double[numberOfPeriods];
+		Arrays.fill(nearest, Double.MAX_VALUE);
+		boolean[] selected = new boolean[numberOfPeriods];
+		int[] medoids = new int[k];
+		for (int medoid = 0; medoid < k; medoid++) {
+			int best = -1;
+			double bestCost = Double.MAX_VALUE;
+			for (int candidate = 0; candidate < numberOfPeriods; candidate++) {
+				if (selected[candidate]) continue;
+				double cost = 0;
+				for (int period = 0; period < numberOfPeriods; period++) {
+					cost += Math.min(nearest[period], distances[candidate][period]);
+				}
+				if (cost < bestCost) {
+					bestCost = cost;
+					best = candidate;
+				}
+			}
+			selected[best] = true;
+			medoids[medoid] = best;
+			for (int period = 0; period < numberOfPeriods; period++) {
+				nearest[period] = Math.min(nearest[period], distances[best][period]);
+			}
+		}
+		return medoids;
+	}
+
+	/**
+	 * Assigns each period to its nearest medoid.
+	 *
+	 * @param distances the distances
+	 * @param medoids the medoids
+	 * @param assignment the assignment, written
+	 */
+	private static void assign (double[][] distances, int[] medoids, int[] assignment) {
+		for (int period = 0; period < distances.length; period++) {
+			int nearest = 0;
+			for (int medoid = 1; medoid < medoids.length; medoid++) {
+				if (distances[period][medoids[medoid]] < distances[period][medoids[nearest]]) {
+					nearest = medoid;
+				}
+			}
+			assignment[period] = nearest;
+		}
+	}
+
+	/**
+	 * Replaces each medoid by the period of its cluster with the least total distance to the cluster.
+	 *
+	 * @param distances the distances
+	 * @param medoids the medoids, updated
+	 * @param assignment the assignment
+	 * @return true, if a medoid changed
+	 */
+	private static boolean updateMedoids (double[][] distances, int[] medoids, int[] assignment) {
+		boolean changed = false;
+		for (int medoid = 0; medoid < medoids.length; medoid++) {
+			int best = medoids[medoid];
+			double bestCost = Double.MAX_VALUE;
+			for (int candidate = 0; candidate < distances.length; candidate++) {
+				if (assignment[candidate] != medoid) continue;
+				double cost = 0;
+				for (int period = 0; period < distances.length; period++) {
+					if (assignment[period] == medoid) cost += distances[candidate][period];
+				}
+				if (cost < bestCost) {
+					bestCost = cost;
+					best = candidate;
+				}
+			}
+			if (best != medoids[medoid]) {
+				medoids[medoid] = best;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Gets the time series of the representative periods, concatenated in chronological order.
+	 *
+	 * @param series the time series of the full horizon
+	 * @return the representative time series, getNumberOfRepresentativeTimeSteps() values
+	 */
+	public double[] getRepresentativeSeries (double[] series) {
+		double[] representativeSeries = new double[getNumberOfRepresentativeTimeSteps()];
+		for (int representative = 0; representative < medoids.length; representative++) {
+			System.arraycopy(series, medoids[representative]*periodLength, representativeSeries, representative*periodLength, periodLength);
+		}
+		return representativeSeries;
+	}
+
+	/**
+	 * Gets the weight of each time step of the representative periods.
+	 *
+	 * @return the time step weights
+	 */
+	public double[] getTimeStepWeights () {
+		double[] timeStepWeights = new double[getNumberOfRepresentativeTimeSteps()];
+		for (int representative = 0; representative < medoids.length; representative++) {
+			Arrays.fill(timeStepWeights, representative*periodLength, (representative + 1)*periodLength, weights[representative]);
+		}
+		return timeStepWeights;
+	}
+
+	/**
+	 * Gets the objective coefficients weight*factor*price of the representative periods.
+	 *
+	 * @param price the electricity price of the full horizon
+	 * @param factor the factor, e.g. time interval and unit conversion
+	 * @return the objective coefficients
+	 */
+	public double[] getObjectiveCoefficients (double[] price, double factor) {
+		double[] coefficients = getRepresentativeSeries(price);
+		double[] timeStepWeights = getTimeStepWeights();
+		for (int timeStep = 0; timeStep < coefficients.length; timeStep++) {
+			coefficients[timeStep] *= factor*timeStepWeights[timeStep];
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Adds the storage levels of the original periods and their constraints for all storages of the model. The model
+	 * must be built over the representative periods.
+	 *
+	 * @param context the model context
+	 * @throws IloException the ilo exception
+	 */
+	public void addStorageLinking (ModelContext context) throws IloException {
+		context.awaitBackgroundTasks();
+		VariableRegistry registry = context.getVariableRegistry();
+		for (ResourceParameters resourceParameters : context.getSystemParameters().getResourceParameters()) {
+			if (!resourceParameters.isStorage()) continue;
+			IloNumVar[] stateOfCharge = findStateOfCharge(registry, resourceParameters.getName());
+			if (stateOfCharge == null || stateOfCharge.length < getNumberOfRepresentativeTimeSteps()) {
+				System.err.println("No state of charge of storage " + resourceParameters.getName() + " over the representative periods, storage not linked");
+				continue;
+			}
+			storageLevels.put(resourceParameters.getName(), addStorageLinking(context.getCplex(), resourceParameters, stateOfCharge));
+		}
+	}
+
+	/**
+	 * Adds the storage levels of the original periods of one storage and their constraints.
+	 *
+	 * @param cplex the cplex instance
+	 * @param resourceParameters the resource parameters of the storage
+	 * @param stateOfCharge the state of charge over the representative periods
+	 * @return the storage levels at the start of each original period and at the end of the horizon
+	 * @throws IloException the ilo exception
+	 */
+	private IloNumVar[] addStorageLinking (IloCplex cplex, ResourceParameters resourceParameters, IloNumVar[] stateOfCharge) throws IloException {
+		String name = resourceParameters.getName();
+		double minimum = resourceParameters.getMinimumStorageCapacity();
+		double maximum = resourceParameters.getMaximumStorageCapacity();
+		double capacity = maximum - minimum;
+
+		// change and extremes of the state of charge within each representative period, relative to the level before it
+		IloNumVar[] maxDeviation = new IloNumVar[medoids.length];
+		IloNumVar[] minDeviation = new IloNumVar[medoids.length];
+		for (int representative = 0; representative < medoids.length; representative++) {
+			int start = representative*periodLength;
+			IloNumVar before = stateOfCharge[getLevelBeforeTimeStep(representative)];
+			maxDeviation[representative] = cplex.numVar(0, capacity, name + "-SOC-MaxDeviation-" + representative);
+			minDeviation[representative] = cplex.numVar(-capacity, 0, name + "-SOC-MinDeviation-" + representative);
+			for (int timeStep = start; timeStep < start + periodLength; timeStep++) {
+				if (stateOfCharge[timeStep] == before) continue;
+				IloLinearNumExpr deviation = cplex.linearNumExpr();
+				deviation.addTerm(1, stateOfCharge[timeStep]);
+				deviation.addTerm(-1, before);
+				deviation.addTerm(-1, maxDeviation[representative]);
+				cplex.addLe(deviation, 0);
+				deviation = cplex.linearNumExpr();
+				deviation.addTerm(1, stateOfCharge[timeStep]);
+				deviation.addTerm(-1, before);
+				deviation.addTerm(-1, minDeviation[representative]);
+				cplex.addGe(deviation, 0);
+			}
+		}
+
+		IloNumVar[] levels = new IloNumVar[assignment.length + 1];
+		for (int period = 0; period <= assignment.length; period++) {
+			levels[period] = cplex.numVar(minimum, maximum, name + "-SOC-Period-" + period);
+		}
+		for (int period = 0; period < assignment.length; period++) {
+			int representative = assignment[period];
+			int start = representative*periodLength;
+			// level of the next period = level + change over the representative period
+			IloLinearNumExpr balance = cplex.linearNumExpr();
+			balance.addTerm(1, levels[period + 1]);
+			balance.addTerm(-1, levels[period]);
+			balance.addTerm(-1, stateOfCharge[start + periodLength - 1]);
+			balance.addTerm(1, stateOfCharge[getLevelBeforeTimeStep(representative)]);
+			cplex.addEq(balance, 0, name + "-SOC-Linking-" + period);
+
+			IloLinearNumExpr upper = cplex.linearNumExpr();
+			upper.addTerm(1, levels[period]);
+			upper.addTerm(1, maxDeviation[representative]);
+			cplex.addLe(upper, maximum);
+			IloLinearNumExpr lower = cplex.linearNumExpr();
+			lower.addTerm(1, levels[period]);
+			lower.addTerm(1, minDeviation[representative]);
+			cplex.addGe(lower, minimum);
+		}
+		// cyclic over the horizon
+		IloLinearNumExpr cycle = cplex.linearNumExpr();
+		cycle.addTerm(1, levels[assignment.length]);
+		cycle.addTerm(-1, levels[0]);
+		cplex.addEq(cycle, 0, name + "-SOC-Cycle");
+		return levels;
+	}
+
+	/**
+	 * Gets the time step whose state of charge is the level before a representative period: the last time step of the
+	 * previous representative period, or the first time step for the first representative period.
+	 *
+	 * @param representative the representative period
+	 * @return the time step
+	 */
+	private int getLevelBeforeTimeStep (int representative) {
+		return representative == 0 ? 0 : representative*periodLength - 1;
+	}
+
+	/**
+	 * Finds the state of charge of a storage.
+	 *
+	 * @param registry the variable registry
+	 * @param nameOfResource the name of the storage
+	 * @return the state of charge, null if the storage has none
+	 */
+	private static IloNumVar[] findStateOfCharge (VariableRegistry registry, String nameOfResource) {
+		try {
+			return registry.find(registry.key(nameOfResource, Direction.NONE, OptimizationModelRefrigeration.ONLYONE, OptimizationModelRefrigeration.SOC));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Expands values of the representative periods to the full horizon.
+	 *
+	 * @param representativeValues the values of the representative periods, at least getNumberOfRepresentativeTimeSteps()
+	 * @return the values of the full horizon, getNumberOfTimeSteps() values
+	 */
+	public double[] expand (double[] representativeValues) {
+		double[] values = new double[getNumberOfTimeSteps()];
+		for (int period = 0; period < assignment.length; period++) {
+			System.arraycopy(representativeValues, assignment[period]*periodLength, values, period*periodLength, periodLength);
+		}
+		return values;
+	}
+
+	/**
+	 * Expands the results of the model over the representative periods to the full horizon. The state of charge of
+	 * linked storages is the storage level of the original period plus the deviation within its representative period
+	 * from the level before it.
+	 *
+	 * @param optimizationResults the results of the representative periods
+	 * @param context the model context, solved
+	 * @return the results of the full horizon
+	 * @throws IloException the ilo exception
+	 */
+	public ResultStore expand (ResultStore optimizationResults, ModelContext context) throws IloException {
+		Map<String, double[]> levelsByColumn = new LinkedHashMap<String, double[]>();
+		VariableRegistry registry = context.getVariableRegistry();
+		for (Entry<String, IloNumVar[]> storage : storageLevels.entrySet()) {
+			IloNumVar[] stateOfCharge = findStateOfCharge(registry, storage.getKey());
+			for (Entry<String, IloNumVar[]> decisionVariableSet : context.getDecisionVariablesVector().entrySet()) {
+				if (decisionVariableSet.getValue() == stateOfCharge) {
+					levelsByColumn.put(decisionVariableSet.getKey(), context.getCplex().getValues(storage.getValue()));
+				}
+			}
+		}
+
+		ResultStore expandedResults = new ResultStore();
+		List<String> notExpanded = new ArrayList<String>();
+		for (int column = 0; column < optimizationResults.getNumberOfColumns(); column++) {
+			String variableName = optimizationResults.getVariableName(column);
+			double[] representativeValues = optimizationResults.getColumn(column);
+			if (representativeValues.length < getNumberOfRepresentativeTimeSteps()) {
+				notExpanded.add(variableName);
+				expandedResults.addColumn(variableName, representativeValues);
+				continue;
+			}
+			double[] values = expand(representativeValues);
+			double[] levels = levelsByColumn.get(variableName);
+			if (levels != null) {
+				for (int period = 0; period < assignment.length; period++) {
+					double offset = levels[period] - representativeValues[getLevelBeforeTimeStep(assignment[period])];
+					for (int timeStep = period*periodLength; timeStep < (period + 1)*periodLength; timeStep++) {
+						values[timeStep] += offset;
+					}
+				}
+			}
+			expandedResults.addColumn(variableName, values);
+		}
+		if (!notExpanded.isEmpty()) {
+			System.err.println("Results not over the representative periods, not expanded: " + notExpanded);
+		}
+		return expandedResults;
+	}
+
+	/**
+	 * Gets the period length.
+	 *
+	 * @return the period length in time steps
+	 */
+	public int getPeriodLength() {
+		return periodLength;
+	}
+
+	/**
+	 * Gets the number of original periods.
+	 *
+	 * @return the number of periods
+	 */
+	public int getNumberOfPeriods() {
+		return assignment.length;
+	}
+
+	/**
+	 * Gets the number of representative periods.
+	 *
+	 * @return the number of representative periods
+	 */
+	public int getNumberOfRepresentativePeriods() {
+		return medoids.length;
+	}
+
+	/**
+	 * Gets the number of time steps of the full horizon.
+	 *
+	 * @return the number of time steps
+	 */
+	public int getNumberOfTimeSteps() {
+		return assignment.length*periodLength;
+	}
+
+	/**
+	 * Gets the number of time steps of the representative periods, the array length of the model.
+	 *
+	 * @return the number of representative time steps
+	 */
+	public int getNumberOfRepresentativeTimeSteps() {
+		return medoids.length*periodLength;
+	}
+
+	/**
+	 * Gets the medoids.
+	 *
+	 * @return the original period of each representative period
+	 */
+	public int[] getMedoids() {
+		return medoids;
+	}
+
+	/**
+	 * Gets the assignment.
+	 *
+	 * @return the representative period of each original period
+	 */
+	public int[] getAssignment() {
+		return assignment;
+	}
+
+	/**
+	 * Gets the weights.
+	 *
+	 * @return the number of original periods of each representative period
+	 */
+	public double[] getWeights() {
+		return weights;
+	}
+}
@@ -0,0 +1,241 @@
+package modelGeneration;
+
+import java.util.Arrays;
+
+/**
+ * The Class TimeGrid.
+ *
+ * A time grid with a duration per time step, e.g. 7.5 min for the first hours of a model predictive control horizon
+ * and 1 h afterwards. For the same horizon, the model has fewer time steps than with the finest duration throughout.
+ *
+ * <pre>
+ * context.setTimeGrid(TimeGrid.twoLevel(0.125, 2, 1, 24)); // 16 steps of 7.5 min, 22 steps of 1 h
+ * </pre>
+ *
+ * The durations are used by the code of this package: the objective coefficients (price averaged over each time step
+ * times its duration), the system targets (energy = power times duration, windows by time) and the results (columns of
+ * start and duration of each time step). DesignPatterns only supports one time interval, so it is set to the finest
+ * duration, and its storage balances, holding durations and ramp limits apply per time step of that interval: on coarse
+ * time steps, the energy of a storage is underestimated, a minimum or maximum holding duration of N time steps becomes
+ * N coarse time steps and a ramp limit applies to the change over a coarse time step. ModelContext.setTimeGrid()
+ * therefore rejects time grids with different durations for systems in which these constraints can bind, see
+ * ModelContext.checkTimeGrid(); such systems are modeled with a uniform time grid.
+ */
+public class TimeGrid {
+
+	/** The durations of the time steps in h. */
+	private final double[] durations;
+
+	/** The start of each time step in h since the start of the horizon, and the end of the horizon. */
+	private final double[] startTimes;
+
+	/**
+	 * Instantiates a new time grid.
+	 *
+	 * @param durations the durations of the time steps in h
+	 */
+	public TimeGrid(double[] durations) {
+		this.durations = durations.clone();
+		this.startTimes = new double[durations.length + 1];
+		for (int timeStep = 0; timeStep < durations.length; timeStep++) {
+			if (!(durations[timeStep] > 0)) {
+				throw new IllegalArgumentException("Duration of time step " + timeStep + " is not positive: " + durations[timeStep]);
+			}
+			startTimes[timeStep + 1] = startTimes[timeStep] + durations[timeStep];
+		}
+	}
+
+	/**
+	 * Creates a uniform time grid.
+	 *
+	 * @param timeInterval the time interval in h
+	 * @param numberOfTimeSteps the number of time steps
+	 * @return the time grid
+	 */
+	public static TimeGrid uniform (double timeInterval, int numberOfTimeSteps) {
+		double[] durations = new double[numberOfTimeSteps];
+		Arrays.fill(durations, timeInterval);
+		return new TimeGrid(durations);
+	}
+
+	/**
+	 * Creates a time grid with fine time steps up to a fine horizon and coarse time steps up to the horizon.
+	 * The coarse time interval is rounded to a multiple of the fine time interval; the last coarse time step may end after the horizon.
+	 *
+	 * @param fineTimeInterval the fine time interval in h
+	 * @param fineHorizonInH the fine horizon in h
+	 * @param coarseTimeInterval the coarse time interval in h
+	 * @param horizonInH the horizon in h
+	 * @return the time grid
+	 */
+	public static TimeGrid twoLevel (double fineTimeInterval, double fineHorizonInH, double coarseTimeInterval, double horizonInH) {
+		int numberOfFineTimeSteps = (int) Math.round(Math.min(fineHorizonInH, horizonInH)/fineTimeInterval);
+		int fineStepsPerCoarseStep = Math.max(1, (int) Math.round(coarseTimeInterval/fineTimeInterval));
+		int remainingFineTimeSteps = Math.max(0, (int) Math.round(horizonInH/fineTimeInterval) - numberOfFineTimeSteps);
+		int numberOfCoarseTimeSteps = (remainingFineTimeSteps + fineStepsPerCoarseStep - 1) / fineStepsPerCoarseStep;
+		double[] durations = new double[numberOfFineTimeSteps + numberOfCoarseTimeSteps];
+		Arrays.fill(durations, 0, numberOfFineTimeSteps, fineTimeInterval);
+		Arrays.fill(durations, numberOfFineTimeSteps, durations.length, fineStepsPerCoarseStep*fineTimeInterval);
+		return new TimeGrid(durations);
+	}
+
+	/**
+	 * Averages a series of a uniform resolution over each time step.
+	 *
+	 * @param series the series, e.g. the electricity price
+	 * @param resolution the resolution of the series in h
+	 * @param offset the index of the series at the start of the horizon
+	 * @return the average per time step
+	 * @throws IllegalArgumentException if the time steps exceed the series
+	 */
+	public double[] average (double[] series, double resolution, int offset) {
+		return average(series, resolution, offset, false);
+	}
+
+	/**
+	 * Averages a series of a uniform resolution over each time step.
+	 *
+	 * @param series the series, e.g. the electricity price
+	 * @param resolution the resolution of the series in h
+	 * @param offset the index of the series at the start of the horizon
+	 * @param repeat whether the series is repeated if the time steps exceed it
+	 * @return the average per time step
+	 * @throws IllegalArgumentException if the time steps exceed the series and it is not repeated
+	 */
+	public double[] average (double[] series, double resolution, int offset, boolean repeat) {
+		int numberOfValues = (int) Math.ceil(getHorizonInH()/resolution - 1e-9);
+		if (!repeat && offset + numberOfValues > series.length) {
+			throw new IllegalArgumentException("Horizon of " + numberOfValues + " values from " + offset
+					+ " exceeds the series of " + series.length + " values");
+		}
+		double[] averages = new double[durations.length];
+		for (int timeStep = 0; timeStep < durations.length; timeStep++) {
+			// overlap of [start, end) with the intervals of the series
+			double start = startTimes[timeStep]/resolution;
+			double end = startTimes[timeStep + 1]/resolution;
+			double sum = 0;
+			for (int index = (int) Math.floor(start + 1e-9); index < end - 1e-9; index++) {
+				double overlap = Math.min(end, index + 1) - Math.max(start, index);
+				sum += overlap*series[(offset + index) % series.length];
+			}
+			averages[timeStep] = sum/(end - start);
+		}
+		return averages;
+	}
+
+	/**
+	 * Gets objective coefficients factor*duration*average price for each time step.
+	 *
+	 * @param price the electricity price
+	 * @param resolution the resolution of the price in h
+	 * @param factor the factor, e.g. unit conversion
+	 * @param offset the index of the price at the start of the horizon
+	 * @return the objective coefficients
+	 * @throws IllegalArgumentException if the time steps exceed the price
+	 */
+	public double[] getObjectiveCoefficients (double[] price, double resolution, double factor, int offset) {
+		return getObjectiveCoefficients(price, resolution, factor, offset, false);
+	}
+
+	/**
+	 * Gets objective coefficients factor*duration*average price for each time step.
+	 *
+	 * @param price the electricity price
+	 * @param resolution the resolution of the price in h
+	 * @param factor the factor, e.g. unit conversion
+	 * @param offset the index of the price at the start of the horizon
+	 * @param repeat whether the price is repeated if the time steps exceed it
+	 * @return the objective coefficients
+	 * @throws IllegalArgumentException if the time steps exceed the price and it is not repeated
+	 */
+	public double[] getObjectiveCoefficients (double[] price, double resolution, double factor, int offset, boolean repeat) {
+		double[] coefficients = average(price, resolution, offset, repeat);
+		for (int timeStep = 0; timeStep < coefficients.length; timeStep++) {
+			coefficients[timeStep] *= factor*durations[timeStep];
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Adds the columns start and duration of each time step in h to results of a model on this grid.
+	 *
+	 * @param optimizationResults the optimization results
+	 */
+	public void addTimeColumns (ResultStore optimizationResults) {
+		optimizationResults.addColumn("TimeStepStart", Arrays.copyOf(startTimes, durations.length));
+		optimizationResults.addColumn("TimeStepDuration", durations.clone());
+	}
+
+	/**
+	 * Gets the number of time steps.
+	 *
+	 * @return the number of time steps
+	 */
+	public int size () {
+		return durations.length;
+	}
+
+	/**
+	 * Gets the duration of a time step.
+	 *
+	 * @param timeStep the time step
+	 * @return the duration in h
+	 */
+	public double getDuration (int timeStep) {
+		return durations[timeStep];
+	}
+
+	/**
+	 * Gets the durations of all time steps.
+	 *
+	 * @return the durations in h, not to be modified
+	 */
+	public double[] getDurations () {
+		return durations;
+	}
+
+	/**
+	 * Gets the start of a time step.
+	 *
+	 * @param timeStep the time step, size() for the end of the horizon
+	 * @return the start in h since the start of the horizon
+	 */
+	public double getStartTime (int timeStep) {
+		return startTimes[timeStep];
+	}
+
+	/**
+	 * Gets the finest duration.
+	 *
+	 * @return the finest duration in h
+	 */
+	public double getFinestTimeInterval () {
+		double finest = Double.MAX_VALUE;
+		for (double duration : durations) {
+			finest = Math.min(finest, duration);
+		}
+		return finest;
+	}
+
+	/**
+	 * Checks whether all time steps have the same duration.
+	 *
+	 * @return true, if the time grid is uniform
+	 */
+	public boolean isUniform () {
+		double finest = getFinestTimeInterval();
+		for (double duration : durations) {
+			if (duration > finest + 1e-9) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the horizon.
+	 *
+	 * @return the horizon in h
+	 */
+	public double getHorizonInH () {
+		return startTimes[durations.length];
+	}
+}
@@ -0,0 +1,329 @@
+package modelGeneration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The Class TimeSeriesLoader.
+ *
+ * Loads single-column CSV files of numerical values into a double[]. The file is memory-mapped and parsed byte by byte
+ * into a growable primitive array, without creating a String or Double per line. Malformed lines and empty lines
+ * followed by a value are replaced by NaN, so that the values stay aligned with the other files of a data set, and
+ * are reported on System.err; empty lines at the end of the file are skipped.
+ * Files too long to be held in memory are read chunk by chunk with a ChunkReader.
+ */
+public class TimeSeriesLoader {
+
+	/** The size of the regions the file is mapped in. */
+	static final long MAPPING_SIZE = 1L << 30;
+
+	/** The maximum number of malformed lines reported individually per file. */
+	static final int MAX_REPORTED_LINES = 10;
+
+	/** Exactly representable powers of ten. */
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	/** The file path. */
+	private final String filePath;
+
+	/** The bytes of the current line. */
+	private byte[] line = new byte[64];
+
+	/** The length of the current line. */
+	private int lineLength = 0;
+
+	/** The number of the current line, starting at 1. */
+	private long lineNumber = 0;
+
+	/** The values. */
+	private double[] values = new double[1024];
+
+	/** The number of values. */
+	private int size = 0;
+
+	/** The maximum number of values of the current call. */
+	private int limit = Integer.MAX_VALUE;
+
+	/** The number of malformed lines. */
+	private int malformedLines = 0;
+
+	/** The number of empty lines not yet added, added as NaN once a value follows. */
+	private int emptyLines = 0;
+
+	/** The value following empty lines, not yet added since the limit was reached. */
+	private double pendingValue;
+
+	/** Whether a value is pending. */
+	private boolean hasPendingValue = false;
+
+	/**
+	 * The Class ChunkReader.
+	 *
+	 * Reads a single-column CSV file in chunks into a caller-provided double[], so that files of any length are read
+	 * in bounded memory.
+	 */
+	public static class ChunkReader implements Closeable {
+
+		/** The loader parsing the file. */
+		private final TimeSeriesLoader loader;
+
+		/** The channel. */
+		private final FileChannel channel;
+
+		/** The file size. */
+		private final long fileSize;
+
+		/** The position of the next region to map. */
+		private long position = 0;
+
+		/** The current region. */
+		private MappedByteBuffer buffer;
+
+		/** Whether the end of the file is reached. */
+		private boolean finished = false;
+
+		/**
+		 * Instantiates a new chunk reader.
+		 *
+		 * @param filePath the file path
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		private ChunkReader(String filePath) throws IOException {
+			this.loader = new TimeSeriesLoader(filePath);
+			this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+			this.fileSize = channel.size();
+		}
+
+		/**
+		 * Reads the next values into the target.
+		 *
+		 * @param target the target, filled from index 0
+		 * @return the number of values read, -1 at the end of the file
+		 * @throws IOException Signals that an I/O exception has occurred.
+		 */
+		public int read (double[] target) throws IOException {
+			loader.values = target;
+			loader.size = 0;
+			loader.limit = target.length;
+			loader.addPending();
+			while (loader.size < target.length) {
+				if (buffer == null || !buffer.hasRemaining()) {
+					if (position >= fileSize) {
+						if (!finished) {
+							finished = true;
+							loader.endOfLine();
+						}
+						break;
+					}
+					buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPING_SIZE, fileSize - position));
+					position += buffer.capacity();
+				}
+				loader.parse(buffer, target.length);
+			}
+			return loader.size == 0 && finished ? -1 : loader.size;
+		}
+
+		@Override
+		public void close () throws IOException {
+			channel.close();
+			if (loader.malformedLines > 0) {
+				System.err.println(loader.malformedLines + " malformed lines replaced by NaN in " + loader.filePath);
+			}
+		}
+	}
+
+	/**
+	 * Instantiates a new time series loader.
+	 *
+	 * @param filePath the file path
+	 */
+	private TimeSeriesLoader(String filePath) {
+		this.filePath = filePath;
+	}
+
+	/**
+	 * Loads a time series.
+	 *
+	 * @param filePath the file path
+	 * @return the values, in the order of the file
+	 */
+	public static double[] load (String filePath) {
+		TimeSeriesLoader loader = new TimeSeriesLoader(filePath);
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			loader.values = new double[(int) Math.max(16, Math.min(Integer.MAX_VALUE - 8, fileSize/6))];
+			for (long position = 0; position < fileSize; position += MAPPING_SIZE) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAPPING_SIZE, fileSize - position));
+				loader.parse(buffer);
+			}
+			loader.endOfLine();
+		} catch (IOException e) {
+			System.err.println("Could not read time series " + filePath + ": " + e.getMessage());
+		}
+		if (loader.malformedLines > 0) {
+			System.err.println(loader.malformedLines + " malformed lines replaced by NaN in " + filePath);
+		}
+		return Arrays.copyOf(loader.values, loader.size);
+	}
+
+	/**
+	 * Opens a file to be read in chunks.
+	 *
+	 * @param filePath the file path
+	 * @return the chunk reader
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static ChunkReader open (String filePath) throws IOException {
+		return new ChunkReader(filePath);
+	}
+
+	/**
+	 * Parses a region of the file. Lines may continue across regions.
+	 *
+	 * @param buffer the buffer
+	 */
+	private void parse (MappedByteBuffer buffer) {
+		parse(buffer, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Parses a region of the file until it is consumed or limit values are parsed.
+	 *
+	 * @param buffer the buffer
+	 * @param limit the maximum number of values
+	 */
+	private void parse (MappedByteBuffer buffer, int limit) {
+		this.limit = limit;
+		while (size < limit && buffer.hasRemaining()) {
+			byte b = buffer.get();
+			if (b == '\n') {
+				endOfLine();
+			} else {
+				if (lineLength == line.length) {
+					line = Arrays.copyOf(line, 2*lineLength);
+				}
+				line[lineLength++] = b;
+			}
+		}
+	}
+
+	/**
+	 * Parses the current line and adds its value.
+	 */
+	private void endOfLine () {
+		lineNumber++;
+		int start = 0;
+		int end = lineLength;
+		lineLength = 0;
+		while (start < end && line[start] <= ' ') start++;
+		while (end > start && line[end-1] <= ' ') end--;
+		if (start == end) {
+			emptyLines++;
+			return;
+		}
+
+		double value = parseValue(line, start, end);
+		if (Double.isNaN(value)) {
+			String text = new String(line, start, end-start, StandardCharsets.UTF_8);
+			try {
+				value = Double.parseDouble(text);
+			} catch (NumberFormatException e) {
+				malformedLines++;
+				if (malformedLines <= MAX_REPORTED_LINES) {
+					System.err.println("Malformed value in " + filePath + " at line " + lineNumber + " replaced by NaN: " + text);
+				}
+				value = Double.NaN;
+			}
+		}
+		pendingValue = value;
+		hasPendingValue = true;
+		addPending();
+	}
+
+	/**
+	 * Adds the empty lines preceding the pending value as NaN and the pending value, up to the limit.
+	 */
+	private void addPending () {
+		while (hasPendingValue && size < limit) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, 2*size);
+			}
+			if (emptyLines > 0) {
+				emptyLines--;
+				malformedLines++;
+				values[size++] = Double.NaN;
+			} else {
+				hasPendingValue = false;
+				values[size++] = pendingValue;
+			}
+		}
+	}
+
+	/**
+	 * Parses a decimal number of the form [+-]digits[.digits][(e|E)[+-]digits]. The result is correctly rounded,
+	 * since it is computed from an exact mantissa and an exact power of ten.
+	 *
+	 * @param bytes the bytes
+	 * @param start the start
+	 * @param end the end
+	 * @return the value, NaN if the number is not of that form or not exactly computable and has to be parsed with Double.parseDouble()
+	 */
+	static double parseValue (byte[] bytes, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (bytes[i] == '-' || bytes[i] == '+') {
+			negative = bytes[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean hasDigits = false;
+		for (; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+			hasDigits = true;
+			if (mantissa != 0 || bytes[i] != '0') {
+				mantissa = 10*mantissa + (bytes[i] - '0');
+				digits++;
+			}
+		}
+		if (i < end && bytes[i] == '.') {
+			for (i++; i < end && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+				hasDigits = true;
+				if (mantissa != 0 || bytes[i] != '0') {
+					mantissa = 10*mantissa + (bytes[i] - '0');
+					digits++;
+				}
+				exponent--;
+			}
+		}
+		if (!hasDigits || digits > 15) return Double.NaN;
+		if (i < end && (bytes[i] == 'e' || bytes[i] == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+				negativeExponent = bytes[i] == '-';
+				i++;
+			}
+			int explicitExponent = 0;
+			boolean hasExponentDigits = false;
+			for (; i < end && bytes[i] >= '0' && bytes[i] <= '9' && explicitExponent < 1000; i++) {
+				hasExponentDigits = true;
+				explicitExponent = 10*explicitExponent + (bytes[i] - '0');
+			}
+			if (!hasExponentDigits) return Double.NaN;
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		if (i != end || exponent < -22 || exponent > 22) return Double.NaN;
+
+		double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+		return negative ? -value : value;
+	}
+}
@@ -0,0 +1,234 @@
+package modelGeneration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Class TimeSeriesRepository.
+ *
+ * Cache of time series loaded with TimeSeriesLoader, keyed by canonical file path. An entry is reloaded when the
+ * modification time or size of its file changes. When the cached values exceed the memory budget, the least recently
+ * used entries are evicted. The shared instance is used by validation, model generation and optimization.
+ * Callers get a copy of the cached values with get() or a read-only view with getReadOnly(), so that no caller can
+ * modify the values seen by the others.
+ */
+public class TimeSeriesRepository {
+
+	/** The Constant DEFAULT_MEMORY_BUDGET, in bytes. */
+	public static final long DEFAULT_MEMORY_BUDGET = 256L << 20;
+
+	/** The shared repository. */
+	private static final TimeSeriesRepository SHARED = new TimeSeriesRepository(DEFAULT_MEMORY_BUDGET);
+
+	/** The entries by canonical file path, in order of access. */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	/** The memory budget, in bytes. */
+	private long memoryBudget;
+
+	/** The memory used by the cached values, in bytes. */
+	private long memoryUsed = 0;
+
+	/**
+	 * The Class Entry.
+	 */
+	private static class Entry {
+
+		/** The last modified time of the file when loaded. */
+		final long lastModified;
+
+		/** The size of the file when loaded. */
+		final long fileSize;
+
+		/** The values. */
+		final double[] values;
+
+		/**
+		 * Instantiates a new entry.
+		 *
+		 * @param lastModified the last modified
+		 * @param fileSize the file size
+		 * @param values the values
+		 */
+		Entry(long lastModified, long fileSize, double[] values) {
+			this.lastModified = lastModified;
+			this.fileSize = fileSize;
+			this.values = values;
+		}
+
+		/**
+		 * Gets the memory used by the values, in bytes.
+		 *
+		 * @return the memory used
+		 */
+		long getMemoryUsed() {
+			return 8L*values.length;
+		}
+	}
+
+	/**
+	 * Instantiates a new time series repository.
+	 *
+	 * @param memoryBudget the memory budget, in bytes
+	 */
+	public TimeSeriesRepository(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	/**
+	 * Gets the shared repository.
+	 *
+	 * @return the shared repository
+	 */
+	public static TimeSeriesRepository getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Gets a time series, loading it if it is not cached or its file has changed.
+	 *
+	 * @param filePath the file path
+	 * @return a copy of the values
+	 */
+	public double[] get (String filePath) {
+		return getValues(filePath).clone();
+	}
+
+	/**
+	 * Gets a read-only view of a time series, loading it if it is not cached or its file has changed.
+	 *
+	 * @param filePath the file path
+	 * @return the values, position 0 and limit the number of values
+	 */
+	public DoubleBuffer getReadOnly (String filePath) {
+		return DoubleBuffer.wrap(getValues(filePath)).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Gets the cached values of a time series, loading it if it is not cached or its file has changed.
+	 *
+	 * @param filePath the file path
+	 * @return the values, shared between all callers
+	 */
+	private synchronized double[] getValues (String filePath) {
+		File file = new File(filePath);
+		String key = getKey(file);
+		long lastModified = file.lastModified();
+		long fileSize = file.length();
+
+		Entry entry = entries.get(key);
+		if (entry != null && entry.lastModified == lastModified && entry.fileSize == fileSize) {
+			return entry.values;
+		}
+		if (entry != null) {
+			remove(key);
+		}
+
+		double[] values = TimeSeriesLoader.load(filePath);
+		entry = new Entry(lastModified, fileSize, values);
+		entries.put(key, entry);
+		memoryUsed += entry.getMemoryUsed();
+		evict(key);
+		return values;
+	}
+
+	/**
+	 * Removes a time series from the cache.
+	 *
+	 * @param filePath the file path
+	 */
+	public synchronized void invalidate (String filePath) {
+		remove(getKey(new File(filePath)));
+	}
+
+	/**
+	 * Removes all time series from the cache.
+	 */
+	public synchronized void clear () {
+		entries.clear();
+		memoryUsed = 0;
+	}
+
+	/**
+	 * Removes an entry.
+	 *
+	 * @param key the key
+	 */
+	private void remove (String key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			memoryUsed -= entry.getMemoryUsed();
+		}
+	}
+
+	/**
+	 * Evicts the least recently used entries until the memory budget is met. The most recently loaded entry is kept
+	 * even if it alone exceeds the budget.
+	 *
+	 * @param keptKey the key of the entry that is kept
+	 */
+	private void evict (String keptKey) {
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (memoryUsed > memoryBudget && iterator.hasNext()) {
+			Map.Entry<String, Entry> leastRecentlyUsed = iterator.next();
+			if (leastRecentlyUsed.getKey().equals(keptKey)) continue;
+			memoryUsed -= leastRecentlyUsed.getValue().getMemoryUsed();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Gets the key of a file, its canonical path if it can be resolved.
+	 *
+	 * @param file the file
+	 * @return the key
+	 */
+	private static String getKey (File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
+	/**
+	 * Gets the number of cached time series.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the memory used by the cached values, in bytes.
+	 *
+	 * @return the memory used
+	 */
+	public synchronized long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	/**
+	 * Gets the memory budget, in bytes.
+	 *
+	 * @return the memory budget
+	 */
+	public synchronized long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	/**
+	 * Sets the memory budget, in bytes, and evicts entries exceeding it.
+	 *
+	 * @param memoryBudget the new memory budget
+	 */
+	public synchronized void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		evict(null);
+	}
+}
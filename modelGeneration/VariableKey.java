@@ -0,0 +1,125 @@
+package modelGeneration;
+
+/**
+ * The Class VariableKey.
+ *
+ * Typed key of a decision variable array in a VariableRegistry: resource id, direction, energy carrier index and
+ * quantity id. Resource and quantity ids are assigned by the registry, so keys are only valid for the registry that
+ * created them. Both key formats of the decision variable maps, e.g. "RefrigerationMachine1-Input-0-Power" and
+ * "System-Input-0Power", map to the same key.
+ */
+public final class VariableKey {
+
+	/**
+	 * The Enum Direction.
+	 */
+	public enum Direction {
+		/** An input of a resource or the system. */
+		INPUT("Input"),
+		/** An output of a resource or the system. */
+		OUTPUT("Output"),
+		/** No direction, e.g. the state of charge of a storage. */
+		NONE("");
+
+		/** The name in decision variable keys. */
+		private final String name;
+
+		/**
+		 * Instantiates a new direction.
+		 *
+		 * @param name the name in decision variable keys
+		 */
+		Direction(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Gets the name in decision variable keys.
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return name;
+		}
+	}
+
+	/** The resource id. */
+	private final int resourceId;
+
+	/** The direction. */
+	private final Direction direction;
+
+	/** The energy carrier index, -1 (ONLYONE) if the resource has only one in this direction. */
+	private final int carrierIndex;
+
+	/** The quantity id. */
+	private final int quantityId;
+
+	/**
+	 * Instantiates a new variable key.
+	 *
+	 * @param resourceId the resource id
+	 * @param direction the direction
+	 * @param carrierIndex the energy carrier index, -1 if the resource has only one
+	 * @param quantityId the quantity id
+	 */
+	VariableKey(int resourceId, Direction direction, int carrierIndex, int quantityId) {
+		this.resourceId = resourceId;
+		this.direction = direction;
+		this.carrierIndex = carrierIndex;
+		this.quantityId = quantityId;
+	}
+
+	/**
+	 * Gets the resource id.
+	 *
+	 * @return the resource id
+	 */
+	public int getResourceId() {
+		return resourceId;
+	}
+
+	/**
+	 * Gets the direction.
+	 *
+	 * @return the direction
+	 */
+	public Direction getDirection() {
+		return direction;
+	}
+
+	/**
+	 * Gets the energy carrier index.
+	 *
+	 * @return the energy carrier index, -1 if the resource has only one
+	 */
+	public int getCarrierIndex() {
+		return carrierIndex;
+	}
+
+	/**
+	 * Gets the quantity id.
+	 *
+	 * @return the quantity id
+	 */
+	public int getQuantityId() {
+		return quantityId;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (!(object instanceof VariableKey)) return false;
+		VariableKey key = (VariableKey) object;
+		return resourceId == key.resourceId && direction == key.direction && carrierIndex == key.carrierIndex && quantityId == key.quantityId;
+	}
+
+	@Override
+	public int hashCode() {
+		return ((resourceId*31 + direction.ordinal())*31 + carrierIndex)*31 + quantityId;
+	}
+
+	@Override
+	public String toString() {
+		return "VariableKey [resourceId=" + resourceId + ", direction=" + direction + ", carrierIndex=" + carrierIndex + ", quantityId=" + quantityId + "]";
+	}
+}
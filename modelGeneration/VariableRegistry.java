@@ -0,0 +1,331 @@
+package modelGeneration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import ilog.concert.IloNumVar;
+import modelGeneration.VariableKey.Direction;
+
+/**
+ * The Class VariableRegistry.
+ *
+ * The decision variable arrays of a model by VariableKey, stored in arrays indexed by resource id, quantity id,
+ * direction and energy carrier index. Keys are resolved once while the model is built, with key() or parse(); a
+ * misspelled resource or quantity fails there. get() is then an array access without allocation or hashing. Keys of
+ * registered decision variables are created once and handed out again by key() and parse(); the keys of the decision
+ * variable maps are parsed once, so that registerAll() only registers the decision variables added since its last call.
+ *
+ * <pre>
+ * VariableRegistry registry = context.registerDecisionVariables();
+ * VariableKey systemInput = registry.key("System", Direction.INPUT, 0, "Power");
+ * IloNumVar[] power = registry.get(systemInput);
+ * </pre>
+ *
+ * Keys of the decision variable maps are parsed as resource-Direction[-index][-]Quantity or resource-Quantity;
+ * other keys are not registered.
+ */
+public class VariableRegistry {
+
+	/** The pattern of keys with direction, e.g. RefrigerationMachine1-Input-0-Power, System-Input-0Power, System-Output-Power. */
+	private static final Pattern DIRECTED_KEY = Pattern.compile("^(.+?)-(Input|Output)-?(-?\\d+)?-?([A-Za-z]+)$");
+
+	/** The pattern of keys without direction, e.g. Storage-SOC. */
+	private static final Pattern UNDIRECTED_KEY = Pattern.compile("^(.+)-([A-Za-z]+)$");
+
+	/** The number of directions. */
+	private static final int DIRECTIONS = Direction.values().length;
+
+	/** The resource ids by name. */
+	private final Map<String, Integer> resourceIds = new HashMap<String, Integer>();
+
+	/** The resource names by id. */
+	private final List<String> resourceNames = new ArrayList<String>();
+
+	/** The quantity ids by name. */
+	private final Map<String, Integer> quantityIds = new HashMap<String, Integer>();
+
+	/** The quantity names by id. */
+	private final List<String> quantityNames = new ArrayList<String>();
+
+	/** The decision variables, [resourceId][quantityId*DIRECTIONS+direction][carrierIndex+1]. */
+	private IloNumVar[][][][] variables = new IloNumVar[0][][][];
+
+	/** The keys of the registered decision variables, indexed like variables. */
+	private VariableKey[][][] keys = new VariableKey[0][][];
+
+	/** The parsed keys of the decision variable maps by name, UNPARSABLE if the name cannot be parsed. */
+	private final Map<String, VariableKey> parsedKeys = new HashMap<String, VariableKey>();
+
+	/** The Constant UNPARSABLE, the parsed key of names that cannot be parsed. */
+	private static final VariableKey UNPARSABLE = new VariableKey(-1, Direction.NONE, -1, -1);
+
+	/**
+	 * Creates a registry of all decision variables of a decision variables vector whose key can be parsed.
+	 *
+	 * @param decisionVariablesVector the decision variables vector
+	 * @return the variable registry
+	 */
+	public static VariableRegistry of (Map<String, IloNumVar[]> decisionVariablesVector) {
+		VariableRegistry registry = new VariableRegistry();
+		registry.registerAll(decisionVariablesVector);
+		return registry;
+	}
+
+	/**
+	 * Registers all decision variables of a decision variables vector whose key can be parsed and that are not registered
+	 * yet. Each key is parsed only once per registry, so repeated calls while the model is built are cheap.
+	 *
+	 * @param decisionVariablesVector the decision variables vector
+	 */
+	public void registerAll (Map<String, IloNumVar[]> decisionVariablesVector) {
+		for (Entry<String, IloNumVar[]> decisionVariableSet : decisionVariablesVector.entrySet()) {
+			VariableKey key = parsedKeys.get(decisionVariableSet.getKey());
+			if (key == null) {
+				key = parseKey(decisionVariableSet.getKey(), true);
+				parsedKeys.put(decisionVariableSet.getKey(), key == null ? UNPARSABLE : key);
+			}
+			if (key != null && key != UNPARSABLE && find(key) == null) {
+				register(key, decisionVariableSet.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Registers a decision variable array; registers resource and quantity of the key if necessary.
+	 *
+	 * @param resourceName the resource name
+	 * @param direction the direction
+	 * @param carrierIndex the energy carrier index, -1 if the resource has only one
+	 * @param quantity the quantity, e.g. "Power"
+	 * @param decisionVariable the decision variable array
+	 * @return the key
+	 */
+	public VariableKey register (String resourceName, Direction direction, int carrierIndex, String quantity, IloNumVar[] decisionVariable) {
+		VariableKey key = createKey(getOrAddId(resourceIds, resourceNames, resourceName), direction, carrierIndex, getOrAddId(quantityIds, quantityNames, quantity));
+		register(key, decisionVariable);
+		return key;
+	}
+
+	/**
+	 * Registers a decision variable array.
+	 *
+	 * @param key the key
+	 * @param decisionVariable the decision variable array
+	 */
+	public void register (VariableKey key, IloNumVar[] decisionVariable) {
+		if (key.getCarrierIndex() < -1) {
+			throw new IllegalArgumentException("Invalid energy carrier index " + key.getCarrierIndex() + " of " + getName(key));
+		}
+		int resourceId = key.getResourceId();
+		if (resourceId >= variables.length) {
+			variables = Arrays.copyOf(variables, resourceId + 1);
+		}
+		if (variables[resourceId] == null) {
+			variables[resourceId] = new IloNumVar[0][][];
+		}
+		int slot = key.getQuantityId()*DIRECTIONS + key.getDirection().ordinal();
+		if (slot >= variables[resourceId].length) {
+			variables[resourceId] = Arrays.copyOf(variables[resourceId], slot + 1);
+		}
+		if (variables[resourceId][slot] == null) {
+			variables[resourceId][slot] = new IloNumVar[0][];
+		}
+		int carrier = key.getCarrierIndex() + 1;
+		if (carrier >= variables[resourceId][slot].length) {
+			variables[resourceId][slot] = Arrays.copyOf(variables[resourceId][slot], carrier + 1);
+		}
+		variables[resourceId][slot][carrier] = decisionVariable;
+
+		if (resourceId >= keys.length) {
+			keys = Arrays.copyOf(keys, resourceId + 1);
+		}
+		if (keys[resourceId] == null) {
+			keys[resourceId] = new VariableKey[0][];
+		}
+		if (slot >= keys[resourceId].length) {
+			keys[resourceId] = Arrays.copyOf(keys[resourceId], slot + 1);
+		}
+		if (keys[resourceId][slot] == null) {
+			keys[resourceId][slot] = new VariableKey[0];
+		}
+		if (carrier >= keys[resourceId][slot].length) {
+			keys[resourceId][slot] = Arrays.copyOf(keys[resourceId][slot], carrier + 1);
+		}
+		if (keys[resourceId][slot][carrier] == null) {
+			keys[resourceId][slot][carrier] = key;
+		}
+	}
+
+	/**
+	 * Gets the key of the registered decision variable array with the given ids, or a new key if none is registered.
+	 *
+	 * @param resourceId the resource id
+	 * @param direction the direction
+	 * @param carrierIndex the energy carrier index
+	 * @param quantityId the quantity id
+	 * @return the key
+	 */
+	private VariableKey createKey (int resourceId, Direction direction, int carrierIndex, int quantityId) {
+		int slot = quantityId*DIRECTIONS + direction.ordinal();
+		int carrier = carrierIndex + 1;
+		if (resourceId < keys.length && keys[resourceId] != null && slot < keys[resourceId].length
+				&& keys[resourceId][slot] != null && carrier >= 0 && carrier < keys[resourceId][slot].length
+				&& keys[resourceId][slot][carrier] != null) {
+			return keys[resourceId][slot][carrier];
+		}
+		return new VariableKey(resourceId, direction, carrierIndex, quantityId);
+	}
+
+	/**
+	 * Gets the key of a decision variable array; the key of a registered decision variable array is not allocated again.
+	 *
+	 * @param resourceName the resource name, "System" for the system
+	 * @param direction the direction
+	 * @param carrierIndex the energy carrier index, -1 if the resource has only one
+	 * @param quantity the quantity, e.g. "Power"
+	 * @return the key
+	 * @throws IllegalArgumentException if the resource or quantity is not registered
+	 */
+	public VariableKey key (String resourceName, Direction direction, int carrierIndex, String quantity) {
+		Integer resourceId = resourceIds.get(resourceName);
+		if (resourceId == null) {
+			throw new IllegalArgumentException("No decision variables of resource " + resourceName);
+		}
+		Integer quantityId = quantityIds.get(quantity);
+		if (quantityId == null) {
+			throw new IllegalArgumentException("No decision variables of quantity " + quantity);
+		}
+		return createKey(resourceId, direction, carrierIndex, quantityId);
+	}
+
+	/**
+	 * Parses a key of the decision variable maps, in either format.
+	 *
+	 * @param key the key, e.g. "RefrigerationMachine1-Input-0-Power" or "System-Input-0Power"
+	 * @return the key
+	 * @throws IllegalArgumentException if the key cannot be parsed or its resource or quantity is not registered
+	 */
+	public VariableKey parse (String key) {
+		VariableKey parsedKey = parsedKeys.get(key);
+		if (parsedKey != null && parsedKey != UNPARSABLE) return parsedKey;
+		return parseKey(key, false);
+	}
+
+	/**
+	 * Parses a key of the decision variable maps.
+	 *
+	 * @param key the key
+	 * @param register whether unknown resources and quantities are registered, otherwise they fail
+	 * @return the key, null if it cannot be parsed and register is set
+	 */
+	private VariableKey parseKey (String key, boolean register) {
+		String resourceName;
+		Direction direction;
+		int carrierIndex = OptimizationModelRefrigeration.ONLYONE;
+		String quantity;
+		Matcher matcher = DIRECTED_KEY.matcher(key);
+		if (matcher.matches()) {
+			resourceName = matcher.group(1);
+			direction = matcher.group(2).equals(Direction.INPUT.getName()) ? Direction.INPUT : Direction.OUTPUT;
+			if (matcher.group(3) != null) carrierIndex = Integer.parseInt(matcher.group(3));
+			quantity = matcher.group(4);
+		} else {
+			matcher = UNDIRECTED_KEY.matcher(key);
+			if (!matcher.matches()) {
+				if (register) return null;
+				throw new IllegalArgumentException("Invalid decision variable key " + key);
+			}
+			resourceName = matcher.group(1);
+			direction = Direction.NONE;
+			quantity = matcher.group(2);
+		}
+		if (register) {
+			return createKey(getOrAddId(resourceIds, resourceNames, resourceName), direction, carrierIndex,
+					getOrAddId(quantityIds, quantityNames, quantity));
+		}
+		return key(resourceName, direction, carrierIndex, quantity);
+	}
+
+	/**
+	 * Gets the id of a name, adds the name if necessary.
+	 *
+	 * @param ids the ids by name
+	 * @param names the names by id
+	 * @param name the name
+	 * @return the id
+	 */
+	private static int getOrAddId (Map<String, Integer> ids, List<String> names, String name) {
+		Integer id = ids.get(name);
+		if (id == null) {
+			id = names.size();
+			ids.put(name, id);
+			names.add(name);
+		}
+		return id;
+	}
+
+	/**
+	 * Gets a decision variable array.
+	 *
+	 * @param key the key
+	 * @return the decision variable array, null if not registered
+	 */
+	public IloNumVar[] find (VariableKey key) {
+		int resourceId = key.getResourceId();
+		if (resourceId >= variables.length || variables[resourceId] == null) return null;
+		int slot = key.getQuantityId()*DIRECTIONS + key.getDirection().ordinal();
+		if (slot >= variables[resourceId].length || variables[resourceId][slot] == null) return null;
+		int carrier = key.getCarrierIndex() + 1;
+		if (carrier < 0 || carrier >= variables[resourceId][slot].length) return null;
+		return variables[resourceId][slot][carrier];
+	}
+
+	/**
+	 * Gets a decision variable array.
+	 *
+	 * @param key the key
+	 * @return the decision variable array
+	 * @throws IllegalStateException if no decision variable array is registered for the key
+	 */
+	public IloNumVar[] get (VariableKey key) {
+		IloNumVar[] decisionVariable = find(key);
+		if (decisionVariable == null) {
+			throw new IllegalStateException("No decision variable " + getName(key));
+		}
+		return decisionVariable;
+	}
+
+	/**
+	 * Gets the name of a key in the format of the decision variables of resources, e.g. RefrigerationMachine1-Input-0-Power.
+	 *
+	 * @param key the key
+	 * @return the name
+	 */
+	public String getName (VariableKey key) {
+		StringBuilder name = new StringBuilder(resourceNames.get(key.getResourceId()));
+		if (key.getDirection() != Direction.NONE) {
+			name.append('-').append(key.getDirection().getName());
+		}
+		if (key.getCarrierIndex() != OptimizationModelRefrigeration.ONLYONE) {
+			name.append('-').append(key.getCarrierIndex());
+		}
+		return name.append('-').append(quantityNames.get(key.getQuantityId())).toString();
+	}
+
+	/**
+	 * Gets the id of a resource.
+	 *
+	 * @param resourceName the resource name
+	 * @return the resource id, -1 if the resource has no decision variables
+	 */
+	public int getResourceId (String resourceName) {
+		Integer resourceId = resourceIds.get(resourceName);
+		return resourceId == null ? -1 : resourceId;
+	}
+}
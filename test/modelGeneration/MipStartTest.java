@@ -0,0 +1,243 @@
+package modelGeneration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+
+/**
+ * The Class MipStartTest.
+ */
+public class MipStartTest {
+
+	/**
+	 * The Class Variable, the type and bounds of a variable without a solver.
+	 */
+	static class Variable implements InvocationHandler {
+
+		/** The type. */
+		final IloNumVarType type;
+
+		/** The lower bound. */
+		final double lb;
+
+		/** The upper bound. */
+		final double ub;
+
+		/**
+		 * Instantiates a new variable.
+		 *
+		 * @param type the type
+		 * @param lb the lower bound
+		 * @param ub the upper bound
+		 */
+		Variable(IloNumVarType type, double lb, double ub) {
+			this.type = type;
+			this.lb = lb;
+			this.ub = ub;
+		}
+
+		@Override
+		public Object invoke (Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+			case "getType":
+				return type;
+			case "getLB":
+				return lb;
+			case "getUB":
+				return ub;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return type + " [" + lb + ", " + ub + "]";
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		}
+	}
+
+	/**
+	 * Creates the variables of a time series.
+	 *
+	 * @param numberOfTimeSteps the number of time steps
+	 * @param type the type
+	 * @param lb the lower bound
+	 * @param ub the upper bound
+	 * @return the variables
+	 */
+	static IloNumVar[] variables (int numberOfTimeSteps, IloNumVarType type, double lb, double ub) {
+		IloNumVar[] variables = new IloNumVar[numberOfTimeSteps];
+		for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+			variables[timeStep] = (IloNumVar) Proxy.newProxyInstance(IloNumVar.class.getClassLoader(),
+					new Class<?>[] {IloNumVar.class}, new Variable(type, lb, ub));
+		}
+		return variables;
+	}
+
+	/**
+	 * Creates state variables.
+	 *
+	 * @param numberOfTimeSteps the number of time steps
+	 * @param numberOfStates the number of states
+	 * @return the state variables [timeStep][state]
+	 */
+	static IloNumVar[][] states (int numberOfTimeSteps, int numberOfStates) {
+		IloNumVar[][] states = new IloNumVar[numberOfTimeSteps][];
+		for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+			states[timeStep] = variables(numberOfStates, IloNumVarType.Bool, 0, 1);
+		}
+		return states;
+	}
+
+	/**
+	 * The window starts in the initial state, has no missing data and the output energy, in the time interval of the
+	 * history, closest to the target energy; among equal windows the most recent.
+	 */
+	@Test
+	public void selectWindowMatchesInitialStateAndEnergy () {
+		double nan = Double.NaN;
+		MipStart.OperationHistory history = new MipStart.OperationHistory("RefrigerationMachine1",
+				new double[] {1, 1, 0, 1, 1, 1, 0, 1},
+				new double[] {5, 5, 0, 5, 5, nan, 0, 5},
+				new double[] {8, 8, 0, 4, 4, 4, 0, 4},
+				0.5);
+
+		// window 0 yields 8 kWh, windows 1 and 3 yield 4 kWh, windows 4 and 5 have missing data
+		assertEquals(0, history.selectWindow(2, 1, 8));
+		assertEquals(3, history.selectWindow(2, 1, 4));
+		assertEquals(6, history.selectWindow(2, 0, Double.NaN));
+		// no window starts in state 2, the most recent complete window is taken
+		assertEquals(2, history.selectWindow(3, 2, Double.NaN));
+		assertEquals(-1, history.selectWindow(9, 1, Double.NaN));
+	}
+
+	/**
+	 * Time step t starts with the value of time step t+shift, the time steps beyond the solution with its last value;
+	 * values of integer variables are rounded, values of continuous variables are not.
+	 *
+	 * @throws IloException the ilo exception
+	 */
+	@Test
+	public void shiftedSolutionRoundsIntegersAndRepeatsTail () throws IloException {
+		IloNumVar[] power = variables(4, IloNumVarType.Float, 0, 10);
+		IloNumVar[] binaries = variables(4, IloNumVarType.Bool, 0, 1);
+		IloNumVar[] counts = variables(4, IloNumVarType.Int, 0, 5);
+		MipStart mipStart = new MipStart();
+
+		mipStart.addShifted(power, new double[] {1.5, 2.5, 3.5, 4.5}, 2);
+		mipStart.addShifted(binaries, new double[] {1, 0.9999, 1e-5, 0.6}, 1);
+		mipStart.addShifted(counts, new double[] {0, 1, 2.4, 2.6}, 0);
+
+		assertEquals(12, mipStart.size());
+		for (int timeStep = 0; timeStep < 4; timeStep++) {
+			assertSame(power[timeStep], mipStart.getVariables().get(timeStep));
+			assertSame(binaries[timeStep], mipStart.getVariables().get(4 + timeStep));
+			assertSame(counts[timeStep], mipStart.getVariables().get(8 + timeStep));
+		}
+		assertArrayEquals(new double[] {3.5, 4.5, 4.5, 4.5, 1, 0, 1, 1, 0, 1, 2, 3}, mipStart.getValues(), 0);
+
+		// a shift beyond the horizon starts all time steps with the last value
+		mipStart = new MipStart();
+		mipStart.addShifted(power, new double[] {1.5, 2.5, 3.5, 4.5}, 6);
+		assertArrayEquals(new double[] {4.5, 4.5, 4.5, 4.5}, mipStart.getValues(), 0);
+	}
+
+	/**
+	 * The state variables [timeStep][state] are shifted by state, the other matrices [width][timeStep] by row; empty
+	 * decision variables are skipped.
+	 */
+	@Test
+	public void shiftedSolutionTimeSeriesFollowLayoutOfVariables () {
+		IloNumVar[] input = variables(3, IloNumVarType.Float, 0, 10);
+		IloNumVar[][] states = states(3, 2);
+		IloNumVar[][] segments = {variables(3, IloNumVarType.Float, 0, 1), variables(3, IloNumVarType.Float, 0, 1)};
+		Map<String, IloNumVar[]> decisionVariablesVector = new LinkedHashMap<String, IloNumVar[]>();
+		decisionVariablesVector.put("RefrigerationMachine1-Input-" + OptimizationModelRefrigeration.POWER, input);
+		decisionVariablesVector.put("RefrigerationMachine1-Empty", new IloNumVar[0]);
+		Map<String, IloNumVar[][]> decisionVariablesMatrix = new LinkedHashMap<String, IloNumVar[][]>();
+		decisionVariablesMatrix.put("RefrigerationMachine1-" + OptimizationModelRefrigeration.POWER + "-" + OptimizationModelRefrigeration.STATE, states);
+		decisionVariablesMatrix.put("RefrigerationMachine1-Segments", segments);
+		decisionVariablesMatrix.put("RefrigerationMachine1-Empty", new IloNumVar[0][]);
+
+		List<IloNumVar[]> timeSeries = MipStart.getTimeSeries(decisionVariablesVector, decisionVariablesMatrix);
+
+		assertEquals(5, timeSeries.size());
+		assertSame(input, timeSeries.get(0));
+		for (int state = 0; state < 2; state++) {
+			assertArrayEquals(new IloNumVar[] {states[0][state], states[1][state], states[2][state]}, timeSeries.get(1 + state));
+		}
+		assertSame(segments[0], timeSeries.get(3));
+		assertSame(segments[1], timeSeries.get(4));
+	}
+
+	/**
+	 * A time step of the model covers the time steps of the history within its duration, at least one; it starts in the
+	 * historical state at its start, with the powers averaged over its duration.
+	 */
+	@Test
+	public void historyWindowIsMappedOntoTimeSteps () {
+		MipStart.OperationHistory history = new MipStart.OperationHistory("RefrigerationMachine1",
+				new double[] {0, 1, 1, 2, 2, 2, 2, 0, 0},
+				new double[] {0, 4, 6, 8, 8, 10, 10, 0, 0},
+				new double[] {0, 2, 3, 4, 6, 4, 6, 0, 0},
+				0.25);
+
+		int[] bounds = MipStart.getBounds(new double[] {0.25, 0.5, 1}, history.getTimeInterval());
+		assertArrayEquals(new int[] {0, 1, 3, 7}, bounds);
+		double[][] window = MipStart.mapWindow(history, 1, bounds);
+		assertArrayEquals(new double[] {1, 1, 2}, window[0], 0);
+		assertArrayEquals(new double[] {4, 7, 7}, window[1], 1e-9);
+		assertArrayEquals(new double[] {2, 3.5, 4}, window[2], 1e-9);
+
+		// time steps shorter than the time interval of the history still advance by one time step of the history
+		assertArrayEquals(new int[] {0, 1, 2}, MipStart.getBounds(new double[] {0.1, 0.1}, history.getTimeInterval()));
+	}
+
+	/**
+	 * The binary of the historical state is set and the others cleared in each time step, the powers are clipped to the
+	 * bounds of their variables, and a resource without state variables only gets its powers.
+	 *
+	 * @throws IloException the ilo exception
+	 */
+	@Test
+	public void historyWindowIsAddedToVariablesOfResource () throws IloException {
+		IloNumVar[][] states = states(3, 3);
+		IloNumVar[] input = variables(3, IloNumVarType.Float, 0, 10);
+		IloNumVar[] output = variables(3, IloNumVarType.Float, 1, 5);
+		double[][] window = {{0, 2, 1}, {12, 4, -1}, {3, 6, 0}};
+		MipStart mipStart = new MipStart();
+
+		mipStart.addWindow(states, input, output, window);
+
+		assertEquals(15, mipStart.size());
+		double[] values = mipStart.getValues();
+		for (int timeStep = 0; timeStep < 3; timeStep++) {
+			for (int state = 0; state < 3; state++) {
+				assertSame(states[timeStep][state], mipStart.getVariables().get(3*timeStep + state));
+				assertEquals(state == window[0][timeStep] ? 1 : 0, values[3*timeStep + state], 0);
+			}
+			assertSame(input[timeStep], mipStart.getVariables().get(9 + timeStep));
+			assertSame(output[timeStep], mipStart.getVariables().get(12 + timeStep));
+		}
+		assertArrayEquals(new double[] {10, 4, 0, 3, 5, 1}, Arrays.copyOfRange(values, 9, 15), 0);
+
+		mipStart = new MipStart();
+		mipStart.addWindow(null, input, null, window);
+		assertArrayEquals(new double[] {10, 4, 0}, mipStart.getValues(), 0);
+	}
+}
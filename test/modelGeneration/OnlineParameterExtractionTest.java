@@ -0,0 +1,164 @@
+package modelGeneration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The Class OnlineParameterExtractionTest.
+ */
+public class OnlineParameterExtractionTest {
+
+	/** The Constant DELTA. */
+	static final double DELTA = 1e-9;
+
+	/**
+	 * The sliding extremes equal the extremes of the last observations.
+	 */
+	@Test
+	public void slidingExtremesMatchWindow () {
+		Random random = new Random(42);
+		for (int window : new int[] {1, 2, 5, 17}) {
+			OnlineParameterExtraction.SlidingExtremes extremes = new OnlineParameterExtraction.SlidingExtremes(window);
+			double[] values = new double[500];
+			for (int observation = 0; observation < values.length; observation++) {
+				// repeated values as well
+				values[observation] = random.nextInt(20);
+				extremes.add(values[observation]);
+				double min = Double.MAX_VALUE;
+				double max = -Double.MAX_VALUE;
+				for (int i = Math.max(0, observation - window + 1); i <= observation; i++) {
+					min = Math.min(min, values[i]);
+					max = Math.max(max, values[i]);
+				}
+				assertEquals("window " + window + ", observation " + observation, min, extremes.getMin(), 0);
+				assertEquals("window " + window + ", observation " + observation, max, extremes.getMax(), 0);
+			}
+		}
+	}
+
+	/**
+	 * Ramps are taken between consecutive operating samples in the same state only, not at start-up, shut-down, state
+	 * changes or across missing samples.
+	 */
+	@Test
+	public void rampsOnlyWithinOperatingStays () {
+		OnlineParameterExtraction extraction = new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 1);
+		extraction.addSamples(
+				new double[] {0, 100, 90, 95, 0, 40, 60, Double.NaN, 20, 25},
+				new double[] {0, 50, 45, 47, 0, 20, 30, 0, 10, 12},
+				new double[] {0, 1, 1, 1, 0, 1, 2, 2, 2, 2});
+
+		assertEquals(-10, extraction.getMinRampInput(), DELTA);
+		assertEquals(5, extraction.getMaxRampInput(), DELTA);
+		assertEquals(-5, extraction.getMinRampOutput(), DELTA);
+		assertEquals(2, extraction.getMaxRampOutput(), DELTA);
+		assertEquals(20, extraction.getMinPowerInput(), DELTA);
+		assertEquals(100, extraction.getMaxPowerInput(), DELTA);
+		assertEquals(9, extraction.getNumberOfSamples());
+	}
+
+	/**
+	 * Power limits forget an outlier after the memory of the forgetting factor; without forgetting it is kept.
+	 */
+	@Test
+	public void powerLimitsForgetOutliers () {
+		OnlineParameterExtraction forgetting = new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 0.9);
+		OnlineParameterExtraction remembering = new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 1);
+		forgetting.addSample(500, 250, 1);
+		remembering.addSample(500, 250, 1);
+		// the memory of 0.9 is about 10 observations
+		for (int sample = 0; sample < 12; sample++) {
+			forgetting.addSample(50, 25, 1);
+			remembering.addSample(50, 25, 1);
+		}
+
+		assertEquals(50, forgetting.getMaxPowerInput(), DELTA);
+		assertEquals(25, forgetting.getMaxPowerOutput(), DELTA);
+		assertEquals(0, forgetting.getMinRampInput(), DELTA);
+		assertEquals(500, remembering.getMaxPowerInput(), DELTA);
+		assertEquals(-450, remembering.getMinRampInput(), DELTA);
+	}
+
+	/**
+	 * The segments of the piecewise linear approximation fit samples of a linear relationship exactly.
+	 */
+	@Test
+	public void plaSegmentsFitLinearSamples () {
+		OnlineParameterExtraction extraction = new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 1);
+		for (int input = 11; input < 110; input += 7) {
+			extraction.addSample(input, input < 60 ? 2*input - 5 : 0.5*input + 85, 1);
+		}
+
+		List<double[]> segments = extraction.getPlaSegments();
+		assertEquals(2, segments.size());
+		assertEquals(10, segments.get(0)[0], DELTA);
+		assertEquals(60, segments.get(0)[1], DELTA);
+		assertEquals(2, segments.get(0)[2], DELTA);
+		assertEquals(-5, segments.get(0)[3], DELTA);
+		assertEquals(0.5, segments.get(1)[2], DELTA);
+		assertEquals(85, segments.get(1)[3], DELTA);
+	}
+
+	/**
+	 * The durations of finished stays and the follower states are counted per state.
+	 */
+	@Test
+	public void stateStatisticsCountStays () {
+		OnlineParameterExtraction extraction = new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 1);
+		extraction.addSamples(
+				new double[] {0, 0, 50, 50, 50, 0, 50, 0},
+				new double[] {0, 0, 20, 20, 20, 0, 20, 0},
+				new double[] {0, 0, 1, 1, 1, 0, 1, 0});
+
+		List<OnlineParameterExtraction.StateStatistics> statistics = extraction.getStateStatistics();
+		assertEquals(2, statistics.size());
+		OnlineParameterExtraction.StateStatistics on = statistics.get(1);
+		assertEquals(1, on.getStateId());
+		assertEquals(4, on.getNumberOfSamples());
+		assertEquals(2, on.getNumberOfStays());
+		assertEquals(0.25, on.getMinDurationInH(), DELTA);
+		assertEquals(0.75, on.getMaxDurationInH(), DELTA);
+		assertEquals(0.5, on.getMeanDurationInH(), DELTA);
+		assertEquals(1, on.getFollowerStates().size());
+		// the current stay of state 0 is not included
+		assertEquals(2, statistics.get(0).getNumberOfStays());
+	}
+
+	/**
+	 * Samples with missing power or state count to the duration of the stay they fall into.
+	 */
+	@Test
+	public void gapsCountToStayDurations () {
+		OnlineParameterExtraction extraction = new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 1);
+		extraction.addSamples(
+				new double[] {0, 50, Double.NaN, 50, 0, 50, 50, 50, 0},
+				new double[] {0, 20, Double.NaN, 20, 0, 20, 20, 20, 0},
+				new double[] {0, 1, 1, 1, 0, 1, Double.NaN, 1, 0});
+
+		OnlineParameterExtraction.StateStatistics on = extraction.getStateStatistics().get(1);
+		assertEquals(2, on.getNumberOfStays());
+		assertEquals(0.75, on.getMinDurationInH(), DELTA);
+		assertEquals(0.75, on.getMaxDurationInH(), DELTA);
+		assertEquals(4, on.getNumberOfSamples());
+		assertEquals(7, extraction.getNumberOfSamples());
+	}
+
+	/**
+	 * A forgetting factor whose memory exceeds the maximum window is rejected.
+	 */
+	@Test
+	public void forgettingFactorWithTooLongMemoryIsRejected () {
+		new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 1 - 1.0/OnlineParameterExtraction.MAX_WINDOW);
+		try {
+			new OnlineParameterExtraction(null, 0.25, 10, 110, 2, 1 - 0.5/OnlineParameterExtraction.MAX_WINDOW);
+			fail("memory of " + 2*OnlineParameterExtraction.MAX_WINDOW + " observations accepted");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+}
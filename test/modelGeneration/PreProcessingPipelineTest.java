@@ -0,0 +1,217 @@
+package modelGeneration;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The Class PreProcessingPipelineTest.
+ */
+public class PreProcessingPipelineTest {
+
+	/** The Constant DELTA. */
+	static final double DELTA = 1e-9;
+
+	/** The directory of the test files. */
+	private File directory;
+
+	/**
+	 * Creates the directory of the test files.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Before
+	public void setUp () throws IOException {
+		directory = Files.createTempDirectory("preProcessingPipelineTest").toFile();
+	}
+
+	/**
+	 * Deletes the test files.
+	 */
+	@After
+	public void tearDown () {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Creates a chunk.
+	 *
+	 * @param time the time stamps in h
+	 * @param values the values, [channel][sample]
+	 * @return the chunk
+	 */
+	static PreProcessingPipeline.Chunk chunk (double[] time, double[]... values) {
+		PreProcessingPipeline.Chunk chunk = new PreProcessingPipeline.Chunk(values.length, time.length);
+		System.arraycopy(time, 0, chunk.time, 0, time.length);
+		for (int channel = 0; channel < values.length; channel++) {
+			System.arraycopy(values[channel], 0, chunk.values[channel], 0, time.length);
+		}
+		chunk.length = time.length;
+		return chunk;
+	}
+
+	/**
+	 * Passes a chunk through a stage, including the samples held back at the end.
+	 *
+	 * @param stage the stage
+	 * @param input the input
+	 * @return the output
+	 */
+	static PreProcessingPipeline.CollectingSink apply (PreProcessingPipeline.Stage stage, PreProcessingPipeline.Chunk input) {
+		PreProcessingPipeline.CollectingSink sink = new PreProcessingPipeline.CollectingSink();
+		sink.accept(stage.process(input));
+		sink.accept(stage.finish());
+		return sink;
+	}
+
+	/**
+	 * Writes a single-column file.
+	 *
+	 * @param name the file name
+	 * @param lines the lines
+	 * @return the file path
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	String write (String name, String... lines) throws IOException {
+		File file = new File(directory, name);
+		try (Writer writer = new FileWriter(file)) {
+			for (String line : lines) {
+				writer.write(line);
+				writer.write('\n');
+			}
+		}
+		return file.getPath();
+	}
+
+	/**
+	 * Missing values take the last valid value, short gaps are filled at the nominal interval and long gaps are kept.
+	 */
+	@Test
+	public void gapFillingFillsMissingValuesAndShortGaps () {
+		PreProcessingPipeline.GapFilling gapFilling = new PreProcessingPipeline.GapFilling(1, 3, new boolean[] {false, true});
+		PreProcessingPipeline.CollectingSink sink = apply(gapFilling, chunk(
+				new double[] {0, 1, 2, 5, 10},
+				new double[] {1, Double.NaN, 3, 9, 4},
+				new double[] {0, 1, Double.NaN, 2, 0}));
+
+		assertArrayEquals(new double[] {0, 1, 2, 3, 4, 5, 10}, sink.getTime(), DELTA);
+		assertArrayEquals(new double[] {1, 1, 3, 5, 7, 9, 4}, sink.getValues(0), DELTA);
+		assertArrayEquals(new double[] {0, 1, 1, 1, 1, 2, 0}, sink.getValues(1), DELTA);
+	}
+
+	/**
+	 * Continuous channels are averaged, states take the most frequent state and bins without samples are NaN.
+	 */
+	@Test
+	public void resamplingAveragesAndEmitsEmptyBins () {
+		PreProcessingPipeline.Resampling resampling = new PreProcessingPipeline.Resampling(1, new boolean[] {false, true});
+		PreProcessingPipeline.CollectingSink sink = apply(resampling, chunk(
+				new double[] {0, 0.25, 0.5, 0.75, 1, 1.5, 3.25},
+				new double[] {1, 2, Double.NaN, 3, 4, 6, 5},
+				new double[] {1, 2, 2, 1, 0, 0, 3}));
+
+		assertArrayEquals(new double[] {0, 1, 2, 3}, sink.getTime(), DELTA);
+		assertArrayEquals(new double[] {2, 5, Double.NaN, 5}, sink.getValues(0), DELTA);
+		assertArrayEquals(new double[] {1, 0, Double.NaN, 3}, sink.getValues(1), DELTA);
+	}
+
+	/**
+	 * Stays shorter than the minimum duration take the preceding state; the last stay is kept.
+	 */
+	@Test
+	public void stateSmoothingRemovesShortStays () {
+		PreProcessingPipeline.StateSmoothing stateSmoothing = new PreProcessingPipeline.StateSmoothing(1, 2, 2);
+		PreProcessingPipeline.CollectingSink sink = apply(stateSmoothing, chunk(
+				new double[] {0, 1, 2, 3, 4, 5, 6, 7},
+				new double[] {10, 11, 12, 13, 14, 15, 16, 17},
+				new double[] {0, 0, 2, 1, 1, 1, 0, 2}));
+
+		assertArrayEquals(new double[] {0, 1, 2, 3, 4, 5, 6, 7}, sink.getTime(), DELTA);
+		assertArrayEquals(new double[] {10, 11, 12, 13, 14, 15, 16, 17}, sink.getValues(0), DELTA);
+		assertArrayEquals(new double[] {0, 0, 0, 1, 1, 1, 1, 2}, sink.getValues(1), DELTA);
+	}
+
+	/**
+	 * The result of the standard pipeline does not depend on the chunk size, nor on whether the files are read by the
+	 * pipeline or in memory.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void resultDoesNotDependOnChunkSize () throws IOException {
+		int samples = 500;
+		double interval = 1.0/60;
+		String[] timeStamps = new String[samples];
+		String[] power = new String[samples];
+		String[] states = new String[samples];
+		int sample = 0;
+		int minute = 0;
+		for (; sample < samples; minute++) {
+			// gaps of 3 min, filled, and of 40 min, kept
+			if (minute % 97 == 50 || minute % 97 == 51) continue;
+			if (minute >= 200 && minute < 240) continue;
+			timeStamps[sample] = Double.toString(minute*interval/PreProcessingPipeline.HOURS_PER_DAY);
+			power[sample] = Double.toString(minute % 37 == 0 ? 1000 : 20 + 10*Math.sin(minute/15.0));
+			states[sample] = Integer.toString(minute % 29 == 0 ? 2 : (minute/45) % 2);
+			sample++;
+		}
+		power[123] = "n/a";
+		String timeStampsFile = write("time.csv", timeStamps);
+		String[] channelFiles = {write("power.csv", power), write("state.csv", states)};
+		boolean[] stateChannels = {false, true};
+
+		PreProcessingPipeline.CollectingSink reference = new PreProcessingPipeline.CollectingSink();
+		PreProcessingPipeline.standard(interval, 0.125, stateChannels, new double[] {0, 0}, new double[] {100, 3},
+				new double[] {30, Double.NaN}, 0.25).run(timeStampsFile, channelFiles, reference);
+		assertEquals((int) ((minute - 1)/7.5) + 1, reference.getTime().length);
+
+		for (int chunkSize : new int[] {1, 2, 7, 64, 499, 500}) {
+			PreProcessingPipeline.CollectingSink sink = new PreProcessingPipeline.CollectingSink();
+			PreProcessingPipeline.standard(interval, 0.125, stateChannels, new double[] {0, 0}, new double[] {100, 3},
+					new double[] {30, Double.NaN}, 0.25).setChunkSize(chunkSize).run(timeStampsFile, channelFiles, sink);
+			assertArrayEquals("chunk size " + chunkSize, reference.getTime(), sink.getTime(), 0);
+			assertArrayEquals("chunk size " + chunkSize, reference.getValues(0), sink.getValues(0), 0);
+			assertArrayEquals("chunk size " + chunkSize, reference.getValues(1), sink.getValues(1), 0);
+
+			sink = new PreProcessingPipeline.CollectingSink();
+			PreProcessingPipeline.standard(interval, 0.125, stateChannels, new double[] {0, 0}, new double[] {100, 3},
+					new double[] {30, Double.NaN}, 0.25).setChunkSize(chunkSize).run(TimeSeriesLoader.load(timeStampsFile),
+					new double[][] {TimeSeriesLoader.load(channelFiles[0]), TimeSeriesLoader.load(channelFiles[1])}, sink);
+			assertArrayEquals("in memory, chunk size " + chunkSize, reference.getTime(), sink.getTime(), 0);
+			assertArrayEquals("in memory, chunk size " + chunkSize, reference.getValues(0), sink.getValues(0), 0);
+			assertArrayEquals("in memory, chunk size " + chunkSize, reference.getValues(1), sink.getValues(1), 0);
+		}
+	}
+
+	/**
+	 * Malformed and empty lines of one channel are read as NaN, so the later samples stay aligned with their time
+	 * stamps, and samples without a valid time stamp are skipped.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Test
+	public void malformedLinesKeepChannelsAligned () throws IOException {
+		double day = 1/PreProcessingPipeline.HOURS_PER_DAY;
+		String timeStampsFile = write("time.csv", "0", Double.toString(day), "x", Double.toString(3*day), Double.toString(4*day), "");
+		String[] channelFiles = {write("power.csv", "1", "n/a", "3", "", "5", "", "")};
+
+		PreProcessingPipeline.CollectingSink sink = new PreProcessingPipeline.CollectingSink();
+		new PreProcessingPipeline().addStage(new PreProcessingPipeline.GapFilling(1, 1, new boolean[] {false}))
+				.run(timeStampsFile, channelFiles, sink);
+
+		assertArrayEquals(new double[] {0, 1, 3, 4}, sink.getTime(), DELTA);
+		assertArrayEquals(new double[] {1, 1, 1, 5}, sink.getValues(0), DELTA);
+	}
+}
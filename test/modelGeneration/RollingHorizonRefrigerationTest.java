@@ -0,0 +1,149 @@
+package modelGeneration;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import ilog.concert.IloException;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+
+/**
+ * The Class RollingHorizonRefrigerationTest.
+ */
+public class RollingHorizonRefrigerationTest {
+
+	/**
+	 * The Class Bounds, the bounds of a binary variable without a solver.
+	 */
+	static class Bounds implements InvocationHandler {
+
+		/** The lower bound. */
+		double lb = 0;
+
+		/** The upper bound. */
+		double ub = 1;
+
+		@Override
+		public Object invoke (Object proxy, Method method, Object[] args) {
+			switch (method.getName()) {
+			case "getLB":
+				return lb;
+			case "getUB":
+				return ub;
+			case "setLB":
+				lb = (Double) args[0];
+				return null;
+			case "setUB":
+				ub = (Double) args[0];
+				return null;
+			case "getType":
+				return IloNumVarType.Bool;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "[" + lb + ", " + ub + "]";
+			default:
+				throw new UnsupportedOperationException(method.getName());
+			}
+		}
+	}
+
+	/**
+	 * Creates state variables.
+	 *
+	 * @param numberOfTimeSteps the number of time steps
+	 * @param numberOfStates the number of states
+	 * @return the state variables [timeStep][state]
+	 */
+	static IloNumVar[][] states (int numberOfTimeSteps, int numberOfStates) {
+		IloNumVar[][] states = new IloNumVar[numberOfTimeSteps][numberOfStates];
+		for (int timeStep = 0; timeStep < numberOfTimeSteps; timeStep++) {
+			for (int state = 0; state < numberOfStates; state++) {
+				states[timeStep][state] = (IloNumVar) Proxy.newProxyInstance(IloNumVar.class.getClassLoader(),
+						new Class<?>[] {IloNumVar.class}, new Bounds());
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * Asserts the bounds of a variable.
+	 *
+	 * @param lb the expected lower bound
+	 * @param ub the expected upper bound
+	 * @param variable the variable
+	 * @throws IloException the ilo exception
+	 */
+	static void assertBounds (double lb, double ub, IloNumVar variable) throws IloException {
+		assertEquals(lb, variable.getLB(), 0);
+		assertEquals(ub, variable.getUB(), 0);
+	}
+
+	/**
+	 * A state entered at the end of a window is held in the next window until its minimum holding duration is
+	 * reached; update() does not change bounds, so the solution can still be read by fixInitialConditions(), and the
+	 * holds are released by the fix() of the following window.
+	 *
+	 * @throws IloException the ilo exception
+	 */
+	@Test
+	public void minimumHoldingDurationSpansWindowBoundary () throws IloException {
+		IloNumVar[][] states = states(6, 2);
+		int shift = 2;
+		int[] minimumTimeSteps = {1, 4};
+		RollingHorizonRefrigeration.StateHolds stateHolds = new RollingHorizonRefrigeration.StateHolds();
+
+		// first window: state 1 entered at time step shift
+		stateHolds.update("RefrigerationMachine1", states, new double[][] {{1, 0}, {1, 0}, {0, 1}}, shift, minimumTimeSteps);
+		assertBounds(0, 1, states[1][1]);
+		stateHolds.fix();
+		// active for 1 time step, time step 0 is fixed by fixInitialConditions(), time steps 1 to 3 are held
+		for (int timeStep = 1; timeStep <= 3; timeStep++) {
+			assertBounds(0, 0, states[timeStep][0]);
+			assertBounds(1, 1, states[timeStep][1]);
+		}
+		assertBounds(0, 1, states[4][1]);
+
+		// second window: state 1 active for 1 + 2 time steps, 1 time step left to hold
+		stateHolds.update("RefrigerationMachine1", states, new double[][] {{0, 1}, {0, 1}, {0, 1}}, shift, minimumTimeSteps);
+		assertBounds(1, 1, states[3][1]);
+		stateHolds.fix();
+		assertBounds(1, 1, states[1][1]);
+		assertBounds(0, 0, states[1][0]);
+		for (int timeStep = 2; timeStep < states.length; timeStep++) {
+			assertBounds(0, 1, states[timeStep][0]);
+			assertBounds(0, 1, states[timeStep][1]);
+		}
+
+		// third window: held long enough, all holds released
+		stateHolds.update("RefrigerationMachine1", states, new double[][] {{0, 1}, {0, 1}, {0, 1}}, shift, minimumTimeSteps);
+		stateHolds.fix();
+		assertBounds(0, 1, states[1][0]);
+		assertBounds(0, 1, states[1][1]);
+	}
+
+	/**
+	 * The initial state of the first window is taken as held long enough.
+	 *
+	 * @throws IloException the ilo exception
+	 */
+	@Test
+	public void initialStateIsNotHeld () throws IloException {
+		IloNumVar[][] states = states(6, 2);
+		RollingHorizonRefrigeration.StateHolds stateHolds = new RollingHorizonRefrigeration.StateHolds();
+
+		stateHolds.update("RefrigerationMachine1", states, new double[][] {{0, 1}, {0, 1}, {0, 1}}, 2, new int[] {1, 10});
+		stateHolds.fix();
+		for (IloNumVar[] timeStep : states) {
+			assertBounds(0, 1, timeStep[0]);
+			assertBounds(0, 1, timeStep[1]);
+		}
+	}
+}
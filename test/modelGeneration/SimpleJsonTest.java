@@ -0,0 +1,136 @@
+package modelGeneration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * The Class SimpleJsonTest.
+ */
+public class SimpleJsonTest {
+
+	/**
+	 * Asserts that a text is rejected with the position of the offending character.
+	 *
+	 * @param text the text
+	 * @param position the expected position
+	 */
+	static void assertRejected (String text, int position) {
+		try {
+			SimpleJson.parse(text);
+			fail("Accepted " + text);
+		} catch (IllegalArgumentException e) {
+			assertEquals(text, " at position " + position + " of JSON text", e.getMessage().substring(e.getMessage().indexOf(" at position ")));
+		}
+	}
+
+	/**
+	 * Objects keep the order of their names, arrays and values nest, and whitespace between tokens is skipped.
+	 */
+	@Test
+	public void parsesNestedValues () {
+		Object value = SimpleJson.parse(" {\"b\": [1, true, null, \"x\"],\n\t\"a\": {\"c\": false, \"d\": []}, \"e\": {}} ");
+
+		Map<String, Object> expected = new LinkedHashMap<String, Object>();
+		expected.put("b", Arrays.asList(1.0, Boolean.TRUE, null, "x"));
+		Map<String, Object> a = new LinkedHashMap<String, Object>();
+		a.put("c", Boolean.FALSE);
+		a.put("d", Collections.emptyList());
+		expected.put("a", a);
+		expected.put("e", Collections.emptyMap());
+		assertEquals(expected, value);
+		assertEquals(Arrays.asList("b", "a", "e"), Arrays.asList(((Map<?, ?>) value).keySet().toArray()));
+		assertNull(SimpleJson.parse("null"));
+	}
+
+	/**
+	 * Numbers are read as Double, with signs, fractions and exponents.
+	 */
+	@Test
+	public void parsesNumbersWithExponents () {
+		assertEquals(0.0, SimpleJson.parse("0"));
+		assertEquals(-0.0, SimpleJson.parse("-0"));
+		assertEquals(42.0, SimpleJson.parse("42"));
+		assertEquals(-3.25, SimpleJson.parse("-3.25"));
+		assertEquals(1.5e3, SimpleJson.parse("1.5e3"));
+		assertEquals(2e-4, SimpleJson.parse("2E-4"));
+		assertEquals(7e10, SimpleJson.parse("7e+10"));
+		List<?> array = (List<?>) SimpleJson.parse("[1e2,-1E-2]");
+		assertEquals(Arrays.asList(100.0, -0.01), array);
+	}
+
+	/**
+	 * The escapes of JSON are decoded, including unicode escapes and surrogate pairs.
+	 */
+	@Test
+	public void parsesEscapesAndUnicode () {
+		assertEquals("\" \\ / \b \f \n \r \t", SimpleJson.parse("\"\\\" \\\\ \\/ \\b \\f \\n \\r \\t\""));
+		assertEquals("K\u00e4lte \u00b0C", SimpleJson.parse("\"K\\u00e4lte \\u00B0C\""));
+		assertEquals("\ud83d\ude00", SimpleJson.parse("\"\\ud83d\\ude00\""));
+		assertEquals("K\u00e4lte \ud83d\ude00", SimpleJson.parse("\"K\u00e4lte \ud83d\ude00\""));
+	}
+
+	/**
+	 * A quoted string parses back to itself, with control characters, quotes, backslashes and non-ASCII characters.
+	 */
+	@Test
+	public void quoteRoundTrips () {
+		StringBuilder controls = new StringBuilder();
+		for (char c = 0; c < ' '; c++) {
+			controls.append(c);
+		}
+		String[] strings = {"", "plain", "\"quoted\"", "back\\slash", "line\nbreak\r\ttab", controls.toString(),
+				"K\u00e4lte \u00b0C \u20ac \ud83d\ude00", "/ \u007f \u2028"};
+		for (String string : strings) {
+			assertEquals(string, SimpleJson.parse(SimpleJson.quote(string)));
+		}
+		assertEquals("\"a\\\"b\\\\c\\nd\\u0001\"", SimpleJson.quote("a\"b\\c\nd\u0001"));
+	}
+
+	/**
+	 * Malformed texts are rejected with an IllegalArgumentException at the position of the offending character.
+	 */
+	@Test
+	public void malformedInputIsRejectedWithPosition () {
+		assertRejected("", 0);
+		assertRejected("   ", 3);
+		assertRejected("{\"a\": 1", 7);
+		assertRejected("{\"a\" 1}", 5);
+		assertRejected("{a: 1}", 1);
+		assertRejected("{\"a\": 1,}", 8);
+		assertRejected("{\"a\": 1 \"b\": 2}", 8);
+		assertRejected("[1, 2", 5);
+		assertRejected("[1 2]", 3);
+		assertRejected("[1,]", 3);
+		assertRejected("[tru]", 1);
+		assertRejected("\"open", 5);
+		assertRejected("\"a\\", 3);
+		assertRejected("\"a\\x\"", 3);
+		assertRejected("\"\\u12g4\"", 2);
+		assertRejected("\"\\u12", 2);
+		assertRejected("\"line\nbreak\"", 5);
+		assertRejected("1 2", 2);
+		assertRejected("{} x", 3);
+	}
+
+	/**
+	 * Numbers outside the JSON format are rejected at their start.
+	 */
+	@Test
+	public void malformedNumbersAreRejected () {
+		for (String number : new String[] {"+1", "01", ".5", "1.", "1e", "1e+", "-", "--1", "1.2.3", "1e5e5"}) {
+			assertRejected(number, 0);
+		}
+		assertRejected("[1, -.5]", 4);
+		// a number ends at the first character outside the format, the rest is unexpected content
+		assertRejected("0x10", 1);
+	}
+}